@@ -111,6 +111,22 @@ define(['util/formatters'], function(F) {
                 }
             },
         },
+        {
+            type: 'document-export',
+            kind: 'longRunningProcess',
+            allowCancel: false,
+            titleRenderer: function(el, process) {
+                el.textContent = process.fileName;
+                if (process.progress == 1) {
+                    $('<div>')
+                        .html('<button style="margin: 5px;" class="btn btn-xs btn-raised btn-success">Download</button>')
+                        .on('click', function() {
+                            window.open('search/export/download?' + $.param({ exportId: process.exportId }));
+                        })
+                        .appendTo(el);
+                }
+            },
+        },
         {
             type: 'structured-ingest',
             kind: 'longRunningProcess',
@@ -171,6 +187,16 @@ define(['util/formatters'], function(F) {
                 el.textContent = i18n('activity.tasks.type.restore-elements.content', process.savedSearchName);
             },
             finishedComponentPath: 'admin/bundled/data/delete/deleteRestoreActivityResult'
+        },
+
+        {
+            type: 'workspace-undo',
+            kind: 'longRunningProcess',
+            allowCancel: false,
+            titleRenderer: function(el, process) {
+                el.textContent = i18n('activity.tasks.type.workspace-undo');
+            },
+            finishedComponentPath: 'workspaces/diff/undoActivityResult'
         }
 
     ];
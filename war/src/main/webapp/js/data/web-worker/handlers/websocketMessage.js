@@ -113,6 +113,11 @@ define([
                     store.getStore().dispatch(actions.deleteElements({ edgeIds: [data.edgeId] }));
                 });
             },
+            elementsDeleted: function(data) {
+                require(['../store/element/actions-impl'], function(actions) {
+                    store.getStore().dispatch(actions.deleteElements({ vertexIds: data.vertexIds, edgeIds: data.edgeIds }));
+                });
+            },
             textUpdated: function(data) {
                 if (data.graphVertexId &&
                     (!data.workspaceId ||
@@ -156,6 +156,22 @@ define(['../util/ajax'], function(ajax) {
 
         execCypherQuery: function(q, size, offset) {
             return ajax('POST', '/search/cypher', { code: q, size, offset })
+        },
+
+        /**
+         * Start a background export of search results. Progress shows in
+         * the activity panel, which offers the download when finished.
+         *
+         * @param {string} type One of `word`, `xls`, `xml` or `pdf`
+         * @param {string} url The search url
+         * @param {object} parameters The search parameters
+         */
+        'export': function(type, url, parameters) {
+            return ajax('POST', '/search/export', {
+                type: type,
+                url: url,
+                parameters: JSON.stringify(parameters)
+            });
         }
 
     };
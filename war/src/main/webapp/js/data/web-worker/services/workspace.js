@@ -62,12 +62,15 @@ define([
          * Get the current sandboxed unpublished changes in workspace
          *
          * @param {string} [workspaceId]
+         * @param {string} [since] Cursor from a previous diff, to only get the elements changed since
          */
-        diff: function(workspaceId) {
-            var workspaces = getStore().getState().workspace;
-            return ajax('GET', '/workspace/diff', {
-                workspaceId: workspaceId || workspaces.currentId
-            });
+        diff: function(workspaceId, since) {
+            var workspaces = getStore().getState().workspace,
+                params = { workspaceId: workspaceId || workspaces.currentId };
+            if (since) {
+                params.since = since;
+            }
+            return ajax('GET', '/workspace/diff', params);
         },
 
         getOrCreate: function() {
@@ -46,44 +46,65 @@ define([
 ], function(actions, ajax, elementActions, elementSelectors, workspaceActions, selectionActions, selectors, registry) {
     actions.protectFromMain();
 
+    const EXTENDED_DATA_PAGE_SIZE = 1000;
+
     const api = {
         get: ({productId, invalidate = false, includeExtended = true }) => (dispatch, getState) => {
             const state = getState();
             const workspaceId = state.workspace.currentId;
             const { products } = state.product.workspaces[workspaceId];
             const product = products[productId];
-            let request;
-
-            const options = { productId, includeExtended };
-            if (includeExtended) {
-                options.params = {
-                    includeVertices: true,
-                    includeEdges: true
-                }
-            }
+            let shouldRequest = false;
 
             if (!invalidate && product) {
-                if (!product.extendedData && includeExtended) {
-                    request = ajax('GET', '/product', options);
-                }
+                shouldRequest = !product.extendedData && includeExtended;
             } else if (invalidate || !product) {
-                request = ajax('GET', '/product', options);
+                shouldRequest = true;
+            }
+
+            if (!shouldRequest) {
+                return;
             }
 
-            if (request) {
-                request.then(function(product) {
+            // Extended data arrives in pages of vertices so large products start rendering before everything is
+            // loaded, edges come with the last page
+            const requestPage = (offset, previous) => {
+                const options = { productId, includeExtended };
+                if (includeExtended) {
+                    options.params = {
+                        includeVertices: true,
+                        includeEdges: true,
+                        offset,
+                        size: EXTENDED_DATA_PAGE_SIZE
+                    }
+                }
+
+                return ajax('GET', '/product', options).then(function(product) {
+                    if (!includeExtended) {
+                        dispatch(api.update(product));
+                        return;
+                    }
+
+                    const { vertices, edges, nextOffset } = product.extendedData;
+                    product.extendedData = {
+                        vertices: { ...(previous && previous.vertices), ...vertices },
+                        edges: { ...(previous && previous.edges), ...edges }
+                    };
                     dispatch(api.update(product));
 
-                    if (includeExtended) {
-                        const { vertices, edges } = product.extendedData;
-                        const vertexIds = Object.keys(vertices);
-                        const edgeIds = Object.keys(edges);
-                        const includeAncillary = _.any(vertices, ({ancillary}) => ancillary === true)
+                    const vertexIds = Object.keys(vertices);
+                    const edgeIds = Object.keys(edges);
+                    const includeAncillary = _.any(vertices, ({ancillary}) => ancillary === true)
 
-                        dispatch(elementActions.get({ workspaceId, vertexIds, edgeIds, includeAncillary }));
+                    dispatch(elementActions.get({ workspaceId, vertexIds, edgeIds, includeAncillary }));
+
+                    if (_.isNumber(nextOffset)) {
+                        return requestPage(nextOffset, product.extendedData);
                     }
                 })
-            }
+            };
+
+            requestPage(0);
         },
 
         updateNeedsLayout: ({productId, needsLayout}) => (dispatch, getState) => {
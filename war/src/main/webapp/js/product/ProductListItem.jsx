@@ -44,6 +44,8 @@ define([
 ], function (createReactClass, PropTypes, DroppableHOC, bcApi, dnd) {
 
     const MaxTitleLength = 128;
+    // Preview circle is 2.5em, ask for the scaled copy that stays sharp on high density screens
+    const PreviewWidth = 80;
     const ProductListItem = createReactClass({
         propTypes: {
             selected: PropTypes.string,
@@ -85,7 +87,7 @@ define([
             const {id, kind, title, workspaceId} = product;
             const isSelected = selected === id;
             const previewStyle = previewHash ? {
-                  backgroundImage: `url(product/preview?productId=${encodeURIComponent(id)}&workspaceId=${encodeURIComponent(workspaceId)}&md5=${previewHash})`
+                  backgroundImage: `url(product/preview?productId=${encodeURIComponent(id)}&workspaceId=${encodeURIComponent(workspaceId)}&md5=${previewHash}&width=${PreviewWidth})`
             } : {};
             const buttons = loading ?
                 ([
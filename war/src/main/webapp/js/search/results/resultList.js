@@ -392,13 +392,11 @@ define([
                 return;
             }
 
-            for (var i=0; i < selection.vertexIds.length; i++) {
-                self.dataRequest('vertex', 'delete', selection.vertexIds[i]);
-            }
-
-            for (var i=0; i < selection.edgeIds.length; i++) {
-                self.dataRequest('edge', 'delete', selection.edgeIds[i]);
-            }
+            self.dataRequest('vertex', 'deleteMultiple', _.map(selection.vertexIds, function(id) {
+                return { type: 'vertex', id: id };
+            }).concat(_.map(selection.edgeIds, function(id) {
+                return { type: 'edge', id: id };
+            })));
         };
 
         this.onChangePage = function(event, data) {
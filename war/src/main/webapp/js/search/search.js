@@ -301,22 +301,10 @@ define([
             }
 
             if (search) {
-                const csrfToken = bcData.currentUser.csrfToken;
-                const workspaceId = bcData.currentWorkspaceId;
-                this.exportFile('search/export', exportType, search.url, search.parameters, csrfToken, workspaceId);
+                this.dataRequest('search', 'export', exportType, search.url, search.parameters);
             }
         };
 
-        this.exportFile = function(serviceUrl, exportType, searchUrl, searchParameters, csrfToken, workspaceId) {
-            const form = $('<form></form>').attr('action', serviceUrl).attr('method', 'post').attr('target', '_blank');
-            form.append($('<input></input>').attr('type', 'hidden').attr('name', 'type').attr('value', exportType));
-            form.append($('<input></input>').attr('type', 'hidden').attr('name', 'url').attr('value', searchUrl));
-            form.append($('<input></input>').attr('type', 'hidden').attr('name', 'parameters').attr('value', JSON.stringify(searchParameters)));
-            form.append($('<input></input>').attr('type', 'hidden').attr('name', 'csrfToken').attr('value', csrfToken));
-            form.append($('<input></input>').attr('type', 'hidden').attr('name', 'workspaceId').attr('value', workspaceId));
-            form.appendTo('body').submit().remove();
-        };
-
         this.onRefresh = function(event) {
             if (this.select('querySelector').val().length) {
                 $('.panel-filters').show();
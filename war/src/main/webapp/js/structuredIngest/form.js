@@ -1196,6 +1196,7 @@ define([
                                 previewTemplate({
                                     elements: elements,
                                     didTruncate: result.didTruncate,
+                                    estimated: result.estimated,
                                     processedRows: F.number.pretty(result.processedRows)
                                 })
                             )
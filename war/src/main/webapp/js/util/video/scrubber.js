@@ -74,8 +74,6 @@ define([
                 .toggleClass('disableScrubbing', true)
                 .toggleClass('allowPlayback', false);
 
-            this.setVideoPreviewBackgroundImage = _.once(this.setVideoPreviewBackgroundImage.bind(this));
-
             Promise.all([
                 this.dataRequest('config', 'properties'),
                 this.loadPosterFrame()
@@ -182,8 +180,7 @@ define([
 
                 this.loadVideoPreview()
                     .then(function(previewDimensions) {
-                        self.videoPreviewImageDimensions = previewDimensions;
-                        self.videoPreviewFrameImageDimensions = [previewDimensions[0] / NUMBER_FRAMES, previewDimensions[1]];
+                        self.videoPreviewFrameImageDimensions = previewDimensions;
 
                         self.on('mousemove', {
                             scrubbingLineSelector: function(e) {
@@ -225,7 +222,14 @@ define([
         };
 
         this.loadVideoPreview = function() {
-            return this.loadImageUrl(this.attr.videoPreviewImageUrl);
+            return this.loadImageUrl(this.frameUrl(0));
+        };
+
+        // frames are sliced from the preview strip server side, so scrubbing only fetches the frames shown
+        this.frameUrl = function(index) {
+            var url = this.attr.videoPreviewImageUrl,
+                frame = Math.max(0, Math.min(NUMBER_FRAMES - 1, index || 0));
+            return url + (~url.indexOf('?') ? '&' : '?') + 'frame=' + frame;
         };
 
         this.loadImageUrl = function(url) {
@@ -243,30 +247,18 @@ define([
             return Promise.reject(new Error('Expected url to be defined.'));
         }
 
-        this.setVideoPreviewBackgroundImage = function() {
-            this.select('backgroundScrubberSelector').css({
-                backgroundImage: 'url(' + this.attr.videoPreviewImageUrl + ')'
-            });
-        };
-
         this.showFrames = function(index) {
             if (index === this.currentFrame || !this.attr.videoPreviewImageUrl || this.videoStarted) {
                 return;
             }
 
             var css = {
-                backgroundRepeat: 'repeat-x',
+                backgroundImage: 'url(' + this.frameUrl(index) + ')',
+                backgroundRepeat: 'no-repeat',
                 backgroundSize: 'auto 100%',
-                backgroundPosition: [
-                    this.videoPreviewFrameImageDimensions[0] *
-                    this.scaledDimensions[1] / this.videoPreviewFrameImageDimensions[1] *
-                    (index || 0) * -1,
-                    '0'
-                ].map(toPixels).join(' ')
+                backgroundPosition: 'center'
             };
 
-            this.setVideoPreviewBackgroundImage();
-
             var $preview = this.select('backgroundScrubberSelector').css(css).show();
             this.select('backgroundPosterSelector').hide();
             this.showing = FRAMES;
@@ -589,6 +589,12 @@ define([
                     self.trigger(document, 'updateDiff');
                 })
                 .then(function(response) {
+                    if (response.longRunningProcessId) {
+                        // large undos continue in the background, progress is shown in the activity panel
+                        self.trigger('toggleDiffPanel');
+                        return;
+                    }
+
                     var failures = response.failures,
                         success = response.success,
                         nextDiffs = self.buildNextDiffs(type, failures);
@@ -0,0 +1,70 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+
+define([
+    'flight/lib/component'
+], function(defineComponent) {
+    'use strict';
+
+    return defineComponent(UndoActivityResult);
+
+    function UndoActivityResult() {
+        this.after('teardown', function() {
+            this.$node.empty();
+        });
+
+        this.after('initialize', function() {
+            this.loadDefaultContent();
+            this.trigger(document, 'updateDiff');
+        });
+
+        this.loadDefaultContent = function() {
+            var process = this.attr.process,
+                failureCount = process.failureCount || 0,
+                failures = process.failures || [],
+                $resultText = $('<span>');
+
+            if (failureCount) {
+                $resultText
+                    .text(i18n('activity.tasks.type.workspace-undo.failures', failureCount))
+                    .prop('title', _.pluck(failures, 'errorMessage').join('\n'));
+            } else {
+                $resultText.text(i18n('activity.tasks.type.workspace-undo.success'));
+            }
+            this.$node.empty().append($resultText);
+        };
+    }
+});
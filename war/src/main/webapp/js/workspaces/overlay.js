@@ -168,6 +168,8 @@ define([
         this.onSwitchWorkspace = function(event, data) {
             if (this.previousWorkspace !== data.workspaceId) {
                 this.previousDiff = null;
+                this.diffCursor = null;
+                this.workspaceDiffs = null;
                 this.$node.find('.badge').popover('destroy').remove();
             }
         };
@@ -187,6 +189,19 @@ define([
             );
         };
 
+        this.mergeDiff = function({ diffs, full, changedElementIds, cursor }) {
+            if (full !== false) {
+                this.workspaceDiffs = diffs;
+            } else {
+                const changedIds = new Set(changedElementIds);
+                this.workspaceDiffs = this.workspaceDiffs
+                    .filter(diff => !changedIds.has(diff.vertexId || diff.edgeId || diff.elementId))
+                    .concat(diffs);
+            }
+            this.diffCursor = cursor;
+            return this.workspaceDiffs;
+        };
+
         this.updateDiffBadge = function(event, data) {
             var self = this,
                 node = this.select('nameSelector'),
@@ -199,9 +214,10 @@ define([
             }
 
             Promise.all([
-                this.dataRequest('workspace', 'diff'),
+                this.dataRequest('workspace', 'diff', null, this.workspaceDiffs ? this.diffCursor : null),
                 this.dataRequest('ontology', 'ontology')
-            ]).spread(function({ diffs }, { properties: ontologyProperties, concepts: ontologyConcepts }) {
+            ]).spread(function(diffResponse, { properties: ontologyProperties, concepts: ontologyConcepts }) {
+                const diffs = self.mergeDiff(diffResponse);
                 const sameDiff = self.previousDiff && _.isEqual(diffs, self.previousDiff);
 
                 if (sameDiff) {
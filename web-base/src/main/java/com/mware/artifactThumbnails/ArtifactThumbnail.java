@@ -36,6 +36,8 @@
  */
 package com.mware.artifactThumbnails;
 
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hashing;
 import com.mware.core.orm.Entity;
 import com.mware.core.orm.Field;
 import com.mware.core.orm.Id;
@@ -57,6 +59,11 @@ public class ArtifactThumbnail {
     @Field
     private String format;
 
+    @Field
+    private String sourceVersion;
+
+    private transient String dataHash;
+
     // Used by SimpleOrm to create instance
     @SuppressWarnings("UnusedDeclaration")
     protected ArtifactThumbnail() {
@@ -81,6 +88,24 @@ public class ArtifactThumbnail {
                 + ":" + StringUtils.leftPad(Integer.toString(height), 8, '0');
     }
 
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Combines the thumbnail id with the hash of the image it was made from. Falls back to hashing the thumbnail
+     * bytes when the source hash is unknown.
+     */
+    public String createETag(String sourceHash) {
+        if (sourceHash == null) {
+            if (dataHash == null) {
+                dataHash = Hashing.sha256().hashBytes(getData()).toString();
+            }
+            sourceHash = dataHash;
+        }
+        return Hashing.sha256().hashString(id + "|" + sourceHash, Charsets.UTF_8).toString();
+    }
+
     public byte[] getData() {
         return data;
     }
@@ -89,6 +114,17 @@ public class ArtifactThumbnail {
         return format;
     }
 
+    /**
+     * Version of the vertex content the thumbnail was made from, null for thumbnails stored before it was tracked.
+     */
+    public String getSourceVersion() {
+        return sourceVersion;
+    }
+
+    public void setSourceVersion(String sourceVersion) {
+        this.sourceVersion = sourceVersion;
+    }
+
     public BufferedImage getImage() {
         try {
             byte[] data = getData();
@@ -36,27 +36,43 @@
  */
 package com.mware.artifactThumbnails;
 
+import com.codahale.metrics.Counter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Iterables;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import com.mware.config.WebOptions;
+import com.mware.core.config.Configuration;
+import com.mware.core.exception.BcException;
 import com.mware.core.exception.BcResourceNotFoundException;
+import com.mware.core.model.properties.BcSchema;
+import com.mware.core.model.properties.RawObjectSchema;
 import com.mware.core.model.properties.types.BooleanBcProperty;
 import com.mware.core.model.properties.types.IntegerBcProperty;
 import com.mware.core.model.schema.SchemaRepository;
 import com.mware.core.model.user.UserRepository;
 import com.mware.core.orm.SimpleOrmContext;
 import com.mware.core.orm.SimpleOrmSession;
+import com.mware.core.status.JmxMetricsManager;
 import com.mware.core.user.User;
 import com.mware.core.util.BcLogger;
 import com.mware.core.util.BcLoggerFactory;
 import com.mware.ge.Authorizations;
+import com.mware.ge.Property;
 import com.mware.ge.Vertex;
+import com.mware.web.ServiceUnavailableException;
 
-import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.mware.core.model.schema.SchemaRepository.PUBLIC;
@@ -65,8 +81,13 @@ import static com.mware.core.model.schema.SchemaRepository.PUBLIC;
 public class ArtifactThumbnailRepository {
     private static final BcLogger LOGGER = BcLoggerFactory.getLogger(ArtifactThumbnailRepository.class);
     private static final String VISIBILITY_STRING = "";
+    private static final int SPRITE_NATIVE_TARGET_SIZE = 1 << 16;
     private final SimpleOrmSession simpleOrmSession;
     private final UserRepository userRepository;
+    private final ImageScalingService imageScalingService;
+    private final Cache<String, ArtifactThumbnail> thumbnailCache;
+    private final ConcurrentMap<String, CompletableFuture<ArtifactThumbnail>> inFlight = new ConcurrentHashMap<>();
+    private final Counter collapsedCounter;
     private BooleanBcProperty yAxisFlippedProperty;
     private IntegerBcProperty clockwiseRotationProperty;
 
@@ -74,10 +95,19 @@ public class ArtifactThumbnailRepository {
     public ArtifactThumbnailRepository(
             SimpleOrmSession simpleOrmSession,
             UserRepository userRepository,
-            final SchemaRepository schemaRepository
+            final SchemaRepository schemaRepository,
+            Configuration configuration,
+            JmxMetricsManager metricsManager,
+            ImageScalingService imageScalingService
     ) {
         this.simpleOrmSession = simpleOrmSession;
         this.userRepository = userRepository;
+        this.imageScalingService = imageScalingService;
+        this.thumbnailCache = CacheBuilder.newBuilder()
+                .maximumWeight(configuration.get(WebOptions.THUMBNAIL_CACHE_MAX_BYTES))
+                .<String, ArtifactThumbnail>weigher((key, thumbnail) -> key.length() + thumbnail.getData().length)
+                .build();
+        this.collapsedCounter = metricsManager.counter("thumbnail.generation.collapsed");
 
         String yAxisFlippedPropertyName = schemaRepository.getPropertyNameByIntent("media.yAxisFlipped", PUBLIC);
         if (yAxisFlippedPropertyName != null) {
@@ -90,7 +120,7 @@ public class ArtifactThumbnailRepository {
         }
     }
 
-    public ArtifactThumbnail getThumbnail(String artifactVertexId,
+    public ArtifactThumbnail getThumbnail(Vertex artifactVertex,
                                           String thumbnailType,
                                           int width,
                                           int height,
@@ -99,18 +129,241 @@ public class ArtifactThumbnailRepository {
         final SimpleOrmContext ormContext = authorizations != null
                 ? userRepository.getSimpleOrmContext(authorizations.getAuthorizations())
                 : userRepository.getSimpleOrmContext(user);
-        String id = ArtifactThumbnail.createId(artifactVertexId, thumbnailType, width, height);
-        return simpleOrmSession.findById(ArtifactThumbnail.class, id, ormContext);
+        String id = ArtifactThumbnail.createId(artifactVertex.getId(), thumbnailType, width, height);
+        ArtifactThumbnail thumbnail = thumbnailCache.getIfPresent(cacheKey(id, artifactVertex));
+        if (thumbnail == null) {
+            thumbnail = simpleOrmSession.findById(ArtifactThumbnail.class, id, ormContext);
+            if (thumbnail != null && thumbnail.getSourceVersion() != null
+                    && !thumbnail.getSourceVersion().equals(getSourceVersion(artifactVertex))) {
+                LOGGER.debug("Thumbnail %s was made from an older version of the vertex content", id);
+                return null;
+            }
+            cache(thumbnail, artifactVertex);
+        }
+        return thumbnail;
+    }
+
+    private void cache(ArtifactThumbnail thumbnail, Vertex artifactVertex) {
+        if (thumbnail != null && thumbnail.getData() != null) {
+            thumbnailCache.put(cacheKey(thumbnail.getId(), artifactVertex), thumbnail);
+        }
+    }
+
+    /**
+     * Thumbnail ids only name the vertex, type and size, so the memory cache also keys on the version of the
+     * vertex content and stored thumbnails record the version they were made from. A replaced raw value then
+     * misses both and the thumbnail is generated again.
+     */
+    private static String cacheKey(String thumbnailId, Vertex artifactVertex) {
+        return thumbnailId + "|" + getSourceVersion(artifactVertex);
+    }
+
+    private static String getSourceVersion(Vertex artifactVertex) {
+        String contentHash = Iterables.getFirst(RawObjectSchema.CONTENT_HASH.getPropertyValues(artifactVertex), null);
+        if (contentHash != null) {
+            return contentHash;
+        }
+        Property rawProperty = BcSchema.RAW.getProperty(artifactVertex);
+        return rawProperty == null ? "" : Long.toString(rawProperty.getTimestamp());
     }
 
-    public byte[] getThumbnailData(String artifactVertexId, String thumbnailType, int width, int height, User user) {
-        ArtifactThumbnail artifactThumbnail = getThumbnail(artifactVertexId, thumbnailType, width, height, user, null);
+    /**
+     * Strong validator for a thumbnail of the given vertex. Uses the content hash of the vertex raw value when there
+     * is one, otherwise the thumbnail bytes.
+     */
+    public String getETag(ArtifactThumbnail thumbnail, Vertex artifactVertex) {
+        String contentHash = Iterables.getFirst(RawObjectSchema.CONTENT_HASH.getPropertyValues(artifactVertex), null);
+        return thumbnail.createETag(contentHash);
+    }
+
+    public byte[] getThumbnailData(Vertex artifactVertex, String thumbnailType, int width, int height, User user) {
+        ArtifactThumbnail artifactThumbnail = getThumbnail(artifactVertex, thumbnailType, width, height, user, null);
         if (artifactThumbnail == null) {
             return null;
         }
         return artifactThumbnail.getData();
     }
 
+    /**
+     * Returns the stored thumbnail or generates and stores it. Concurrent calls for the same vertex, type and size
+     * wait for a single generation; generations across all keys are bounded by the {@link ImageScalingService} pool.
+     */
+    public ArtifactThumbnail getOrCreateThumbnail(Vertex artifactVertex,
+                                                  String propertyKey,
+                                                  String thumbnailType,
+                                                  ThumbnailSource source,
+                                                  int[] boundaryDims,
+                                                  User user,
+                                                  Authorizations authorizations) {
+        String id = ArtifactThumbnail.createId(artifactVertex.getId(), thumbnailType, boundaryDims[0], boundaryDims[1]);
+        CompletableFuture<ArtifactThumbnail> future = new CompletableFuture<>();
+        CompletableFuture<ArtifactThumbnail> existing = inFlight.putIfAbsent(id, future);
+        if (existing != null) {
+            collapsedCounter.inc();
+            return await(existing, id);
+        }
+
+        try {
+            ArtifactThumbnail thumbnail = getThumbnail(artifactVertex, thumbnailType, boundaryDims[0], boundaryDims[1], user, authorizations);
+            if (thumbnail == null || thumbnail.getData() == null) {
+                thumbnail = generateThumbnail(artifactVertex, propertyKey, thumbnailType, source, boundaryDims);
+                saveThumbnail(thumbnail, artifactVertex, user, authorizations);
+            }
+            future.complete(thumbnail);
+            return thumbnail;
+        } catch (RuntimeException ex) {
+            future.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(id, future);
+        }
+    }
+
+    /**
+     * Returns one frame of a sprite strip made of {@code frameCount} equally wide frames laid out left to right.
+     * The first request for a strip decodes it once and stores every frame, as {@code thumbnailType-<index>}, so
+     * the following frames are served from the thumbnail cache. A bound of 0 keeps the frames at their strip size.
+     */
+    public ArtifactThumbnail getOrCreateSpriteFrame(Vertex artifactVertex,
+                                                    String thumbnailType,
+                                                    ThumbnailSource source,
+                                                    int frameCount,
+                                                    int frameIndex,
+                                                    int bound,
+                                                    User user,
+                                                    Authorizations authorizations) {
+        String frameType = spriteFrameType(thumbnailType, frameIndex);
+        ArtifactThumbnail frame = getThumbnail(artifactVertex, frameType, bound, bound, user, authorizations);
+        if (frame != null && frame.getData() != null) {
+            return frame;
+        }
+
+        String id = ArtifactThumbnail.createId(artifactVertex.getId(), thumbnailType + "-frames", bound, bound);
+        CompletableFuture<ArtifactThumbnail> future = new CompletableFuture<>();
+        CompletableFuture<ArtifactThumbnail> existing = inFlight.putIfAbsent(id, future);
+        if (existing != null) {
+            collapsedCounter.inc();
+            await(existing, id);
+        } else {
+            try {
+                frame = getThumbnail(artifactVertex, frameType, bound, bound, user, authorizations);
+                if (frame == null || frame.getData() == null) {
+                    for (ArtifactThumbnail thumbnail : generateSpriteFrames(artifactVertex.getId(), thumbnailType, source, frameCount, bound)) {
+                        saveThumbnail(thumbnail, artifactVertex, user, authorizations);
+                    }
+                }
+                future.complete(null);
+            } catch (RuntimeException ex) {
+                future.completeExceptionally(ex);
+                throw ex;
+            } finally {
+                inFlight.remove(id, future);
+            }
+        }
+        return getThumbnail(artifactVertex, frameType, bound, bound, user, authorizations);
+    }
+
+    private List<ArtifactThumbnail> generateSpriteFrames(String artifactVertexId, String thumbnailType, ThumbnailSource source, int frameCount, int bound) {
+        try {
+            List<ArtifactThumbnail> frames = imageScalingService.process(source, bound > 0 ? bound : SPRITE_NATIVE_TARGET_SIZE, strip -> {
+                int type = ImageUtils.thumbnailType(strip);
+                String format = ImageUtils.thumbnailFormat(strip);
+                Color background = "png".equals(format) ? null : Color.BLACK;
+                int frameWidth = strip.getWidth() / frameCount;
+                int frameHeight = strip.getHeight();
+                int[] frameDims = bound > 0
+                        ? ImageUtils.getScaledDimension(frameWidth, frameHeight, bound, bound)
+                        : new int[]{frameWidth, frameHeight};
+
+                List<ArtifactThumbnail> result = new ArrayList<>();
+                for (int i = 0; i < frameCount; i++) {
+                    BufferedImage frame = strip.getSubimage(i * frameWidth, 0, frameWidth, frameHeight);
+                    BufferedImage scaledFrame = ImageUtils.scaleImage(frame, frameDims[0], frameDims[1], type, background);
+                    byte[] data = imageScalingService.encode(scaledFrame, format, ImageScalingService.JpegQuality.THUMBNAIL.getQuality());
+                    result.add(new ArtifactThumbnail(artifactVertexId, spriteFrameType(thumbnailType, i), data, format, bound, bound));
+                }
+                return result;
+            });
+            checkNotNull(frames, "Could not read sprite image for artifact " + artifactVertexId);
+            return frames;
+        } catch (IOException e) {
+            throw new BcResourceNotFoundException("Error reading InputStream");
+        }
+    }
+
+    private static String spriteFrameType(String thumbnailType, int frameIndex) {
+        return thumbnailType + "-" + frameIndex;
+    }
+
+    private ArtifactThumbnail await(CompletableFuture<ArtifactThumbnail> future, String id) {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new BcException("Interrupted while waiting for thumbnail " + id, ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new BcException("Could not generate thumbnail " + id, ex.getCause());
+        }
+    }
+
+    /**
+     * Background variant of {@link #getOrCreateThumbnail}: decodes the image once and stores every size that is
+     * missing. Only submits to the scaling pool while no other job is waiting for it.
+     *
+     * @return false if the scaling pool is busy and the caller should retry later
+     */
+    public boolean tryCreateThumbnails(Vertex artifactVertex,
+                                       String propertyKey,
+                                       String thumbnailType,
+                                       ThumbnailSource source,
+                                       List<int[]> boundaryDimsList,
+                                       User user,
+                                       Authorizations authorizations) {
+        List<int[]> missing = new ArrayList<>();
+        for (int[] boundaryDims : boundaryDimsList) {
+            if (getThumbnail(artifactVertex, thumbnailType, boundaryDims[0], boundaryDims[1], user, authorizations) == null) {
+                missing.add(boundaryDims);
+            }
+        }
+        if (missing.isEmpty()) {
+            return true;
+        }
+
+        if (imageScalingService.hasQueuedJobs()) {
+            return false;
+        }
+        try {
+            int largest = 0;
+            for (int[] boundaryDims : missing) {
+                largest = Math.max(largest, Math.max(boundaryDims[0], boundaryDims[1]));
+            }
+            List<ArtifactThumbnail> thumbnails = imageScalingService.process(source, largest, originalImage -> {
+                BufferedImage transformedImage = getTransformedImage(originalImage, artifactVertex, propertyKey);
+                List<ArtifactThumbnail> result = new ArrayList<>();
+                for (int[] boundaryDims : missing) {
+                    result.add(toThumbnail(artifactVertex.getId(), thumbnailType, transformedImage,
+                            ImageUtils.thumbnailType(originalImage), ImageUtils.thumbnailFormat(originalImage), boundaryDims));
+                }
+                return result;
+            });
+            if (thumbnails == null) {
+                LOGGER.debug("Not pre-generating thumbnails for %s, the raw value is not a readable image", artifactVertex.getId());
+                return true;
+            }
+            for (ArtifactThumbnail thumbnail : thumbnails) {
+                saveThumbnail(thumbnail, artifactVertex, user, authorizations);
+            }
+            return true;
+        } catch (ServiceUnavailableException ex) {
+            return false;
+        } catch (IOException ex) {
+            throw new BcException("Could not read image for thumbnails of " + artifactVertex.getId(), ex);
+        }
+    }
+
     public ArtifactThumbnail createThumbnail(Vertex artifactVertex,
                                              String propertyKey,
                                              String thumbnailType,
@@ -119,55 +372,58 @@ public class ArtifactThumbnailRepository {
                                              User user,
                                              Authorizations authorizations) {
         ArtifactThumbnail thumbnail = generateThumbnail(artifactVertex, propertyKey, thumbnailType, in, boundaryDims);
+        saveThumbnail(thumbnail, artifactVertex, user, authorizations);
+        return thumbnail;
+    }
+
+    private void saveThumbnail(ArtifactThumbnail thumbnail, Vertex artifactVertex, User user, Authorizations authorizations) {
         final SimpleOrmContext ormContext = authorizations != null
                 ? userRepository.getSimpleOrmContext(authorizations.getAuthorizations())
                 : userRepository.getSimpleOrmContext(user);
+        thumbnail.setSourceVersion(getSourceVersion(artifactVertex));
         simpleOrmSession.save(thumbnail, VISIBILITY_STRING, ormContext);
-        return thumbnail;
+        cache(thumbnail, artifactVertex);
     }
 
     public ArtifactThumbnail generateThumbnail(Vertex artifactVertex, String propertyKey, String thumbnailType, InputStream in, int[] boundaryDims) {
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        String format;
-        int type;
-        try {
-            BufferedImage originalImage = ImageIO.read(in);
-            checkNotNull(originalImage, "Could not generateThumbnail: read original image for artifact " + artifactVertex.getId());
-            type = ImageUtils.thumbnailType(originalImage);
-            format = ImageUtils.thumbnailFormat(originalImage);
-
-            BufferedImage transformedImage = getTransformedImage(originalImage, artifactVertex, propertyKey);
-
-            //Get new image dimensions, which will be used for the icon.
-            int[] transformedImageDims = new int[]{transformedImage.getWidth(), transformedImage.getHeight()};
-            int[] newImageDims = getScaledDimension(transformedImageDims, boundaryDims);
-            if (newImageDims[0] >= transformedImageDims[0] || newImageDims[1] >= transformedImageDims[1]) {
-                LOGGER.info("Original image dimensions %d x %d are smaller "
-                                + "than requested dimensions %d x %d returning original.",
-                        transformedImageDims[0], transformedImageDims[1],
-                        newImageDims[0], newImageDims[1]);
-            }
-            //Resize the image.
-            BufferedImage resizedImage = new BufferedImage(newImageDims[0], newImageDims[1], type);
-            Graphics2D g = resizedImage.createGraphics();
-            int width = resizedImage.getWidth();
-            int height = resizedImage.getHeight();
-            if (transformedImage.getColorModel().getNumComponents() != 3) {
-                g.drawImage(transformedImage, 0, 0, width, height, null);
-            } else {
-                g.drawImage(transformedImage, 0, 0, width, height, Color.BLACK, null);
-            }
-            g.dispose();
+        return generateThumbnail(artifactVertex, propertyKey, thumbnailType, () -> in, boundaryDims);
+    }
 
-            //Write the bufferedImage to a file.
-            ImageIO.write(resizedImage, format, out);
+    private ArtifactThumbnail generateThumbnail(Vertex artifactVertex, String propertyKey, String thumbnailType, ThumbnailSource source, int[] boundaryDims) {
+        try {
+            ArtifactThumbnail thumbnail = imageScalingService.process(source, Math.max(boundaryDims[0], boundaryDims[1]), originalImage -> {
+                int type = ImageUtils.thumbnailType(originalImage);
+                String format = ImageUtils.thumbnailFormat(originalImage);
 
-            return new ArtifactThumbnail(artifactVertex.getId(), thumbnailType, out.toByteArray(), format, width, height);
+                BufferedImage transformedImage = getTransformedImage(originalImage, artifactVertex, propertyKey);
+                return toThumbnail(artifactVertex.getId(), thumbnailType, transformedImage, type, format, boundaryDims);
+            });
+            checkNotNull(thumbnail, "Could not generateThumbnail: read original image for artifact " + artifactVertex.getId());
+            return thumbnail;
         } catch (IOException e) {
             throw new BcResourceNotFoundException("Error reading InputStream");
         }
     }
 
+    private ArtifactThumbnail toThumbnail(String artifactVertexId, String thumbnailType, BufferedImage transformedImage, int type, String format, int[] boundaryDims) throws IOException {
+        //Get new image dimensions, which will be used for the icon.
+        int[] transformedImageDims = new int[]{transformedImage.getWidth(), transformedImage.getHeight()};
+        int[] newImageDims = getScaledDimension(transformedImageDims, boundaryDims);
+        if (newImageDims[0] >= transformedImageDims[0] || newImageDims[1] >= transformedImageDims[1]) {
+            LOGGER.info("Original image dimensions %d x %d are smaller "
+                            + "than requested dimensions %d x %d returning original.",
+                    transformedImageDims[0], transformedImageDims[1],
+                    newImageDims[0], newImageDims[1]);
+        }
+        //Resize the image.
+        Color background = transformedImage.getColorModel().getNumComponents() != 3 ? null : Color.BLACK;
+        BufferedImage resizedImage = ImageUtils.scaleImage(transformedImage, newImageDims[0], newImageDims[1], type, background);
+        byte[] data = imageScalingService.encode(resizedImage, format, ImageScalingService.JpegQuality.THUMBNAIL.getQuality());
+
+        // keyed by the requested bounds so lookups by the same bounds find it
+        return new ArtifactThumbnail(artifactVertexId, thumbnailType, data, format, boundaryDims[0], boundaryDims[1]);
+    }
+
     public BufferedImage getTransformedImage(BufferedImage originalImage, Vertex artifactVertex, String propertyKey) {
         int cwRotationNeeded = 0;
         if (clockwiseRotationProperty != null) {
@@ -189,23 +445,9 @@ public class ArtifactThumbnailRepository {
     }
 
     public int[] getScaledDimension(int[] imgSize, int[] boundary) {
-        int originalWidth = imgSize[0];
-        int originalHeight = imgSize[1];
-        int boundWidth = boundary[0];
-        int boundHeight = boundary[1];
-        int newWidth = originalWidth;
-        int newHeight = originalHeight;
-
-        if (originalWidth > boundWidth) {
-            newWidth = boundWidth;
-            newHeight = (newWidth * originalHeight) / originalWidth;
-        }
-
-        if (newHeight > boundHeight) {
-            newHeight = boundHeight;
-            newWidth = (newHeight * originalWidth) / originalHeight;
-        }
+        return ImageUtils.getScaledDimension(imgSize[0], imgSize[1], boundary[0], boundary[1]);
+    }
 
-        return new int[]{newWidth, newHeight};
+    public interface ThumbnailSource extends ImageScalingService.ImageSource {
     }
 }
@@ -0,0 +1,276 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.artifactThumbnails;
+
+import com.codahale.metrics.Counter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.mware.bigconnect.image.ImageTransform;
+import com.mware.bigconnect.image.ImageTransformExtractor;
+import com.mware.config.WebOptions;
+import com.mware.core.config.Configuration;
+import com.mware.core.exception.BcException;
+import com.mware.core.exception.BcResourceNotFoundException;
+import com.mware.core.status.JmxMetricsManager;
+import com.mware.web.ServiceUnavailableException;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodes, scales and encodes images on a dedicated bounded pool instead of the calling request thread. Besides the
+ * thread cap, decodes are admitted against a memory budget estimated from the image header, so a handful of very
+ * large images cannot exhaust the heap between them.
+ */
+@Singleton
+public class ImageScalingService {
+    private static final int BYTES_PER_PIXEL = 4;
+    private static final int QUEUE_FULL_RETRY_AFTER_SECONDS = 1;
+
+    private final ThreadPoolExecutor executor;
+    private final Semaphore memoryPermits;
+    private final int memoryBudgetKb;
+    private final ThreadLocal<Map<String, ImageWriter>> writers = ThreadLocal.withInitial(HashMap::new);
+    private final Counter queuedCounter;
+    private final Counter activeCounter;
+    private final Counter rejectedCounter;
+    private final Counter queueMillisCounter;
+    private final Counter processingMillisCounter;
+
+    public enum JpegQuality {
+        THUMBNAIL(0.75f),
+        PREVIEW(0.85f),
+        DOCUMENT(0.9f);
+
+        private final float quality;
+
+        JpegQuality(float quality) {
+            this.quality = quality;
+        }
+
+        public float getQuality() {
+            return quality;
+        }
+    }
+
+    public interface ImageSource {
+        InputStream open() throws IOException;
+    }
+
+    public interface ImageJob<T> {
+        T apply(BufferedImage image) throws IOException;
+    }
+
+    @Inject
+    public ImageScalingService(Configuration configuration, JmxMetricsManager metricsManager) {
+        int threads = configuration.get(WebOptions.IMAGE_SCALING_THREADS);
+        this.executor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(configuration.get(WebOptions.IMAGE_SCALING_QUEUE_SIZE)),
+                new ThreadFactoryBuilder()
+                        .setNameFormat("image-scaling-%d")
+                        .setDaemon(true)
+                        .build()
+        );
+        this.memoryBudgetKb = (int) Math.min(Integer.MAX_VALUE, Math.max(1, configuration.get(WebOptions.IMAGE_SCALING_MEMORY_BUDGET) / 1024));
+        this.memoryPermits = new Semaphore(memoryBudgetKb, true);
+
+        this.queuedCounter = metricsManager.counter("image.scaling.queued");
+        this.activeCounter = metricsManager.counter("image.scaling.active");
+        this.rejectedCounter = metricsManager.counter("image.scaling.rejected");
+        this.queueMillisCounter = metricsManager.counter("image.scaling.queueMillis");
+        this.processingMillisCounter = metricsManager.counter("image.scaling.processingMillis");
+    }
+
+    /**
+     * Decodes the image subsampled for {@code targetSize} (see {@link ImageUtils#readSubsampled}) and runs the job
+     * on it, both on the scaling pool. The calling thread waits for the result.
+     *
+     * @return the job result, or null if the source is not a readable image
+     * @throws ServiceUnavailableException if the queue is full, so request handlers answer with a 503
+     */
+    public <T> T process(ImageSource source, int targetSize, ImageJob<T> job) throws IOException {
+        long submittedAt = System.currentTimeMillis();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> run(source, targetSize, job, submittedAt));
+        } catch (RejectedExecutionException ex) {
+            rejectedCounter.inc();
+            throw new ServiceUnavailableException("Image scaling queue is full", QUEUE_FULL_RETRY_AFTER_SECONDS, ex);
+        }
+        queuedCounter.inc();
+
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for image scaling");
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new BcException("Could not scale image", cause);
+        }
+    }
+
+    /**
+     * Whether jobs are waiting for a thread, used by background work to leave the pool to interactive requests.
+     */
+    public boolean hasQueuedJobs() {
+        return !executor.getQueue().isEmpty();
+    }
+
+    private <T> T run(ImageSource source, int targetSize, ImageJob<T> job, long submittedAt) throws IOException {
+        long startedAt = System.currentTimeMillis();
+        queuedCounter.dec();
+        queueMillisCounter.inc(startedAt - submittedAt);
+        activeCounter.inc();
+        int[] reservedKb = new int[1];
+        try {
+            BufferedImage image;
+            try (InputStream in = source.open()) {
+                image = ImageUtils.readSubsampled(in, targetSize, (width, height) -> reservedKb[0] = reserve(width, height));
+            }
+            return image == null ? null : job.apply(image);
+        } finally {
+            memoryPermits.release(reservedKb[0]);
+            activeCounter.dec();
+            processingMillisCounter.inc(System.currentTimeMillis() - startedAt);
+        }
+    }
+
+    private int reserve(int width, int height) throws IOException {
+        // an image larger than the whole budget still gets decoded, just alone
+        int kb = (int) Math.min(memoryBudgetKb, Math.max(1, (long) width * height * BYTES_PER_PIXEL / 1024));
+        try {
+            memoryPermits.acquire(kb);
+            return kb;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for image decode memory");
+        }
+    }
+
+    /**
+     * Scales an encoded image to fit the bounds, honoring its EXIF orientation. Opaque images come back as JPEG,
+     * anything with transparency or gray levels as PNG.
+     */
+    public byte[] resize(byte[] imageData, int maxWidth, int maxHeight, float jpegQuality) {
+        try {
+            byte[] result = process(() -> new ByteArrayInputStream(imageData), Math.max(maxWidth, maxHeight), image -> {
+                ImageTransform imageTransform = ImageTransformExtractor.getImageTransform(imageData);
+                BufferedImage orientedImage = ImageUtils.reOrientImage(image, imageTransform.isYAxisFlipNeeded(), imageTransform.getCWRotationNeeded());
+                return scaleToFit(orientedImage, ImageUtils.thumbnailType(image), ImageUtils.thumbnailFormat(image), maxWidth, maxHeight, jpegQuality);
+            });
+            if (result == null) {
+                throw new BcResourceNotFoundException("Could not load image");
+            }
+            return result;
+        } catch (IOException e) {
+            throw new BcResourceNotFoundException("Could not resize image", e);
+        }
+    }
+
+    public byte[] scaleToFit(BufferedImage image, int type, String format, int maxWidth, int maxHeight, float jpegQuality) throws IOException {
+        int[] newImageDims = ImageUtils.getScaledDimension(image.getWidth(), image.getHeight(), maxWidth, maxHeight);
+        Color background = "png".equals(format) ? null : Color.BLACK;
+        BufferedImage resizedImage = ImageUtils.scaleImage(image, newImageDims[0], newImageDims[1], type, background);
+        return encode(resizedImage, format, jpegQuality);
+    }
+
+    /**
+     * Encodes with a writer kept per thread and format; JPEG quality is ignored for other formats.
+     */
+    public byte[] encode(BufferedImage image, String format, float jpegQuality) throws IOException {
+        ImageWriter writer = writers.get().computeIfAbsent(format, ImageScalingService::createWriter);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream imageOut = new MemoryCacheImageOutputStream(out)) {
+            writer.setOutput(imageOut);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (isJpeg(format) && param.canWriteCompressed()) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(jpegQuality);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.reset();
+        }
+        return out.toByteArray();
+    }
+
+    private static ImageWriter createWriter(String format) {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(format);
+        if (!writers.hasNext()) {
+            throw new BcException("No image writer for format " + format);
+        }
+        return writers.next();
+    }
+
+    private static boolean isJpeg(String format) {
+        return "jpg".equalsIgnoreCase(format) || "jpeg".equalsIgnoreCase(format);
+    }
+}
@@ -36,12 +36,108 @@
  */
 package com.mware.artifactThumbnails;
 
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 import java.awt.*;
 import java.awt.color.ColorSpace;
 import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
 
 public class ImageUtils {
 
+    /**
+     * Decodes an image, skipping source pixels so the result is still at least twice {@code targetSize} on its
+     * shorter side. Returns null if no reader understands the stream.
+     */
+    public static BufferedImage readSubsampled(InputStream in, int targetSize) throws IOException {
+        return readSubsampled(in, targetSize, null);
+    }
+
+    /**
+     * As {@link #readSubsampled(InputStream, int)}, telling the listener the decoded dimensions before any pixels
+     * are read.
+     */
+    public static BufferedImage readSubsampled(InputStream in, int targetSize, DecodeListener listener) throws IOException {
+        try (ImageInputStream imageIn = ImageIO.createImageInputStream(in)) {
+            if (imageIn == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(imageIn);
+            if (!readers.hasNext()) {
+                return null;
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageIn, true, true);
+                int subsampling = subsamplingFactor(reader.getWidth(0), reader.getHeight(0), targetSize);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                if (listener != null) {
+                    listener.beforeDecode(ceilDiv(reader.getWidth(0), subsampling), ceilDiv(reader.getHeight(0), subsampling));
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static int ceilDiv(int value, int divisor) {
+        return (value + divisor - 1) / divisor;
+    }
+
+    static int subsamplingFactor(int width, int height, int targetSize) {
+        return Math.max(1, Math.min(width, height) / (2 * Math.max(1, targetSize)));
+    }
+
+    public static int[] getScaledDimension(int originalWidth, int originalHeight, int boundWidth, int boundHeight) {
+        int newWidth = originalWidth;
+        int newHeight = originalHeight;
+
+        if (originalWidth > boundWidth) {
+            newWidth = boundWidth;
+            newHeight = (newWidth * originalHeight) / originalWidth;
+        }
+
+        if (newHeight > boundHeight) {
+            newHeight = boundHeight;
+            newWidth = (newHeight * originalWidth) / originalHeight;
+        }
+
+        return new int[]{newWidth, newHeight};
+    }
+
+    /**
+     * Scales an image by halving it with bilinear interpolation until it is within twice the requested size, then
+     * drawing the final step. Much sharper than a single large drawImage for big reductions.
+     */
+    public static BufferedImage scaleImage(BufferedImage image, int width, int height, int type, Color background) {
+        BufferedImage current = image;
+        int currentWidth = image.getWidth();
+        int currentHeight = image.getHeight();
+        while (currentWidth / 2 >= width && currentHeight / 2 >= height) {
+            currentWidth /= 2;
+            currentHeight /= 2;
+            current = drawScaled(current, currentWidth, currentHeight, type, background);
+        }
+        return drawScaled(current, width, height, type, background);
+    }
+
+    private static BufferedImage drawScaled(BufferedImage image, int width, int height, int type, Color background) {
+        BufferedImage result = new BufferedImage(width, height, type);
+        Graphics2D g = result.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g.drawImage(image, 0, 0, width, height, background, null);
+        g.dispose();
+        return result;
+    }
+
 
     /**
      * Flipping (Mirroring) is performed BEFORE Rotating the image. Example: Flipping the image over the y Axis, and then rotating it 90 degrees CW
@@ -146,4 +242,8 @@ public class ImageUtils {
     private static boolean isGrayScale(BufferedImage image) {
         return image.getColorModel().getColorSpace().getType() == ColorSpace.TYPE_GRAY;
     }
+
+    public interface DecodeListener {
+        void beforeDecode(int width, int height) throws IOException;
+    }
 }
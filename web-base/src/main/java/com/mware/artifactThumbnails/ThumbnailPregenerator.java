@@ -0,0 +1,183 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.artifactThumbnails;
+
+import com.codahale.metrics.Counter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.mware.config.WebOptions;
+import com.mware.core.config.Configuration;
+import com.mware.core.model.properties.BcSchema;
+import com.mware.core.status.JmxMetricsManager;
+import com.mware.core.user.User;
+import com.mware.core.util.BcLogger;
+import com.mware.core.util.BcLoggerFactory;
+import com.mware.ge.Authorizations;
+import com.mware.ge.Graph;
+import com.mware.ge.Property;
+import com.mware.ge.Vertex;
+import com.mware.ge.values.storable.StreamingPropertyValue;
+import org.apache.commons.lang.StringUtils;
+
+import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders the standard thumbnail sizes of newly imported images on a small pool of low priority threads, so the
+ * first search grid showing them does not have to. Work that does not fit the queue is dropped and left to the
+ * lazy path in {@link com.mware.web.routes.vertex.VertexThumbnail}.
+ */
+@Singleton
+public class ThumbnailPregenerator {
+    private static final BcLogger LOGGER = BcLoggerFactory.getLogger(ThumbnailPregenerator.class);
+    private static final String THUMBNAIL_TYPE = "raw";
+    private static final long BUSY_BACKOFF_MILLIS = 200;
+
+    private final Graph graph;
+    private final ArtifactThumbnailRepository artifactThumbnailRepository;
+    private final List<int[]> sizes;
+    private final ThreadPoolExecutor executor;
+    private final Counter queuedCounter;
+    private final Counter skippedCounter;
+    private final Counter completedCounter;
+
+    @Inject
+    public ThumbnailPregenerator(
+            Graph graph,
+            ArtifactThumbnailRepository artifactThumbnailRepository,
+            Configuration configuration,
+            JmxMetricsManager metricsManager
+    ) {
+        this.graph = graph;
+        this.artifactThumbnailRepository = artifactThumbnailRepository;
+        this.sizes = parseSizes(configuration.get(WebOptions.THUMBNAIL_PREGENERATION_SIZES));
+
+        int threads = configuration.get(WebOptions.THUMBNAIL_PREGENERATION_THREADS);
+        this.executor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(configuration.get(WebOptions.THUMBNAIL_PREGENERATION_QUEUE_SIZE)),
+                new ThreadFactoryBuilder()
+                        .setNameFormat("thumbnail-pregeneration-%d")
+                        .setDaemon(true)
+                        .setPriority(Thread.MIN_PRIORITY)
+                        .build()
+        );
+
+        this.queuedCounter = metricsManager.counter("thumbnail.pregeneration.queued");
+        this.skippedCounter = metricsManager.counter("thumbnail.pregeneration.skipped");
+        this.completedCounter = metricsManager.counter("thumbnail.pregeneration.completed");
+    }
+
+    static List<int[]> parseSizes(String sizes) {
+        List<int[]> result = new ArrayList<>();
+        for (String size : StringUtils.split(sizes, ',')) {
+            if (!StringUtils.isBlank(size)) {
+                int width = Integer.parseInt(size.trim());
+                result.add(new int[]{width, width});
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Uses the mime type when it is already known, otherwise the file name. Mime types are usually detected by a
+     * data worker after the import, so the file name is all there is when an import has just finished.
+     */
+    public static boolean isImage(Vertex vertex) {
+        String mimeType = BcSchema.MIME_TYPE.getFirstPropertyValue(vertex);
+        if (mimeType == null) {
+            String fileName = BcSchema.FILE_NAME.getFirstPropertyValue(vertex);
+            mimeType = fileName == null ? null : URLConnection.guessContentTypeFromName(fileName);
+        }
+        return mimeType != null && mimeType.startsWith("image/");
+    }
+
+    /**
+     * @return false if the vertex was not queued because pre-generation is disabled or the queue is full
+     */
+    public boolean submit(String vertexId, User user, Authorizations authorizations) {
+        if (sizes.isEmpty()) {
+            return false;
+        }
+        // counted before it is handed over, a worker may dequeue it before execute returns
+        queuedCounter.inc();
+        try {
+            executor.execute(() -> generate(vertexId, user, authorizations));
+            return true;
+        } catch (RejectedExecutionException ex) {
+            queuedCounter.dec();
+            skippedCounter.inc();
+            LOGGER.debug("Thumbnail pre-generation queue is full, skipping %s", vertexId);
+            return false;
+        }
+    }
+
+    private void generate(String vertexId, User user, Authorizations authorizations) {
+        queuedCounter.dec();
+        try {
+            Vertex vertex = graph.getVertex(vertexId, authorizations);
+            if (vertex == null || !isImage(vertex)) {
+                return;
+            }
+            Property rawProperty = BcSchema.RAW.getProperty(vertex);
+            StreamingPropertyValue rawPropertyValue = BcSchema.RAW.getPropertyValue(vertex);
+            if (rawPropertyValue == null) {
+                return;
+            }
+
+            // interactive thumbnail requests go first; wait until none are queued
+            while (!artifactThumbnailRepository.tryCreateThumbnails(
+                    vertex, rawProperty.getKey(), THUMBNAIL_TYPE, rawPropertyValue::getInputStream, sizes, user, authorizations)) {
+                Thread.sleep(BUSY_BACKOFF_MILLIS);
+            }
+            completedCounter.inc();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (Exception ex) {
+            LOGGER.warn("Could not pre-generate thumbnails for %s", vertexId, ex);
+        }
+    }
+}
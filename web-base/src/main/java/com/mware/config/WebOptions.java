@@ -507,6 +507,268 @@ public class WebOptions extends OptionHolder {
             null
     );
 
+    public static final ConfigOption<Integer> CONTENT_HASH_INDEX_CACHE_SIZE = new ConfigOption<>(
+            "fileImport.contentHashIndex.cacheSize",
+            "Number of content hash to vertex id entries kept in memory for duplicate detection on import",
+            positiveInt(),
+            Integer.class,
+            100000
+    );
+
+    public static final ConfigOption<String> CHUNKED_UPLOAD_DIR = new ConfigOption<>(
+            "chunkedUpload.dir",
+            "Where partially uploaded files are assembled",
+            String.class,
+            "${BIGCONNECT_DIR}/datastore/chunkedUploads"
+    );
+
+    public static final ConfigOption<Long> CHUNKED_UPLOAD_MAX_FILE_SIZE = new ConfigOption<>(
+            "chunkedUpload.maxFileSize",
+            "Maximum file size in bytes for chunked file upload",
+            Long.class,
+            64 * 1024 * 1024 * 1024L // 64Gb
+    );
+
+    public static final ConfigOption<Integer> CHUNKED_UPLOAD_EXPIRATION_HOURS = new ConfigOption<>(
+            "chunkedUpload.expirationHours",
+            "Incomplete chunked uploads untouched for this long are deleted",
+            positiveInt(),
+            Integer.class,
+            24
+    );
+
+    public static final ConfigOption<Integer> INGEST_MIN_BATCH_SIZE = new ConfigOption<>(
+            "ingest.batch.minSize",
+            "Smallest number of element mutations saved in one structured or database ingest flush",
+            positiveInt(),
+            Integer.class,
+            50
+    );
+
+    public static final ConfigOption<Integer> INGEST_MAX_BATCH_SIZE = new ConfigOption<>(
+            "ingest.batch.maxSize",
+            "Largest number of element mutations saved in one structured or database ingest flush",
+            positiveInt(),
+            Integer.class,
+            10000
+    );
+
+    public static final ConfigOption<Integer> INGEST_TARGET_FLUSH_MILLIS = new ConfigOption<>(
+            "ingest.batch.targetFlushMillis",
+            "Flush duration the ingest batch size is adjusted towards",
+            positiveInt(),
+            Integer.class,
+            1000
+    );
+
+    public static final ConfigOption<Long> INGEST_BATCH_MEMORY_BUDGET = new ConfigOption<>(
+            "ingest.batch.memoryBudget",
+            "Estimated bytes of pending element mutations that force an ingest flush",
+            Long.class,
+            64 * 1024 * 1024L // 64mb
+    );
+
+    public static final ConfigOption<Integer> INGEST_PREVIEW_HEAD_ROWS = new ConfigOption<>(
+            "ingest.preview.headRows",
+            "Number of leading rows a structured ingest preview evaluates exactly",
+            positiveInt(),
+            Integer.class,
+            1000
+    );
+
+    public static final ConfigOption<Integer> INGEST_PREVIEW_SAMPLE_ROWS = new ConfigOption<>(
+            "ingest.preview.sampleRows",
+            "Number of rows reservoir-sampled from the rest of the file to estimate structured ingest preview counts",
+            positiveInt(),
+            Integer.class,
+            1000
+    );
+
+    public static final ConfigOption<String> THUMBNAIL_PREGENERATION_SIZES = new ConfigOption<>(
+            "thumbnail.pregeneration.sizes",
+            "Comma separated thumbnail widths rendered in the background after a file import; empty disables it",
+            String.class,
+            "80,150,800"
+    );
+
+    public static final ConfigOption<Integer> THUMBNAIL_PREGENERATION_THREADS = new ConfigOption<>(
+            "thumbnail.pregeneration.threads",
+            "Number of background threads pre-generating thumbnails",
+            positiveInt(),
+            Integer.class,
+            1
+    );
+
+    public static final ConfigOption<Integer> THUMBNAIL_PREGENERATION_QUEUE_SIZE = new ConfigOption<>(
+            "thumbnail.pregeneration.queueSize",
+            "Imported vertices waiting for thumbnail pre-generation; imports beyond this are left to on-demand generation",
+            positiveInt(),
+            Integer.class,
+            10000
+    );
+
+    public static final ConfigOption<Long> THUMBNAIL_CACHE_MAX_BYTES = new ConfigOption<>(
+            "thumbnail.cache.maxBytes",
+            "Bytes of thumbnail images kept in memory in front of the thumbnail table",
+            Long.class,
+            64 * 1024 * 1024L // 64mb
+    );
+
+    public static final ConfigOption<Integer> IMAGE_SCALING_THREADS = new ConfigOption<>(
+            "image.scaling.threads",
+            "Number of threads decoding, scaling and encoding images for thumbnails, external images and exports",
+            positiveInt(),
+            Integer.class,
+            4
+    );
+
+    public static final ConfigOption<Integer> IMAGE_SCALING_QUEUE_SIZE = new ConfigOption<>(
+            "image.scaling.queueSize",
+            "Image scaling jobs allowed to wait for a thread; requests beyond this are answered with 503 Service Unavailable",
+            positiveInt(),
+            Integer.class,
+            200
+    );
+
+    public static final ConfigOption<Long> IMAGE_SCALING_MEMORY_BUDGET = new ConfigOption<>(
+            "image.scaling.memoryBudget",
+            "Bytes of decoded pixels allowed in memory across concurrent image scaling jobs",
+            Long.class,
+            256 * 1024 * 1024L // 256mb
+    );
+
+    public static final ConfigOption<String> DOCUMENT_EXPORT_DIR = new ConfigOption<>(
+            "searchExport.dir",
+            "Where background search exports are written until they are downloaded",
+            String.class,
+            "${BIGCONNECT_DIR}/datastore/searchExports"
+    );
+
+    public static final ConfigOption<Integer> DOCUMENT_EXPORT_EXPIRATION_HOURS = new ConfigOption<>(
+            "searchExport.expirationHours",
+            "Search exports older than this are deleted",
+            positiveInt(),
+            Integer.class,
+            24
+    );
+
+    public static final ConfigOption<Integer> SEARCH_STREAM_FLUSH_ROWS = new ConfigOption<>(
+            "web.search.stream.flushRows",
+            "Number of rows written between flushes to the client when streaming search results",
+            positiveInt(),
+            Integer.class,
+            500
+    );
+
+    public static final ConfigOption<Integer> SEARCH_STREAM_MAX_ROWS = new ConfigOption<>(
+            "web.search.stream.maxRows",
+            "Rows a streamed search returns at most; longer results end with an error row",
+            positiveInt(),
+            Integer.class,
+            1000000
+    );
+
+    public static final ConfigOption<Integer> SAVED_SEARCH_SNAPSHOT_MAX_SIZE = new ConfigOption<>(
+            "savedSearch.snapshot.maxSize",
+            "Maximum number of rows stored when a saved search is materialized",
+            positiveInt(),
+            Integer.class,
+            10000
+    );
+
+    public static final ConfigOption<Integer> SAVED_SEARCH_SNAPSHOT_MAX_AGE_MINUTES = new ConfigOption<>(
+            "savedSearch.snapshot.maxAgeMinutes",
+            "Materialized saved searches older than this are refreshed even if no changes were seen. This bounds how stale a snapshot gets after changes that were never broadcast",
+            positiveInt(),
+            Integer.class,
+            15
+    );
+
+    public static final ConfigOption<Integer> SAVED_SEARCH_SNAPSHOT_MIN_REFRESH_SECONDS = new ConfigOption<>(
+            "savedSearch.snapshot.minRefreshSeconds",
+            "Minimum time between two refreshes of a materialized saved search",
+            positiveInt(),
+            Integer.class,
+            60
+    );
+
+    public static final ConfigOption<Integer> WORKSPACE_CHANGE_JOURNAL_MAX_SIZE = new ConfigOption<>(
+            "workspace.changeJournal.maxSize",
+            "Maximum number of changed elements remembered per workspace for incremental diffs",
+            positiveInt(),
+            Integer.class,
+            10000
+    );
+
+    public static final ConfigOption<Integer> WORKSPACE_CHANGE_JOURNAL_MAX_AGE_SECONDS = new ConfigOption<>(
+            "workspace.changeJournal.maxAgeSeconds",
+            "Incremental diffs are only served from journals younger than this, older ones force a full diff. Bounds how long changes that never reach the journal stay hidden",
+            positiveInt(),
+            Integer.class,
+            300
+    );
+
+    public static final ConfigOption<Integer> WORKSPACE_PUBLISH_THREADS = new ConfigOption<>(
+            "workspace.publish.threads",
+            "Size of the pool that helps publish the vertices of workspace publish requests. The pool is shared, each request uses at most this many pool threads and also publishes on its own thread",
+            positiveInt(),
+            Integer.class,
+            4
+    );
+
+    public static final ConfigOption<Integer> WORKSPACE_UNDO_ASYNC_THRESHOLD = new ConfigOption<>(
+            "workspace.undo.asyncThreshold",
+            "Undo requests with more items than this run as a long-running process instead of within the request",
+            positiveInt(),
+            Integer.class,
+            500
+    );
+
+    public static final ConfigOption<Integer> PRODUCT_EXTENDED_DATA_CACHE_SIZE = new ConfigOption<>(
+            "product.extendedData.cacheSize",
+            "Number of product and authorization combinations whose element lookups are kept in memory",
+            positiveInt(),
+            Integer.class,
+            1000
+    );
+
+    public static final ConfigOption<Integer> PRODUCT_EXTENDED_DATA_CACHE_EXPIRATION_MINUTES = new ConfigOption<>(
+            "product.extendedData.cacheExpirationMinutes",
+            "Cached product element lookups older than this are recomputed, picking up changes that were never broadcast",
+            positiveInt(),
+            Integer.class,
+            10
+    );
+
+    public static final ConfigOption<String> PRODUCT_PREVIEW_SIZES = new ConfigOption<>(
+            "product.preview.sizes",
+            "Comma separated widths of the scaled copies stored with every product preview; empty disables them",
+            String.class,
+            "80,300"
+    );
+
+    public static final ConfigOption<Long> GLYPH_CACHE_MAX_BYTES = new ConfigOption<>(
+            "resource.glyph.cache.maxBytes",
+            "Bytes of rendered concept glyphs kept in memory",
+            Long.class,
+            16 * 1024 * 1024L // 16mb
+    );
+
+    public static final ConfigOption<Long> GLYPH_RESOLVED_CACHE_MAX_BYTES = new ConfigOption<>(
+            "resource.glyph.resolvedCache.maxBytes",
+            "Bytes of concept glyph images kept in memory for the concepts they were resolved for",
+            Long.class,
+            16 * 1024 * 1024L // 16mb
+    );
+
+    public static final ConfigOption<Integer> GLYPH_CACHE_EXPIRATION_SECONDS = new ConfigOption<>(
+            "resource.glyph.cache.expirationSeconds",
+            "How long the glyph a concept resolves to is remembered before the schema is consulted again",
+            positiveInt(),
+            Integer.class,
+            60
+    );
+
     private WebOptions() {
         super();
     }
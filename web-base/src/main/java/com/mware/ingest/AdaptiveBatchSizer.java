@@ -0,0 +1,163 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.ingest;
+
+import com.mware.config.WebOptions;
+import com.mware.core.config.Configuration;
+import org.json.JSONObject;
+
+import java.text.NumberFormat;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Picks how many element mutations to accumulate before saving them. After every flush the batch size moves
+ * towards the size that would have taken the target flush time, and it never grows past what fits in the
+ * memory budget given the estimated size of the pending rows. Not thread safe, use one instance per import.
+ */
+public class AdaptiveBatchSizer {
+    private static final double SMOOTHING = 0.3;
+    private static final int PER_VALUE_OVERHEAD_BYTES = 256;
+
+    private final int minBatchSize;
+    private final int maxBatchSize;
+    private final long targetFlushNanos;
+    private final long memoryBudgetBytes;
+    private final long startTime = System.nanoTime();
+    private int batchSize;
+    private long pendingBytes;
+    private double nanosPerMutation;
+    private long lastFlushMillis;
+    private long totalRows;
+    private long totalFlushes;
+
+    public AdaptiveBatchSizer(Configuration configuration, int initialBatchSize) {
+        this(
+                initialBatchSize,
+                configuration.get(WebOptions.INGEST_MIN_BATCH_SIZE),
+                configuration.get(WebOptions.INGEST_MAX_BATCH_SIZE),
+                configuration.get(WebOptions.INGEST_TARGET_FLUSH_MILLIS),
+                configuration.get(WebOptions.INGEST_BATCH_MEMORY_BUDGET)
+        );
+    }
+
+    public AdaptiveBatchSizer(int initialBatchSize, int minBatchSize, int maxBatchSize, long targetFlushMillis, long memoryBudgetBytes) {
+        this.minBatchSize = minBatchSize;
+        this.maxBatchSize = Math.max(minBatchSize, maxBatchSize);
+        this.targetFlushNanos = TimeUnit.MILLISECONDS.toNanos(targetFlushMillis);
+        this.memoryBudgetBytes = memoryBudgetBytes;
+        this.batchSize = clamp(initialBatchSize, this.minBatchSize, this.maxBatchSize);
+    }
+
+    /**
+     * Rough heap cost of a row turned into property mutations: two bytes per character plus a fixed overhead
+     * for the property, its metadata and visibility.
+     */
+    public static long estimateBytes(Iterable<?> values) {
+        long bytes = 0;
+        for (Object value : values) {
+            bytes += PER_VALUE_OVERHEAD_BYTES;
+            if (value != null) {
+                bytes += 2L * value.toString().length();
+            }
+        }
+        return bytes;
+    }
+
+    public void rowAdded(long estimatedBytes) {
+        totalRows++;
+        pendingBytes += estimatedBytes;
+    }
+
+    public boolean shouldFlush(int pendingMutations) {
+        return pendingMutations >= batchSize || (pendingMutations > 0 && pendingBytes >= memoryBudgetBytes);
+    }
+
+    public void flushed(int mutations, long elapsedNanos) {
+        lastFlushMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        totalFlushes++;
+        long flushedBytes = pendingBytes;
+        pendingBytes = 0;
+        if (mutations == 0) {
+            return;
+        }
+
+        double observed = (double) elapsedNanos / mutations;
+        nanosPerMutation = nanosPerMutation == 0 ? observed : SMOOTHING * observed + (1 - SMOOTHING) * nanosPerMutation;
+
+        long next = nanosPerMutation > 0 ? (long) (targetFlushNanos / nanosPerMutation) : maxBatchSize;
+        long bytesPerMutation = flushedBytes / mutations;
+        if (bytesPerMutation > 0) {
+            next = Math.min(next, memoryBudgetBytes / bytesPerMutation);
+        }
+        // move at most by a factor of two per flush so a single slow flush doesn't collapse the batch
+        next = Math.max(batchSize / 2, Math.min(2L * batchSize, next));
+        batchSize = clamp(next, minBatchSize, maxBatchSize);
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public long getLastFlushMillis() {
+        return lastFlushMillis;
+    }
+
+    public long getRowsPerSecond() {
+        long elapsedNanos = System.nanoTime() - startTime;
+        return elapsedNanos <= 0 ? 0 : totalRows * TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    public JSONObject toJson() {
+        JSONObject json = new JSONObject();
+        json.put("batchSize", batchSize);
+        json.put("lastFlushMillis", lastFlushMillis);
+        json.put("rowsPerSecond", getRowsPerSecond());
+        json.put("flushes", totalFlushes);
+        return json;
+    }
+
+    public String toProgressMessage() {
+        NumberFormat numberFormat = NumberFormat.getIntegerInstance();
+        return "batch " + numberFormat.format(batchSize)
+                + ", flush " + numberFormat.format(lastFlushMillis) + " ms"
+                + ", " + numberFormat.format(getRowsPerSecond()) + " rows/s";
+    }
+
+    private static int clamp(long value, int min, int max) {
+        return (int) Math.max(min, Math.min(max, value));
+    }
+}
@@ -0,0 +1,279 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.ingest;
+
+import com.mware.core.exception.BcException;
+import org.apache.commons.codec.binary.Hex;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * State of one resumable upload: which byte ranges of the target file have arrived and the SHA-256 of the
+ * contiguous prefix received so far. Chunks may be written concurrently, range bookkeeping is synchronized.
+ * Rewriting bytes that were already hashed restarts the hash, so it always matches the data file.
+ */
+public class ChunkedUpload {
+    static final String DATA_FILE_NAME = "data";
+    static final String STATE_FILE_NAME = "upload.json";
+    private static final int HASH_BUFFER_SIZE = 64 * 1024;
+
+    private final String uploadId;
+    private final String userId;
+    private final String fileName;
+    private final long size;
+    private final String conceptId;
+    private final String visibilitySource;
+    private final String title;
+    private final File directory;
+    private final TreeMap<Long, Long> receivedRanges = new TreeMap<>();
+    private long lastModified;
+    private MessageDigest digest;
+    private long hashedOffset;
+
+    ChunkedUpload(
+            String uploadId,
+            String userId,
+            String fileName,
+            long size,
+            String conceptId,
+            String visibilitySource,
+            String title,
+            File directory
+    ) {
+        this.uploadId = uploadId;
+        this.userId = userId;
+        this.fileName = fileName;
+        this.size = size;
+        this.conceptId = conceptId;
+        this.visibilitySource = visibilitySource;
+        this.title = title;
+        this.directory = directory;
+        this.lastModified = System.currentTimeMillis();
+        this.digest = newDigest();
+    }
+
+    public String getUploadId() {
+        return uploadId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public String getConceptId() {
+        return conceptId;
+    }
+
+    public String getVisibilitySource() {
+        return visibilitySource;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public File getDataFile() {
+        return new File(directory, DATA_FILE_NAME);
+    }
+
+    File getDirectory() {
+        return directory;
+    }
+
+    public synchronized long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Number of bytes received without gaps from the start of the file. Clients resume from here.
+     */
+    public synchronized long getContiguousBytes() {
+        Map.Entry<Long, Long> first = receivedRanges.firstEntry();
+        return first == null || first.getKey() != 0 ? 0 : first.getValue();
+    }
+
+    public synchronized long getReceivedBytes() {
+        long total = 0;
+        for (Map.Entry<Long, Long> range : receivedRanges.entrySet()) {
+            total += range.getValue() - range.getKey();
+        }
+        return total;
+    }
+
+    public synchronized long[][] getReceivedRanges() {
+        long[][] ranges = new long[receivedRanges.size()][];
+        int i = 0;
+        for (Map.Entry<Long, Long> range : receivedRanges.entrySet()) {
+            ranges[i++] = new long[]{range.getKey(), range.getValue()};
+        }
+        return ranges;
+    }
+
+    public synchronized boolean isComplete() {
+        return getContiguousBytes() == size;
+    }
+
+    /**
+     * Hex SHA-256 of the whole file, only available once every byte has arrived.
+     */
+    public synchronized String getSha256() {
+        if (!isComplete()) {
+            return null;
+        }
+        try {
+            return Hex.encodeHexString(((MessageDigest) digest.clone()).digest());
+        } catch (CloneNotSupportedException e) {
+            throw new BcException("Could not compute upload hash", e);
+        }
+    }
+
+    synchronized void addRange(long start, long end) throws IOException {
+        if (end <= start) {
+            return;
+        }
+        if (start < hashedOffset) {
+            // a re-sent chunk may carry different bytes than the ones already hashed, start the hash over
+            digest = newDigest();
+            hashedOffset = 0;
+        }
+        Map.Entry<Long, Long> before = receivedRanges.floorEntry(start);
+        if (before != null && before.getValue() >= start) {
+            start = before.getKey();
+            end = Math.max(end, before.getValue());
+        }
+        Map.Entry<Long, Long> next = receivedRanges.ceilingEntry(start);
+        while (next != null && next.getKey() <= end) {
+            end = Math.max(end, next.getValue());
+            receivedRanges.remove(next.getKey());
+            next = receivedRanges.ceilingEntry(start);
+        }
+        receivedRanges.put(start, end);
+        lastModified = System.currentTimeMillis();
+        advanceHash();
+    }
+
+    /**
+     * Feeds newly contiguous bytes into the running digest. They were just written, so this reads from the page cache.
+     */
+    private void advanceHash() throws IOException {
+        long contiguous = getContiguousBytes();
+        if (contiguous <= hashedOffset) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(getDataFile().toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(HASH_BUFFER_SIZE);
+            while (hashedOffset < contiguous) {
+                buffer.clear();
+                buffer.limit((int) Math.min(HASH_BUFFER_SIZE, contiguous - hashedOffset));
+                int read = channel.read(buffer, hashedOffset);
+                if (read < 0) {
+                    throw new BcException("Unexpected end of upload data for " + uploadId);
+                }
+                buffer.flip();
+                digest.update(buffer);
+                hashedOffset += read;
+            }
+        }
+    }
+
+    synchronized JSONObject toJson() {
+        JSONObject json = new JSONObject();
+        json.put("uploadId", uploadId);
+        json.put("userId", userId);
+        json.put("fileName", fileName);
+        json.put("size", size);
+        json.putOpt("conceptId", conceptId);
+        json.putOpt("visibilitySource", visibilitySource);
+        json.putOpt("title", title);
+        json.put("lastModified", lastModified);
+        JSONArray ranges = new JSONArray();
+        for (Map.Entry<Long, Long> range : receivedRanges.entrySet()) {
+            ranges.put(new JSONArray().put(range.getKey()).put(range.getValue()));
+        }
+        json.put("ranges", ranges);
+        return json;
+    }
+
+    static ChunkedUpload fromJson(JSONObject json, File directory) throws IOException {
+        ChunkedUpload upload = new ChunkedUpload(
+                json.getString("uploadId"),
+                json.getString("userId"),
+                json.getString("fileName"),
+                json.getLong("size"),
+                json.optString("conceptId", null),
+                json.optString("visibilitySource", null),
+                json.optString("title", null),
+                directory
+        );
+        JSONArray ranges = json.getJSONArray("ranges");
+        for (int i = 0; i < ranges.length(); i++) {
+            JSONArray range = ranges.getJSONArray(i);
+            upload.receivedRanges.put(range.getLong(0), range.getLong(1));
+        }
+        synchronized (upload) {
+            upload.advanceHash();
+            upload.lastModified = json.getLong("lastModified");
+        }
+        return upload;
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new BcException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.ingest;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.mware.config.WebOptions;
+import com.mware.core.config.Configuration;
+import com.mware.core.exception.BcAccessDeniedException;
+import com.mware.core.exception.BcResourceNotFoundException;
+import com.mware.core.user.User;
+import com.mware.core.util.BcLogger;
+import com.mware.core.util.BcLoggerFactory;
+import com.mware.web.BadRequestException;
+import com.mware.web.util.SpoolDirectory;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Assembles large files from chunks sent in separate requests, so an interrupted upload can be resumed
+ * instead of restarted. Each upload lives in its own directory under {@link WebOptions#CHUNKED_UPLOAD_DIR}
+ * with a preallocated data file and a small json state file, which lets uploads survive a server restart.
+ */
+@Singleton
+public class ChunkedUploadRepository {
+    private static final BcLogger LOGGER = BcLoggerFactory.getLogger(ChunkedUploadRepository.class);
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    private final SpoolDirectory uploadDir;
+    private final long maxFileSize;
+    private final Map<String, ChunkedUpload> uploads = new ConcurrentHashMap<>();
+
+    @Inject
+    public ChunkedUploadRepository(Configuration configuration) {
+        this.uploadDir = new SpoolDirectory(
+                new File(configuration.get(WebOptions.CHUNKED_UPLOAD_DIR)),
+                ChunkedUpload.STATE_FILE_NAME,
+                TimeUnit.HOURS.toMillis(configuration.get(WebOptions.CHUNKED_UPLOAD_EXPIRATION_HOURS))
+        );
+        this.maxFileSize = configuration.get(WebOptions.CHUNKED_UPLOAD_MAX_FILE_SIZE);
+        LOGGER.info("Using chunked upload dir: %s", uploadDir.getRoot().getAbsolutePath());
+    }
+
+    public ChunkedUpload create(
+            String fileName,
+            long size,
+            String conceptId,
+            String visibilitySource,
+            String title,
+            User user
+    ) throws IOException {
+        if (size <= 0) {
+            throw new BadRequestException("size", "File size must be positive");
+        }
+        if (size > maxFileSize) {
+            throw new BadRequestException("size", "File size exceeds the maximum of " + maxFileSize + " bytes");
+        }
+        uploadDir.deleteExpired(uploads::remove);
+
+        String uploadId = UUID.randomUUID().toString();
+        File directory = uploadDir.create(uploadId);
+        ChunkedUpload upload = new ChunkedUpload(uploadId, user.getUserId(), fileName, size, conceptId, visibilitySource, title, directory);
+        try (FileChannel channel = FileChannel.open(upload.getDataFile().toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            // sparse preallocation so chunks can be written at any offset
+            channel.write(ByteBuffer.allocate(1), size - 1);
+        }
+        saveState(upload);
+        uploads.put(uploadId, upload);
+        LOGGER.debug("created chunked upload %s for %s (%d bytes)", uploadId, fileName, size);
+        return upload;
+    }
+
+    public ChunkedUpload get(String uploadId, User user) throws IOException {
+        ChunkedUpload upload = uploads.get(uploadId);
+        if (upload == null) {
+            upload = load(uploadId);
+        }
+        if (!upload.getUserId().equals(user.getUserId())) {
+            throw new BcAccessDeniedException("Upload " + uploadId + " belongs to another user", user, uploadId);
+        }
+        return upload;
+    }
+
+    public ChunkedUpload writeChunk(String uploadId, long offset, InputStream in, User user) throws IOException {
+        ChunkedUpload upload = get(uploadId, user);
+        if (offset < 0 || offset >= upload.getSize()) {
+            throw new BadRequestException("offset", "Offset outside of file: " + offset);
+        }
+
+        long position = offset;
+        try (FileChannel channel = FileChannel.open(upload.getDataFile().toPath(), StandardOpenOption.WRITE)) {
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                if (position + read > upload.getSize()) {
+                    throw new BadRequestException("offset", "Chunk extends past the end of the file");
+                }
+                ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, read);
+                while (byteBuffer.hasRemaining()) {
+                    position += channel.write(byteBuffer, position);
+                }
+            }
+        } finally {
+            // keep whatever arrived before a dropped connection, the client resumes from there
+            upload.addRange(offset, position);
+            saveState(upload);
+        }
+        return upload;
+    }
+
+    /**
+     * Verifies an upload is complete and, when given, matches the client's SHA-256. The returned file stays
+     * owned by the repository until {@link #delete(String, User)} is called.
+     */
+    public ChunkedUpload complete(String uploadId, String expectedSha256, User user) throws IOException {
+        ChunkedUpload upload = get(uploadId, user);
+        if (!upload.isComplete()) {
+            throw new BadRequestException("uploadId", "Upload is missing data after byte " + upload.getContiguousBytes());
+        }
+        if (expectedSha256 != null && !expectedSha256.equalsIgnoreCase(upload.getSha256())) {
+            throw new BadRequestException("sha256", "Uploaded data does not match the expected hash");
+        }
+        return upload;
+    }
+
+    public void delete(String uploadId, User user) throws IOException {
+        ChunkedUpload upload = get(uploadId, user);
+        uploads.remove(uploadId);
+        uploadDir.delete(upload.getDirectory());
+    }
+
+    private ChunkedUpload load(String uploadId) throws IOException {
+        File directory = uploadDir.getDirectory(uploadId);
+        JSONObject state = uploadDir.readState(directory);
+        if (state == null) {
+            throw new BcResourceNotFoundException("Could not find upload: " + uploadId);
+        }
+        ChunkedUpload upload = ChunkedUpload.fromJson(state, directory);
+        ChunkedUpload existing = uploads.putIfAbsent(uploadId, upload);
+        return existing == null ? upload : existing;
+    }
+
+    private void saveState(ChunkedUpload upload) throws IOException {
+        synchronized (upload) {
+            uploadDir.writeState(upload.getDirectory(), upload.toJson());
+        }
+    }
+}
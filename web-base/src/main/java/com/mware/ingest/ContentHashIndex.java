@@ -0,0 +1,112 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.ingest;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.mware.config.WebOptions;
+import com.mware.core.config.Configuration;
+import com.mware.core.model.user.UserRepository;
+import com.mware.core.orm.SimpleOrmSession;
+import com.mware.core.user.User;
+import com.mware.core.util.BcLogger;
+import com.mware.core.util.BcLoggerFactory;
+
+/**
+ * Maps file content hashes to the vertex holding that content. Lookups are served from memory and fall back
+ * to the SimpleOrm store, so duplicates are found without going through the (eventually consistent) search index.
+ * Entries are only hints: callers must still load the vertex with their own authorizations.
+ */
+@Singleton
+public class ContentHashIndex {
+    private static final BcLogger LOGGER = BcLoggerFactory.getLogger(ContentHashIndex.class);
+    private static final String VISIBILITY_STRING = "";
+    private final SimpleOrmSession simpleOrmSession;
+    private final UserRepository userRepository;
+    private final Cache<String, String> hashToVertexId;
+
+    @Inject
+    public ContentHashIndex(
+            SimpleOrmSession simpleOrmSession,
+            UserRepository userRepository,
+            Configuration configuration
+    ) {
+        this.simpleOrmSession = simpleOrmSession;
+        this.userRepository = userRepository;
+        this.hashToVertexId = CacheBuilder.newBuilder()
+                .maximumSize(configuration.get(WebOptions.CONTENT_HASH_INDEX_CACHE_SIZE))
+                .build();
+    }
+
+    public String findVertexId(String hash, User user) {
+        String vertexId = hashToVertexId.getIfPresent(hash);
+        if (vertexId != null) {
+            return vertexId;
+        }
+
+        ContentHashIndexEntry entry = simpleOrmSession.findById(
+                ContentHashIndexEntry.class,
+                hash,
+                userRepository.getSimpleOrmContext(user)
+        );
+        if (entry == null) {
+            return null;
+        }
+        hashToVertexId.put(hash, entry.getVertexId());
+        return entry.getVertexId();
+    }
+
+    public void put(String hash, String vertexId, User user) {
+        if (vertexId.equals(hashToVertexId.getIfPresent(hash))) {
+            return;
+        }
+        hashToVertexId.put(hash, vertexId);
+        simpleOrmSession.save(new ContentHashIndexEntry(hash, vertexId), VISIBILITY_STRING, userRepository.getSimpleOrmContext(user));
+        LOGGER.debug("indexed content hash %s -> %s", hash, vertexId);
+    }
+
+    /**
+     * Forgets a stale entry, also in the store, so it is not re-read and re-checked on every import of that hash.
+     */
+    public void remove(String hash, User user) {
+        hashToVertexId.invalidate(hash);
+        simpleOrmSession.delete(ContentHashIndexEntry.class, hash, userRepository.getSimpleOrmContext(user));
+        LOGGER.debug("removed content hash %s", hash);
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.ingest;
+
+import com.google.inject.Inject;
+import com.mware.core.exception.BcException;
+import com.mware.core.model.Description;
+import com.mware.core.model.Name;
+import com.mware.core.model.longRunningProcess.LongRunningProcessRepository;
+import com.mware.core.model.longRunningProcess.LongRunningProcessWorker;
+import com.mware.core.model.user.UserRepository;
+import com.mware.core.user.User;
+import com.mware.core.util.BcLogger;
+import com.mware.core.util.BcLoggerFactory;
+import com.mware.core.util.ClientApiConverter;
+import com.mware.ge.Authorizations;
+import com.mware.ge.Graph;
+import com.mware.ge.Vertex;
+import com.mware.ge.query.QueryResultsIterable;
+import org.json.JSONObject;
+
+import java.text.NumberFormat;
+
+import static com.mware.core.model.properties.RawObjectSchema.CONTENT_HASH;
+import static com.mware.ge.query.builder.GeQueryBuilders.hasFilter;
+
+@Name("Content Hash Index Rebuild")
+@Description("Fills the file import content hash index from existing vertices")
+public class ContentHashIndexRebuildLongRunningProcess extends LongRunningProcessWorker {
+    private static final BcLogger LOGGER = BcLoggerFactory.getLogger(ContentHashIndexRebuildLongRunningProcess.class);
+    public static final String TYPE = "content-hash-index-rebuild";
+    private static final int REPORT_PROGRESS_EVERY = 1000;
+
+    private Graph graph;
+    private UserRepository userRepository;
+    private ContentHashIndex contentHashIndex;
+    private LongRunningProcessRepository longRunningProcessRepository;
+
+    @Override
+    public boolean isHandled(JSONObject longRunningProcessQueueItem) {
+        return TYPE.equals(longRunningProcessQueueItem.getString("type"));
+    }
+
+    @Override
+    protected void processInternal(final JSONObject longRunningProcessQueueItem) {
+        ContentHashIndexRebuildQueueItem queueItem =
+                ClientApiConverter.toClientApi(longRunningProcessQueueItem.toString(), ContentHashIndexRebuildQueueItem.class);
+        User user = userRepository.findById(queueItem.getUserId());
+        Authorizations authorizations = graph.createAuthorizations(queueItem.getAuthorizations());
+        NumberFormat numberFormat = NumberFormat.getIntegerInstance();
+
+        longRunningProcessRepository.reportProgress(longRunningProcessQueueItem, 0, "Starting rebuild");
+        long count = 0;
+        try (QueryResultsIterable<Vertex> vertices = graph.query(hasFilter(CONTENT_HASH.getPropertyName()), authorizations).vertices()) {
+            long total = vertices.getTotalHits();
+            for (Vertex vertex : vertices) {
+                for (String hash : CONTENT_HASH.getPropertyValues(vertex)) {
+                    contentHashIndex.put(hash, vertex.getId(), user);
+                }
+                count++;
+                if (count % REPORT_PROGRESS_EVERY == 0 && total > 0) {
+                    longRunningProcessRepository.reportProgress(
+                            longRunningProcessQueueItem,
+                            ((float) count) / ((float) total),
+                            "Vertex " + numberFormat.format(count) + " of " + numberFormat.format(total));
+                }
+            }
+        } catch (Exception e) {
+            throw new BcException("Unable to rebuild content hash index", e);
+        }
+        LOGGER.info("Content hash index rebuilt from %d vertices", count);
+    }
+
+    @Inject
+    public void setGraph(Graph graph) {
+        this.graph = graph;
+    }
+
+    @Inject
+    public void setUserRepository(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    @Inject
+    public void setContentHashIndex(ContentHashIndex contentHashIndex) {
+        this.contentHashIndex = contentHashIndex;
+    }
+
+    @Inject
+    public void setLongRunningProcessRepository(LongRunningProcessRepository longRunningProcessRepository) {
+        this.longRunningProcessRepository = longRunningProcessRepository;
+    }
+}
@@ -54,6 +54,7 @@ import com.mware.core.model.properties.types.PropertyMetadata;
 import com.mware.core.model.schema.SchemaConstants;
 import com.mware.core.model.schema.SchemaProperty;
 import com.mware.core.model.schema.SchemaRepository;
+import com.mware.core.model.user.GraphAuthorizationRepository;
 import com.mware.core.model.workQueue.Priority;
 import com.mware.core.model.workQueue.WebQueueRepository;
 import com.mware.core.model.workQueue.WorkQueueRepository;
@@ -75,6 +76,8 @@ import com.mware.ge.values.storable.ByteArray;
 import com.mware.ge.values.storable.DefaultStreamingPropertyValue;
 import com.mware.ge.values.storable.StreamingPropertyValue;
 import com.mware.ge.values.storable.Values;
+import com.mware.workspace.WorkspaceChangeJournal;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.json.JSONObject;
@@ -97,14 +100,18 @@ import static com.mware.ge.values.storable.Values.stringValue;
 public class FileImport {
     private static final BcLogger LOGGER = BcLoggerFactory.getLogger(FileImport.class);
     public static final String MULTI_VALUE_KEY = FileImport.class.getName();
+    private static final String EMPTY_CONTENT_HASH = RowKeyHelper.buildSHA256KeyString(new byte[0]);
     private final VisibilityTranslator visibilityTranslator;
     private final Graph graph;
     private final WorkQueueRepository workQueueRepository;
     private final WebQueueRepository webQueueRepository;
+    private final WorkspaceChangeJournal workspaceChangeJournal;
     private final WorkspaceRepository workspaceRepository;
     private final SchemaRepository schemaRepository;
     private final Configuration configuration;
     private final AuditService auditService;
+    private final ContentHashIndex contentHashIndex;
+    private final GraphAuthorizationRepository graphAuthorizationRepository;
     private List<FileImportSupportingFileHandler> fileImportSupportingFileHandlers;
     private List<PostFileImportHandler> postFileImportHandlers;
 
@@ -114,19 +121,25 @@ public class FileImport {
             Graph graph,
             WorkQueueRepository workQueueRepository,
             WebQueueRepository webQueueRepository,
+            WorkspaceChangeJournal workspaceChangeJournal,
             WorkspaceRepository workspaceRepository,
             SchemaRepository schemaRepository,
             Configuration configuration,
-            AuditService auditService
+            AuditService auditService,
+            ContentHashIndex contentHashIndex,
+            GraphAuthorizationRepository graphAuthorizationRepository
     ) {
         this.visibilityTranslator = visibilityTranslator;
         this.graph = graph;
         this.workQueueRepository = workQueueRepository;
         this.webQueueRepository = webQueueRepository;
+        this.workspaceChangeJournal = workspaceChangeJournal;
         this.workspaceRepository = workspaceRepository;
         this.schemaRepository = schemaRepository;
         this.configuration = configuration;
         this.auditService = auditService;
+        this.contentHashIndex = contentHashIndex;
+        this.graphAuthorizationRepository = graphAuthorizationRepository;
     }
 
     public void importDirectory(
@@ -297,14 +310,53 @@ public class FileImport {
             Priority priority,
             User user,
             Authorizations authorizations
+    ) throws Exception {
+        return importFile(
+                f,
+                originalFilename,
+                null,
+                queueDuplicates,
+                conceptId,
+                properties,
+                visibilitySource,
+                title,
+                workspace,
+                findExistingByFileHash,
+                priority,
+                user,
+                authorizations
+        );
+    }
+
+    /**
+     * @param sha256 the hex SHA-256 of the file when it is already known, e.g. verified while it was uploaded, so the
+     *               file is not read again to hash it; null to hash the file
+     */
+    public Vertex importFile(
+            File f,
+            String originalFilename,
+            String sha256,
+            boolean queueDuplicates,
+            String conceptId,
+            ClientApiImportProperty[] properties,
+            String visibilitySource,
+            String title,
+            Workspace workspace,
+            boolean findExistingByFileHash,
+            Priority priority,
+            User user,
+            Authorizations authorizations
     ) throws Exception {
         Vertex vertex;
         ensureInitialized();
 
-        String hash = calculateFileHash(f);
+        String hash = sha256 == null ? null : toContentHash(sha256);
+        if (hash == null) {
+            hash = calculateFileHash(f);
+        }
 
         if (findExistingByFileHash) {
-            vertex = findExistingVertexWithHash(hash, authorizations);
+            vertex = findExistingVertexWithHash(hash, user, authorizations);
             if (vertex != null) {
                 LOGGER.debug("vertex already exists with hash %s", hash);
                 if (queueDuplicates) {
@@ -447,6 +499,7 @@ public class FileImport {
 
             vertex = vertexBuilder.save(authorizations);
             graph.flush();
+            contentHashIndex.put(hash, vertex.getId(), user);
 
             for (PostFileImportHandler postFileImportHandler : this.postFileImportHandlers) {
                 postFileImportHandler.handle(graph, vertex, changedProperties, workspace, propertyMetadata, visibility, user, authorizations);
@@ -465,6 +518,7 @@ public class FileImport {
             LOGGER.debug("File %s imported. vertex id: %s", f.getAbsolutePath(), vertex.getId());
             LOGGER.debug("pushing %s on to %s queue", vertex.getId());
 
+            this.workspaceChangeJournal.recordElement(workspaceId, vertex);
             this.webQueueRepository.broadcastPropertyChange(vertex, null, null, workspaceId);
             this.webQueueRepository.broadcastPropertiesChange(vertex, changedProperties, workspace == null ? null : workspace.getWorkspaceId(), priority);
             this.workQueueRepository.pushGraphPropertyQueue(
@@ -520,6 +574,7 @@ public class FileImport {
             Vertex vertex = importFile(
                     file.getFile(),
                     file.getOriginalFilename(),
+                    file.getSha256(),
                     true,
                     file.getConceptId(),
                     file.getProperties(),
@@ -566,14 +621,29 @@ public class FileImport {
         return toList(ServiceLoaderUtil.load(FileImportSupportingFileHandler.class, this.configuration));
     }
 
-    private Vertex findExistingVertexWithHash(String hash, Authorizations authorizations) {
+    private Vertex findExistingVertexWithHash(String hash, User user, Authorizations authorizations) {
+        String indexedVertexId = contentHashIndex.findVertexId(hash, user);
+        if (indexedVertexId != null) {
+            Vertex vertex = graph.getVertex(indexedVertexId, authorizations);
+            if (vertex != null) {
+                return vertex;
+            }
+            // the entry is shared by all users, so only drop it when the vertex is gone for everybody
+            Authorizations systemAuthorizations = graph.createAuthorizations(graphAuthorizationRepository.getGraphAuthorizations());
+            if (!graph.doesVertexExist(indexedVertexId, systemAuthorizations)) {
+                contentHashIndex.remove(hash, user);
+            }
+        }
+
         try (QueryResultsIterable<Vertex> results = this.graph.query(
                 hasFilter(CONTENT_HASH.getPropertyName(), stringValue(hash)),
                 authorizations
         ).vertices()) {
             Iterator<Vertex> existingVertices = results.iterator();
             if (existingVertices.hasNext()) {
-                return existingVertices.next();
+                Vertex vertex = existingVertices.next();
+                contentHashIndex.put(hash, vertex.getId(), user);
+                return vertex;
             }
         } catch (IOException e) {
             e.printStackTrace();
@@ -587,6 +657,19 @@ public class FileImport {
         }
     }
 
+    /**
+     * Content hashes are the hex SHA-256 behind a fixed prefix, which is taken from the hash of empty content.
+     *
+     * @return the content hash {@link #calculateFileHash} would compute, or null if the hash has another form
+     */
+    static String toContentHash(String sha256) {
+        String emptySha256 = DigestUtils.sha256Hex(new byte[0]);
+        if (!EMPTY_CONTENT_HASH.endsWith(emptySha256)) {
+            return null;
+        }
+        return EMPTY_CONTENT_HASH.substring(0, EMPTY_CONTENT_HASH.length() - emptySha256.length()) + sha256.toLowerCase();
+    }
+
     public static class FileOptions {
         private File file;
         private String originalFilename;
@@ -594,6 +677,7 @@ public class FileImport {
         private String conceptId;
         private String title;
         private ClientApiImportProperty[] properties;
+        private String sha256;
 
         public File getFile() {
             return file;
@@ -642,5 +726,16 @@ public class FileImport {
         public ClientApiImportProperty[] getProperties() {
             return properties;
         }
+
+        public String getSha256() {
+            return sha256;
+        }
+
+        /**
+         * @param sha256 the hex SHA-256 of the file, if already known
+         */
+        public void setSha256(String sha256) {
+            this.sha256 = sha256;
+        }
     }
 }
@@ -54,6 +54,7 @@ import com.mware.ge.mutation.ElementMutation;
 import com.mware.ge.values.storable.DefaultStreamingPropertyValue;
 import com.mware.ge.values.storable.TextValue;
 import com.mware.ge.values.storable.Value;
+import com.mware.ingest.AdaptiveBatchSizer;
 import com.mware.ingest.structured.mapping.EdgeMapping;
 import com.mware.ingest.structured.mapping.ParseMapping;
 import com.mware.ingest.structured.mapping.PropertyMapping;
@@ -92,6 +93,7 @@ public class DataLoadGraphBuilder {
     private final UserRepository userRepository;
 
     private VisibilityJson visibilityJson;
+    private long lastRowBytes;
     public ClientApiParseErrors parseErrors = new ClientApiParseErrors();
     public int maxParseErrors = 10;
 
@@ -133,6 +135,7 @@ public class DataLoadGraphBuilder {
     public boolean addRow(ResultSet rs, long rowNum, boolean addEntitiesToDictionary, List<ElementMutation<? extends Element>> batchElementBuilders) throws SQLException {
         try {
             Map<String, Object> row = rowFromResultSet(rs);
+            lastRowBytes = AdaptiveBatchSizer.estimateBytes(row.values());
             Map<String, String> newVertexIds = new HashMap<>();
             List<ElementMutation<? extends Element>> vertexBuilders = new ArrayList<>();
             long vertexNum = 0;
@@ -173,6 +176,13 @@ public class DataLoadGraphBuilder {
         return maxParseErrors <= 0 || parseErrors.errors.size() < maxParseErrors;
     }
 
+    /**
+     * Estimated heap cost of the mutations created by the last {@link #addRow} call.
+     */
+    public long getLastRowBytes() {
+        return lastRowBytes;
+    }
+
     private Map<String,Object> rowFromResultSet(ResultSet rs) throws SQLException {
         Map<String,Object> row = new HashMap<>();
 
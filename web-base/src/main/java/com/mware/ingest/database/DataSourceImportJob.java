@@ -37,6 +37,7 @@
 package com.mware.ingest.database;
 
 import com.google.inject.Inject;
+import com.mware.core.config.Configuration;
 import com.mware.core.ingest.dataworker.ElementOrPropertyStatus;
 import com.mware.core.model.clientapi.dto.SandboxStatus;
 import com.mware.core.model.schema.Concept;
@@ -55,6 +56,7 @@ import com.mware.ge.Authorizations;
 import com.mware.ge.Element;
 import com.mware.ge.Graph;
 import com.mware.ge.mutation.ElementMutation;
+import com.mware.ingest.AdaptiveBatchSizer;
 import com.mware.ingest.structured.mapping.ParseMapping;
 import com.mware.ingest.structured.util.ProgressReporter;
 import com.mware.web.model.ClientApiDataSource;
@@ -79,12 +81,14 @@ public class DataSourceImportJob {
     private final SchemaRepository schemaRepository;
     private final WorkQueueRepository workQueueRepository;
     private final DataSourceManager dataSourceManager;
+    private final Configuration configuration;
 
     boolean shouldRun = false;
     private ClientApiDataSource params;
     private ProgressReporter progressReporter;
     private Authorizations authorizations;
     private User user;
+    private AdaptiveBatchSizer batchSizer;
 
     @Inject
     public DataSourceImportJob(
@@ -95,7 +99,8 @@ public class DataSourceImportJob {
             PrivilegeRepository privilegeRepository,
             SchemaRepository schemaRepository,
             WorkQueueRepository workQueueRepository,
-            DataSourceManager dataSourceManager
+            DataSourceManager dataSourceManager,
+            Configuration configuration
     ) {
         this.graph = graph;
         this.userRepository = userRepository;
@@ -105,6 +110,7 @@ public class DataSourceImportJob {
         this.schemaRepository = schemaRepository;
         this.workQueueRepository = workQueueRepository;
         this.dataSourceManager = dataSourceManager;
+        this.configuration = configuration;
     }
 
     public void prepare(ClientApiDataSource params, ProgressReporter progressReporter) {
@@ -124,6 +130,7 @@ public class DataSourceImportJob {
 
         DataConnection dataConnection = dataConnectionRepository.findDcById(params.getDcId());
         List<ElementMutation<? extends Element>> batchElementBuilders = new ArrayList<>();
+        batchSizer = new AdaptiveBatchSizer(configuration, params.getCommitBatchSize());
         try (Connection sqlConn = dataSourceManager.getSqlConnection(dataConnection)){
             long totalRows = getTotalRows(sqlConn, params.getSqlSelect());
 
@@ -156,8 +163,9 @@ public class DataSourceImportJob {
                         params.isImportEntitiesToDictionaries(), batchElementBuilders)) {
                     break;
                 }
+                batchSizer.rowAdded(builder.getLastRowBytes());
 
-                if (batchElementBuilders.size() > params.getCommitBatchSize()) {
+                if (batchSizer.shouldFlush(batchElementBuilders.size())) {
                     flushData(batchElementBuilders);
                 }
             }
@@ -201,6 +209,8 @@ public class DataSourceImportJob {
     }
 
     private void flushData(List<ElementMutation<? extends Element>> batchElementBuilders) {
+        long startTime = System.nanoTime();
+        int mutationCount = batchElementBuilders.size();
         workQueueRepository.pushMultipleGraphPropertyQueue(
                 graph.saveElementMutations(batchElementBuilders, authorizations),
                 null,
@@ -213,6 +223,11 @@ public class DataSourceImportJob {
         );
         graph.flush();
         batchElementBuilders.clear();
+
+        batchSizer.flushed(mutationCount, System.nanoTime() - startTime);
+        if (progressReporter != null) {
+            progressReporter.batchFlushed(batchSizer);
+        }
     }
 
     private long getTotalRows(Connection sqlConn, String sqlSelect) throws Exception {
@@ -45,6 +45,7 @@ import com.mware.core.model.longRunningProcess.LongRunningProcessWorker;
 import com.mware.core.util.BcLogger;
 import com.mware.core.util.BcLoggerFactory;
 import com.mware.core.util.ClientApiConverter;
+import com.mware.ingest.AdaptiveBatchSizer;
 import com.mware.ingest.structured.util.ProgressReporter;
 import com.mware.web.model.ClientApiDataSource;
 import org.json.JSONObject;
@@ -82,14 +83,22 @@ public class DataSourceImportLongRunningProcess extends LongRunningProcessWorker
         NumberFormat numberFormat = NumberFormat.getIntegerInstance();
 
         ProgressReporter reporter = new ProgressReporter() {
+            private String batchProgress = "";
+
             public void finishedRow(long row, long totalRows) {
                 if (totalRows != -1) {
                     longRunningProcessRepository.reportProgress(
                             longRunningProcessQueueItem,
                             ((float)row) / ((float) totalRows),
-                            "Row " + numberFormat.format(row) + " of " + numberFormat.format(totalRows));
+                            "Row " + numberFormat.format(row) + " of " + numberFormat.format(totalRows) + batchProgress);
                 }
             }
+
+            @Override
+            public void batchFlushed(AdaptiveBatchSizer batchSizer) {
+                longRunningProcessQueueItem.put("batchMetrics", batchSizer.toJson());
+                batchProgress = " (" + batchSizer.toProgressMessage() + ")";
+            }
         };
 
         try {
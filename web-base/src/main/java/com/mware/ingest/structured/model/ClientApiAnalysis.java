@@ -52,6 +52,7 @@ public class ClientApiAnalysis implements ClientApiObject {
         public List<Column> columns = new ArrayList<>();
         public List<ParsedRow> parsedRows = new ArrayList<>();
         public long totalRows;
+        public boolean totalRowsEstimated;
     }
 
     public static class Column {
@@ -44,6 +44,7 @@ import java.util.Map;
 public class ClientApiIngestPreview implements ClientApiObject {
     public Long processedRows = 0L;
     public boolean didTruncate = false;
+    public boolean estimated = false;
     public Preview vertices = new Preview();
     public Preview edges = new Preview();
 
@@ -55,6 +56,16 @@ public class ClientApiIngestPreview implements ClientApiObject {
         edges.incrementType(label, isNew);
     }
 
+    /**
+     * Adds the counts of a preview computed over a row sample, each multiplied by the number of rows a sampled
+     * row stands for.
+     */
+    public void addScaled(ClientApiIngestPreview sample, double scale) {
+        vertices.addScaled(sample.vertices, scale);
+        edges.addScaled(sample.edges, scale);
+        estimated = true;
+    }
+
     static class Preview {
         public Map<String, Numbers> numbers = Maps.newHashMap();
 
@@ -71,6 +82,14 @@ public class ClientApiIngestPreview implements ClientApiObject {
                 n.referenced++;
             }
         }
+
+        public void addScaled(Preview sample, double scale) {
+            for (Map.Entry<String, Numbers> entry : sample.numbers.entrySet()) {
+                Numbers n = numbers.computeIfAbsent(entry.getKey(), k -> new Numbers());
+                n.created += Math.round(entry.getValue().created * scale);
+                n.referenced += Math.round(entry.getValue().referenced * scale);
+            }
+        }
     }
 
     static class Numbers {
@@ -41,13 +41,15 @@ import com.mware.core.exception.BcException;
 import com.mware.core.ingest.dataworker.ElementOrPropertyStatus;
 import com.mware.core.model.workQueue.Priority;
 import com.mware.core.model.workQueue.WorkQueueRepository;
-import com.mware.ge.Authorizations;
 import com.mware.ge.Element;
 import com.mware.ge.Graph;
 import com.mware.ge.mutation.ElementMutation;
+import com.mware.ingest.AdaptiveBatchSizer;
 import com.mware.ingest.structured.model.ParseOptions;
+import com.mware.ingest.structured.util.BaseStructuredFileParserHandler;
 import org.apache.commons.lang.StringUtils;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -56,6 +58,8 @@ import java.util.List;
 
 public abstract class BaseParser {
     protected static int COMMIT_BATCH_SIZE = 400;
+    protected static final int ANALYZE_SAMPLE_BYTES = 1024 * 1024;
+    protected static final long UNKNOWN_TOTAL_ROWS = -1;
 
     protected boolean rowIsBlank(String[] columnValues) {
         // skip over blank rows
@@ -85,8 +89,76 @@ public abstract class BaseParser {
         }
     }
 
-    protected void flushData(List<ElementMutation<? extends Element>> batchElementBuilders, WorkQueueRepository workQueueRepository, Graph graph, Authorizations authorizations) {
-        Iterable<Element> elements = graph.saveElementMutations(batchElementBuilders, authorizations);
+    /**
+     * Counts the rows in the first {@link #ANALYZE_SAMPLE_BYTES} of the stream and extrapolates by the number of
+     * bytes the stream reports as available. The total of a longer stream that doesn't report its size is
+     * {@link #UNKNOWN_TOTAL_ROWS}, it is never read past the sample. The stream must support mark and is reset to
+     * where it started.
+     *
+     * @return the row count and whether it is an estimate
+     */
+    protected RowEstimate estimateTotalRows(InputStream in, ParseOptions options) {
+        try {
+            long available = in.available();
+            in.mark(ANALYZE_SAMPLE_BYTES + 1);
+            byte[] head = new byte[ANALYZE_SAMPLE_BYTES];
+            int headLength = 0;
+            int read;
+            while (headLength < head.length && (read = in.read(head, headLength, head.length - headLength)) != -1) {
+                headLength += read;
+            }
+            boolean exhausted = headLength < head.length || in.read() == -1;
+            in.reset();
+
+            long headRows = countRows(new InputStreamReader(new ByteArrayInputStream(head, 0, headLength)), options);
+            if (exhausted) {
+                return new RowEstimate(headRows, false);
+            }
+            if (available > headLength && headRows > 1) {
+                // the last row of the head is most likely cut off
+                long completeRows = headRows - 1;
+                return new RowEstimate(Math.round((double) completeRows * available / headLength), true);
+            }
+            return new RowEstimate(UNKNOWN_TOTAL_ROWS, true);
+        } catch (IOException e) {
+            throw new BcException("Could not read csv", e);
+        }
+    }
+
+    private long countRows(Reader reader, ParseOptions options) throws IOException {
+        // the reader is left open so the underlying stream can be reset
+        CSVReader csvReader = new CSVReader(reader, options.separator, options.quoteChar);
+        long row = 0;
+        String[] columnValues;
+        while ((columnValues = csvReader.readNext()) != null) {
+            if (rowIsBlank(columnValues)) {
+                continue;
+            }
+            row++;
+        }
+        return row;
+    }
+
+    protected static class RowEstimate {
+        public final long rows;
+        public final boolean estimated;
+
+        public RowEstimate(long rows, boolean estimated) {
+            this.rows = rows;
+            this.estimated = estimated;
+        }
+    }
+
+    protected void flushData(
+            List<ElementMutation<? extends Element>> batchElementBuilders,
+            AdaptiveBatchSizer batchSizer,
+            BaseStructuredFileParserHandler handler,
+            WorkQueueRepository workQueueRepository,
+            Graph graph
+    ) {
+        long startTime = System.nanoTime();
+        int mutationCount = batchElementBuilders.size();
+        Iterable<Element> elements = graph.saveElementMutations(batchElementBuilders, handler.getAuthorizations());
 
         workQueueRepository.pushMultipleGraphPropertyQueue(
                 elements,
@@ -100,5 +172,8 @@ public abstract class BaseParser {
         );
         graph.flush();
         batchElementBuilders.clear();
+
+        batchSizer.flushed(mutationCount, System.nanoTime() - startTime);
+        handler.batchFlushed(batchSizer);
     }
 }
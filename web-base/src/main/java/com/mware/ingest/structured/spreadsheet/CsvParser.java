@@ -39,6 +39,7 @@ package com.mware.ingest.structured.spreadsheet;
 import au.com.bytecode.opencsv.CSVReader;
 import com.google.common.collect.Sets;
 import com.google.inject.Inject;
+import com.mware.core.config.Configuration;
 import com.mware.core.exception.BcException;
 import com.mware.core.model.role.AuthorizationRepository;
 import com.mware.core.model.workQueue.WorkQueueRepository;
@@ -47,12 +48,14 @@ import com.mware.ge.Authorizations;
 import com.mware.ge.Element;
 import com.mware.ge.Graph;
 import com.mware.ge.mutation.ElementMutation;
+import com.mware.ingest.AdaptiveBatchSizer;
 import com.mware.ingest.structured.model.ClientApiAnalysis;
 import com.mware.ingest.structured.model.ParseOptions;
 import com.mware.ingest.structured.model.StructuredIngestParser;
 import com.mware.ingest.structured.util.BaseStructuredFileParserHandler;
 import com.mware.ingest.structured.util.StructuredFileParserHandler;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -69,12 +72,14 @@ public class CsvParser extends BaseParser implements StructuredIngestParser {
     private final WorkQueueRepository workQueueRepository;
     private final Graph graph;
     private final AuthorizationRepository authorizationRepository;
+    private final Configuration configuration;
 
     @Inject
-    public CsvParser(WorkQueueRepository workQueueRepository, Graph graph, AuthorizationRepository authorizationRepository) {
+    public CsvParser(WorkQueueRepository workQueueRepository, Graph graph, AuthorizationRepository authorizationRepository, Configuration configuration) {
         this.workQueueRepository = workQueueRepository;
         this.graph = graph;
         this.authorizationRepository = authorizationRepository;
+        this.configuration = configuration;
     }
 
     @Override
@@ -84,7 +89,7 @@ public class CsvParser extends BaseParser implements StructuredIngestParser {
 
     @Override
     public void ingest(InputStream in, ParseOptions parseOptions, BaseStructuredFileParserHandler parserHandler, User user) throws Exception {
-        parseCsvSheet(in, parseOptions, parserHandler, user);
+        parseCsvSheet(in, parseOptions, parserHandler, user, parserHandler.acceptsEstimatedTotalRows());
     }
 
     @Override
@@ -95,15 +100,22 @@ public class CsvParser extends BaseParser implements StructuredIngestParser {
 
         ParseOptions options = new ParseOptions();
         options.hasHeaderRow = false;
-        parseCsvSheet(inputStream, options, handler, user);
+        InputStream in = inputStream.markSupported() ? inputStream : new BufferedInputStream(inputStream);
+        parseCsvSheet(in, options, handler, user, true);
         return handler.getResult();
     }
 
-    private void parseCsvSheet(InputStream in, ParseOptions options, BaseStructuredFileParserHandler handler, User user) {
+    private void parseCsvSheet(InputStream in, ParseOptions options, BaseStructuredFileParserHandler handler, User user, boolean estimateTotalRows) {
         handler.newSheet("");
-        handler.setTotalRows(getTotalRows(in, options));
+        if (estimateTotalRows) {
+            RowEstimate estimate = estimateTotalRows(in, options);
+            handler.setTotalRows(estimate.rows, estimate.estimated);
+        } else {
+            handler.setTotalRows(getTotalRows(in, options));
+        }
 
         List<ElementMutation<? extends Element>> batchElementBuilders = new ArrayList<>();
+        AdaptiveBatchSizer batchSizer = new AdaptiveBatchSizer(configuration, COMMIT_BATCH_SIZE);
 
         try (Reader reader = new InputStreamReader(in)) {
             int row = 0;
@@ -124,16 +136,19 @@ public class CsvParser extends BaseParser implements StructuredIngestParser {
                             handler.addColumn(headerColumn);
                         }
                     } else {
-                        if (!handler.addRow(Arrays.asList(columnValues), row, batchElementBuilders)) {
+                        List<Object> rowValues = Arrays.asList(columnValues);
+                        if (!handler.addRow(rowValues, row, batchElementBuilders)) {
                             break;
                         }
+                        batchSizer.rowAdded(AdaptiveBatchSizer.estimateBytes(rowValues));
 
-                        if (batchElementBuilders.size() > COMMIT_BATCH_SIZE) {
+                        if (batchSizer.shouldFlush(batchElementBuilders.size())) {
                             flushData(
                                     batchElementBuilders,
+                                    batchSizer,
+                                    handler,
                                     workQueueRepository,
-                                    graph,
-                                    handler.getAuthorizations()
+                                    graph
                             );
                         }
                     }
@@ -143,9 +158,10 @@ public class CsvParser extends BaseParser implements StructuredIngestParser {
                 if (batchElementBuilders.size() > 0) {
                     flushData(
                             batchElementBuilders,
+                            batchSizer,
+                            handler,
                             workQueueRepository,
-                            graph,
-                            handler.getAuthorizations()
+                            graph
                     );
                 }
             }
@@ -38,6 +38,7 @@ package com.mware.ingest.structured.spreadsheet;
 
 import com.google.common.collect.Sets;
 import com.google.inject.Inject;
+import com.mware.core.config.Configuration;
 import com.mware.core.exception.BcException;
 import com.mware.core.model.role.AuthorizationRepository;
 import com.mware.core.model.workQueue.WorkQueueRepository;
@@ -46,6 +47,7 @@ import com.mware.ge.Authorizations;
 import com.mware.ge.Element;
 import com.mware.ge.Graph;
 import com.mware.ge.mutation.ElementMutation;
+import com.mware.ingest.AdaptiveBatchSizer;
 import com.mware.ingest.structured.model.ClientApiAnalysis;
 import com.mware.ingest.structured.model.ParseOptions;
 import com.mware.ingest.structured.model.StructuredIngestParser;
@@ -66,12 +68,14 @@ public class ExcelParser extends BaseParser implements StructuredIngestParser {
     private final WorkQueueRepository workQueueRepository;
     private final Graph graph;
     private final AuthorizationRepository authorizationRepository;
+    private final Configuration configuration;
 
     @Inject
-    public ExcelParser(WorkQueueRepository workQueueRepository, Graph graph, AuthorizationRepository authorizationRepository) {
+    public ExcelParser(WorkQueueRepository workQueueRepository, Graph graph, AuthorizationRepository authorizationRepository, Configuration configuration) {
         this.workQueueRepository = workQueueRepository;
         this.graph = graph;
         this.authorizationRepository = authorizationRepository;
+        this.configuration = configuration;
     }
 
     @Override
@@ -106,6 +110,7 @@ public class ExcelParser extends BaseParser implements StructuredIngestParser {
             FormulaEvaluator evaluator = workbook.getCreationHelper().createFormulaEvaluator();
             DataFormatter formatter = new DataFormatter(true);
             List<ElementMutation<? extends Element>> batchElementBuilders = new ArrayList<>();
+            AdaptiveBatchSizer batchSizer = new AdaptiveBatchSizer(configuration, COMMIT_BATCH_SIZE);
 
             int numSheets = workbook.getNumberOfSheets();
             for (int i = 0; i < numSheets; i++) {
@@ -144,13 +149,15 @@ public class ExcelParser extends BaseParser implements StructuredIngestParser {
                                 if (!handler.addRow(parsedRow, j, batchElementBuilders)) {
                                     break;
                                 }
+                                batchSizer.rowAdded(AdaptiveBatchSizer.estimateBytes(parsedRow));
 
-                                if (batchElementBuilders.size() > COMMIT_BATCH_SIZE) {
+                                if (batchSizer.shouldFlush(batchElementBuilders.size())) {
                                     flushData(
                                             batchElementBuilders,
+                                            batchSizer,
+                                            handler,
                                             workQueueRepository,
-                                            graph,
-                                            handler.getAuthorizations()
+                                            graph
                                     );
                                 }
                             }
@@ -162,9 +169,10 @@ public class ExcelParser extends BaseParser implements StructuredIngestParser {
                     if (batchElementBuilders.size() > 0) {
                         flushData(
                                 batchElementBuilders,
+                                batchSizer,
+                                handler,
                                 workQueueRepository,
-                                graph,
-                                handler.getAuthorizations()
+                                graph
                         );
                     }
 
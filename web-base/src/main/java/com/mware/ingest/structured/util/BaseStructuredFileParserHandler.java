@@ -39,6 +39,7 @@ package com.mware.ingest.structured.util;
 import com.mware.ge.Authorizations;
 import com.mware.ge.Element;
 import com.mware.ge.mutation.ElementMutation;
+import com.mware.ingest.AdaptiveBatchSizer;
 import com.mware.ingest.structured.mapping.ColumnMappingType;
 
 import java.util.List;
@@ -48,6 +49,7 @@ import java.util.TreeMap;
 public abstract class BaseStructuredFileParserHandler {
     protected final Authorizations authorizations;
     private long totalRows = -1;
+    private boolean totalRowsEstimated = false;
 
     public BaseStructuredFileParserHandler(Authorizations authorizations) {
         this.authorizations = authorizations;
@@ -80,14 +82,35 @@ public abstract class BaseStructuredFileParserHandler {
         return true;
     }
 
+    public void batchFlushed(AdaptiveBatchSizer batchSizer) {
+    }
+
     public void setTotalRows(long rows) {
         this.totalRows = rows;
+        this.totalRowsEstimated = false;
+    }
+
+    public void setTotalRows(long rows, boolean estimated) {
+        setTotalRows(rows);
+        this.totalRowsEstimated = estimated;
     }
 
     public long getTotalRows() {
         return totalRows;
     }
 
+    public boolean isTotalRowsEstimated() {
+        return totalRowsEstimated;
+    }
+
+    /**
+     * Whether the parser may estimate the total row count from the start of the file instead of counting every
+     * row up front. The estimate may be -1 when the size of the input is unknown.
+     */
+    public boolean acceptsEstimatedTotalRows() {
+        return false;
+    }
+
     public Authorizations getAuthorizations() {
         return authorizations;
     }
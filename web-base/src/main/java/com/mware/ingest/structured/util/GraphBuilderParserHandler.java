@@ -70,6 +70,7 @@ import com.mware.ge.values.storable.DefaultStreamingPropertyValue;
 import com.mware.ge.values.storable.StreamingPropertyValue;
 import com.mware.ge.values.storable.StringValue;
 import com.mware.ge.values.storable.Value;
+import com.mware.ingest.AdaptiveBatchSizer;
 import com.mware.ingest.structured.mapping.*;
 import com.mware.ingest.structured.model.ClientApiAnalysis;
 import com.mware.ingest.structured.model.ClientApiIngestPreview;
@@ -84,6 +85,7 @@ import java.io.ByteArrayInputStream;
 import java.nio.charset.StandardCharsets;
 import java.time.ZonedDateTime;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 
 import static com.mware.core.model.properties.BcSchema.VISIBILITY_JSON_METADATA;
@@ -119,6 +121,18 @@ public class GraphBuilderParserHandler extends BaseStructuredFileParserHandler {
     public List<String> createdEdgeIds;
     public List<ClientApiAnalysis.Column> columns = new ArrayList<>();
 
+    /**
+     * When both are positive a dry run only collects the first {@code dryRunHeadRows} rows and a reservoir sample
+     * of {@code dryRunSampleRows} from the rest of the first {@link #MAX_DRY_RUN_ROWS} rows;
+     * {@link #finishDryRun()} then evaluates them and extrapolates to the (estimated) total row count.
+     */
+    public int dryRunHeadRows = 0;
+    public int dryRunSampleRows = 0;
+    private final List<SampledRow> headRows = new ArrayList<>();
+    private final List<SampledRow> reservoir = new ArrayList<>();
+    private long rowsOutsideHead = 0;
+    private Map<String, List<Object>> columnSamples = Collections.emptyMap();
+
     public GraphBuilderParserHandler(
             Graph graph,
             User user,
@@ -183,6 +197,10 @@ public class GraphBuilderParserHandler extends BaseStructuredFileParserHandler {
         clientApiIngestPreview = new ClientApiIngestPreview();
         createdVertexIds.clear();
         createdEdgeIds.clear();
+        headRows.clear();
+        reservoir.clear();
+        rowsOutsideHead = 0;
+        columnSamples = Collections.emptyMap();
     }
 
     public boolean hasErrors() {
@@ -207,6 +225,10 @@ public class GraphBuilderParserHandler extends BaseStructuredFileParserHandler {
 
     @Override
     public boolean addRow(Map<String, Object> row, long rowNum, List<ElementMutation<? extends Element>> batchElementBuilders) {
+        if (isSampledDryRun()) {
+            return sampleRow(row, rowNum);
+        }
+
         Long rowCount = rowNum + 1;
         if (dryRun && rowCount > MAX_DRY_RUN_ROWS) {
             clientApiIngestPreview.didTruncate = true;
@@ -214,13 +236,124 @@ public class GraphBuilderParserHandler extends BaseStructuredFileParserHandler {
         }
         clientApiIngestPreview.processedRows = rowCount;
 
-        Visibility defaultVisibility = visibilityTranslator.getDefaultVisibility();
-
         // Since we only handle the first sheet currently, bail if this isn't it.
         if (sheetNumber != 0) {
             return false;
         }
 
+        processRow(row, rowNum, batchElementBuilders);
+
+        if (progressReporter != null) {
+            progressReporter.finishedRow(rowNum, getTotalRows());
+        }
+
+        return !dryRun || maxParseErrors <= 0 || parseErrors.errors.size() < maxParseErrors;
+    }
+
+    private boolean isSampledDryRun() {
+        return dryRun && dryRunHeadRows > 0 && dryRunSampleRows > 0;
+    }
+
+    @Override
+    public boolean acceptsEstimatedTotalRows() {
+        return isSampledDryRun();
+    }
+
+    private boolean sampleRow(Map<String, Object> row, long rowNum) {
+        if (sheetNumber != 0) {
+            return false;
+        }
+        long rowCount = rowNum + 1;
+        if (rowCount > MAX_DRY_RUN_ROWS) {
+            clientApiIngestPreview.didTruncate = true;
+            return false;
+        }
+        clientApiIngestPreview.processedRows = rowCount;
+
+        if (headRows.size() < dryRunHeadRows) {
+            headRows.add(new SampledRow(row, rowNum));
+        } else {
+            rowsOutsideHead++;
+            if (reservoir.size() < dryRunSampleRows) {
+                reservoir.add(new SampledRow(row, rowNum));
+            } else {
+                long slot = ThreadLocalRandom.current().nextLong(rowsOutsideHead);
+                if (slot < dryRunSampleRows) {
+                    reservoir.set((int) slot, new SampledRow(row, rowNum));
+                }
+            }
+        }
+
+        if (progressReporter != null) {
+            progressReporter.finishedRow(rowNum, getTotalRows());
+        }
+        return true;
+    }
+
+    /**
+     * Evaluates the rows collected by a sampled dry run. Head rows are counted exactly, the counts of the reservoir
+     * sample are scaled up to the rows after the head and the preview is flagged as estimated. When reading stopped
+     * at {@link #MAX_DRY_RUN_ROWS} or the total is an estimate, the rows that weren't read are extrapolated from the
+     * same sample.
+     */
+    public void finishDryRun() {
+        if (!isSampledDryRun() || headRows.isEmpty()) {
+            return;
+        }
+
+        columnSamples = collectColumnSamples();
+        List<ElementMutation<? extends Element>> unused = new ArrayList<>();
+        for (SampledRow sampledRow : headRows) {
+            if (maxParseErrors > 0 && parseErrors.errors.size() >= maxParseErrors) {
+                return;
+            }
+            processRow(sampledRow.row, sampledRow.rowNum, unused);
+        }
+
+        if (reservoir.isEmpty()) {
+            return;
+        }
+
+        long sampledRows = getRowsRepresentedBySample();
+        ClientApiIngestPreview headPreview = clientApiIngestPreview;
+        clientApiIngestPreview = new ClientApiIngestPreview();
+        try {
+            for (SampledRow sampledRow : reservoir) {
+                if (maxParseErrors > 0 && parseErrors.errors.size() >= maxParseErrors) {
+                    break;
+                }
+                processRow(sampledRow.row, sampledRow.rowNum, unused);
+            }
+            headPreview.addScaled(clientApiIngestPreview, (double) sampledRows / reservoir.size());
+        } finally {
+            clientApiIngestPreview = headPreview;
+        }
+    }
+
+    long getRowsRepresentedBySample() {
+        long totalRows = getTotalRows();
+        long rowsRead = headRows.size() + rowsOutsideHead;
+        if ((clientApiIngestPreview.didTruncate || isTotalRowsEstimated()) && totalRows > rowsRead) {
+            return totalRows - headRows.size();
+        }
+        return rowsOutsideHead;
+    }
+
+    private Map<String, List<Object>> collectColumnSamples() {
+        Map<String, List<Object>> samples = new HashMap<>();
+        for (List<SampledRow> rows : Arrays.asList(headRows, reservoir)) {
+            for (SampledRow sampledRow : rows) {
+                for (Map.Entry<String, Object> entry : sampledRow.row.entrySet()) {
+                    samples.computeIfAbsent(entry.getKey(), k -> new ArrayList<>()).add(entry.getValue());
+                }
+            }
+        }
+        return samples;
+    }
+
+    private void processRow(Map<String, Object> row, long rowNum, List<ElementMutation<? extends Element>> batchElementBuilders) {
+        Visibility defaultVisibility = visibilityTranslator.getDefaultVisibility();
+
         try {
             List<String> newVertexIds = new ArrayList<>();
             List<VertexBuilder> vertexBuilders = new ArrayList<>();
@@ -280,12 +413,13 @@ public class GraphBuilderParserHandler extends BaseStructuredFileParserHandler {
         } catch (SkipRowException sre) {
             // Skip the row and keep going
         }
+    }
 
+    @Override
+    public void batchFlushed(AdaptiveBatchSizer batchSizer) {
         if (progressReporter != null) {
-            progressReporter.finishedRow(rowNum, getTotalRows());
+            progressReporter.batchFlushed(batchSizer);
         }
-
-        return !dryRun || maxParseErrors <= 0 || parseErrors.errors.size() < maxParseErrors;
     }
 
     private void incrementConcept(VertexMapping vertexMapping, boolean isNew) {
@@ -307,19 +441,20 @@ public class GraphBuilderParserHandler extends BaseStructuredFileParserHandler {
                 authorizations
         );
 
+        List<Vertex> sandboxedVertices = new ArrayList<>();
         for (Vertex vertex : vertices) {
             SandboxStatus sandboxStatus = SandboxStatusUtil.getSandboxStatus(vertex, workspace.getWorkspaceId());
             if (sandboxStatus != SandboxStatus.PUBLIC) {
-                workspaceHelper.deleteVertex(
-                        vertex,
-                        workspace.getWorkspaceId(),
-                        false,
-                        Priority.HIGH,
-                        authorizations,
-                        user
-                );
+                sandboxedVertices.add(vertex);
             }
         }
+        workspaceHelper.deleteVertices(
+                sandboxedVertices,
+                workspace.getWorkspaceId(),
+                Priority.HIGH,
+                authorizations,
+                user
+        );
 
         return true;
     }
@@ -375,7 +510,7 @@ public class GraphBuilderParserHandler extends BaseStructuredFileParserHandler {
                             .concepts(concept)
                             .name(colName)
                             .displayName(StringUtils.capitalize(colName))
-                            .type(tryDeterminePropertyType(row.get(key)))
+                            .type(tryDeterminePropertyType(columnSamples.getOrDefault(key, Collections.singletonList(row.get(key)))))
                             .textIndexHints(EnumSet.of(TextIndexHint.EXACT_MATCH))
                             .userVisible(true)
                             .searchable(true)
@@ -413,13 +548,35 @@ public class GraphBuilderParserHandler extends BaseStructuredFileParserHandler {
         }
     }
 
-    private PropertyType tryDeterminePropertyType(Object value) {
-        if (value == null || StringUtils.isEmpty(value.toString())) {
-            return PropertyType.STRING;
+    /**
+     * Picks the narrowest type every non-empty sampled value fits, widening INTEGER to DOUBLE and anything else that
+     * disagrees to STRING.
+     */
+    private PropertyType tryDeterminePropertyType(List<Object> values) {
+        PropertyType result = null;
+        for (Object value : values) {
+            if (value == null || StringUtils.isEmpty(value.toString())) {
+                continue;
+            }
+
+            PropertyType type = tryDeterminePropertyType(value.toString());
+            if (result == null || result == type) {
+                result = type;
+            } else if (isNumeric(result) && isNumeric(type)) {
+                result = PropertyType.DOUBLE;
+            } else {
+                return PropertyType.STRING;
+            }
         }
+        return result == null ? PropertyType.STRING : result;
+    }
+
+    private static boolean isNumeric(PropertyType type) {
+        return PropertyType.INTEGER.equals(type) || PropertyType.DOUBLE.equals(type);
+    }
 
-        String strValue = value.toString();
-        if (NumberUtils.isParsable(value.toString())) {
+    private PropertyType tryDeterminePropertyType(String strValue) {
+        if (NumberUtils.isParsable(strValue)) {
             try {
                 Number number = NumberUtils.createNumber(strValue);
                 if (number instanceof Double || number instanceof Float)
@@ -650,4 +807,14 @@ public class GraphBuilderParserHandler extends BaseStructuredFileParserHandler {
             }
         }
     }
+
+    private static class SampledRow {
+        private final Map<String, Object> row;
+        private final long rowNum;
+
+        private SampledRow(Map<String, Object> row, long rowNum) {
+            this.row = row;
+            this.rowNum = rowNum;
+        }
+    }
 }
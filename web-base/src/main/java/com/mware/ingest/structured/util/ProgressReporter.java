@@ -36,6 +36,11 @@
  */
 package com.mware.ingest.structured.util;
 
+import com.mware.ingest.AdaptiveBatchSizer;
+
 public abstract class ProgressReporter {
     public abstract void finishedRow(long row, long totalRows);
+
+    public void batchFlushed(AdaptiveBatchSizer batchSizer) {
+    }
 }
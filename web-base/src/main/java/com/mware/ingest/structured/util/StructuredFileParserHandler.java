@@ -92,6 +92,12 @@ public class StructuredFileParserHandler extends BaseStructuredFileParserHandler
         currentSheet.totalRows = rows;
     }
 
+    @Override
+    public void setTotalRows(long rows, boolean estimated) {
+        super.setTotalRows(rows, estimated);
+        currentSheet.totalRowsEstimated = estimated;
+    }
+
     @Override
     public boolean addRow(Map<String, Object> row, long rowNum, List<ElementMutation<? extends Element>> batchElementBuilders) {
         if (currentSheet.columns.size() == 0) {
@@ -56,6 +56,7 @@ import com.mware.ge.Graph;
 import com.mware.ge.Vertex;
 import com.mware.ge.values.storable.StreamingPropertyValue;
 import com.mware.ge.values.storable.TextValue;
+import com.mware.ingest.AdaptiveBatchSizer;
 import com.mware.ingest.structured.mapping.ParseMapping;
 import com.mware.ingest.structured.model.StructuredIngestParser;
 import com.mware.ingest.structured.model.StructuredIngestParserFactory;
@@ -99,16 +100,24 @@ public class StructuredIngestProcessWorker extends LongRunningProcessWorker {
         NumberFormat numberFormat = NumberFormat.getIntegerInstance();
 
         ProgressReporter reporter = new ProgressReporter() {
+            private String batchProgress = "";
+
             public void finishedRow(long row, long totalRows) {
                 if (totalRows != -1) {
                     if(row % 100 == 0 || row == totalRows) {
                         longRunningProcessRepository.reportProgress(
                                 longRunningProcessQueueItem,
                                 ((float) row) / ((float) totalRows),
-                                "Row " + numberFormat.format(row) + " of " + numberFormat.format(totalRows));
+                                "Row " + numberFormat.format(row) + " of " + numberFormat.format(totalRows) + batchProgress);
                     }
                 }
             }
+
+            @Override
+            public void batchFlushed(AdaptiveBatchSizer batchSizer) {
+                longRunningProcessQueueItem.put("batchMetrics", batchSizer.toJson());
+                batchProgress = " (" + batchSizer.toProgressMessage() + ")";
+            }
         };
         GraphBuilderParserHandler parserHandler = new GraphBuilderParserHandler(
                 graph,
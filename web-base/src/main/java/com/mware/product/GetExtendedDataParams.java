@@ -41,6 +41,8 @@ import com.mware.core.model.clientapi.dto.ClientApiObject;
 public class GetExtendedDataParams implements ClientApiObject {
     private boolean includeVertices;
     private boolean includeEdges;
+    private Integer offset;
+    private Integer size;
 
     public boolean isIncludeVertices() {
         return includeVertices;
@@ -59,4 +61,28 @@ public class GetExtendedDataParams implements ClientApiObject {
         this.includeEdges = includeEdges;
         return this;
     }
+
+    public Integer getOffset() {
+        return offset;
+    }
+
+    /**
+     * Position of the first vertex returned, in product vertex id order, when paging with {@link #setSize(Integer)}.
+     */
+    public GetExtendedDataParams setOffset(Integer offset) {
+        this.offset = offset;
+        return this;
+    }
+
+    public Integer getSize() {
+        return size;
+    }
+
+    /**
+     * Number of vertices to return; when set, edges are only returned with the last page.
+     */
+    public GetExtendedDataParams setSize(Integer size) {
+        this.size = size;
+        return this;
+    }
 }
@@ -0,0 +1,299 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.product;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Sets;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.mware.config.WebOptions;
+import com.mware.core.config.Configuration;
+import com.mware.ge.Authorizations;
+import com.mware.ge.Edge;
+import com.mware.ge.RelatedEdge;
+import com.mware.workspace.WorkspaceChangeJournal;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the graph lookups behind a product's extended data, per product and authorization set, so reopening an
+ * unchanged product does not re-read every element and related edge. Each entry remembers the product entity ids it
+ * covers; callers pass the current ids, so adding or removing product elements is always picked up. Changes
+ * to the elements themselves arrive through the {@link WorkspaceChangeJournal}, which also hears the change broadcasts
+ * of ingest, workers and other web nodes; a change nobody broadcasts is picked up when the entry expires.
+ */
+@Singleton
+public class ProductExtendedDataCache {
+    private static final String KEY_SEPARATOR = "|";
+    private static final String VERTICES_KEY = "vertices";
+    private static final String EDGES_KEY = "edges";
+    private static final String ENTITIES_KEY = "entities";
+    private final Cache<String, Entry<?>> entries;
+    private final Set<Load> loads = ConcurrentHashMap.newKeySet();
+
+    @Inject
+    public ProductExtendedDataCache(Configuration configuration, WorkspaceChangeJournal workspaceChangeJournal) {
+        this.entries = CacheBuilder.newBuilder()
+                .maximumSize(configuration.get(WebOptions.PRODUCT_EXTENDED_DATA_CACHE_SIZE))
+                .expireAfterWrite(configuration.get(WebOptions.PRODUCT_EXTENDED_DATA_CACHE_EXPIRATION_MINUTES), TimeUnit.MINUTES)
+                .build();
+        workspaceChangeJournal.addListener(this::invalidateElement);
+    }
+
+    /**
+     * @param entityIds all entity ids currently in the product
+     * @param vertexIds the entity ids to check, e.g. those of one page
+     * @param loader returns which of the given vertex ids are readable; only called for ids not checked before
+     * @return the vertex ids readable with the authorizations
+     */
+    public Set<String> getAuthorizedVertexIds(
+            String productId,
+            Set<String> entityIds,
+            Collection<String> vertexIds,
+            Authorizations authorizations,
+            Function<Set<String>, Set<String>> loader
+    ) {
+        String key = getKey(productId, authorizations, VERTICES_KEY);
+        Load load = startLoad(key);
+        try {
+            return getAuthorizedVertexIds(load, entityIds, vertexIds, loader);
+        } finally {
+            loads.remove(load);
+        }
+    }
+
+    private Set<String> getAuthorizedVertexIds(
+            Load load,
+            Set<String> entityIds,
+            Collection<String> vertexIds,
+            Function<Set<String>, Set<String>> loader
+    ) {
+        Entry<Set<String>> entry = getEntry(load.key);
+        Set<String> checkedIds = entry == null ? Collections.emptySet() : entry.entityIds;
+        Set<String> authorizedIds = entry == null ? Collections.emptySet() : entry.value;
+
+        Set<String> missingIds = vertexIds.stream()
+                .filter(vertexId -> !checkedIds.contains(vertexId))
+                .collect(Collectors.toSet());
+        if (!missingIds.isEmpty()) {
+            Set<String> newCheckedIds = new HashSet<>(Sets.intersection(checkedIds, entityIds));
+            newCheckedIds.addAll(missingIds);
+            Set<String> newAuthorizedIds = new HashSet<>(Sets.intersection(authorizedIds, entityIds));
+            newAuthorizedIds.addAll(loader.apply(missingIds));
+            put(load, new Entry<>(newCheckedIds, newAuthorizedIds, newCheckedIds));
+            authorizedIds = newAuthorizedIds;
+        }
+
+        Set<String> result = new HashSet<>();
+        for (String vertexId : vertexIds) {
+            if (authorizedIds.contains(vertexId)) {
+                result.add(vertexId);
+            }
+        }
+        return result;
+    }
+
+    public RelatedEdges getRelatedEdges(
+            String productId,
+            Set<String> entityIds,
+            Authorizations authorizations,
+            Supplier<RelatedEdges> loader
+    ) {
+        String key = getKey(productId, authorizations, EDGES_KEY);
+        Entry<RelatedEdges> entry = getEntry(key);
+        if (entry != null && entry.entityIds.equals(entityIds)) {
+            return entry.value;
+        }
+
+        Load load = startLoad(key);
+        try {
+            RelatedEdges relatedEdges = loader.get();
+            Set<String> referencedIds = new HashSet<>(entityIds);
+            relatedEdges.getEdges().forEach(edge -> referencedIds.add(edge.getEdgeId()));
+            put(load, new Entry<>(entityIds, relatedEdges, referencedIds));
+            return relatedEdges;
+        } finally {
+            loads.remove(load);
+        }
+    }
+
+    /**
+     * Pages of a product are read in entity id order. The first page reloads the order; later pages reuse it so only
+     * the edges of the page itself are read.
+     *
+     * @param reload true for the first page
+     * @param loader reads all product to entity edges
+     */
+    public ProductEntities getProductEntities(
+            String productId,
+            Authorizations authorizations,
+            boolean reload,
+            Supplier<ProductEntities> loader
+    ) {
+        String key = getKey(productId, authorizations, ENTITIES_KEY);
+        Entry<ProductEntities> entry = reload ? null : getEntry(key);
+        if (entry != null) {
+            return entry.value;
+        }
+
+        Load load = startLoad(key);
+        try {
+            ProductEntities productEntities = loader.get();
+            put(load, new Entry<>(productEntities.getEntityIds(), productEntities, productEntities.getEdgeIds()));
+            return productEntities;
+        } finally {
+            loads.remove(load);
+        }
+    }
+
+    public void invalidateProduct(String productId) {
+        String prefix = productId + KEY_SEPARATOR;
+        loads.stream()
+                .filter(load -> load.key.startsWith(prefix))
+                .forEach(load -> load.productInvalidated = true);
+        entries.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    public void invalidateElement(String elementId) {
+        loads.forEach(load -> load.changedIds.add(elementId));
+        entries.asMap().values().removeIf(entry -> entry.referencedIds.contains(elementId));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Entry<T> getEntry(String key) {
+        return (Entry<T>) entries.getIfPresent(key);
+    }
+
+    private Load startLoad(String key) {
+        Load load = new Load(key);
+        loads.add(load);
+        return load;
+    }
+
+    private void put(Load load, Entry<?> entry) {
+        // invalidations mark running loads before removing entries, so checking after the put cannot miss one
+        entries.put(load.key, entry);
+        if (load.productInvalidated || !Collections.disjoint(load.changedIds, entry.referencedIds)) {
+            entries.asMap().remove(load.key, entry);
+        }
+    }
+
+    private static String getKey(String productId, Authorizations authorizations, String kind) {
+        String authorizationsKey = Arrays.stream(authorizations.getAuthorizations())
+                .sorted()
+                .collect(Collectors.joining(","));
+        return productId + KEY_SEPARATOR + authorizationsKey + KEY_SEPARATOR + kind;
+    }
+
+    public static class RelatedEdges {
+        private final List<RelatedEdge> edges;
+        private final Map<String, Boolean> authorizedByEdgeId;
+
+        public RelatedEdges(List<RelatedEdge> edges, Map<String, Boolean> authorizedByEdgeId) {
+            this.edges = edges;
+            this.authorizedByEdgeId = authorizedByEdgeId;
+        }
+
+        public List<RelatedEdge> getEdges() {
+            return edges;
+        }
+
+        public boolean isAuthorized(String edgeId) {
+            return Boolean.TRUE.equals(authorizedByEdgeId.get(edgeId));
+        }
+    }
+
+    public static class ProductEntities {
+        private final List<String> sortedEntityIds;
+        private final Map<String, String> edgeIdByEntityId;
+
+        public ProductEntities(String productId, Collection<Edge> productVertexEdges) {
+            this.edgeIdByEntityId = new HashMap<>();
+            for (Edge edge : productVertexEdges) {
+                edgeIdByEntityId.put(edge.getOtherVertexId(productId), edge.getId());
+            }
+            this.sortedEntityIds = edgeIdByEntityId.keySet().stream().sorted().collect(Collectors.toList());
+        }
+
+        public List<String> getSortedEntityIds() {
+            return sortedEntityIds;
+        }
+
+        public Set<String> getEntityIds() {
+            return edgeIdByEntityId.keySet();
+        }
+
+        public Set<String> getEdgeIds() {
+            return new HashSet<>(edgeIdByEntityId.values());
+        }
+
+        public List<String> getEdgeIds(Collection<String> entityIds) {
+            return entityIds.stream()
+                    .map(edgeIdByEntityId::get)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static class Load {
+        private final String key;
+        private final Set<String> changedIds = ConcurrentHashMap.newKeySet();
+        private volatile boolean productInvalidated;
+
+        private Load(String key) {
+            this.key = key;
+        }
+    }
+
+    private static class Entry<T> {
+        private final Set<String> entityIds;
+        private final T value;
+        private final Set<String> referencedIds;
+
+        private Entry(Set<String> entityIds, T value, Set<String> referencedIds) {
+            this.entityIds = entityIds;
+            this.value = value;
+            this.referencedIds = referencedIds;
+        }
+    }
+}
@@ -43,6 +43,7 @@ import java.util.Map;
 public class WorkProductExtendedData implements ClientApiObject {
     private Map<String, ? extends WorkProductVertex> vertices;
     private Map<String, ? extends WorkProductEdge> edges;
+    private Integer nextOffset;
 
     public void setVertices(Map<String, ? extends WorkProductVertex> vertices) {
         this.vertices = vertices;
@@ -59,4 +60,15 @@ public class WorkProductExtendedData implements ClientApiObject {
     public Map<String, ? extends WorkProductEdge> getEdges() {
         return edges;
     }
+
+    /**
+     * @return the offset of the next page of vertices, or null when this is the last page
+     */
+    public Integer getNextOffset() {
+        return nextOffset;
+    }
+
+    public void setNextOffset(Integer nextOffset) {
+        this.nextOffset = nextOffset;
+    }
 }
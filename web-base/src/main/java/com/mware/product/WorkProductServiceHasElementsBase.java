@@ -37,6 +37,7 @@
 package com.mware.product;
 
 import com.google.common.collect.Lists;
+import com.google.inject.Inject;
 import com.mware.core.model.graph.ElementUpdateContext;
 import com.mware.core.model.graph.GraphUpdateContext;
 import com.mware.core.model.role.AuthorizationRepository;
@@ -46,15 +47,15 @@ import com.mware.core.util.StreamUtil;
 import com.mware.ge.*;
 import com.mware.ontology.WebWorkspaceSchema;
 
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public abstract class WorkProductServiceHasElementsBase<TVertex extends WorkProductVertex, TEdge extends WorkProductEdge>
         implements WorkProductService, WorkProductServiceHasElements {
     private final AuthorizationRepository authorizationRepository;
+    private ProductExtendedDataCache productExtendedDataCache;
 
     protected WorkProductServiceHasElementsBase(
             AuthorizationRepository authorizationRepository
@@ -62,6 +63,11 @@ public abstract class WorkProductServiceHasElementsBase<TVertex extends WorkProd
         this.authorizationRepository = authorizationRepository;
     }
 
+    @Inject(optional = true)
+    public void setProductExtendedDataCache(ProductExtendedDataCache productExtendedDataCache) {
+        this.productExtendedDataCache = productExtendedDataCache;
+    }
+
     @Override
     public WorkProductExtendedData getExtendedData(
             Graph graph,
@@ -73,26 +79,48 @@ public abstract class WorkProductServiceHasElementsBase<TVertex extends WorkProd
     ) {
         WorkProductExtendedData extendedData = new WorkProductExtendedData();
         String id = productVertex.getId();
+        List<Edge> productVertexEdges;
+        Set<String> entityIds;
+        Collection<String> pageIds;
+        boolean lastPage = true;
+        if (params.getSize() == null) {
+            productVertexEdges = getProductVertexEdges(productVertex, authorizations);
+            entityIds = productVertexEdges.stream()
+                    .map(edge -> edge.getOtherVertexId(id))
+                    .collect(Collectors.toSet());
+            pageIds = entityIds;
+        } else {
+            int requestedOffset = params.getOffset() == null ? 0 : params.getOffset();
+            List<Edge> loadedEdges = new ArrayList<>();
+            ProductExtendedDataCache.ProductEntities productEntities = getProductEntities(productVertex, requestedOffset <= 0, loadedEdges, authorizations);
+            List<String> sortedIds = productEntities.getSortedEntityIds();
+            entityIds = productEntities.getEntityIds();
+            int offset = Math.min(Math.max(0, requestedOffset), sortedIds.size());
+            int end = Math.min(sortedIds.size(), offset + Math.max(1, params.getSize()));
+            pageIds = new HashSet<>(sortedIds.subList(offset, end));
+            if (end < sortedIds.size()) {
+                extendedData.setNextOffset(end);
+                lastPage = false;
+            }
+            if (loadedEdges.isEmpty()) {
+                productVertexEdges = Lists.newArrayList(graph.getEdges(productEntities.getEdgeIds(pageIds), authorizations));
+            } else {
+                productVertexEdges = loadedEdges;
+            }
+        }
 
         if (params.isIncludeVertices()) {
             Map<String, TVertex> vertices = new HashMap<>();
-            List<Edge> productVertexEdges = Lists.newArrayList(productVertex.getEdges(
-                    Direction.OUT,
-                    WebWorkspaceSchema.PRODUCT_TO_ENTITY_RELATIONSHIP_NAME,
-                    authorizations
-            ));
-
-            List<String> ids = productVertexEdges.stream()
-                    .map(edge -> edge.getOtherVertexId(id))
-                    .collect(Collectors.toList());
-            Map<String, Vertex> othersById = StreamUtil.stream(graph.getVertices(ids, FetchHints.NONE, authorizations))
-                    .collect(Collectors.toMap(Vertex::getId, Function.identity()));
+            Set<String> authorizedIds = getAuthorizedVertexIds(graph, id, entityIds, pageIds, authorizations);
 
             for (Edge propertyVertexEdge : productVertexEdges) {
                 String otherId = propertyVertexEdge.getOtherVertexId(id);
+                if (!pageIds.contains(otherId)) {
+                    continue;
+                }
                 TVertex vertex = createWorkProductVertex();
                 vertex.setId(otherId);
-                if (!othersById.containsKey(otherId)) {
+                if (!authorizedIds.contains(otherId)) {
                     vertex.setUnauthorized(true);
                 }
                 populateProductVertexWithWorkspaceEdge(propertyVertexEdge, vertex);
@@ -103,6 +131,80 @@ public abstract class WorkProductServiceHasElementsBase<TVertex extends WorkProd
 
         if (params.isIncludeEdges()) {
             Map<String, TEdge> edges = new HashMap<>();
+            if (lastPage) {
+                ProductExtendedDataCache.RelatedEdges relatedEdges = getRelatedEdges(graph, productVertex, entityIds, user, authorizations);
+                for (RelatedEdge relatedEdge : relatedEdges.getEdges()) {
+                    String edgeId = relatedEdge.getEdgeId();
+                    TEdge edge = createWorkProductEdge();
+                    edge.setEdgeId(edgeId);
+
+                    if (relatedEdges.isAuthorized(edgeId)) {
+                        edge.setLabel(relatedEdge.getLabel());
+                        edge.setOutVertexId(relatedEdge.getOutVertexId());
+                        edge.setInVertexId(relatedEdge.getInVertexId());
+                    } else {
+                        edge.setUnauthorized(true);
+                    }
+                    edges.put(edgeId, edge);
+                }
+            }
+            extendedData.setEdges(edges);
+        }
+
+        return extendedData;
+    }
+
+    private List<Edge> getProductVertexEdges(Vertex productVertex, Authorizations authorizations) {
+        return Lists.newArrayList(productVertex.getEdges(
+                Direction.OUT,
+                WebWorkspaceSchema.PRODUCT_TO_ENTITY_RELATIONSHIP_NAME,
+                authorizations
+        ));
+    }
+
+    /**
+     * @param loadedEdges receives all product to entity edges when they had to be read
+     */
+    private ProductExtendedDataCache.ProductEntities getProductEntities(
+            Vertex productVertex,
+            boolean firstPage,
+            List<Edge> loadedEdges,
+            Authorizations authorizations
+    ) {
+        Supplier<ProductExtendedDataCache.ProductEntities> loader = () -> {
+            loadedEdges.addAll(getProductVertexEdges(productVertex, authorizations));
+            return new ProductExtendedDataCache.ProductEntities(productVertex.getId(), loadedEdges);
+        };
+        if (productExtendedDataCache == null) {
+            return loader.get();
+        }
+        return productExtendedDataCache.getProductEntities(productVertex.getId(), authorizations, firstPage, loader);
+    }
+
+    private Set<String> getAuthorizedVertexIds(
+            Graph graph,
+            String productId,
+            Set<String> entityIds,
+            Collection<String> vertexIds,
+            Authorizations authorizations
+    ) {
+        Function<Set<String>, Set<String>> loader = ids -> StreamUtil.stream(graph.getVertices(ids, FetchHints.NONE, authorizations))
+                .map(Vertex::getId)
+                .collect(Collectors.toSet());
+        if (productExtendedDataCache == null) {
+            return loader.apply(new HashSet<>(vertexIds));
+        }
+        return productExtendedDataCache.getAuthorizedVertexIds(productId, entityIds, vertexIds, authorizations, loader);
+    }
+
+    private ProductExtendedDataCache.RelatedEdges getRelatedEdges(
+            Graph graph,
+            Vertex productVertex,
+            Set<String> entityIds,
+            User user,
+            Authorizations authorizations
+    ) {
+        Supplier<ProductExtendedDataCache.RelatedEdges> loader = () -> {
             Authorizations systemAuthorizations = authorizationRepository.getGraphAuthorizations(
                     user,
                     BcVisibility.SUPER_USER_VISIBILITY_STRING
@@ -112,30 +214,16 @@ public abstract class WorkProductServiceHasElementsBase<TVertex extends WorkProd
                     WebWorkspaceSchema.PRODUCT_TO_ENTITY_RELATIONSHIP_NAME,
                     systemAuthorizations
             ));
-            Iterable<RelatedEdge> productRelatedEdges = graph.findRelatedEdgeSummaryForVertices(productVertices, authorizations);
-            List<String> ids = StreamUtil.stream(productRelatedEdges)
+            List<RelatedEdge> productRelatedEdges = Lists.newArrayList(graph.findRelatedEdgeSummaryForVertices(productVertices, authorizations));
+            List<String> ids = productRelatedEdges.stream()
                     .map(RelatedEdge::getEdgeId)
                     .collect(Collectors.toList());
-            Map<String, Boolean> relatedEdgesById = graph.doEdgesExist(ids, authorizations);
-
-            for (RelatedEdge relatedEdge : productRelatedEdges) {
-                String edgeId = relatedEdge.getEdgeId();
-                TEdge edge = createWorkProductEdge();
-                edge.setEdgeId(relatedEdge.getEdgeId());
-
-                if (relatedEdgesById.get(edgeId)) {
-                    edge.setLabel(relatedEdge.getLabel());
-                    edge.setOutVertexId(relatedEdge.getOutVertexId());
-                    edge.setInVertexId(relatedEdge.getInVertexId());
-                } else {
-                    edge.setUnauthorized(true);
-                }
-                edges.put(edgeId, edge);
-            }
-            extendedData.setEdges(edges);
+            return new ProductExtendedDataCache.RelatedEdges(productRelatedEdges, graph.doEdgesExist(ids, authorizations));
+        };
+        if (productExtendedDataCache == null) {
+            return loader.get();
         }
-
-        return extendedData;
+        return productExtendedDataCache.getRelatedEdges(productVertex.getId(), entityIds, authorizations, loader);
     }
 
     protected abstract TEdge createWorkProductEdge();
@@ -0,0 +1,114 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.search.export;
+
+import org.json.JSONObject;
+
+import java.io.File;
+
+/**
+ * A finished or in-progress search export spooled to its own directory by {@link DocumentExportFileRepository}.
+ */
+public class DocumentExportFile {
+    static final String STATE_FILE_NAME = "export.json";
+    private static final String DATA_FILE_NAME = "data";
+
+    private final String exportId;
+    private final String userId;
+    private final String fileName;
+    private final String contentType;
+    private final File directory;
+
+    DocumentExportFile(String exportId, String userId, String fileName, String contentType, File directory) {
+        this.exportId = exportId;
+        this.userId = userId;
+        this.fileName = fileName;
+        this.contentType = contentType;
+        this.directory = directory;
+    }
+
+    public String getExportId() {
+        return exportId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    File getDirectory() {
+        return directory;
+    }
+
+    public File getDataFile() {
+        return new File(directory, DATA_FILE_NAME);
+    }
+
+    File getPartialDataFile() {
+        return new File(directory, DATA_FILE_NAME + ".part");
+    }
+
+    public boolean isComplete() {
+        return getDataFile().exists();
+    }
+
+    JSONObject toJson() {
+        JSONObject json = new JSONObject();
+        json.put("exportId", exportId);
+        json.put("userId", userId);
+        json.put("fileName", fileName);
+        json.put("contentType", contentType);
+        return json;
+    }
+
+    static DocumentExportFile fromJson(JSONObject json, File directory) {
+        return new DocumentExportFile(
+                json.getString("exportId"),
+                json.getString("userId"),
+                json.getString("fileName"),
+                json.getString("contentType"),
+                directory
+        );
+    }
+}
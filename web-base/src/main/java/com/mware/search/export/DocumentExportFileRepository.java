@@ -0,0 +1,119 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.search.export;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.mware.config.WebOptions;
+import com.mware.core.config.Configuration;
+import com.mware.core.exception.BcAccessDeniedException;
+import com.mware.core.exception.BcException;
+import com.mware.core.exception.BcResourceNotFoundException;
+import com.mware.core.user.User;
+import com.mware.core.util.BcLogger;
+import com.mware.core.util.BcLoggerFactory;
+import com.mware.web.util.SpoolDirectory;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local spool for background search exports under {@link WebOptions#DOCUMENT_EXPORT_DIR}. Exports are written to a
+ * partial file and renamed once complete, and are deleted {@link WebOptions#DOCUMENT_EXPORT_EXPIRATION_HOURS} after
+ * they were started.
+ */
+@Singleton
+public class DocumentExportFileRepository {
+    private static final BcLogger LOGGER = BcLoggerFactory.getLogger(DocumentExportFileRepository.class);
+    private final SpoolDirectory exportDir;
+
+    @Inject
+    public DocumentExportFileRepository(Configuration configuration) {
+        this.exportDir = new SpoolDirectory(
+                new File(configuration.get(WebOptions.DOCUMENT_EXPORT_DIR)),
+                DocumentExportFile.STATE_FILE_NAME,
+                TimeUnit.HOURS.toMillis(configuration.get(WebOptions.DOCUMENT_EXPORT_EXPIRATION_HOURS))
+        );
+        LOGGER.info("Using search export dir: %s", exportDir.getRoot().getAbsolutePath());
+    }
+
+    public DocumentExportFile create(String exportId, String userId, String fileName, String contentType) throws IOException {
+        exportDir.deleteExpired();
+
+        File directory = exportDir.create(exportId);
+        DocumentExportFile exportFile = new DocumentExportFile(exportId, userId, fileName, contentType, directory);
+        exportDir.writeState(directory, exportFile.toJson());
+        return exportFile;
+    }
+
+    public OutputStream openForWrite(DocumentExportFile exportFile) throws IOException {
+        return new FileOutputStream(exportFile.getPartialDataFile());
+    }
+
+    public void complete(DocumentExportFile exportFile) {
+        if (!exportFile.getPartialDataFile().renameTo(exportFile.getDataFile())) {
+            throw new BcException("Could not complete export: " + exportFile.getDataFile().getAbsolutePath());
+        }
+    }
+
+    public void delete(DocumentExportFile exportFile) {
+        exportDir.delete(exportFile.getDirectory());
+    }
+
+    /**
+     * @throws BcResourceNotFoundException if the export does not exist, expired or is not finished yet
+     */
+    public DocumentExportFile get(String exportId, User user) throws IOException {
+        File directory = exportDir.getDirectory(exportId);
+        JSONObject state = exportDir.readState(directory);
+        if (state == null) {
+            throw new BcResourceNotFoundException("Could not find export: " + exportId);
+        }
+        DocumentExportFile exportFile = DocumentExportFile.fromJson(state, directory);
+        if (!exportFile.getUserId().equals(user.getUserId())) {
+            throw new BcAccessDeniedException("Export " + exportId + " belongs to another user", user, exportId);
+        }
+        if (!exportFile.isComplete()) {
+            throw new BcResourceNotFoundException("Export is not finished: " + exportId);
+        }
+        return exportFile;
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.search.export;
+
+import com.google.inject.Inject;
+import com.mware.core.exception.BcException;
+import com.mware.core.model.Description;
+import com.mware.core.model.Name;
+import com.mware.core.model.clientapi.dto.ClientApiSearch;
+import com.mware.core.model.longRunningProcess.LongRunningProcessRepository;
+import com.mware.core.model.longRunningProcess.LongRunningProcessWorker;
+import com.mware.core.model.search.SearchHelper;
+import com.mware.core.model.user.UserRepository;
+import com.mware.core.user.User;
+import com.mware.core.util.BcLogger;
+import com.mware.core.util.BcLoggerFactory;
+import com.mware.core.util.ClientApiConverter;
+import com.mware.ge.Authorizations;
+import com.mware.ge.Graph;
+import com.mware.search.WebSearchHelper;
+import com.mware.web.routes.vertex.ExportProgressListener;
+import com.mware.web.routes.vertex.ExportToPdfHelper;
+import com.mware.web.routes.vertex.ExportToWordHelper;
+import com.mware.web.routes.vertex.ExportToXlsHelper;
+import com.mware.web.routes.vertex.ExportToXmlHelper;
+import org.json.JSONObject;
+
+import java.io.OutputStream;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+@Name("Search Export")
+@Description("Exports search results to Word, Excel, XML or PDF files")
+public class DocumentExportLongRunningProcess extends LongRunningProcessWorker {
+    private static final BcLogger LOGGER = BcLoggerFactory.getLogger(DocumentExportLongRunningProcess.class);
+    public static final String TYPE = "document-export";
+    private static final int REPORT_PROGRESS_EVERY = 100;
+
+    private Graph graph;
+    private UserRepository userRepository;
+    private SearchHelper searchHelper;
+    private LongRunningProcessRepository longRunningProcessRepository;
+    private DocumentExportFileRepository documentExportFileRepository;
+    private ExportToWordHelper exportToWordHelper;
+    private ExportToXlsHelper exportToXlsHelper;
+    private ExportToXmlHelper exportToXmlHelper;
+    private ExportToPdfHelper exportToPdfHelper;
+
+    @Override
+    public boolean isHandled(JSONObject longRunningProcessQueueItem) {
+        return TYPE.equals(longRunningProcessQueueItem.getString("type"));
+    }
+
+    @Override
+    protected void processInternal(final JSONObject longRunningProcessQueueItem) {
+        DocumentExportQueueItem queueItem =
+                ClientApiConverter.toClientApi(longRunningProcessQueueItem.toString(), DocumentExportQueueItem.class);
+        User user = userRepository.findById(queueItem.getUserId());
+        Authorizations authorizations = graph.createAuthorizations(queueItem.getAuthorizations());
+        DocumentExportType exportType = DocumentExportType.fromParameter(queueItem.getExportType());
+
+        longRunningProcessRepository.reportProgress(longRunningProcessQueueItem, 0, "Searching");
+        List<String> vertexIds = search(queueItem, user, authorizations);
+        int total = vertexIds.size();
+        NumberFormat numberFormat = NumberFormat.getIntegerInstance();
+        int[] exported = new int[1];
+        ExportProgressListener progressListener = () -> {
+            exported[0]++;
+            if (exported[0] % REPORT_PROGRESS_EVERY == 0) {
+                longRunningProcessRepository.reportProgress(
+                        longRunningProcessQueueItem,
+                        ((float) exported[0]) / ((float) total),
+                        "Vertex " + numberFormat.format(exported[0]) + " of " + numberFormat.format(total));
+            }
+        };
+
+        DocumentExportFile exportFile;
+        try {
+            exportFile = documentExportFileRepository.create(
+                    queueItem.getExportId(), queueItem.getUserId(), queueItem.getFileName(), exportType.getContentType());
+        } catch (Exception e) {
+            throw new BcException("Unable to create export file", e);
+        }
+        try (OutputStream out = documentExportFileRepository.openForWrite(exportFile)) {
+            write(exportType, vertexIds, authorizations, out, progressListener);
+        } catch (Exception e) {
+            documentExportFileRepository.delete(exportFile);
+            throw new BcException("Unable to export search", e);
+        }
+        documentExportFileRepository.complete(exportFile);
+        LOGGER.info("Exported %d vertices to %s", total, exportFile.getDataFile().getAbsolutePath());
+    }
+
+    private List<String> search(DocumentExportQueueItem queueItem, User user, Authorizations authorizations) {
+        ClientApiSearch search = new ClientApiSearch();
+        search.id = "exportSearch_" + queueItem.getExportType();
+        search.name = "exportSearch_" + queueItem.getExportType();
+        search.url = queueItem.getUrl();
+        search.parameters = ClientApiConverter.toClientApiValue(new JSONObject(queueItem.getParameters()));
+
+        List<String> vertexIds = new ArrayList<>();
+        if (WebSearchHelper.isVertexRunner(search.url)) {
+            vertexIds.addAll(searchHelper.search(search, user, authorizations, false).stream()
+                    .map(v -> v.getId())
+                    .collect(Collectors.toList()));
+        } else if (WebSearchHelper.isCypherRunner(search.url)) {
+            vertexIds.addAll(searchHelper.searchCypher(search, user, authorizations));
+        }
+        return vertexIds;
+    }
+
+    private void write(
+            DocumentExportType exportType,
+            List<String> vertexIds,
+            Authorizations authorizations,
+            OutputStream out,
+            ExportProgressListener progressListener
+    ) throws Exception {
+        switch (exportType) {
+            case XLS:
+                exportToXlsHelper.export(vertexIds, authorizations, out, progressListener);
+                break;
+            case WORD:
+                exportToWordHelper.export(vertexIds, authorizations, Optional.empty(), out, progressListener);
+                break;
+            case XML:
+                exportToXmlHelper.export(vertexIds, authorizations, out, progressListener);
+                break;
+            case PDF:
+                exportToPdfHelper.export(vertexIds, authorizations, out, progressListener);
+                break;
+            default:
+                throw new BcException(String.format("Unknown export type %s", exportType));
+        }
+    }
+
+    @Inject
+    public void setGraph(Graph graph) {
+        this.graph = graph;
+    }
+
+    @Inject
+    public void setUserRepository(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    @Inject
+    public void setSearchHelper(SearchHelper searchHelper) {
+        this.searchHelper = searchHelper;
+    }
+
+    @Inject
+    public void setLongRunningProcessRepository(LongRunningProcessRepository longRunningProcessRepository) {
+        this.longRunningProcessRepository = longRunningProcessRepository;
+    }
+
+    @Inject
+    public void setDocumentExportFileRepository(DocumentExportFileRepository documentExportFileRepository) {
+        this.documentExportFileRepository = documentExportFileRepository;
+    }
+
+    @Inject
+    public void setExportToWordHelper(ExportToWordHelper exportToWordHelper) {
+        this.exportToWordHelper = exportToWordHelper;
+    }
+
+    @Inject
+    public void setExportToXlsHelper(ExportToXlsHelper exportToXlsHelper) {
+        this.exportToXlsHelper = exportToXlsHelper;
+    }
+
+    @Inject
+    public void setExportToXmlHelper(ExportToXmlHelper exportToXmlHelper) {
+        this.exportToXmlHelper = exportToXmlHelper;
+    }
+
+    @Inject
+    public void setExportToPdfHelper(ExportToPdfHelper exportToPdfHelper) {
+        this.exportToPdfHelper = exportToPdfHelper;
+    }
+}
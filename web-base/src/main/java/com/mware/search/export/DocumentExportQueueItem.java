@@ -0,0 +1,118 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.search.export;
+
+import com.mware.core.util.ClientApiConverter;
+import com.mware.ge.Authorizations;
+import org.json.JSONObject;
+
+public class DocumentExportQueueItem {
+    private String userId;
+    private String[] authorizations;
+    private String workspaceId;
+    private String type;
+    private String exportId;
+    private String exportType;
+    private String fileName;
+    private String url;
+    private String parameters;
+
+    public DocumentExportQueueItem() {
+
+    }
+
+    public DocumentExportQueueItem(
+            String userId,
+            Authorizations authorizations,
+            String workspaceId,
+            String exportId,
+            String exportType,
+            String fileName,
+            String url,
+            JSONObject parameters
+    ) {
+        this.userId = userId;
+        this.authorizations = authorizations.getAuthorizations();
+        this.workspaceId = workspaceId;
+        this.type = DocumentExportLongRunningProcess.TYPE;
+        this.exportId = exportId;
+        this.exportType = exportType;
+        this.fileName = fileName;
+        this.url = url;
+        this.parameters = parameters.toString();
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String[] getAuthorizations() {
+        return authorizations;
+    }
+
+    public String getWorkspaceId() {
+        return workspaceId;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getExportId() {
+        return exportId;
+    }
+
+    public String getExportType() {
+        return exportType;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getParameters() {
+        return parameters;
+    }
+
+    public JSONObject toJson() {
+        return new JSONObject(ClientApiConverter.clientApiToString(this));
+    }
+}
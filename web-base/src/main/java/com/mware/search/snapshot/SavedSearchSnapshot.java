@@ -0,0 +1,194 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.search.snapshot;
+
+import com.mware.core.orm.Entity;
+import com.mware.core.orm.Field;
+import com.mware.core.orm.Id;
+import com.mware.web.routes.dataset.ReadDataset.ClientApiReadDatasetResponse;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Stored result of a saved search, as seen by one user in one workspace. Only the columns and the row count are
+ * kept here, the rows are split into {@link SavedSearchSnapshotPage}s of {@link #getPageSize()} rows so a dataset
+ * read only loads the pages it returns.
+ */
+@Entity(tableName = "savedSearchSnapshot")
+public class SavedSearchSnapshot {
+    @Id
+    private String id;
+
+    @Field
+    private String searchId;
+
+    @Field
+    private String userId;
+
+    @Field
+    private String workspaceId;
+
+    @Field
+    private Date refreshedDate;
+
+    @Field
+    private String name;
+
+    @Field
+    private String columns;
+
+    @Field
+    private String columnTypes;
+
+    @Field
+    private String generation;
+
+    @Field
+    private Integer rowCount;
+
+    @Field
+    private Integer pageSize;
+
+    @Field
+    private Boolean truncated;
+
+    // Used by SimpleOrm to create instance
+    @SuppressWarnings("UnusedDeclaration")
+    protected SavedSearchSnapshot() {
+    }
+
+    public SavedSearchSnapshot(
+            String searchId,
+            String userId,
+            String workspaceId,
+            String generation,
+            ClientApiReadDatasetResponse dataset,
+            int pageSize,
+            boolean truncated
+    ) {
+        this.id = createId(searchId, userId, workspaceId);
+        this.searchId = searchId;
+        this.userId = userId;
+        this.workspaceId = workspaceId;
+        this.refreshedDate = new Date();
+        this.name = dataset.name;
+        this.columns = new JSONArray(dataset.columns).toString();
+        JSONArray types = new JSONArray();
+        dataset.columnTypes.forEach(t -> types.put(t == null ? JSONObject.NULL : t));
+        this.columnTypes = types.toString();
+        this.generation = generation;
+        this.rowCount = dataset.rows.size();
+        this.pageSize = pageSize;
+        this.truncated = truncated;
+    }
+
+    public static String createId(String searchId, String userId, String workspaceId) {
+        return searchId + ":" + userId + ":" + workspaceId;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getSearchId() {
+        return searchId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getWorkspaceId() {
+        return workspaceId;
+    }
+
+    public Date getRefreshedDate() {
+        return refreshedDate;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<String> getColumns() {
+        return toList(columns);
+    }
+
+    public List<String> getColumnTypes() {
+        return toList(columnTypes);
+    }
+
+    /**
+     * Changes on every refresh, pages of an older generation are deleted once the new one is saved.
+     */
+    public String getGeneration() {
+        return generation;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public int getPageCount() {
+        return (rowCount + pageSize - 1) / pageSize;
+    }
+
+    /**
+     * @return true if the search returned more rows than were stored, rows after {@link #getRowCount()} are not
+     * in the snapshot
+     */
+    public boolean isTruncated() {
+        return truncated != null && truncated;
+    }
+
+    private static List<String> toList(String json) {
+        JSONArray array = new JSONArray(json);
+        List<String> list = new ArrayList<>(array.length());
+        for (int i = 0; i < array.length(); i++) {
+            list.add(array.isNull(i) ? null : array.getString(i));
+        }
+        return list;
+    }
+}
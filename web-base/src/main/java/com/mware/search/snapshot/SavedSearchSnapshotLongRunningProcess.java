@@ -0,0 +1,140 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.search.snapshot;
+
+import com.google.inject.Inject;
+import com.mware.config.WebOptions;
+import com.mware.core.config.Configuration;
+import com.mware.core.model.Description;
+import com.mware.core.model.Name;
+import com.mware.core.model.clientapi.dto.ClientApiSearch;
+import com.mware.core.model.longRunningProcess.LongRunningProcessRepository;
+import com.mware.core.model.longRunningProcess.LongRunningProcessWorker;
+import com.mware.core.model.search.SearchRepository;
+import com.mware.core.model.user.UserRepository;
+import com.mware.core.user.User;
+import com.mware.core.util.BcLogger;
+import com.mware.core.util.BcLoggerFactory;
+import com.mware.core.util.ClientApiConverter;
+import com.mware.ge.Authorizations;
+import com.mware.ge.Graph;
+import com.mware.web.routes.dataset.ReadDataset;
+import com.mware.web.routes.dataset.ReadDataset.ClientApiReadDatasetResponse;
+import org.json.JSONObject;
+
+@Name("Saved Search Snapshot")
+@Description("Materializes a saved search so dataset reads do not run the search again")
+public class SavedSearchSnapshotLongRunningProcess extends LongRunningProcessWorker {
+    private static final BcLogger LOGGER = BcLoggerFactory.getLogger(SavedSearchSnapshotLongRunningProcess.class);
+    public static final String TYPE = "saved-search-snapshot";
+
+    private Graph graph;
+    private UserRepository userRepository;
+    private SearchRepository searchRepository;
+    private LongRunningProcessRepository longRunningProcessRepository;
+    private SavedSearchSnapshotRepository savedSearchSnapshotRepository;
+    private ReadDataset readDataset;
+    private int maxSize;
+
+    @Override
+    public boolean isHandled(JSONObject longRunningProcessQueueItem) {
+        return TYPE.equals(longRunningProcessQueueItem.getString("type"));
+    }
+
+    @Override
+    protected void processInternal(final JSONObject longRunningProcessQueueItem) {
+        SavedSearchSnapshotQueueItem queueItem =
+                ClientApiConverter.toClientApi(longRunningProcessQueueItem.toString(), SavedSearchSnapshotQueueItem.class);
+        User user = userRepository.findById(queueItem.getUserId());
+        Authorizations authorizations = graph.createAuthorizations(queueItem.getAuthorizations());
+
+        ClientApiSearch savedSearch = searchRepository.getSavedSearch(queueItem.getSearchId(), user);
+        if (savedSearch == null) {
+            LOGGER.info("Saved search %s no longer exists, dropping its snapshot", queueItem.getSearchId());
+            savedSearchSnapshotRepository.delete(queueItem.getSearchId(), queueItem.getWorkspaceId(), user);
+            return;
+        }
+
+        longRunningProcessRepository.reportProgress(longRunningProcessQueueItem, 0, "Searching");
+        // one extra row tells a complete result apart from one that was cut at maxSize
+        ClientApiReadDatasetResponse dataset = readDataset.readSearch(
+                savedSearch, user, authorizations, queueItem.getWorkspaceId(), 0, maxSize + 1);
+        dataset.name = savedSearch.name;
+        boolean truncated = dataset.rows.size() > maxSize;
+        if (truncated) {
+            dataset.rows.subList(maxSize, dataset.rows.size()).clear();
+            LOGGER.warn("Saved search %s has more than %d rows, reads past them will run the search", savedSearch.name, maxSize);
+        }
+        savedSearchSnapshotRepository.save(queueItem.getSearchId(), queueItem.getWorkspaceId(), dataset, truncated, user);
+        LOGGER.info("Materialized saved search %s with %d rows", savedSearch.name, dataset.rows.size());
+    }
+
+    @Inject
+    public void setGraph(Graph graph) {
+        this.graph = graph;
+    }
+
+    @Inject
+    public void setUserRepository(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    @Inject
+    public void setSearchRepository(SearchRepository searchRepository) {
+        this.searchRepository = searchRepository;
+    }
+
+    @Inject
+    public void setLongRunningProcessRepository(LongRunningProcessRepository longRunningProcessRepository) {
+        this.longRunningProcessRepository = longRunningProcessRepository;
+    }
+
+    @Inject
+    public void setSavedSearchSnapshotRepository(SavedSearchSnapshotRepository savedSearchSnapshotRepository) {
+        this.savedSearchSnapshotRepository = savedSearchSnapshotRepository;
+    }
+
+    @Inject
+    public void setReadDataset(ReadDataset readDataset) {
+        this.readDataset = readDataset;
+    }
+
+    @Inject
+    public void setConfiguration(Configuration configuration) {
+        this.maxSize = configuration.get(WebOptions.SAVED_SEARCH_SNAPSHOT_MAX_SIZE);
+    }
+}
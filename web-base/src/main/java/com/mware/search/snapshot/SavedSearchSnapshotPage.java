@@ -0,0 +1,101 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.search.snapshot;
+
+import com.mware.core.orm.Entity;
+import com.mware.core.orm.Field;
+import com.mware.core.orm.Id;
+import com.mware.web.routes.dataset.ReadDataset.ClientApiReadDatasetResponse.DatasetRow;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One page of the rows of a {@link SavedSearchSnapshot}.
+ */
+@Entity(tableName = "savedSearchSnapshotPage")
+public class SavedSearchSnapshotPage {
+    @Id
+    private String id;
+
+    @Field
+    private String rows;
+
+    // Used by SimpleOrm to create instance
+    @SuppressWarnings("UnusedDeclaration")
+    protected SavedSearchSnapshotPage() {
+    }
+
+    public SavedSearchSnapshotPage(String snapshotId, String generation, int pageIndex, List<DatasetRow> rows) {
+        this.id = createId(snapshotId, generation, pageIndex);
+        JSONArray jsonRows = new JSONArray();
+        for (DatasetRow row : rows) {
+            JSONArray jsonRow = new JSONArray();
+            for (int c = 0; c < row.size(); c++) {
+                Object value = row.get(c);
+                jsonRow.put(value == null ? JSONObject.NULL : value);
+            }
+            jsonRows.put(jsonRow);
+        }
+        this.rows = jsonRows.toString();
+    }
+
+    public static String createId(String snapshotId, String generation, int pageIndex) {
+        return snapshotId + ":" + generation + ":" + pageIndex;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public List<DatasetRow> getRows() {
+        JSONArray jsonRows = new JSONArray(rows);
+        List<DatasetRow> result = new ArrayList<>(jsonRows.length());
+        for (int r = 0; r < jsonRows.length(); r++) {
+            JSONArray row = jsonRows.getJSONArray(r);
+            DatasetRow datasetRow = new DatasetRow();
+            datasetRow.ensureCapacity(row.length());
+            for (int c = 0; c < row.length(); c++) {
+                datasetRow.set(c, row.isNull(c) ? null : row.get(c));
+            }
+            result.add(datasetRow);
+        }
+        return result;
+    }
+}
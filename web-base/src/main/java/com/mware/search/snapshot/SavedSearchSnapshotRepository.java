@@ -0,0 +1,262 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.search.snapshot;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.mware.config.WebOptions;
+import com.mware.core.config.Configuration;
+import com.mware.core.model.longRunningProcess.LongRunningProcessRepository;
+import com.mware.core.model.user.UserRepository;
+import com.mware.core.orm.SimpleOrmContext;
+import com.mware.core.orm.SimpleOrmSession;
+import com.mware.core.user.User;
+import com.mware.core.util.BcLogger;
+import com.mware.core.util.BcLoggerFactory;
+import com.mware.ge.Authorizations;
+import com.mware.web.routes.dataset.ReadDataset.ClientApiReadDatasetResponse;
+import com.mware.web.routes.dataset.ReadDataset.ClientApiReadDatasetResponse.DatasetRow;
+import com.mware.workspace.WorkspaceChangeJournal;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps materialized saved searches in SimpleOrm, one snapshot per search, user and workspace.
+ * <p>
+ * A snapshot is refreshed in the background when it is older than
+ * {@link WebOptions#SAVED_SEARCH_SNAPSHOT_MAX_AGE_MINUTES}, or sooner when changes to its workspace or to published
+ * data were reported through {@link #markChanged(String)}, but never more often than
+ * {@link WebOptions#SAVED_SEARCH_SNAPSHOT_MIN_REFRESH_SECONDS}. Changes are reported by the
+ * {@link WorkspaceChangeJournal}, which also hears the change broadcasts of other web servers, workers and ingest;
+ * a change nobody broadcasts is only picked up once the snapshot reaches its maximum age.
+ */
+@Singleton
+public class SavedSearchSnapshotRepository {
+    private static final BcLogger LOGGER = BcLoggerFactory.getLogger(SavedSearchSnapshotRepository.class);
+    private static final String VISIBILITY_STRING = "";
+    public static final int PAGE_SIZE = 1000;
+    private final SimpleOrmSession simpleOrmSession;
+    private final UserRepository userRepository;
+    private final LongRunningProcessRepository longRunningProcessRepository;
+    private final long maxAgeMillis;
+    private final long minRefreshMillis;
+    private final Cache<String, Boolean> pendingRefreshes;
+    private final Cache<String, Long> workspaceChangeTimes;
+    private volatile long publicChangeTime = System.currentTimeMillis();
+
+    @Inject
+    public SavedSearchSnapshotRepository(
+            SimpleOrmSession simpleOrmSession,
+            UserRepository userRepository,
+            LongRunningProcessRepository longRunningProcessRepository,
+            Configuration configuration
+    ) {
+        this.simpleOrmSession = simpleOrmSession;
+        this.userRepository = userRepository;
+        this.longRunningProcessRepository = longRunningProcessRepository;
+        this.maxAgeMillis = TimeUnit.MINUTES.toMillis(configuration.get(WebOptions.SAVED_SEARCH_SNAPSHOT_MAX_AGE_MINUTES));
+        this.minRefreshMillis = TimeUnit.SECONDS.toMillis(configuration.get(WebOptions.SAVED_SEARCH_SNAPSHOT_MIN_REFRESH_SECONDS));
+        this.pendingRefreshes = CacheBuilder.newBuilder()
+                .expireAfterWrite(minRefreshMillis, TimeUnit.MILLISECONDS)
+                .build();
+        // past the maximum age every snapshot is stale anyway, so older change times are not needed
+        this.workspaceChangeTimes = CacheBuilder.newBuilder()
+                .expireAfterWrite(maxAgeMillis, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    @Inject
+    public void setWorkspaceChangeJournal(WorkspaceChangeJournal workspaceChangeJournal) {
+        workspaceChangeJournal.addWorkspaceChangeListener(this::markChanged);
+    }
+
+    public SavedSearchSnapshot find(String searchId, String workspaceId, User user) {
+        return simpleOrmSession.findById(
+                SavedSearchSnapshot.class,
+                SavedSearchSnapshot.createId(searchId, user.getUserId(), workspaceId),
+                userRepository.getSimpleOrmContext(user)
+        );
+    }
+
+    /**
+     * Pages are written under a new generation before the snapshot itself, so readers of the previous snapshot keep
+     * seeing consistent rows until its pages are deleted.
+     *
+     * @param truncated true if the search had more rows than the dataset holds
+     */
+    public void save(String searchId, String workspaceId, ClientApiReadDatasetResponse dataset, boolean truncated, User user) {
+        SimpleOrmContext context = userRepository.getSimpleOrmContext(user);
+        SavedSearchSnapshot previous = find(searchId, workspaceId, user);
+        SavedSearchSnapshot snapshot = new SavedSearchSnapshot(
+                searchId, user.getUserId(), workspaceId, UUID.randomUUID().toString(), dataset, PAGE_SIZE, truncated);
+        for (int page = 0; page < snapshot.getPageCount(); page++) {
+            List<DatasetRow> rows = dataset.rows.subList(page * PAGE_SIZE, Math.min((page + 1) * PAGE_SIZE, dataset.rows.size()));
+            simpleOrmSession.save(
+                    new SavedSearchSnapshotPage(snapshot.getId(), snapshot.getGeneration(), page, rows),
+                    VISIBILITY_STRING,
+                    context
+            );
+        }
+        simpleOrmSession.save(snapshot, VISIBILITY_STRING, context);
+        if (previous != null) {
+            deletePages(previous, context);
+        }
+        pendingRefreshes.invalidate(snapshot.getId());
+    }
+
+    public void delete(String searchId, String workspaceId, User user) {
+        SimpleOrmContext context = userRepository.getSimpleOrmContext(user);
+        SavedSearchSnapshot snapshot = find(searchId, workspaceId, user);
+        String id = SavedSearchSnapshot.createId(searchId, user.getUserId(), workspaceId);
+        simpleOrmSession.delete(SavedSearchSnapshot.class, id, context);
+        if (snapshot != null) {
+            deletePages(snapshot, context);
+        }
+        pendingRefreshes.invalidate(id);
+    }
+
+    private void deletePages(SavedSearchSnapshot snapshot, SimpleOrmContext context) {
+        for (int page = 0; page < snapshot.getPageCount(); page++) {
+            String pageId = SavedSearchSnapshotPage.createId(snapshot.getId(), snapshot.getGeneration(), page);
+            simpleOrmSession.delete(SavedSearchSnapshotPage.class, pageId, context);
+        }
+    }
+
+    /**
+     * Reads a range of rows, loading only the pages that hold them.
+     *
+     * @param offset first row to return, defaults to 0
+     * @param size   maximum number of rows to return, defaults to all remaining rows
+     * @return null if the snapshot cannot answer the request: the range reaches past the rows of a truncated
+     * snapshot, or its pages were replaced by a concurrent refresh. The caller should run the search instead.
+     */
+    public ClientApiReadDatasetResponse getDataset(SavedSearchSnapshot snapshot, Integer offset, Integer size, User user) {
+        int rowCount = snapshot.getRowCount();
+        int start = offset == null ? 0 : Math.max(offset, 0);
+        long requestedEnd = size == null ? Long.MAX_VALUE : (long) start + Math.max(size, 0);
+        if (snapshot.isTruncated() && requestedEnd > rowCount) {
+            return null;
+        }
+        start = Math.min(start, rowCount);
+        int end = (int) Math.min(requestedEnd, rowCount);
+
+        ClientApiReadDatasetResponse response = new ClientApiReadDatasetResponse(snapshot.getName(), snapshot.getSearchId());
+        response.columns.addAll(snapshot.getColumns());
+        response.columnTypes.addAll(snapshot.getColumnTypes());
+        SimpleOrmContext context = userRepository.getSimpleOrmContext(user);
+        int pageSize = snapshot.getPageSize();
+        for (int page = start / pageSize; page * pageSize < end; page++) {
+            String pageId = SavedSearchSnapshotPage.createId(snapshot.getId(), snapshot.getGeneration(), page);
+            SavedSearchSnapshotPage snapshotPage = simpleOrmSession.findById(SavedSearchSnapshotPage.class, pageId, context);
+            if (snapshotPage == null) {
+                LOGGER.debug("page %s of saved search snapshot %s is gone", page, snapshot.getId());
+                return null;
+            }
+            List<DatasetRow> rows = snapshotPage.getRows();
+            int pageStart = page * pageSize;
+            int from = Math.max(start - pageStart, 0);
+            int to = Math.min(end - pageStart, rows.size());
+            response.rows.addAll(rows.subList(from, to));
+        }
+        return response;
+    }
+
+    public boolean isStale(SavedSearchSnapshot snapshot) {
+        long refreshed = snapshot.getRefreshedDate().getTime();
+        long age = System.currentTimeMillis() - refreshed;
+        if (age > maxAgeMillis) {
+            return true;
+        }
+        if (age <= minRefreshMillis) {
+            return false;
+        }
+        Long workspaceChangeTime = snapshot.getWorkspaceId() == null
+                ? null
+                : workspaceChangeTimes.getIfPresent(snapshot.getWorkspaceId());
+        return publicChangeTime > refreshed || (workspaceChangeTime != null && workspaceChangeTime > refreshed);
+    }
+
+    /**
+     * Queues a refresh of the user's snapshot unless one was already queued recently.
+     *
+     * @return the long running process id, or null if a refresh is already pending
+     */
+    public String requestRefresh(String searchId, String workspaceId, User user, Authorizations authorizations) {
+        String id = SavedSearchSnapshot.createId(searchId, user.getUserId(), workspaceId);
+        if (pendingRefreshes.asMap().putIfAbsent(id, Boolean.TRUE) != null) {
+            return null;
+        }
+        LOGGER.debug("queueing refresh of saved search snapshot %s", id);
+        return enqueue(searchId, workspaceId, user, authorizations);
+    }
+
+    /**
+     * Creates or refreshes the user's snapshot of a saved search.
+     *
+     * @return the long running process id
+     */
+    public String materialize(String searchId, String workspaceId, User user, Authorizations authorizations) {
+        pendingRefreshes.put(SavedSearchSnapshot.createId(searchId, user.getUserId(), workspaceId), Boolean.TRUE);
+        return enqueue(searchId, workspaceId, user, authorizations);
+    }
+
+    private String enqueue(String searchId, String workspaceId, User user, Authorizations authorizations) {
+        SavedSearchSnapshotQueueItem queueItem =
+                new SavedSearchSnapshotQueueItem(user.getUserId(), authorizations, workspaceId, searchId);
+        return longRunningProcessRepository.enqueue(queueItem.toJson(), user, authorizations);
+    }
+
+    /**
+     * Called when elements may have changed. Snapshots of the workspace taken before this are refreshed on their
+     * next read.
+     *
+     * @param workspaceId the workspace the change was made in, or null for changes to published data, which are
+     *                    seen by every workspace
+     */
+    public void markChanged(String workspaceId) {
+        long now = System.currentTimeMillis();
+        if (workspaceId == null) {
+            publicChangeTime = now;
+        } else {
+            workspaceChangeTimes.put(workspaceId, now);
+        }
+    }
+}
@@ -59,6 +59,7 @@ import java.util.List;
 
 public class BcResponse {
     public static final int EXPIRES_1_HOUR = 60 * 60;
+    public static final int EXPIRES_1_YEAR = 365 * 24 * 60 * 60;
     public static final ClientApiSuccess SUCCESS = new ClientApiSuccess();
     private final HttpServletRequest request;
     private final HttpServletResponse response;
@@ -186,6 +187,13 @@ public class BcResponse {
         response.setHeader("Cache-Control", "max-age=" + numberOfSeconds);
     }
 
+    /**
+     * For responses whose URL never maps to different content, so browsers can skip revalidating them.
+     */
+    public void setImmutable(int numberOfSeconds) {
+        response.setHeader("Cache-Control", "private, max-age=" + numberOfSeconds + ", immutable");
+    }
+
     public OutputStream getOutputStream() {
         try {
             return response.getOutputStream();
@@ -63,11 +63,14 @@ import com.mware.web.routes.config.Plugin;
 import com.mware.web.routes.dashboard.*;
 import com.mware.web.routes.dataload.*;
 import com.mware.web.routes.dataset.DatasetList;
+import com.mware.web.routes.dataset.DematerializeDataset;
+import com.mware.web.routes.dataset.MaterializeDataset;
 import com.mware.web.routes.dataset.ProcessedDataset;
 import com.mware.web.routes.dataset.ReadDataset;
 import com.mware.web.routes.edge.*;
 import com.mware.web.routes.element.ElementDelete;
 import com.mware.web.routes.element.ElementSearch;
+import com.mware.web.routes.element.ElementSearchStream;
 import com.mware.web.routes.extendedData.ExtendedDataGet;
 import com.mware.web.routes.extendedData.ExtendedDataSearch;
 import com.mware.web.routes.longRunningProcess.LongRunningProcessById;
@@ -174,13 +177,18 @@ public class Router extends HttpServlet {
             app.post("/search/advanced/cypher", authenticator, csrfProtector, RunSavedSearchCypher.class);
             app.delete("/search", authenticator, csrfProtector, SearchDelete.class);
             app.post("/search/export", authenticator, csrfProtector, SearchExport.class);
+            app.get("/search/export/download", authenticator, csrfProtector, SearchExportDownload.class);
 
             app.get("/dataset", authenticator, csrfProtector, ReadDataset.class);
+            app.post("/dataset/materialize", authenticator, csrfProtector, ReadPrivilegeFilter.class, MaterializeDataset.class);
+            app.delete("/dataset/materialize", authenticator, csrfProtector, ReadPrivilegeFilter.class, DematerializeDataset.class);
             app.get("/process-dataset", authenticator, csrfProtector, ProcessedDataset.class);
             app.get("/find-dataset", authenticator, csrfProtector, DatasetList.class);
 
             app.get("/element/search", authenticator, csrfProtector, ReadPrivilegeFilter.class, ElementSearch.class);
             app.post("/element/search", authenticator, csrfProtector, ReadPrivilegeFilter.class, ElementSearch.class);
+            app.get("/element/search/stream", authenticator, csrfProtector, ReadPrivilegeFilter.class, ElementSearchStream.class);
+            app.post("/element/search/stream", authenticator, csrfProtector, ReadPrivilegeFilter.class, ElementSearchStream.class);
 
             app.post("/elements/delete", authenticator, csrfProtector, EditPrivilegeFilter.class, ElementDelete.class);
 
@@ -197,6 +205,11 @@ public class Router extends HttpServlet {
             app.get("/vertex/history", authenticator, csrfProtector, HistoryReadPrivilegeFilter.class, VertexGetHistory.class);
             app.get("/vertex/property/details", authenticator, csrfProtector, ReadPrivilegeFilter.class, VertexPropertyDetails.class);
             app.post("/vertex/import", authenticator, csrfProtector, EditPrivilegeFilter.class, VertexImport.class);
+            app.post("/vertex/upload", authenticator, csrfProtector, EditPrivilegeFilter.class, VertexChunkedUploadInitiate.class);
+            app.get("/vertex/upload", authenticator, csrfProtector, EditPrivilegeFilter.class, VertexChunkedUploadStatus.class);
+            app.put("/vertex/upload/chunk", authenticator, csrfProtector, EditPrivilegeFilter.class, VertexChunkedUploadChunk.class);
+            app.post("/vertex/upload/complete", authenticator, csrfProtector, EditPrivilegeFilter.class, VertexChunkedUploadComplete.class);
+            app.delete("/vertex/upload", authenticator, csrfProtector, EditPrivilegeFilter.class, VertexChunkedUploadAbort.class);
             app.post("/vertex/resolve-term", authenticator, csrfProtector, EditPrivilegeFilter.class, ResolveTermEntity.class);
             app.get("/vertex/text", authenticator, csrfProtector, ReadPrivilegeFilter.class, VertexGetText.class);
             app.post("/vertex/edit-text", authenticator, csrfProtector, EditPrivilegeFilter.class, EditTextEntity.class);
@@ -329,6 +342,7 @@ public class Router extends HttpServlet {
             app.post("/admin/ontologyRelDelete", authenticator, csrfProtector, AdminPrivilegeFilter.class, OntologyManagerRelDelete.class);
             app.delete("/admin/deleteElements", authenticator, csrfProtector, AdminPrivilegeFilter.class, DeleteElements.class);
             app.post("/admin/restoreElements", authenticator, csrfProtector, AdminPrivilegeFilter.class, RestoreElements.class);
+            app.post("/admin/rebuildContentHashIndex", authenticator, csrfProtector, AdminPrivilegeFilter.class, RebuildContentHashIndex.class);
 
             app.get("/ping", RateLimitFilter.class, Ping.class);
             app.get("/ping/stats", authenticator, AdminPrivilegeFilter.class, PingStats.class);
@@ -51,6 +51,9 @@ import java.util.List;
 
 public class ClientApiWorkspaceDiff implements ClientApiObject {
     private List<Item> diffs = new ArrayList<Item>();
+    private String cursor;
+    private boolean full = true;
+    private List<String> changedElementIds = new ArrayList<>();
 
     public void addAll(List<Item> diffs) {
         this.diffs.addAll(diffs);
@@ -60,6 +63,30 @@ public class ClientApiWorkspaceDiff implements ClientApiObject {
         return diffs;
     }
 
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
+    /**
+     * When false, {@link #getDiffs()} only holds the current items of {@link #getChangedElementIds()} and replaces
+     * whatever the client previously had for those elements.
+     */
+    public boolean isFull() {
+        return full;
+    }
+
+    public void setFull(boolean full) {
+        this.full = full;
+    }
+
+    public List<String> getChangedElementIds() {
+        return changedElementIds;
+    }
+
     @Override
     public String toString() {
         return ClientApiConverter.clientApiToString(this);
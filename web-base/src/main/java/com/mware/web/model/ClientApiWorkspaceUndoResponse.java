@@ -39,6 +39,7 @@ package com.mware.web.model;
 import com.mware.core.model.clientapi.dto.ClientApiObject;
 import com.mware.core.model.clientapi.util.ClientApiConverter;
 import lombok.Getter;
+import lombok.Setter;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -46,6 +47,8 @@ import java.util.List;
 @Getter
 public class ClientApiWorkspaceUndoResponse implements ClientApiObject {
     private List<ClientApiUndoItem> failures = new ArrayList<ClientApiUndoItem>();
+    @Setter
+    private String longRunningProcessId;
 
     public boolean isSuccess() {
         return failures.size() == 0;
@@ -37,5 +37,5 @@
 package com.mware.web.model;
 
 public enum ResponseType {
-    Json, Csv
+    Json, Csv, Arrow
 }
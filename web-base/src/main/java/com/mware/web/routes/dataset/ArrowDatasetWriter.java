@@ -0,0 +1,291 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.web.routes.dataset;
+
+import com.mware.core.model.clientapi.dto.PropertyType;
+import com.mware.ge.type.GeoPoint;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.TimeStampMilliTZVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.TimeUnit;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.joda.time.DateTime;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Writes dataset rows as an Arrow IPC stream. Rows are buffered column by column into a record batch
+ * of {@link #BATCH_SIZE} rows which is written out as soon as it fills up, so memory is bounded by one
+ * batch regardless of the dataset size.
+ */
+public class ArrowDatasetWriter implements Closeable {
+    public static final String CONTENT_TYPE = "application/vnd.apache.arrow.stream";
+    public static final int BATCH_SIZE = 4096;
+
+    private final List<Column> columns;
+    private final BufferAllocator allocator;
+    private final VectorSchemaRoot root;
+    private final ArrowStreamWriter writer;
+    private int rowCount;
+
+    public ArrowDatasetWriter(List<Column> columns, OutputStream out) throws IOException {
+        this.columns = columns;
+        this.allocator = new RootAllocator();
+        Schema schema = new Schema(columns.stream().map(Column::toField).collect(Collectors.toList()));
+        this.root = VectorSchemaRoot.create(schema, allocator);
+        this.writer = new ArrowStreamWriter(root, new DictionaryProvider.MapDictionaryProvider(), out);
+        this.writer.start();
+        this.root.allocateNew();
+    }
+
+    /**
+     * @param values returns the values of a source column (property name) for the current row
+     */
+    public void writeRow(Function<String, List<?>> values) throws IOException {
+        for (int i = 0; i < columns.size(); i++) {
+            Column column = columns.get(i);
+            column.set(root.getVector(i), rowCount, values.apply(column.getSource()));
+        }
+        rowCount++;
+        if (rowCount == BATCH_SIZE) {
+            writeBatch();
+        }
+    }
+
+    private void writeBatch() throws IOException {
+        root.setRowCount(rowCount);
+        writer.writeBatch();
+        root.allocateNew();
+        rowCount = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (rowCount > 0) {
+                writeBatch();
+            }
+            writer.end();
+            writer.close();
+        } finally {
+            root.close();
+            allocator.close();
+        }
+    }
+
+    public enum ColumnKind {
+        STRING, LONG, DOUBLE, BOOLEAN, TIMESTAMP, LONGITUDE, LATITUDE
+    }
+
+    public static class Column {
+        private final String name;
+        private final String source;
+        private final ColumnKind kind;
+
+        public Column(String name, String source, ColumnKind kind) {
+            this.name = name;
+            this.source = source;
+            this.kind = kind;
+        }
+
+        /**
+         * Geo location properties are split into _lon/_lat columns the same way the JSON dataset does.
+         */
+        public static List<Column> forProperty(String propertyName, PropertyType dataType) {
+            switch (dataType) {
+                case INTEGER:
+                    return Collections.singletonList(new Column(propertyName, propertyName, ColumnKind.LONG));
+                case DOUBLE:
+                case FLOAT:
+                    return Collections.singletonList(new Column(propertyName, propertyName, ColumnKind.DOUBLE));
+                case BOOLEAN:
+                    return Collections.singletonList(new Column(propertyName, propertyName, ColumnKind.BOOLEAN));
+                case DATETIME:
+                    return Collections.singletonList(new Column(propertyName, propertyName, ColumnKind.TIMESTAMP));
+                case GEO_LOCATION:
+                    return Arrays.asList(
+                            new Column(propertyName + "_lon", propertyName, ColumnKind.LONGITUDE),
+                            new Column(propertyName + "_lat", propertyName, ColumnKind.LATITUDE)
+                    );
+                default:
+                    return Collections.singletonList(new Column(propertyName, propertyName, ColumnKind.STRING));
+            }
+        }
+
+        public static Column forJavaType(String name, String javaType) {
+            if (Long.class.getName().equals(javaType) || Integer.class.getName().equals(javaType)) {
+                return new Column(name, name, ColumnKind.LONG);
+            } else if (Double.class.getName().equals(javaType) || Float.class.getName().equals(javaType)) {
+                return new Column(name, name, ColumnKind.DOUBLE);
+            } else if (Boolean.class.getName().equals(javaType)) {
+                return new Column(name, name, ColumnKind.BOOLEAN);
+            }
+            return new Column(name, name, ColumnKind.STRING);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getSource() {
+            return source;
+        }
+
+        Field toField() {
+            switch (kind) {
+                case LONG:
+                    return Field.nullable(name, new ArrowType.Int(64, true));
+                case DOUBLE:
+                case LONGITUDE:
+                case LATITUDE:
+                    return Field.nullable(name, new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE));
+                case BOOLEAN:
+                    return Field.nullable(name, ArrowType.Bool.INSTANCE);
+                case TIMESTAMP:
+                    return Field.nullable(name, new ArrowType.Timestamp(TimeUnit.MILLISECOND, "UTC"));
+                default:
+                    return Field.nullable(name, ArrowType.Utf8.INSTANCE);
+            }
+        }
+
+        /**
+         * Slots that are not set stay null, the validity buffer is zeroed by allocateNew().
+         */
+        void set(FieldVector vector, int index, List<?> values) {
+            if (values == null || values.isEmpty()) {
+                return;
+            }
+            Object value = values.get(0);
+            switch (kind) {
+                case STRING:
+                    String str = values.size() == 1
+                            ? String.valueOf(value)
+                            : values.stream().map(String::valueOf).collect(Collectors.joining(";"));
+                    ((VarCharVector) vector).setSafe(index, str.getBytes(StandardCharsets.UTF_8));
+                    break;
+                case LONG:
+                    Long longValue = toLong(value);
+                    if (longValue != null) {
+                        ((BigIntVector) vector).setSafe(index, longValue);
+                    }
+                    break;
+                case DOUBLE:
+                    Double doubleValue = toDouble(value);
+                    if (doubleValue != null) {
+                        ((Float8Vector) vector).setSafe(index, doubleValue);
+                    }
+                    break;
+                case BOOLEAN:
+                    if (value instanceof Boolean || value instanceof String) {
+                        boolean b = value instanceof Boolean ? (Boolean) value : Boolean.parseBoolean((String) value);
+                        ((BitVector) vector).setSafe(index, b ? 1 : 0);
+                    }
+                    break;
+                case TIMESTAMP:
+                    Long millis = toEpochMillis(value);
+                    if (millis != null) {
+                        ((TimeStampMilliTZVector) vector).setSafe(index, millis);
+                    }
+                    break;
+                case LONGITUDE:
+                case LATITUDE:
+                    if (value instanceof GeoPoint) {
+                        GeoPoint geoPoint = (GeoPoint) value;
+                        double coordinate = kind == ColumnKind.LONGITUDE ? geoPoint.getLongitude() : geoPoint.getLatitude();
+                        ((Float8Vector) vector).setSafe(index, coordinate);
+                    }
+                    break;
+            }
+        }
+
+        private static Long toLong(Object value) {
+            if (value instanceof Number) {
+                return ((Number) value).longValue();
+            }
+            try {
+                return value instanceof String ? Long.parseLong((String) value) : null;
+            } catch (NumberFormatException ex) {
+                return null;
+            }
+        }
+
+        private static Double toDouble(Object value) {
+            if (value instanceof Number) {
+                return ((Number) value).doubleValue();
+            }
+            try {
+                return value instanceof String ? Double.parseDouble((String) value) : null;
+            } catch (NumberFormatException ex) {
+                return null;
+            }
+        }
+
+        private static Long toEpochMillis(Object value) {
+            if (value instanceof Date) {
+                return ((Date) value).getTime();
+            } else if (value instanceof ZonedDateTime) {
+                return ((ZonedDateTime) value).toInstant().toEpochMilli();
+            } else if (value instanceof DateTime) {
+                return ((DateTime) value).getMillis();
+            } else if (value instanceof Number) {
+                return ((Number) value).longValue();
+            }
+            return null;
+        }
+    }
+}
@@ -36,11 +36,11 @@
  */
 package com.mware.web.routes.dataset;
 
+import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.mware.core.model.clientapi.dto.ClientApiObject;
 import com.mware.core.model.clientapi.dto.ClientApiSearch;
-import com.mware.core.model.clientapi.dto.ClientApiUser;
 import com.mware.core.model.role.AuthorizationRepository;
 import com.mware.core.model.user.UserRepository;
 import com.mware.core.user.User;
@@ -52,11 +52,11 @@ import com.mware.web.framework.annotations.Handle;
 import com.mware.web.framework.annotations.Optional;
 import com.mware.web.framework.annotations.Required;
 import com.mware.web.model.ResponseType;
+import com.mware.web.parameterProviders.ActiveWorkspaceId;
 import com.mware.web.routes.dataset.ProcessedDataset.ClientApiReadProcessedDatasetResponse.GraphNode;
 
 import java.util.*;
 import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 @Singleton
 public class ProcessedDataset implements ParameterizedHandler  {
@@ -82,11 +82,11 @@ public class ProcessedDataset implements ParameterizedHandler  {
             @Optional(name = "offset") Integer offset,
             @Optional(name = "size") Integer size,
             @Optional(name = "scope") ClientApiSearch.Scope scope,
+            @ActiveWorkspaceId(required = false) String activeWorkspaceId,
             User user
     ) throws Exception {
-        ReadDataset.ClientApiReadDatasetResponse readDatasetResponse = readDataset.handle(datasetName, offset, size, scope, ResponseType.Json, user);
-        ClientApiUser userMe = userRepository.toClientApiPrivate(user);
-        Authorizations authorizations = authorizationRepository.getGraphAuthorizations(user, userMe.getCurrentWorkspaceId());
+        ReadDataset.ClientApiReadDatasetResponse readDatasetResponse = readDataset.handle(datasetName, offset, size, scope, ResponseType.Json, null, activeWorkspaceId, user, null);
+        Authorizations authorizations = authorizationRepository.getGraphAuthorizations(user, readDataset.getWorkspaceId(activeWorkspaceId, user));
 
         ClientApiReadProcessedDatasetResponse response = new ClientApiReadProcessedDatasetResponse(readDatasetResponse.name, readDatasetResponse.columns);
         response.nodes = processNodes(readDatasetResponse);
@@ -108,39 +108,51 @@ public class ProcessedDataset implements ParameterizedHandler  {
         }).collect(Collectors.toList());
     }
 
+    /**
+     * Finds the links between dataset nodes with a single related edge summary over the whole node set.
+     * Each link is encoded as a long holding the (out, in) node indexes, so duplicates from parallel edges
+     * are dropped by sorting a primitive array instead of merging per-node sets.
+     */
     private List<ClientApiReadProcessedDatasetResponse.GraphLink> processLinks(Authorizations authorizations, List<GraphNode> nodes) {
-        Map<String, Set<String>> inOutPairs = new HashMap<>();
-        Set<String> nodeIds = nodes.stream().map(GraphNode::getId).collect(Collectors.toCollection(HashSet::new));
-        Iterable<Vertex> vertices = graph.getVertices(nodeIds, authorizations);
-
-        vertices.forEach(vertex -> {
-            Iterable<EdgeVertexPair> inEdgeVertexPairs = getEdgeVertexPairsForDataSetNodes(authorizations, nodeIds, vertex, Direction.IN);
-            Iterable<EdgeVertexPair> outEdgeVertexPairs = getEdgeVertexPairsForDataSetNodes(authorizations, nodeIds, vertex, Direction.OUT);
-
-            inEdgeVertexPairs.forEach(in -> inOutPairs.merge(in.getVertex().getId(), new HashSet<>(Collections.singleton(vertex.getId())),
-                    (v1, v2) -> { Set<String> oldValues = new HashSet<>(v1);
-                        oldValues.addAll(v2);
-                        return oldValues;
-                    }));
-
-            outEdgeVertexPairs.forEach(out -> inOutPairs.merge(vertex.getId(), new HashSet<>(Collections.singleton(out.getVertex().getId())),
-                    (v1, v2) -> {
-                        Set<String> oldValues = new HashSet<>(v1);
-                        oldValues.addAll(v2);
-                        return oldValues;
-                    }));
-        });
-
-        List<ClientApiReadProcessedDatasetResponse.GraphLink> formattedLinks = new ArrayList<>();
-        inOutPairs.forEach((key, value) -> value.forEach(val -> formattedLinks.add(new ClientApiReadProcessedDatasetResponse.GraphLink(key, val))));
+        Map<String, Integer> nodeIndexes = new HashMap<>();
+        List<String> nodeIds = new ArrayList<>();
+        for (GraphNode node : nodes) {
+            String id = node.getId();
+            if (id != null && !nodeIndexes.containsKey(id)) {
+                nodeIndexes.put(id, nodeIds.size());
+                nodeIds.add(id);
+            }
+        }
+        if (nodeIds.isEmpty()) {
+            return new ArrayList<>();
+        }
 
-        return formattedLinks;
-    }
+        List<Vertex> vertices = Lists.newArrayList(graph.getVertices(nodeIds, authorizations));
+        long[] links = new long[16];
+        int linkCount = 0;
+        for (RelatedEdge relatedEdge : graph.findRelatedEdgeSummaryForVertices(vertices, authorizations)) {
+            Integer outIndex = nodeIndexes.get(relatedEdge.getOutVertexId());
+            Integer inIndex = nodeIndexes.get(relatedEdge.getInVertexId());
+            if (outIndex == null || inIndex == null) {
+                continue;
+            }
+            if (linkCount == links.length) {
+                links = Arrays.copyOf(links, links.length * 2);
+            }
+            links[linkCount++] = ((long) outIndex << 32) | inIndex;
+        }
+        Arrays.sort(links, 0, linkCount);
 
-    private List<EdgeVertexPair> getEdgeVertexPairsForDataSetNodes(Authorizations authorizations, Set<String> nodeIds, Vertex vertex, Direction in) {
-        return StreamSupport.stream(vertex.getEdgeVertexPairs(in, authorizations).spliterator(), false)
-                                                                    .filter(pair -> nodeIds.contains(pair.getVertex().getId()))
-                                                                    .collect(Collectors.toList());
+        List<ClientApiReadProcessedDatasetResponse.GraphLink> formattedLinks = new ArrayList<>(linkCount);
+        for (int i = 0; i < linkCount; i++) {
+            if (i > 0 && links[i] == links[i - 1]) {
+                continue;
+            }
+            String source = nodeIds.get((int) (links[i] >>> 32));
+            String target = nodeIds.get((int) links[i]);
+            formattedLinks.add(new ClientApiReadProcessedDatasetResponse.GraphLink(source, target));
+        }
+        return formattedLinks;
     }
 
     public static class ClientApiReadProcessedDatasetResponse implements ClientApiObject {
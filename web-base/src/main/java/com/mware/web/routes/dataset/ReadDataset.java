@@ -43,20 +43,30 @@ import com.mware.core.model.clientapi.dto.*;
 import com.mware.core.model.properties.BcSchema;
 import com.mware.core.model.properties.RawObjectSchema;
 import com.mware.core.model.role.AuthorizationRepository;
+import com.mware.core.model.schema.SchemaProperty;
+import com.mware.core.model.schema.SchemaRepository;
 import com.mware.core.model.search.*;
 import com.mware.core.model.user.UserRepository;
 import com.mware.core.user.User;
 import com.mware.core.util.BcLogger;
 import com.mware.core.util.BcLoggerFactory;
 import com.mware.ge.Authorizations;
+import com.mware.ge.Element;
+import com.mware.ge.GeObject;
 import com.mware.ge.type.GeoPoint;
 import com.mware.ge.util.IterableUtils;
+import com.mware.ge.values.storable.StreamingPropertyValue;
+import com.mware.ge.values.storable.Value;
 import com.mware.search.*;
+import com.mware.search.snapshot.SavedSearchSnapshot;
+import com.mware.search.snapshot.SavedSearchSnapshotRepository;
+import com.mware.web.BcResponse;
 import com.mware.web.framework.ParameterizedHandler;
 import com.mware.web.framework.annotations.Handle;
 import com.mware.web.framework.annotations.Optional;
 import com.mware.web.framework.annotations.Required;
 import com.mware.web.model.*;
+import com.mware.web.parameterProviders.ActiveWorkspaceId;
 import com.mware.web.routes.dataset.ReadDataset.ClientApiReadDatasetResponse.DatasetRow;
 import com.mware.web.routes.search.SearchList;
 import com.mware.web.routes.vertex.GeObjectSearchBase;
@@ -66,6 +76,7 @@ import org.joda.time.DateTime;
 
 import java.io.BufferedWriter;
 import java.io.File;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.time.ZonedDateTime;
@@ -76,16 +87,22 @@ import java.util.stream.Collectors;
 @Singleton
 public class ReadDataset implements ParameterizedHandler  {
     private static final BcLogger LOGGER = BcLoggerFactory.getLogger(ReadDataset.class);
+    private static final String DATASET_ID_COLUMN = "_id_";
     private final SearchRepository searchRepository;
     private final UserRepository userRepository;
     private final AuthorizationRepository authorizationRepository;
+    private final SchemaRepository schemaRepository;
+    private final SavedSearchSnapshotRepository savedSearchSnapshotRepository;
 
     @Inject
     public ReadDataset(SearchRepository searchRepository,
-                       UserRepository userRepository, AuthorizationRepository authorizationRepository) {
+                       UserRepository userRepository, AuthorizationRepository authorizationRepository,
+                       SchemaRepository schemaRepository, SavedSearchSnapshotRepository savedSearchSnapshotRepository) {
         this.searchRepository = searchRepository;
         this.userRepository = userRepository;
         this.authorizationRepository = authorizationRepository;
+        this.schemaRepository = schemaRepository;
+        this.savedSearchSnapshotRepository = savedSearchSnapshotRepository;
     }
 
     @Handle
@@ -95,45 +112,33 @@ public class ReadDataset implements ParameterizedHandler  {
             @Optional(name = "size") Integer size,
             @Optional(name = "scope") ClientApiSearch.Scope scope,
             @Optional(name = "as") ResponseType responseType,
-            User user
+            @Optional(name = "columns[]") String[] columns,
+            @ActiveWorkspaceId(required = false) String activeWorkspaceId,
+            User user,
+            BcResponse bcResponse
     ) throws Exception {
-        ClientApiSearchListResponse userSearches = new SearchList(searchRepository).handle(user);
-        java.util.Optional<ClientApiSearch> search = userSearches.searches.stream()
-                .filter(s -> scope == null || s.scope.equals(scope))
-                .filter(s -> s.name.equals(datasetName)).findFirst();
-
-        if(!search.isPresent()) {
-            throw new BcException(String.format("Could not find a saved search with name: %s", datasetName));
+        ClientApiSearch savedSearch = findSavedSearch(datasetName, scope, user);
+        String workspaceId = getWorkspaceId(activeWorkspaceId, user);
+        Authorizations authorizations = authorizationRepository.getGraphAuthorizations(user, workspaceId);
+
+        if (ResponseType.Arrow.equals(responseType)) {
+            SearchResults results = runSearch(savedSearch, user, authorizations, workspaceId, offset, size);
+            bcResponse.setContentType(ArrowDatasetWriter.CONTENT_TYPE);
+            bcResponse.addHeader("Content-Disposition", "attachment; filename=\"" + toAttachmentFileName(datasetName) + ".arrows\"");
+            writeArrow(results, columns, workspaceId, bcResponse.getOutputStream());
+            return null;
         }
-        ClientApiUser userMe = userRepository.toClientApiPrivate(user);
-        Authorizations authorizations = authorizationRepository.getGraphAuthorizations(user, userMe.getCurrentWorkspaceId());
-
-        SearchRunner searchRunner = searchRepository.findSearchRunnerByUri(search.get().url);
-        SearchResults results = searchRunner.run(
-                getSearchOptions(search.get(), userMe.getCurrentWorkspaceId(), offset, size),
-                user,
-                authorizations
-        );
 
-        ClientApiReadDatasetResponse response;
-        if(results instanceof ClientApiElementSearchResponse) {
-            response = geObjectsToDataset((ClientApiElementSearchResponse) results);
-        } else if(results instanceof ClientApiTabularSearchResponse) {
-            response = rowsToDataset((ClientApiTabularSearchResponse) results);
-        } else if(results instanceof QueryResultsIterableSearchResults) {
-            QueryResultsIterableSearchResults searchResults = (QueryResultsIterableSearchResults) results;
-            List<ClientApiGeObject> geObjects = GeObjectSearchBase.convertElementsToClientApi(
-                    searchResults.getQueryResultsIterable(),
-                    userMe.getCurrentWorkspaceId(),
-                    authorizations
-            );
-            ClientApiElementSearchResponse r = new ClientApiElementSearchResponse();
-            r.getElements().addAll(geObjects);
-            response = geObjectsToDataset(r);
-            searchResults.getQueryResultsIterable().close();
-            searchResults.close();
-        } else {
-            throw new IllegalArgumentException("Unsupported search type: " + results.getClass().getName());
+        ClientApiReadDatasetResponse response = null;
+        SavedSearchSnapshot snapshot = savedSearchSnapshotRepository.find(savedSearch.id, workspaceId, user);
+        if (snapshot != null) {
+            if (savedSearchSnapshotRepository.isStale(snapshot)) {
+                savedSearchSnapshotRepository.requestRefresh(savedSearch.id, workspaceId, user, authorizations);
+            }
+            response = savedSearchSnapshotRepository.getDataset(snapshot, offset, size, user);
+        }
+        if (response == null) {
+            response = readSearch(savedSearch, user, authorizations, workspaceId, offset, size);
         }
 
         response.name = datasetName;
@@ -160,6 +165,163 @@ public class ReadDataset implements ParameterizedHandler  {
         return response;
     }
 
+    /**
+     * Datasets are read, materialized and dematerialized in the active workspace of the request, or in the user's
+     * current workspace for clients that do not send one.
+     */
+    public String getWorkspaceId(String activeWorkspaceId, User user) {
+        if (activeWorkspaceId != null) {
+            return activeWorkspaceId;
+        }
+        ClientApiUser userMe = userRepository.toClientApiPrivate(user);
+        return userMe.getCurrentWorkspaceId();
+    }
+
+    public ClientApiSearch findSavedSearch(String datasetName, ClientApiSearch.Scope scope, User user) throws Exception {
+        ClientApiSearchListResponse userSearches = new SearchList(searchRepository).handle(user);
+        return userSearches.searches.stream()
+                .filter(s -> scope == null || s.scope.equals(scope))
+                .filter(s -> s.name.equals(datasetName))
+                .findFirst()
+                .orElseThrow(() -> new BcException(String.format("Could not find a saved search with name: %s", datasetName)));
+    }
+
+    public ClientApiReadDatasetResponse readSearch(
+            ClientApiSearch savedSearch,
+            User user,
+            Authorizations authorizations,
+            String workspaceId,
+            Integer offset,
+            Integer size
+    ) {
+        SearchResults results = runSearch(savedSearch, user, authorizations, workspaceId, offset, size);
+        if(results instanceof ClientApiElementSearchResponse) {
+            return geObjectsToDataset((ClientApiElementSearchResponse) results);
+        } else if(results instanceof ClientApiTabularSearchResponse) {
+            return rowsToDataset((ClientApiTabularSearchResponse) results);
+        } else if(results instanceof QueryResultsIterableSearchResults) {
+            try (QueryResultsIterableSearchResults searchResults = (QueryResultsIterableSearchResults) results) {
+                List<ClientApiGeObject> geObjects = GeObjectSearchBase.convertElementsToClientApi(
+                        searchResults.getQueryResultsIterable(),
+                        workspaceId,
+                        authorizations
+                );
+                ClientApiElementSearchResponse r = new ClientApiElementSearchResponse();
+                r.getElements().addAll(geObjects);
+                searchResults.getQueryResultsIterable().close();
+                return geObjectsToDataset(r);
+            } catch (Exception e) {
+                throw new BcException("Could not read search results", e);
+            }
+        } else {
+            throw new IllegalArgumentException("Unsupported search type: " + results.getClass().getName());
+        }
+    }
+
+    private SearchResults runSearch(
+            ClientApiSearch savedSearch,
+            User user,
+            Authorizations authorizations,
+            String workspaceId,
+            Integer offset,
+            Integer size
+    ) {
+        SearchRunner searchRunner = searchRepository.findSearchRunnerByUri(savedSearch.url);
+        return searchRunner.run(getSearchOptions(savedSearch, workspaceId, offset, size), user, authorizations);
+    }
+
+    private void writeArrow(SearchResults results, String[] columns, String workspaceId, OutputStream out) throws Exception {
+        if (results instanceof ClientApiTabularSearchResponse) {
+            ClientApiTabularSearchResponse tabularResults = (ClientApiTabularSearchResponse) results;
+            List<ArrowDatasetWriter.Column> arrowColumns = tabularResults.getColumns().stream()
+                    .map(c -> ArrowDatasetWriter.Column.forJavaType(c, tabularResults.getColumnTypes().get(c)))
+                    .collect(Collectors.toList());
+            try (ArrowDatasetWriter writer = new ArrowDatasetWriter(arrowColumns, out)) {
+                for (Map<String, String> row : tabularResults.getRows()) {
+                    writer.writeRow(column -> Collections.singletonList(row.get(column)));
+                }
+            }
+        } else if (results instanceof ClientApiElementSearchResponse) {
+            // only the cypher runner answers with this type and it has already converted every element to the
+            // client api model, so this branch still reads boxed ClientApiProperty values
+            try (ArrowDatasetWriter writer = new ArrowDatasetWriter(getElementColumns(columns, workspaceId), out)) {
+                for (ClientApiGeObject geObject : ((ClientApiElementSearchResponse) results).getElements()) {
+                    ClientApiElement element = (ClientApiElement) geObject;
+                    writer.writeRow(column -> {
+                        if (DATASET_ID_COLUMN.equals(column)) {
+                            return Collections.singletonList(element.getId());
+                        }
+                        List<Object> values = new ArrayList<>();
+                        Iterable<ClientApiProperty> properties = element.getProperties(column);
+                        if (properties != null) {
+                            properties.forEach(p -> values.add(p.getValue()));
+                        }
+                        return values;
+                    });
+                }
+            }
+        } else if (results instanceof QueryResultsIterableSearchResults) {
+            try (QueryResultsIterableSearchResults searchResults = (QueryResultsIterableSearchResults) results;
+                 ArrowDatasetWriter writer = new ArrowDatasetWriter(getElementColumns(columns, workspaceId), out)) {
+                for (GeObject geObject : searchResults.getQueryResultsIterable()) {
+                    if (geObject instanceof Element) {
+                        writer.writeRow(column -> getElementValues((Element) geObject, column));
+                    }
+                }
+            }
+        } else {
+            throw new IllegalArgumentException("Unsupported search type: " + results.getClass().getName());
+        }
+    }
+
+    /**
+     * Saved search names are user supplied, keep them from closing the quoted filename or splitting the header.
+     */
+    static String toAttachmentFileName(String datasetName) {
+        return datasetName.replace('"', '\'').replace('\\', '_').replaceAll("[\\p{Cntrl}]", "_");
+    }
+
+    /**
+     * The Arrow schema comes from the ontology, either for the requested properties or for every user
+     * visible property, so it is known before the first element is read.
+     */
+    private List<ArrowDatasetWriter.Column> getElementColumns(String[] columns, String workspaceId) {
+        List<ArrowDatasetWriter.Column> arrowColumns = new ArrayList<>();
+        arrowColumns.add(new ArrowDatasetWriter.Column(DATASET_ID_COLUMN, DATASET_ID_COLUMN, ArrowDatasetWriter.ColumnKind.STRING));
+        if (columns != null && columns.length > 0) {
+            for (String column : columns) {
+                SchemaProperty property = schemaRepository.getPropertyByName(column, workspaceId);
+                if (property == null) {
+                    throw new BcException("Unknown property: " + column);
+                }
+                arrowColumns.addAll(ArrowDatasetWriter.Column.forProperty(property.getName(), property.getDataType()));
+            }
+        } else {
+            for (SchemaProperty property : schemaRepository.getProperties(SchemaRepository.PUBLIC)) {
+                if (property.getUserVisible() && !skipColumn(property.getName())) {
+                    arrowColumns.addAll(ArrowDatasetWriter.Column.forProperty(property.getName(), property.getDataType()));
+                }
+            }
+        }
+        return arrowColumns;
+    }
+
+    private List<Object> getElementValues(Element element, String column) {
+        if (DATASET_ID_COLUMN.equals(column)) {
+            return Collections.singletonList(element.getId());
+        }
+        List<Object> values = new ArrayList<>();
+        Iterable<Value> propertyValues = element.getPropertyValues(column);
+        if (propertyValues != null) {
+            for (Value value : propertyValues) {
+                if (value != null && !(value instanceof StreamingPropertyValue)) {
+                    values.add(value.asObjectCopy());
+                }
+            }
+        }
+        return values;
+    }
+
     private ClientApiReadDatasetResponse rowsToDataset(ClientApiTabularSearchResponse results) {
         ClientApiReadDatasetResponse response = new ClientApiReadDatasetResponse();
         response.columns.addAll(results.getColumns());
@@ -63,6 +63,7 @@ import com.mware.web.framework.annotations.Required;
 import com.mware.web.parameterProviders.ActiveWorkspaceId;
 import com.mware.web.parameterProviders.JustificationText;
 import com.mware.web.util.VisibilityValidator;
+import com.mware.workspace.WorkspaceChangeJournal;
 
 import java.util.ResourceBundle;
 
@@ -73,6 +74,7 @@ public class EdgeCreate implements ParameterizedHandler {
     private final Graph graph;
     private final WorkQueueRepository workQueueRepository;
     private final WebQueueRepository webQueueRepository;
+    private final WorkspaceChangeJournal workspaceChangeJournal;
     private final GraphRepository graphRepository;
     private final VisibilityTranslator visibilityTranslator;
     private final AuditService auditService;
@@ -82,6 +84,7 @@ public class EdgeCreate implements ParameterizedHandler {
             Graph graph,
             WorkQueueRepository workQueueRepository,
             WebQueueRepository webQueueRepository,
+            WorkspaceChangeJournal workspaceChangeJournal,
             GraphRepository graphRepository,
             VisibilityTranslator visibilityTranslator,
             AuditService auditService
@@ -89,6 +92,7 @@ public class EdgeCreate implements ParameterizedHandler {
         this.graph = graph;
         this.workQueueRepository = workQueueRepository;
         this.webQueueRepository = webQueueRepository;
+        this.workspaceChangeJournal = workspaceChangeJournal;
         this.graphRepository = graphRepository;
         this.visibilityTranslator = visibilityTranslator;
         this.auditService = auditService;
@@ -131,6 +135,7 @@ public class EdgeCreate implements ParameterizedHandler {
         LOGGER.debug("Created new edge with id: %s", edge.getId());
         auditService.auditGenericEvent(user, workspaceId, AuditEventType.CREATE_EDGE, "id", edge.getId());
 
+        workspaceChangeJournal.recordElement(workspaceId, edge);
         webQueueRepository.broadcastPropertyChange(edge, null, null, workspaceId);
         workQueueRepository.pushGraphPropertyQueue(
                 edge,
@@ -69,6 +69,7 @@ import com.mware.web.parameterProviders.ActiveWorkspaceId;
 import com.mware.web.parameterProviders.JustificationText;
 import com.mware.web.routes.SetPropertyBase;
 import com.mware.web.util.VisibilityValidator;
+import com.mware.workspace.WorkspaceChangeJournal;
 
 import javax.servlet.http.HttpServletRequest;
 import java.util.ResourceBundle;
@@ -80,6 +81,7 @@ public class EdgeSetProperty extends SetPropertyBase implements ParameterizedHan
     private final SchemaRepository schemaRepository;
     private final WorkQueueRepository workQueueRepository;
     private final WebQueueRepository webQueueRepository;
+    private final WorkspaceChangeJournal workspaceChangeJournal;
     private final WorkspaceRepository workspaceRepository;
     private final GraphRepository graphRepository;
     private final ACLProvider aclProvider;
@@ -92,6 +94,7 @@ public class EdgeSetProperty extends SetPropertyBase implements ParameterizedHan
             VisibilityTranslator visibilityTranslator,
             WorkQueueRepository workQueueRepository,
             WebQueueRepository webQueueRepository,
+            WorkspaceChangeJournal workspaceChangeJournal,
             WorkspaceRepository workspaceRepository,
             GraphRepository graphRepository,
             ACLProvider aclProvider,
@@ -101,6 +104,7 @@ public class EdgeSetProperty extends SetPropertyBase implements ParameterizedHan
         this.schemaRepository = schemaRepository;
         this.workQueueRepository = workQueueRepository;
         this.webQueueRepository = webQueueRepository;
+        this.workspaceChangeJournal = workspaceChangeJournal;
         this.workspaceRepository = workspaceRepository;
         this.graphRepository = graphRepository;
         this.aclProvider = aclProvider;
@@ -174,6 +178,7 @@ public class EdgeSetProperty extends SetPropertyBase implements ParameterizedHan
             workspaceRepository.updateEntityOnWorkspace(workspaceId, edge.getVertexId(Direction.OUT), user);
         }
 
+        workspaceChangeJournal.recordElement(workspaceId, edge);
         webQueueRepository.broadcastPropertyChange(edge, propertyKey, propertyName, workspaceId);
         workQueueRepository.pushGraphPropertyQueue(
                 edge,
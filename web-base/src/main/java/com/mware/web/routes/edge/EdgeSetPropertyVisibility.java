@@ -58,6 +58,7 @@ import com.mware.web.framework.annotations.Required;
 import com.mware.web.model.ClientApiSuccess;
 import com.mware.web.parameterProviders.ActiveWorkspaceId;
 import com.mware.web.util.VisibilityValidator;
+import com.mware.workspace.WorkspaceChangeJournal;
 
 import java.util.ResourceBundle;
 
@@ -70,6 +71,7 @@ public class EdgeSetPropertyVisibility implements ParameterizedHandler {
     private final GraphRepository graphRepository;
     private final WorkQueueRepository workQueueRepository;
     private final WebQueueRepository webQueueRepository;
+    private final WorkspaceChangeJournal workspaceChangeJournal;
 
     @Inject
     public EdgeSetPropertyVisibility(
@@ -78,7 +80,8 @@ public class EdgeSetPropertyVisibility implements ParameterizedHandler {
             VisibilityTranslator visibilityTranslator,
             GraphRepository graphRepository,
             WorkQueueRepository workQueueRepository,
-            WebQueueRepository webQueueRepository
+            WebQueueRepository webQueueRepository,
+            WorkspaceChangeJournal workspaceChangeJournal
     ) {
         this.graph = graph;
         this.workspaceRepository = workspaceRepository;
@@ -86,6 +89,7 @@ public class EdgeSetPropertyVisibility implements ParameterizedHandler {
         this.graphRepository = graphRepository;
         this.workQueueRepository = workQueueRepository;
         this.webQueueRepository = webQueueRepository;
+        this.workspaceChangeJournal = workspaceChangeJournal;
     }
 
     @Handle
@@ -123,6 +127,7 @@ public class EdgeSetPropertyVisibility implements ParameterizedHandler {
         );
         this.graph.flush();
 
+        workspaceChangeJournal.recordElement(workspaceId, edge);
         webQueueRepository.broadcastPropertyChange(edge, property.getKey(), property.getName(), workspaceId);
         workQueueRepository.pushGraphPropertyQueue(
                 edge,
@@ -65,6 +65,7 @@ import com.mware.web.framework.annotations.Handle;
 import com.mware.web.framework.annotations.Required;
 import com.mware.web.parameterProviders.ActiveWorkspaceId;
 import com.mware.web.util.VisibilityValidator;
+import com.mware.workspace.WorkspaceChangeJournal;
 
 import java.util.ResourceBundle;
 import java.util.Set;
@@ -75,6 +76,7 @@ public class EdgeSetVisibility implements ParameterizedHandler {
     private final Graph graph;
     private final WorkQueueRepository workQueueRepository;
     private final WebQueueRepository webQueueRepository;
+    private final WorkspaceChangeJournal workspaceChangeJournal;
     private final WorkspaceRepository workspaceRepository;
     private final GraphRepository graphRepository;
     private final VisibilityTranslator visibilityTranslator;
@@ -85,6 +87,7 @@ public class EdgeSetVisibility implements ParameterizedHandler {
             Graph graph,
             WorkQueueRepository workQueueRepository,
             WebQueueRepository webQueueRepository,
+            WorkspaceChangeJournal workspaceChangeJournal,
             WorkspaceRepository workspaceRepository,
             GraphRepository graphRepository,
             VisibilityTranslator visibilityTranslator,
@@ -93,6 +96,7 @@ public class EdgeSetVisibility implements ParameterizedHandler {
         this.graph = graph;
         this.workQueueRepository = workQueueRepository;
         this.webQueueRepository = webQueueRepository;
+        this.workspaceChangeJournal = workspaceChangeJournal;
         this.workspaceRepository = workspaceRepository;
         this.graphRepository = graphRepository;
         this.visibilityTranslator = visibilityTranslator;
@@ -135,6 +139,7 @@ public class EdgeSetVisibility implements ParameterizedHandler {
         this.graph.flush();
 
 
+        workspaceChangeJournal.recordElement(workspaceId, graphEdge);
         webQueueRepository.broadcastPropertyChange(graphEdge, null, BcSchema.VISIBILITY_JSON.getPropertyName(), workspaceId);
         workQueueRepository.pushGraphPropertyQueue(
                 graphEdge,
@@ -1,10 +1,13 @@
 package com.mware.web.routes.element;
 
 import com.mware.core.model.clientapi.dto.ClientApiObject;
+import com.mware.core.model.workQueue.Priority;
+import com.mware.core.security.AuditEventType;
 import com.mware.core.security.AuditService;
 import com.mware.core.user.User;
-import com.mware.ge.Authorizations;
-import com.mware.ge.Graph;
+import com.mware.core.util.BcLogger;
+import com.mware.core.util.BcLoggerFactory;
+import com.mware.ge.*;
 import com.mware.security.ACLProvider;
 import com.mware.web.BcResponse;
 import com.mware.web.framework.ParameterizedHandler;
@@ -12,15 +15,15 @@ import com.mware.web.framework.annotations.Handle;
 import com.mware.web.framework.annotations.Required;
 import com.mware.web.model.ClientApiSuccess;
 import com.mware.web.parameterProviders.ActiveWorkspaceId;
-import com.mware.web.routes.edge.EdgeDelete;
-import com.mware.web.routes.vertex.VertexRemove;
 import com.mware.workspace.WorkspaceHelper;
 import lombok.Data;
 
 import javax.inject.Inject;
-import java.util.Arrays;
+import java.util.*;
+import java.util.stream.Collectors;
 
 public class ElementDelete implements ParameterizedHandler {
+    private static final BcLogger LOGGER = BcLoggerFactory.getLogger(ElementDelete.class);
     private Graph graph;
     private ACLProvider aclProvider;
     private WorkspaceHelper workspaceHelper;
@@ -46,30 +49,53 @@ public class ElementDelete implements ParameterizedHandler {
             User user,
             Authorizations authorizations
     ) {
-        VertexRemove vertexRemover = new VertexRemove(graph, workspaceHelper, aclProvider, auditService);
-        Arrays.stream(elements)
-                .filter(e -> "vertex".equals(e.type))
-                .forEach(e -> {
-                    try {
-                        vertexRemover.handle(e.id, workspaceId, user, authorizations);
-                    } catch (Exception exception) {
-                        exception.printStackTrace();
-                    }
-                });
+        Set<String> vertexIds = idsOfType(elements, "vertex");
+        Set<String> edgeIds = idsOfType(elements, "edge");
 
-        EdgeDelete edgeRemover = new EdgeDelete(graph, workspaceHelper, aclProvider, auditService);
-        Arrays.stream(elements)
-                .filter(e -> "edge".equals(e.type))
-                .forEach(e -> {
-                    try {
-                        edgeRemover.handle(e.id, workspaceId, user, authorizations);
-                    } catch (Exception exception) {
-                        exception.printStackTrace();
-                    }
-                });
+        List<Vertex> vertices = new ArrayList<>();
+        Set<String> deletedVertexIds = new HashSet<>();
+        for (Vertex vertex : graph.getVertices(vertexIds, authorizations)) {
+            if (aclProvider.canDeleteElement(vertex, user, workspaceId)) {
+                vertices.add(vertex);
+                deletedVertexIds.add(vertex.getId());
+            } else {
+                LOGGER.warn("Vertex %s is not deleteable by %s", vertex.getId(), user.getUsername());
+            }
+        }
+
+        List<Edge> edges = new ArrayList<>();
+        for (Edge edge : graph.getEdges(edgeIds, authorizations)) {
+            // these go away together with their vertex
+            if (deletedVertexIds.contains(edge.getVertexId(Direction.OUT))
+                    || deletedVertexIds.contains(edge.getVertexId(Direction.IN))) {
+                continue;
+            }
+            if (aclProvider.canDeleteElement(edge, user, workspaceId)) {
+                edges.add(edge);
+            } else {
+                LOGGER.warn("Edge %s is not deleteable by %s", edge.getId(), user.getUsername());
+            }
+        }
+
+        workspaceHelper.deleteEdges(edges, workspaceId, Priority.HIGH, authorizations, user);
+        for (Edge edge : edges) {
+            auditService.auditGenericEvent(user, workspaceId, AuditEventType.DELETE_EDGE, "id", edge.getId());
+        }
+
+        workspaceHelper.deleteVertices(vertices, workspaceId, Priority.HIGH, authorizations, user);
+        for (Vertex vertex : vertices) {
+            auditService.auditGenericEvent(user, workspaceId, AuditEventType.DELETE_VERTEX, "id", vertex.getId());
+        }
         return BcResponse.SUCCESS;
     }
 
+    private static Set<String> idsOfType(ClientApiElementsItem[] elements, String type) {
+        return Arrays.stream(elements)
+                .filter(e -> type.equals(e.type))
+                .map(e -> e.id)
+                .collect(Collectors.toSet());
+    }
+
     @Data
     public static class ClientApiElementsItem implements ClientApiObject {
         public String type;
@@ -0,0 +1,322 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.web.routes.element;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.mware.config.WebOptions;
+import com.mware.core.config.Configuration;
+import com.mware.core.exception.BcException;
+import com.mware.core.model.clientapi.util.ObjectMapperFactory;
+import com.mware.core.model.search.ElementSearchRunner;
+import com.mware.core.model.search.GeObjectSearchRunnerBase;
+import com.mware.core.model.search.QueryResultsIterableSearchResults;
+import com.mware.core.model.search.SearchOptions;
+import com.mware.core.model.search.SearchRepository;
+import com.mware.core.security.AuditEventType;
+import com.mware.core.security.AuditService;
+import com.mware.core.user.User;
+import com.mware.core.util.BcLogger;
+import com.mware.core.util.BcLoggerFactory;
+import com.mware.ge.Authorizations;
+import com.mware.ge.Edge;
+import com.mware.ge.Element;
+import com.mware.ge.GeObject;
+import com.mware.ge.Vertex;
+import com.mware.ge.values.storable.StreamingPropertyValue;
+import com.mware.ge.values.storable.Value;
+import com.mware.web.BcResponse;
+import com.mware.web.framework.ParameterizedHandler;
+import com.mware.web.framework.Route;
+import com.mware.web.framework.annotations.Handle;
+import com.mware.web.framework.annotations.Optional;
+import com.mware.web.framework.annotations.Required;
+import com.mware.web.parameterProviders.ActiveWorkspaceId;
+import com.mware.web.routes.search.WebSearchOptionsFactory;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.apache.commons.lang.StringUtils;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Streams every element matching an element search as NDJSON or CSV rows. The search runs once and its results
+ * are iterated as the index returns them, so rows come from one consistent query and the writer is flushed every
+ * {@link WebOptions#SEARCH_STREAM_FLUSH_ROWS} rows. Once rows have been sent the status can no longer change, so a
+ * result cut off at {@link WebOptions#SEARCH_STREAM_MAX_ROWS} or a failing search ends with a {@link #COLUMN_ERROR}
+ * row instead.
+ */
+@Singleton
+public class ElementSearchStream implements ParameterizedHandler {
+    public static final String COLUMN_ID = "_id_";
+    public static final String COLUMN_TYPE = "_type_";
+    public static final String COLUMN_CONCEPT_TYPE = "_conceptType_";
+    public static final String COLUMN_EDGE_LABEL = "_edgeLabel_";
+    public static final String COLUMN_ERROR = "_error_";
+    private static final BcLogger LOGGER = BcLoggerFactory.getLogger(ElementSearchStream.class);
+
+    private static final String[] REQUEST_ONLY_PARAMETERS = {
+            "format", "columns[]", "offset", "size", "user.current", Route.MATCHED_ROUTE, "websterApp"
+    };
+
+    private final GeObjectSearchRunnerBase searchRunner;
+    private final AuditService auditService;
+    private final ObjectMapper objectMapper;
+    private final int flushRows;
+    private final int maxRows;
+
+    @Inject
+    public ElementSearchStream(SearchRepository searchRepository,
+                               AuditService auditService,
+                               Configuration configuration) {
+        this.searchRunner = (GeObjectSearchRunnerBase) searchRepository.findSearchRunnerByUri(ElementSearchRunner.URI);
+        checkNotNull(searchRunner, "searchRunner is required");
+        this.auditService = auditService;
+        this.objectMapper = ObjectMapperFactory.getInstance();
+        this.flushRows = configuration.get(WebOptions.SEARCH_STREAM_FLUSH_ROWS);
+        this.maxRows = configuration.get(WebOptions.SEARCH_STREAM_MAX_ROWS);
+    }
+
+    @Handle
+    public void handle(
+            HttpServletRequest request,
+            @Required(name = "columns[]") String[] columns,
+            @Optional(name = "format", defaultValue = "ndjson") String format,
+            @ActiveWorkspaceId String workspaceId,
+            User user,
+            Authorizations authorizations,
+            BcResponse response
+    ) throws Exception {
+        RowWriter rowWriter;
+        Writer writer;
+        if ("csv".equalsIgnoreCase(format)) {
+            response.setContentType("text/csv; charset=UTF-8");
+            response.addHeader("Content-Disposition", "attachment; filename=\"search.csv\"");
+            writer = createWriter(response);
+            rowWriter = new CsvRowWriter(writer, columns);
+        } else if ("ndjson".equalsIgnoreCase(format)) {
+            response.setContentType("application/x-ndjson; charset=UTF-8");
+            response.addHeader("Content-Disposition", "attachment; filename=\"search.ndjson\"");
+            writer = createWriter(response);
+            rowWriter = new NdjsonRowWriter(writer, columns, objectMapper);
+        } else {
+            throw new BcException("Unsupported stream format: " + format);
+        }
+
+        SearchOptions searchOptions = WebSearchOptionsFactory.create(request, workspaceId);
+        Map<String, Object> parameters = searchOptions.getParameters();
+        for (String name : REQUEST_ONLY_PARAMETERS) {
+            parameters.remove(name);
+        }
+        if (!parameters.containsKey("q")) {
+            parameters.put("q", "*");
+        }
+
+        // one more than the limit, to tell a result of exactly maxRows from a cut off one
+        parameters.put("offset", "0");
+        parameters.put("size", String.valueOf((long) maxRows + 1));
+        try (QueryResultsIterableSearchResults searchResults = searchRunner.run(searchOptions, user, authorizations)) {
+            writeRows(searchResults.getQueryResultsIterable(), maxRows, flushRows, rowWriter, writer);
+        }
+
+        String json = String.format("{q: %s, filter: %s, stream: %s}", parameters.get("q"), parameters.get("filter"), format);
+        auditService.auditGenericEvent(user, workspaceId != null ? workspaceId : StringUtils.EMPTY,
+                AuditEventType.SEARCH, "params", json);
+    }
+
+    /**
+     * @return the number of rows written, not counting an error row
+     */
+    static long writeRows(Iterable<? extends GeObject> results, long maxRows, int flushRows, RowWriter rowWriter, Writer writer) throws IOException {
+        long rows = 0;
+        try {
+            for (GeObject geObject : results) {
+                if (!(geObject instanceof Element)) {
+                    continue;
+                }
+                if (rows >= maxRows) {
+                    rowWriter.writeError("Results truncated after " + maxRows + " rows");
+                    break;
+                }
+                rowWriter.write((Element) geObject);
+                rows++;
+                if (rows % flushRows == 0) {
+                    writer.flush();
+                }
+            }
+        } catch (RuntimeException ex) {
+            LOGGER.warn("Search stream failed after %d rows", rows, ex);
+            rowWriter.writeError("Search failed after " + rows + " rows: " + ex.getMessage());
+        }
+        rowWriter.close();
+        return rows;
+    }
+
+    private static Writer createWriter(BcResponse response) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+    }
+
+    private static List<String> getColumnValues(Element element, String column) {
+        List<String> values = new ArrayList<>();
+        switch (column) {
+            case COLUMN_ID:
+                values.add(element.getId());
+                break;
+            case COLUMN_TYPE:
+                values.add(element instanceof Vertex ? "vertex" : "edge");
+                break;
+            case COLUMN_CONCEPT_TYPE:
+                if (element instanceof Vertex) {
+                    values.add(((Vertex) element).getConceptType());
+                }
+                break;
+            case COLUMN_EDGE_LABEL:
+                if (element instanceof Edge) {
+                    values.add(((Edge) element).getLabel());
+                }
+                break;
+            default:
+                Iterable<Value> propertyValues = element.getPropertyValues(column);
+                if (propertyValues != null) {
+                    for (Value value : propertyValues) {
+                        // streaming values (raw content, large text) would defeat the point of streaming rows
+                        if (value != null && !(value instanceof StreamingPropertyValue)) {
+                            values.add(value.prettyPrint());
+                        }
+                    }
+                }
+        }
+        return values;
+    }
+
+    interface RowWriter {
+        void write(Element element) throws IOException;
+
+        void writeError(String message) throws IOException;
+
+        void close() throws IOException;
+    }
+
+    static class NdjsonRowWriter implements RowWriter {
+        private final Writer writer;
+        private final String[] columns;
+        private final ObjectMapper objectMapper;
+
+        NdjsonRowWriter(Writer writer, String[] columns, ObjectMapper objectMapper) {
+            this.writer = writer;
+            this.columns = columns;
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        public void write(Element element) throws IOException {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (String column : columns) {
+                List<String> values = getColumnValues(element, column);
+                if (values.isEmpty()) {
+                    row.put(column, null);
+                } else if (values.size() == 1) {
+                    row.put(column, values.get(0));
+                } else {
+                    row.put(column, values);
+                }
+            }
+            writer.write(objectMapper.writeValueAsString(row));
+            writer.write('\n');
+        }
+
+        @Override
+        public void writeError(String message) throws IOException {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put(COLUMN_ERROR, message);
+            writer.write(objectMapper.writeValueAsString(row));
+            writer.write('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+
+    static class CsvRowWriter implements RowWriter {
+        private final CSVPrinter csvPrinter;
+        private final String[] columns;
+        private final List<String> record;
+
+        CsvRowWriter(Writer writer, String[] columns) throws IOException {
+            this.csvPrinter = new CSVPrinter(writer, CSVFormat.DEFAULT.withHeader(columns));
+            this.columns = columns;
+            this.record = new ArrayList<>(columns.length);
+        }
+
+        @Override
+        public void write(Element element) throws IOException {
+            record.clear();
+            for (String column : columns) {
+                List<String> values = getColumnValues(element, column);
+                record.add(values.isEmpty() ? null : String.join(";", values));
+            }
+            csvPrinter.printRecord(record);
+        }
+
+        @Override
+        public void writeError(String message) throws IOException {
+            record.clear();
+            record.add(COLUMN_ERROR);
+            record.add(message);
+            csvPrinter.printRecord(record);
+        }
+
+        @Override
+        public void close() throws IOException {
+            csvPrinter.close();
+        }
+    }
+}
@@ -39,9 +39,11 @@ package com.mware.web.routes.product;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.mware.core.user.User;
+import com.mware.product.ProductPreviewImage;
 import com.mware.web.BcResponse;
 import com.mware.web.framework.ParameterizedHandler;
 import com.mware.web.framework.annotations.Handle;
+import com.mware.web.framework.annotations.Optional;
 import com.mware.web.framework.annotations.Required;
 import com.mware.web.parameterProviders.ActiveWorkspaceId;
 import com.mware.workspace.WebWorkspaceRepository;
@@ -49,6 +51,11 @@ import com.mware.workspace.WebWorkspaceRepository;
 import javax.servlet.http.HttpServletResponse;
 import java.io.InputStream;
 
+/**
+ * Serves product previews. The client puts the preview hash in the URL, so a URL whose hash matches the stored
+ * preview never changes and is cached as immutable; without it, or for a stale hash, browsers revalidate with the
+ * ETag. {@code width} picks one of the scaled copies stored with the preview.
+ */
 @Singleton
 public class ProductPreview implements ParameterizedHandler {
     private final WebWorkspaceRepository webWorkspaceRepository;
@@ -62,16 +69,33 @@ public class ProductPreview implements ParameterizedHandler {
     @Handle
     public void handle(
             @Required(name = "productId") String productId,
+            @Optional(name = "md5") String md5,
+            @Optional(name = "width") Integer width,
             @ActiveWorkspaceId String workspaceId,
             User user,
             BcResponse response
     ) throws Exception {
-        try (InputStream preview = webWorkspaceRepository.getProductPreviewById(workspaceId, productId, user)) {
-            if (preview == null) {
-                response.setStatus(HttpServletResponse.SC_NOT_FOUND);
-            } else {
-                response.write(preview);
+        ProductPreviewImage preview = webWorkspaceRepository.getProductPreview(workspaceId, productId, width, user);
+        if (preview == null) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        String eTag = preview.getETag();
+        if (eTag != null) {
+            if (response.testEtagHeaders(eTag)) {
+                return;
             }
+            response.addETagHeader(eTag);
+        }
+        if (md5 != null && md5.equals(preview.getMD5())) {
+            response.setImmutable(BcResponse.EXPIRES_1_YEAR);
+        } else {
+            response.setHeader("Cache-Control", "private, no-cache");
+        }
+
+        try (InputStream in = preview.getInputStream()) {
+            response.write(in);
         }
     }
 }
@@ -38,6 +38,7 @@ package com.mware.web.routes.resource;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import com.mware.artifactThumbnails.ImageScalingService;
 import com.mware.core.exception.BcResourceNotFoundException;
 import com.mware.core.model.properties.RawObjectSchema;
 import com.mware.ge.Authorizations;
@@ -63,14 +64,17 @@ import java.io.InputStream;
 public class ResourceExternalGet implements ParameterizedHandler {
     private final Graph graph;
     private final HttpRepository httpRepository;
+    private final ImageScalingService imageScalingService;
 
     @Inject
     public ResourceExternalGet(
             final Graph graph,
-            final HttpRepository httpRepository
+            final HttpRepository httpRepository,
+            final ImageScalingService imageScalingService
     ) {
         this.graph = graph;
         this.httpRepository = httpRepository;
+        this.imageScalingService = imageScalingService;
     }
 
     @Handle
@@ -113,7 +117,7 @@ public class ResourceExternalGet implements ParameterizedHandler {
 
     private byte[] createAndSaveCachedImage(Vertex vertex, String propertyKey, String url, int maxWidth, int maxHeight, int jpegQuality, Authorizations authorizations) throws IOException {
         byte[] imageData = getAndSaveImageData(vertex, url, authorizations);
-        imageData = ImageUtils.resize(imageData, maxWidth, maxHeight, jpegQuality);
+        imageData = imageScalingService.resize(imageData, maxWidth, maxHeight, jpegQuality / 100.0f);
 
         StreamingPropertyValue value = new DefaultStreamingPropertyValue(new ByteArrayInputStream(imageData), ByteArray.class);
         value.searchIndex(false);
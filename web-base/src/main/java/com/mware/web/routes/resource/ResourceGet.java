@@ -36,8 +36,13 @@
  */
 package com.mware.web.routes.resource;
 
+import com.google.common.base.Charsets;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import com.mware.config.WebOptions;
 import com.mware.core.config.Configuration;
 import com.mware.core.exception.BcException;
 import com.mware.core.exception.BcResourceNotFoundException;
@@ -60,9 +65,11 @@ import java.awt.image.FilteredImageSource;
 import java.awt.image.ImageFilter;
 import java.awt.image.RGBImageFilter;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -73,6 +80,14 @@ public class ResourceGet implements ParameterizedHandler {
     private final SchemaRepository ontologyRepository;
     private final boolean disableTint = false;
 
+    // workspace, concept and state to the glyph they resolve to; expires so glyph changes are picked up without
+    // consulting the schema and fingerprinting the glyph on every request
+    private final Cache<String, Glyph> resolvedGlyphCache;
+
+    // keyed by the glyph content rather than the concept, so a changed glyph gets a new entry and concepts
+    // sharing a glyph share the rendering
+    private final Cache<String, byte[]> glyphCache;
+
     private static Pattern hexPattern = Pattern.compile("^#.*$");
     private static Pattern rgbPattern = Pattern.compile("^\\s*rgb\\((\\d+)\\s*,\\s*(\\d+)\\s*,\\s*(\\d+)\\s*\\)\\s*$");
 
@@ -82,6 +97,15 @@ public class ResourceGet implements ParameterizedHandler {
             Configuration configuration
     ) {
         this.ontologyRepository = ontologyRepository;
+        this.resolvedGlyphCache = CacheBuilder.newBuilder()
+                .maximumWeight(configuration.get(WebOptions.GLYPH_RESOLVED_CACHE_MAX_BYTES))
+                .<String, Glyph>weigher((key, glyph) -> key.length() + glyph.getWeight())
+                .expireAfterWrite(configuration.get(WebOptions.GLYPH_CACHE_EXPIRATION_SECONDS), TimeUnit.SECONDS)
+                .build();
+        this.glyphCache = CacheBuilder.newBuilder()
+                .maximumWeight(configuration.get(WebOptions.GLYPH_CACHE_MAX_BYTES))
+                .<String, byte[]>weigher((key, data) -> key.length() + data.length)
+                .build();
     }
 
     @Handle
@@ -97,14 +121,33 @@ public class ResourceGet implements ParameterizedHandler {
             tint = null;
         }
 
-        Glyph glyph = getConceptImage(id, state, user.getCurrentWorkspaceId());
-        if (glyph == null || !glyph.isValid()) {
-            throw new BcResourceNotFoundException("Could not find resource with id: " + id);
+        String workspaceId = user.getCurrentWorkspaceId();
+        String resolvedGlyphKey = workspaceId + "|" + id + "|" + ("selected".equals(state) ? "selected" : "");
+        Glyph glyph = resolvedGlyphCache.getIfPresent(resolvedGlyphKey);
+        if (glyph == null) {
+            glyph = getConceptImage(id, state, workspaceId);
+            if (glyph == null || !glyph.isValid()) {
+                throw new BcResourceNotFoundException("Could not find resource with id: " + id);
+            }
+            resolvedGlyphCache.put(resolvedGlyphKey, glyph);
+        }
+
+        String cacheKey = glyph.getFingerprint() + "|" + StringUtils.defaultString(tint);
+        String eTag = Hashing.sha256().hashString(cacheKey, Charsets.UTF_8).toString();
+        if (response.testEtagHeaders(eTag)) {
+            return;
+        }
+
+        byte[] imageData = glyphCache.getIfPresent(cacheKey);
+        if (imageData == null) {
+            imageData = glyph.render(tint, request);
+            glyphCache.put(cacheKey, imageData);
         }
 
         response.setContentType("image/png");
         response.setHeader("Cache-Control", "max-age=" + (5 * 60));
-        glyph.write(tint, request, response);
+        response.addETagHeader(eTag);
+        response.write(imageData);
     }
 
     private Glyph getConceptImage(String conceptName, String state, String workspaceId) {
@@ -150,7 +193,12 @@ public class ResourceGet implements ParameterizedHandler {
 
     interface Glyph {
         boolean isValid();
-        void write(String tint, HttpServletRequest request, BcResponse response) throws IOException;
+        String getFingerprint();
+        /**
+         * Approximate bytes held in memory by this glyph.
+         */
+        int getWeight();
+        byte[] render(String tint, HttpServletRequest request) throws IOException;
     }
 
     abstract class AbstractGlyph implements Glyph {
@@ -177,6 +225,12 @@ public class ResourceGet implements ParameterizedHandler {
             return null;
         }
 
+        byte[] render(BufferedImage bufferedImage, String tint) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            write(bufferedImage, tint, out);
+            return out.toByteArray();
+        }
+
         void write(BufferedImage bufferedImage, String tint, OutputStream outputStream) {
             int[] tintColor = convert(tint);
             if (tintColor != null && bufferedImage.getType() == BufferedImage.TYPE_4BYTE_ABGR) {
@@ -210,6 +264,7 @@ public class ResourceGet implements ParameterizedHandler {
 
     class Image extends AbstractGlyph {
         private byte[] img;
+        private String fingerprint;
         public Image(byte[] img) {
             this.img = img;
         }
@@ -219,10 +274,19 @@ public class ResourceGet implements ParameterizedHandler {
             }
             return true;
         }
-        public void write(String tint, HttpServletRequest request, BcResponse response) throws IOException {
+        public String getFingerprint() {
+            if (fingerprint == null) {
+                fingerprint = Hashing.sha256().hashBytes(img).toString();
+            }
+            return fingerprint;
+        }
+        public int getWeight() {
+            return img.length;
+        }
+        public byte[] render(String tint, HttpServletRequest request) throws IOException {
             try (ByteArrayInputStream is = new ByteArrayInputStream(img)) {
                 BufferedImage bufferedImage = ImageIO.read(is);
-                write(bufferedImage, tint, response.getOutputStream());
+                return render(bufferedImage, tint);
             }
         }
     }
@@ -238,12 +302,18 @@ public class ResourceGet implements ParameterizedHandler {
             }
             return true;
         }
-        public void write(String tint, HttpServletRequest request, BcResponse response) throws IOException {
+        public String getFingerprint() {
+            return path;
+        }
+        public int getWeight() {
+            return path.length();
+        }
+        public byte[] render(String tint, HttpServletRequest request) throws IOException {
             ServletContext servletContext = request.getServletContext();
             try (InputStream in = servletContext.getResourceAsStream(path)) {
                 checkNotNull(in, "Could not find resource: " + path);
                 BufferedImage base = ImageIO.read(in);
-                write(base, tint, response.getOutputStream());
+                return render(base, tint);
             }
         }
     }
@@ -39,103 +39,59 @@ package com.mware.web.routes.search;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.mware.core.exception.BcException;
-import com.mware.core.model.clientapi.dto.ClientApiSearch;
-import com.mware.core.model.search.SearchHelper;
+import com.mware.core.model.longRunningProcess.LongRunningProcessRepository;
 import com.mware.core.user.User;
-import com.mware.core.util.ClientApiConverter;
 import com.mware.ge.Authorizations;
 import com.mware.search.WebSearchHelper;
-import com.mware.web.BcResponse;
+import com.mware.search.export.DocumentExportQueueItem;
+import com.mware.search.export.DocumentExportType;
 import com.mware.web.framework.ParameterizedHandler;
 import com.mware.web.framework.annotations.Handle;
 import com.mware.web.framework.annotations.Required;
-import com.mware.web.routes.vertex.ExportToPdfHelper;
-import com.mware.web.routes.vertex.ExportToWordHelper;
-import com.mware.web.routes.vertex.ExportToXlsHelper;
-import com.mware.web.routes.vertex.ExportToXmlHelper;
+import com.mware.web.model.ClientApiLongRunningProcessSubmitResponse;
+import com.mware.web.parameterProviders.ActiveWorkspaceId;
 import org.json.JSONObject;
 
-import java.io.InputStream;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.UUID;
 
+/**
+ * Queues a search export. The document is built by
+ * {@link com.mware.search.export.DocumentExportLongRunningProcess} and fetched from {@link SearchExportDownload}.
+ */
 @Singleton
 public class SearchExport implements ParameterizedHandler {
-    private final SearchHelper searchHelper;
-    private final ExportToXlsHelper exportToXlsHelper;
-    private final ExportToWordHelper exportToWordHelper;
-    private final ExportToXmlHelper exportToXmlHelper;
-    private final ExportToPdfHelper exportToPdfHelper;
+    private final LongRunningProcessRepository longRunningProcessRepository;
 
     @Inject
-    public SearchExport(SearchHelper searchHelper,
-                        ExportToXlsHelper exportToXlsHelper,
-                        ExportToWordHelper exportToWordHelper,
-                        ExportToXmlHelper exportToXmlHelper,
-                        ExportToPdfHelper exportToPdfHelper) {
-        this.searchHelper = searchHelper;
-        this.exportToXlsHelper = exportToXlsHelper;
-        this.exportToWordHelper = exportToWordHelper;
-        this.exportToXmlHelper = exportToXmlHelper;
-        this.exportToPdfHelper = exportToPdfHelper;
+    public SearchExport(LongRunningProcessRepository longRunningProcessRepository) {
+        this.longRunningProcessRepository = longRunningProcessRepository;
     }
 
     @Handle
-    public InputStream handle(
+    public ClientApiLongRunningProcessSubmitResponse handle(
                 @Required(name = "type") String exportType,
                 @Required(name = "url") String url,
                 @Required(name = "parameters") JSONObject searchParameters,
+                @ActiveWorkspaceId String workspaceId,
                 User user,
-                Authorizations authorizations,
-                BcResponse response
+                Authorizations authorizations
             ) throws Exception {
         if (!WebSearchHelper.isVertexRunner(url) && !WebSearchHelper.isCypherRunner(url)) {
             throw new BcException("Only vertex exports are supported!");
         }
+        DocumentExportType type = DocumentExportType.fromParameter(exportType);
 
-        ClientApiSearch search = new ClientApiSearch();
-        search.id = "exportSearch_" + exportType;
-        search.name = "exportSearch_" + exportType;
-        search.url = url;
-        search.parameters = ClientApiConverter.toClientApiValue(searchParameters);
-
-        List<String> vertexIds = new ArrayList();
-
-        if (WebSearchHelper.isVertexRunner(url)) {
-            vertexIds.addAll(searchHelper.search(search, user, authorizations, false).stream()
-                    .map(v -> v.getId())
-                    .collect(Collectors.toList()));
-        } else if (WebSearchHelper.isCypherRunner(url)) {
-            vertexIds.addAll(searchHelper.searchCypher(search, user, authorizations));
-        }
-
-        InputStream results;
-        switch (exportType) {
-            case "word":
-                results = exportToWordHelper.export(vertexIds, authorizations, Optional.empty());
-                response.setContentType(ExportToWordHelper.EXPORT_MIME_TYPE);
-                response.addHeader("Content-Disposition", "attachment; filename=\"" + ExportToWordHelper.getExportFileName() + "\"");
-                break;
-            case "xls":
-                results = exportToXlsHelper.export(vertexIds, authorizations);
-                response.setContentType(ExportToXlsHelper.EXPORT_MIME_TYPE);
-                response.addHeader("Content-Disposition", "attachment; filename=\"" + ExportToXlsHelper.getExportFileName() + "\"");
-                break;
-            case "xml":
-                results = exportToXmlHelper.export(vertexIds, authorizations);
-                response.setContentType(ExportToXmlHelper.EXPORT_MIME_TYPE);
-                response.addHeader("Content-Disposition", "attachment; filename=\"" + ExportToXmlHelper.getExportFileName() + "\"");
-                break;
-            case "pdf":
-                results = exportToPdfHelper.export(vertexIds, authorizations);
-                response.setContentType(ExportToPdfHelper.EXPORT_MIME_TYPE);
-                response.addHeader("Content-Disposition", "attachment; filename=\"" + ExportToPdfHelper.getExportFileName() + "\"");
-                break;
-            default:
-                throw new BcException(String.format("Unknown export type %s", exportType));
-        }
-        return results;
+        DocumentExportQueueItem queueItem = new DocumentExportQueueItem(
+                user.getUserId(),
+                authorizations,
+                workspaceId,
+                UUID.randomUUID().toString(),
+                exportType,
+                type.createFileName(),
+                url,
+                searchParameters
+        );
+        String id = longRunningProcessRepository.enqueue(queueItem.toJson(), user, authorizations);
+        return new ClientApiLongRunningProcessSubmitResponse(id);
     }
 }
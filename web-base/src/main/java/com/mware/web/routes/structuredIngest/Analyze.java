@@ -52,9 +52,8 @@ import com.mware.web.framework.ParameterizedHandler;
 import com.mware.web.framework.annotations.Handle;
 import com.mware.web.framework.annotations.Optional;
 import com.mware.web.framework.utils.StringUtils;
-import org.apache.commons.io.IOUtils;
 
-import java.io.ByteArrayInputStream;
+import java.io.BufferedInputStream;
 import java.io.FileInputStream;
 import java.io.InputStream;
 import java.util.List;
@@ -99,9 +98,9 @@ public class Analyze implements ParameterizedHandler {
         } else if (!StringUtils.isEmpty(tmpFilePath) && !"null".equals(tmpFilePath)) {
             StructuredIngestParser parser = structuredIngestParserFactory.getParser(AnalyzeFile.guessMimeType(tmpFilePath));
             if (parser != null) {
-                FileInputStream is = new FileInputStream(tmpFilePath);
-                byte[] fileData = IOUtils.toByteArray(is);
-                return parser.analyze(new ByteArrayInputStream(fileData), user, authorizations);
+                try (InputStream inputStream = new BufferedInputStream(new FileInputStream(tmpFilePath))) {
+                    return parser.analyze(inputStream, user, authorizations);
+                }
             }
         }
 
@@ -36,6 +36,8 @@
  */
 package com.mware.web.routes.structuredIngest;
 
+import com.mware.config.WebOptions;
+import com.mware.core.config.Configuration;
 import com.mware.core.exception.BcException;
 import com.mware.core.exception.BcResourceNotFoundException;
 import com.mware.core.model.clientapi.dto.ClientApiObject;
@@ -69,7 +71,6 @@ import com.mware.web.framework.annotations.Required;
 import com.mware.web.framework.utils.StringUtils;
 import com.mware.web.parameterProviders.ActiveWorkspaceId;
 import com.mware.workspace.WorkspaceHelper;
-import org.apache.commons.io.IOUtils;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
@@ -88,6 +89,7 @@ public class Ingest implements ParameterizedHandler {
     private final WebQueueRepository webQueueRepository;
     private final Graph graph;
     private final StructuredIngestParserFactory structuredIngestParserFactory;
+    private final Configuration configuration;
 
     @Inject
     public Ingest(
@@ -99,7 +101,8 @@ public class Ingest implements ParameterizedHandler {
         StructuredIngestParserFactory structuredIngestParserFactory,
         WebQueueRepository webQueueRepository,
         VisibilityTranslator visibilityTranslator,
-        Graph graph
+        Graph graph,
+        Configuration configuration
     ) {
         this.longRunningProcessRepository = longRunningProcessRepository;
         this.schemaRepository = schemaRepository;
@@ -110,6 +113,7 @@ public class Ingest implements ParameterizedHandler {
         this.structuredIngestParserFactory = structuredIngestParserFactory;
         this.webQueueRepository = webQueueRepository;
         this.graph = graph;
+        this.configuration = configuration;
     }
 
     @Handle
@@ -190,12 +194,11 @@ public class Ingest implements ParameterizedHandler {
         ProgressReporter reporter = new ProgressReporter() {
             public void finishedRow(long row, long totalRows) {
                 if (totalRows != -1) {
-                    long total = Math.min(GraphBuilderParserHandler.MAX_DRY_RUN_ROWS, totalRows);
                     data.put("row", row);
-                    data.put("total", total);
+                    data.put("total", totalRows);
 
                     // Broadcast when we get this change in percent
-                    int percent = (int) ((double)total * 0.01);
+                    int percent = (int) ((double)totalRows * 0.01);
 
                     if (percent > 0 && row % percent == 0) {
                         JSONObject json = new JSONObject();
@@ -224,6 +227,8 @@ public class Ingest implements ParameterizedHandler {
                 schemaRepository);
 
         parserHandler.dryRun = true;
+        parserHandler.dryRunHeadRows = configuration.get(WebOptions.INGEST_PREVIEW_HEAD_ROWS);
+        parserHandler.dryRunSampleRows = configuration.get(WebOptions.INGEST_PREVIEW_SAMPLE_ROWS);
         ParseOptions parseOptions = new ParseOptions(optionsJson);
 
 
@@ -236,6 +241,7 @@ public class Ingest implements ParameterizedHandler {
         } else {
             parseUsingFile(tmpFile, parseOptions, parserHandler, user);
         }
+        parserHandler.finishDryRun();
 
 
         if (parserHandler.hasErrors()) {
@@ -256,10 +262,8 @@ public class Ingest implements ParameterizedHandler {
             throw new BcException("No parser registered for mimeType: " + mimeType);
         }
 
-        try {
-            FileInputStream is = new FileInputStream(tmpFile);
-            byte[] fileData = IOUtils.toByteArray(is);
-            structuredIngestParser.ingest(new ByteArrayInputStream(fileData), parseOptions, parserHandler, user);
+        try (InputStream in = new BufferedInputStream(new FileInputStream(tmpFile))) {
+            structuredIngestParser.ingest(in, parseOptions, parserHandler, user);
         } catch (FileNotFoundException e) {
             throw new BcException("The uploaded file was not found: "+tmpFile);
         }
@@ -49,7 +49,8 @@ import com.mware.web.framework.annotations.Required;
 import com.mware.web.parameterProviders.ActiveWorkspaceId;
 import org.apache.commons.lang.StringUtils;
 
-import java.io.InputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Arrays;
 
 import static com.mware.web.routes.vertex.ExportToPdfHelper.EXPORT_MIME_TYPE;
@@ -68,19 +69,20 @@ public class ExportToPdf implements ParameterizedHandler {
     }
 
     @Handle
-    public InputStream handle(
+    public void handle(
             @Required(name = "vertices[]") String[] vertices,
             @ActiveWorkspaceId String workspaceId,
             User user,
             Authorizations authorizations,
-            BcResponse response) {
-        InputStream results = this.exportToPdfHelper.export(Arrays.asList(vertices), authorizations);
+            BcResponse response) throws IOException {
         response.setContentType(EXPORT_MIME_TYPE);
         response.addHeader("Content-Disposition", "attachment; filename=\"" + getExportFileName() + "\"");
 
         auditService.auditGenericEvent(user, workspaceId != null ? workspaceId : StringUtils.EMPTY,
                 AuditEventType.EXPORT, "type", EXPORT_MIME_TYPE);
 
-        return results;
+        try (OutputStream out = response.getOutputStream()) {
+            exportToPdfHelper.export(Arrays.asList(vertices), authorizations, out);
+        }
     }
 }
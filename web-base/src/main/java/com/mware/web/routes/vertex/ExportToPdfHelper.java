@@ -48,8 +48,9 @@ import com.itextpdf.text.pdf.PdfWriter;
 import com.mware.core.config.Configuration;
 import com.mware.core.exception.BcException;
 import com.mware.core.model.file.FileSystemRepository;
-import com.mware.core.model.schema.SchemaProperty;
 import com.mware.core.model.schema.SchemaRepository;
+import com.mware.core.util.BcLogger;
+import com.mware.core.util.BcLoggerFactory;
 import com.mware.ge.Authorizations;
 import com.mware.ge.Graph;
 import com.mware.ge.Property;
@@ -57,23 +58,22 @@ import com.mware.ge.Vertex;
 import com.mware.ge.tools.GraphToolBase;
 import com.mware.ge.values.storable.DateTimeValue;
 import com.mware.ge.values.storable.StreamingPropertyValue;
+import com.mware.web.routes.vertex.ExportUtils.ExportedProperty;
 import org.apache.commons.lang3.tuple.ImmutablePair;
-import org.joda.time.DateTime;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.InputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
 
-import static com.mware.web.routes.vertex.ExportUtils.CHARS_TO_AVOID;
-import static com.mware.web.routes.vertex.ExportUtils.DATE_FORMAT;
+import static com.mware.web.routes.vertex.ExportUtils.forEachVertex;
+import static com.mware.web.routes.vertex.ExportUtils.getExportedProperties;
 
 @Singleton
 public class ExportToPdfHelper {
+    private static final BcLogger LOGGER = BcLoggerFactory.getLogger(ExportToPdfHelper.class);
     public static final String EXPORT_FILE_EXT = ".pdf";
     public static final String EXPORT_MIME_TYPE = "application/pdf";
 
@@ -90,9 +90,16 @@ public class ExportToPdfHelper {
         this.fileSystemRepository = fileSystemRepository;
     }
 
-    public InputStream export(List<String> vertices, Authorizations authorizations) {
+    public void export(List<String> vertices, Authorizations authorizations, OutputStream out) {
+        export(vertices, authorizations, out, ExportProgressListener.NONE);
+    }
+
+    /**
+     * iText flushes every completed page to {@code out}, so only the page being laid out is kept in memory.
+     */
+    public void export(List<String> vertices, Authorizations authorizations, OutputStream out, ExportProgressListener progressListener) {
+        List<ExportedProperty> properties = getExportedProperties(schemaRepository.getProperties());
         Document document = new Document();
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
         try {
             PdfWriter pdfWriter = PdfWriter.getInstance(document, out);
             File fontFile = fileSystemRepository.getLocalFileFor("/arialuni.ttf");
@@ -106,54 +113,44 @@ public class ExportToPdfHelper {
             fs.addFont(new Font(unicode));
 
             document.open();
-            vertices.stream().forEach(vertexId -> {
-                Vertex v = graph.getVertex(vertexId, authorizations);
-
-                if (v != null) {
-                    boolean vertexPropWritten = false;
-                    List<ImmutablePair<String, String>> addToTheEnd = new ArrayList<>();
-                    try {
-                        for (SchemaProperty prop : schemaRepository.getProperties()) {
-                            if (prop.getUserVisible() && v.getProperty(prop.getName()) != null && v.getProperty(prop.getName()).getValue() != null) {
-                                String displayName = prop.getDisplayName();
-                                for (String stringToAvoid : CHARS_TO_AVOID) {
-                                    displayName = displayName.replace(stringToAvoid,"");
-                                }
-                                if (v.getProperty(prop.getName()).getValue() instanceof StreamingPropertyValue) {
-                                    String value = ((StreamingPropertyValue)v.getProperty(prop.getName()).getValue()).readToString();
-                                    addToTheEnd.add(new ImmutablePair<>(displayName, value));
-                                } else if (v.getProperty(prop.getName()).getValue() instanceof DateTimeValue) {
-                                    String value = v.getProperty(prop.getName()).getValue().prettyPrint();
-                                    addParagraph(document, fs, displayName, value);
-                                    vertexPropWritten = true;
-                                } else {
-                                    for (Property p : v.getProperties(prop.getName())) {
-                                        addParagraph(document, fs, displayName, p.getValue().prettyPrint());
-                                        vertexPropWritten = true;
-                                    }
-                                }
-                            }
+            forEachVertex(graph, vertices, authorizations, progressListener, v -> {
+                boolean vertexPropWritten = false;
+                List<ImmutablePair<String, String>> addToTheEnd = new ArrayList<>();
+                try {
+                    for (ExportedProperty prop : properties) {
+                        Property property = v.getProperty(prop.name);
+                        if (property == null || property.getValue() == null) {
+                            continue;
                         }
-                        for (ImmutablePair<String, String> pair: addToTheEnd) {
-                            addParagraph(document, fs, pair.getLeft(), pair.getRight());
+                        if (property.getValue() instanceof StreamingPropertyValue) {
+                            addToTheEnd.add(new ImmutablePair<>(prop.label, ((StreamingPropertyValue) property.getValue()).readToString()));
+                        } else if (property.getValue() instanceof DateTimeValue) {
+                            addParagraph(document, fs, prop.label, property.getValue().prettyPrint());
                             vertexPropWritten = true;
+                        } else {
+                            for (Property p : v.getProperties(prop.name)) {
+                                addParagraph(document, fs, prop.label, p.getValue().prettyPrint());
+                                vertexPropWritten = true;
+                            }
                         }
-                        // if we wrote at least one prop, add new line
-                        if (vertexPropWritten) {
-                            document.add(new Paragraph(fs.process(" ")));
-                        }
-                    } catch (Exception e) {
-                        e.printStackTrace();
                     }
+                    for (ImmutablePair<String, String> pair: addToTheEnd) {
+                        addParagraph(document, fs, pair.getLeft(), pair.getRight());
+                        vertexPropWritten = true;
+                    }
+                    // if we wrote at least one prop, add new line
+                    if (vertexPropWritten) {
+                        document.add(new Paragraph(fs.process(" ")));
+                    }
+                } catch (Exception e) {
+                    LOGGER.warn("Could not export vertex %s to PDF", v.getId(), e);
                 }
             });
             document.close();
             pdfWriter.close();
-        } catch (Exception e) {
-            e.printStackTrace();
+        } catch (DocumentException | IOException e) {
+            throw new BcException("Could not write PDF export", e);
         }
-
-        return new ByteArrayInputStream(out.toByteArray());
     }
 
     private void addParagraph(Document document, FontSelector fs, String displayName, String value) throws DocumentException {
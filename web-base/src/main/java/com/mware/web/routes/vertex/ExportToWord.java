@@ -48,7 +48,8 @@ import com.mware.web.framework.annotations.Required;
 import org.apache.commons.lang.StringUtils;
 
 import javax.inject.Inject;
-import java.io.InputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Arrays;
 import java.util.Optional;
 
@@ -68,20 +69,21 @@ public class ExportToWord implements ParameterizedHandler {
     }
 
     @Handle
-    public InputStream handle(
+    public void handle(
             @Required(name = "vertices[]") String[] vertices,
             @Required(name = "workspaceId") String workspaceId,
             User user,
             Authorizations authorizations,
-            BcResponse response) {
-        InputStream results = exportToWordHelper.export(Arrays.asList(vertices), authorizations, Optional.of(workspaceId));
+            BcResponse response) throws IOException {
         response.setContentType(EXPORT_MIME_TYPE);
         response.addHeader("Content-Disposition", "attachment; filename=\"" + getExportFileName() + "\"");
 
         auditService.auditGenericEvent(user, workspaceId != null ? workspaceId : StringUtils.EMPTY,
                 AuditEventType.EXPORT, "type", EXPORT_MIME_TYPE);
 
-        return results;
+        try (OutputStream out = response.getOutputStream()) {
+            exportToWordHelper.export(Arrays.asList(vertices), authorizations, Optional.of(workspaceId), out);
+        }
     }
 
 }
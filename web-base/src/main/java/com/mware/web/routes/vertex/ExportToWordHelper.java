@@ -37,11 +37,12 @@
 package com.mware.web.routes.vertex;
 
 import com.google.inject.Singleton;
+import com.mware.artifactThumbnails.ImageScalingService;
+import com.mware.artifactThumbnails.ImageUtils;
 import com.mware.core.model.properties.BcSchema;
 import com.mware.core.model.properties.RawObjectSchema;
 import com.mware.core.model.schema.Concept;
 import com.mware.core.model.schema.SchemaConstants;
-import com.mware.core.model.schema.SchemaProperty;
 import com.mware.core.model.schema.SchemaRepository;
 import com.mware.core.model.workQueue.WebQueueRepository;
 import com.mware.core.util.BcLogger;
@@ -54,7 +55,7 @@ import com.mware.ge.tools.GraphToolBase;
 import com.mware.ge.values.storable.DateTimeValue;
 import com.mware.ge.values.storable.StreamingPropertyValue;
 import com.mware.web.framework.handlers.MimeType;
-import com.mware.web.routes.resource.ImageUtils;
+import com.mware.web.routes.vertex.ExportUtils.ExportedProperty;
 import com.mware.web.routes.structuredIngest.MimeTypes;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -69,82 +70,90 @@ import org.apache.poi.xwpf.usermodel.XWPFRun;
 import org.keycloak.common.util.MimeTypeUtil;
 import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTSectPr;
 
-import javax.imageio.ImageIO;
 import javax.inject.Inject;
-import java.awt.*;
 import java.awt.image.BufferedImage;
-import java.io.*;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
-import static com.mware.web.routes.vertex.ExportUtils.CHARS_TO_AVOID;
+import static com.mware.web.routes.vertex.ExportUtils.forEachVertex;
+import static com.mware.web.routes.vertex.ExportUtils.getExportedProperties;
 
 @Singleton
 public class ExportToWordHelper {
     private static final BcLogger LOGGER = BcLoggerFactory.getLogger(ExportToWordHelper.class);
     public static final String EXPORT_FILE_EXT = ".docx";
     public static final String EXPORT_MIME_TYPE = "application/vnd.openxmlformats-officedocument.wordprocessingml.document";
+    private static final int MAX_IMAGE_SIZE = 300;
 
     private Graph graph;
     private WebQueueRepository webQueueRepository;
     private final SchemaRepository schemaRepository;
+    private final ImageScalingService imageScalingService;
 
     @Inject
     public ExportToWordHelper(
             Graph graph,
             WebQueueRepository webQueueRepository,
-            SchemaRepository schemaRepository
+            SchemaRepository schemaRepository,
+            ImageScalingService imageScalingService
     ) {
         this.graph = graph;
         this.webQueueRepository = webQueueRepository;
         this.schemaRepository = schemaRepository;
+        this.imageScalingService = imageScalingService;
     }
 
-    public InputStream export(
+    public void export(
             List<String> vertices,
             Authorizations authorizations,
-            Optional<String> workspaceId
-    ) {
-        XWPFDocument document = new XWPFDocument();
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        vertices.stream().forEach(vertexId -> {
-            Vertex v = graph.getVertex(vertexId, authorizations);
-
-            if (v != null) {
-                XWPFParagraph paragraph;
-                XWPFRun run;
-                try {
-                    List<ImmutablePair<String, String>> addToTheEnd = new ArrayList<>();
+            Optional<String> workspaceId,
+            OutputStream out
+    ) throws IOException {
+        export(vertices, authorizations, workspaceId, out, ExportProgressListener.NONE);
+    }
 
-                    Concept concept = schemaRepository.getConceptByName(v.getConceptType(), SchemaRepository.PUBLIC);
-                    if (concept.getIntents() != null && ArrayUtils.contains(concept.getIntents(), SchemaConstants.INTENT_ENTITY_IMAGE)) {
+    /**
+     * Writes the document to {@code out}. XWPF keeps the document model in memory until it is written, but vertices
+     * are fetched in batches and images are scaled down before they are added.
+     */
+    public void export(
+            List<String> vertices,
+            Authorizations authorizations,
+            Optional<String> workspaceId,
+            OutputStream out,
+            ExportProgressListener progressListener
+    ) throws IOException {
+        List<ExportedProperty> properties = getExportedProperties(schemaRepository.getProperties(SchemaRepository.PUBLIC));
+        Map<String, Boolean> imageConcepts = new HashMap<>();
+        try (XWPFDocument document = new XWPFDocument()) {
+            forEachVertex(graph, vertices, authorizations, progressListener, v -> {
+                try {
+                    if (imageConcepts.computeIfAbsent(v.getConceptType(), this::isImageConcept)) {
                         String mimeType = BcSchema.MIME_TYPE_METADATA.getMetadataValue(BcSchema.RAW.getProperty(v));
                         StreamingPropertyValue raw = BcSchema.RAW.getPropertyValue(v);
-                        addImage(document, raw.getInputStream(), mimeType);
+                        addImage(document, raw::getInputStream, mimeType);
                     }
 
-                    for (SchemaProperty prop : schemaRepository.getProperties(SchemaRepository.PUBLIC)) {
-                        if (prop.getUserVisible() && v.getProperty(prop.getName()) != null && v.getProperty(prop.getName()).getValue() != null) {
-                            String displayName = prop.getDisplayName();
-                            for (String stringToAvoid : CHARS_TO_AVOID) {
-                                displayName = displayName.replace(stringToAvoid, "");
-                            }
-
-                            if (v.getProperty(prop.getName()).getValue() instanceof StreamingPropertyValue) {
-                                StreamingPropertyValue _value = (StreamingPropertyValue) v.getProperty(prop.getName()).getValue();
-                                StringWriter stringWriter = new StringWriter();
-                                org.apache.commons.io.IOUtils.copy(_value.getInputStream(), stringWriter, "utf-8");
-                                String value = stringWriter.toString();
-                                addToTheEnd.add(new ImmutablePair<>(displayName, value));
-                            } else if (v.getProperty(prop.getName()).getValue() instanceof DateTimeValue) {
-                                String value = v.getProperty(prop.getName()).getValue().prettyPrint();
-                                addParagraph(document, displayName, value);
-                            } else {
-                                for (Property p : v.getProperties(prop.getName())) {
-                                    addParagraph(document, displayName, p.getValue().prettyPrint());
-                                }
+                    List<ImmutablePair<String, String>> addToTheEnd = new ArrayList<>();
+                    for (ExportedProperty prop : properties) {
+                        Property property = v.getProperty(prop.name);
+                        if (property == null || property.getValue() == null) {
+                            continue;
+                        }
+                        if (property.getValue() instanceof StreamingPropertyValue) {
+                            addToTheEnd.add(new ImmutablePair<>(prop.label, ((StreamingPropertyValue) property.getValue()).readToString()));
+                        } else if (property.getValue() instanceof DateTimeValue) {
+                            addParagraph(document, prop.label, property.getValue().prettyPrint());
+                        } else {
+                            for (Property p : v.getProperties(prop.name)) {
+                                addParagraph(document, prop.label, p.getValue().prettyPrint());
                             }
                         }
                     }
@@ -154,22 +163,21 @@ public class ExportToWordHelper {
 
                     addSeparator(document);
                 } catch (Exception e) {
-                    e.printStackTrace();
+                    LOGGER.warn("Could not export vertex %s to Word", v.getId(), e);
                 }
 
                 if (workspaceId.isPresent()) {
                     webQueueRepository.broadcastPropertyChange(v, null, null, workspaceId.get());
                 }
-            }
-        });
-
-        try {
+            });
             document.write(out);
-            out.close();
-        } catch (IOException e) {
-            e.printStackTrace();
         }
-        return new ByteArrayInputStream(out.toByteArray());
+    }
+
+    private boolean isImageConcept(String conceptType) {
+        Concept concept = schemaRepository.getConceptByName(conceptType, SchemaRepository.PUBLIC);
+        return concept != null && concept.getIntents() != null
+                && ArrayUtils.contains(concept.getIntents(), SchemaConstants.INTENT_ENTITY_IMAGE);
     }
 
     private void addParagraph(XWPFDocument document, String displayName, String value) {
@@ -187,26 +195,26 @@ public class ExportToWordHelper {
         run.setText("--------------------------------------------------------------------------------------");
     }
 
-    private void addImage(XWPFDocument document, InputStream image, String mimeType) {
-        int type = mimeTypeToDocumentImageType(mimeType);
-        if (type < 0)
+    private void addImage(XWPFDocument document, ImageScalingService.ImageSource image, String mimeType) {
+        if (mimeTypeToDocumentImageType(mimeType) < 0)
             return;
 
         XWPFParagraph p = document.createParagraph();
         XWPFRun r = p.createRun();
         try {
-            BufferedImage bufferedImage = ImageIO.read(image);
-            int[] newImageDims = ImageUtils.getScaledDimension(bufferedImage.getWidth(), bufferedImage.getHeight(), 300, 300);
-            Image scaledInstance = bufferedImage.getScaledInstance(newImageDims[0], newImageDims[1], Image.SCALE_SMOOTH);
-            BufferedImage dimg = new BufferedImage(newImageDims[0], newImageDims[1], BufferedImage.TYPE_INT_ARGB);
-            Graphics2D g2d = dimg.createGraphics();
-            g2d.drawImage(scaledInstance, 0, 0, null);
-            g2d.dispose();
-
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            ImageIO.write(dimg, "png", baos);
-
-            r.addPicture(new ByteArrayInputStream(baos.toByteArray()), type, "image", Units.toEMU(newImageDims[0]), Units.toEMU(newImageDims[1]));
+            ImmutablePair<int[], byte[]> picture = imageScalingService.process(image, MAX_IMAGE_SIZE, bufferedImage -> {
+                int[] newImageDims = ImageUtils.getScaledDimension(bufferedImage.getWidth(), bufferedImage.getHeight(), MAX_IMAGE_SIZE, MAX_IMAGE_SIZE);
+                BufferedImage scaled = ImageUtils.scaleImage(bufferedImage, newImageDims[0], newImageDims[1], BufferedImage.TYPE_INT_ARGB, null);
+                return ImmutablePair.of(newImageDims, imageScalingService.encode(scaled, "png", ImageScalingService.JpegQuality.DOCUMENT.getQuality()));
+            });
+            if (picture == null) {
+                LOGGER.warn("Could not add image to Word document: unreadable image");
+                return;
+            }
+
+            // always encoded as png above, whatever the source format
+            int[] newImageDims = picture.getLeft();
+            r.addPicture(new ByteArrayInputStream(picture.getRight()), Document.PICTURE_TYPE_PNG, "image", Units.toEMU(newImageDims[0]), Units.toEMU(newImageDims[1]));
             r.addCarriageReturn();
         } catch (Exception e) {
             LOGGER.warn("Could not add image to Word document: "+e.getMessage());
@@ -50,7 +50,8 @@ import com.mware.web.framework.annotations.Required;
 import com.mware.web.parameterProviders.ActiveWorkspaceId;
 import org.apache.commons.lang.StringUtils;
 
-import java.io.InputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Arrays;
 
 import static com.mware.web.routes.vertex.ExportToXlsHelper.EXPORT_MIME_TYPE;
@@ -70,13 +71,12 @@ public class ExportToXls implements ParameterizedHandler {
     }
 
     @Handle
-    public InputStream handle(
+    public void handle(
             @Required(name = "vertices[]") String[] vertices,
             @ActiveWorkspaceId String workspaceId,
             User user,
             Authorizations authorizations,
-            BcResponse response) {
-        InputStream exportedData = exportHelper.export(Arrays.asList(vertices), authorizations);
+            BcResponse response) throws IOException {
         String filename = getExportFileName();
         LOGGER.info("Exporting to file %s", filename);
         response.setContentType(EXPORT_MIME_TYPE);
@@ -85,7 +85,9 @@ public class ExportToXls implements ParameterizedHandler {
         auditService.auditGenericEvent(user, workspaceId != null ? workspaceId : StringUtils.EMPTY,
                 AuditEventType.EXPORT, "type", EXPORT_MIME_TYPE);
 
-        return exportedData;
+        try (OutputStream out = response.getOutputStream()) {
+            exportHelper.export(Arrays.asList(vertices), authorizations, out);
+        }
     }
 }
 
@@ -44,20 +44,20 @@ import com.mware.core.util.BcLogger;
 import com.mware.core.util.BcLoggerFactory;
 import com.mware.ge.Authorizations;
 import com.mware.ge.Graph;
+import com.mware.ge.Property;
 import com.mware.ge.Vertex;
 import com.mware.ge.tools.GraphToolBase;
 import com.mware.ge.values.storable.DateTimeValue;
 import com.mware.ge.values.storable.StreamingPropertyValue;
 import com.mware.ge.values.storable.Value;
+import org.apache.poi.ss.SpreadsheetVersion;
 import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.xssf.usermodel.XSSFSheet;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -70,6 +70,9 @@ public class ExportToXlsHelper {
     private static final BcLogger LOGGER = BcLoggerFactory.getLogger(ExportToXlsHelper.class);
     public static final String EXPORT_FILE_EXT = ".xlsx";
     public static final String EXPORT_MIME_TYPE = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+    private static final int ROW_WINDOW = 100;
+    private static final int MAX_CELL_LENGTH = 30000;
+    private static final int MAX_ROWS_PER_SHEET = SpreadsheetVersion.EXCEL2007.getMaxRows();
 
     private Graph graph;
     private final SchemaRepository ontologyRepository;
@@ -80,82 +83,111 @@ public class ExportToXlsHelper {
         this.ontologyRepository = ontologyRepository;
     }
 
-    public InputStream export(List<String> vertices, Authorizations authorizations) {
-        Workbook wb = new XSSFWorkbook();
-        XSSFSheet sheet = (XSSFSheet) wb.createSheet();
-
-        short rowIndex = 0;
+    /**
+     * Writes the workbook straight to {@code out}. Only {@link #ROW_WINDOW} rows are kept in memory, the rest are
+     * flushed to a compressed temporary file until the workbook is written.
+     */
+    public void export(List<String> vertices, Authorizations authorizations, OutputStream out) throws IOException {
+        export(vertices, authorizations, out, ExportProgressListener.NONE);
+    }
 
-        Map<String, String> uniqueColumns = new HashMap<>();
-        for (SchemaProperty prop : ontologyRepository.getProperties(SchemaRepository.PUBLIC)) {
-            if (prop.getUserVisible()) {
-                if (!uniqueColumns.containsKey(prop.getName()))
-                    uniqueColumns.put(prop.getName(), prop.getDisplayName());
+    public void export(List<String> vertices, Authorizations authorizations, OutputStream out, ExportProgressListener progressListener) throws IOException {
+        SXSSFWorkbook wb = new SXSSFWorkbook(ROW_WINDOW);
+        wb.setCompressTempFiles(true);
+        try {
+            Map<String, String> uniqueColumns = new HashMap<>();
+            for (SchemaProperty prop : ontologyRepository.getProperties(SchemaRepository.PUBLIC)) {
+                if (prop.getUserVisible()) {
+                    if (!uniqueColumns.containsKey(prop.getName()))
+                        uniqueColumns.put(prop.getName(), prop.getDisplayName());
+                }
             }
-        }
-        uniqueColumns = sortByValue(uniqueColumns);
+            uniqueColumns = sortByValue(uniqueColumns);
 
-        Row headerRow = sheet.createRow(rowIndex++);
-        int cellIndex = 0;
-        for (Map.Entry<String, String> prop : uniqueColumns.entrySet()) {
-            headerRow.createCell(cellIndex++).setCellValue(prop.getValue());
+            appendVertices(wb, vertices, authorizations, uniqueColumns, progressListener);
+            wb.write(out);
+        } finally {
+            wb.dispose();
+            wb.close();
         }
+    }
 
-        appendVertices(sheet, rowIndex, vertices, authorizations, uniqueColumns);
+    private void appendVertices(Workbook wb, List<String> vertices, Authorizations authorizations, Map<String, String> uniqueColumns, ExportProgressListener progressListener) {
+        SheetWriter sheetWriter = new SheetWriter(wb, uniqueColumns);
+        ExportUtils.forEachVertex(graph, vertices, authorizations, progressListener,
+                v -> appendVertex(sheetWriter.nextRow(), v, uniqueColumns));
+    }
 
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        try {
-            wb.write(out);
-            out.close();
-        } catch (IOException e) {
-            e.printStackTrace();
+    /**
+     * Starts a new sheet, with its own header row, whenever the current one is full.
+     */
+    private static class SheetWriter {
+        private final Workbook wb;
+        private final Map<String, String> uniqueColumns;
+        private Sheet sheet;
+        private int rowIndex;
+
+        SheetWriter(Workbook wb, Map<String, String> uniqueColumns) {
+            this.wb = wb;
+            this.uniqueColumns = uniqueColumns;
+            createSheet();
         }
 
-        return new ByteArrayInputStream(out.toByteArray());
-    }
+        Row nextRow() {
+            if (rowIndex >= MAX_ROWS_PER_SHEET) {
+                createSheet();
+            }
+            return sheet.createRow(rowIndex++);
+        }
 
-    private void appendVertices(XSSFSheet sheet, short rowIndex, List<String> vertices, Authorizations authorizations, Map<String, String> uniqueColumns) {
-        for (String vertexId : vertices) {
-            Vertex v = graph.getVertex(vertexId, authorizations);
-            if (v != null) {
-                Row row = sheet.createRow(rowIndex++);
-
-                int cellIndex = 0;
-                for (Map.Entry<String, String> entry : uniqueColumns.entrySet()) {
-                    String propIRI = entry.getKey();
-                    if (v.getProperty(propIRI) == null || v.getProperty(propIRI).getValue() == null) {
-                        cellIndex++;
-                        continue;
-                    }
+        private void createSheet() {
+            sheet = wb.createSheet();
+            Row headerRow = sheet.createRow(0);
+            int cellIndex = 0;
+            for (Map.Entry<String, String> prop : uniqueColumns.entrySet()) {
+                headerRow.createCell(cellIndex++).setCellValue(prop.getValue());
+            }
+            rowIndex = 1;
+        }
+    }
 
-                    String value = "";
-                    try {
-                        if (v.getProperty(propIRI).getValue() instanceof StreamingPropertyValue) {
-                            value = ((StreamingPropertyValue) v.getProperty(propIRI).getValue()).readToString();
-                        } else {
-                            Iterable<Value> propValue = v.getPropertyValues(propIRI);
-                            if (propValue != null) {
-                                for (Value val : propValue) {
-                                    if (val != null) {
-                                        value += val.prettyPrint() + ",";
-                                    }
-                                }
+    private void appendVertex(Row row, Vertex v, Map<String, String> uniqueColumns) {
+        int cellIndex = 0;
+        for (Map.Entry<String, String> entry : uniqueColumns.entrySet()) {
+            String propIRI = entry.getKey();
+            Property property = v.getProperty(propIRI);
+            if (property == null || property.getValue() == null) {
+                cellIndex++;
+                continue;
+            }
 
-                                if (value.endsWith(",")) {
-                                    value = value.substring(0, value.length() - 1);
+            String value = "";
+            try {
+                if (property.getValue() instanceof StreamingPropertyValue) {
+                    value = ((StreamingPropertyValue) property.getValue()).readToString();
+                } else {
+                    Iterable<Value> propValue = v.getPropertyValues(propIRI);
+                    if (propValue != null) {
+                        StringBuilder values = new StringBuilder();
+                        for (Value val : propValue) {
+                            if (val != null) {
+                                if (values.length() > 0) {
+                                    values.append(",");
                                 }
+                                values.append(val.prettyPrint());
                             }
                         }
-
-                        if (value.length() > 30000) value = value.substring(0, 30000);
-                    } catch (Exception ex) {
-                        ex.printStackTrace();
+                        value = values.toString();
                     }
-
-                    row.createCell(cellIndex).setCellValue(value);
-                    cellIndex++;
                 }
+
+                if (value.length() > MAX_CELL_LENGTH) value = value.substring(0, MAX_CELL_LENGTH);
+            } catch (Exception ex) {
+                LOGGER.warn("Could not export property %s of vertex %s", propIRI, v.getId(), ex);
             }
+
+            row.createCell(cellIndex).setCellValue(value);
+            cellIndex++;
         }
     }
 
@@ -49,8 +49,8 @@ import com.mware.web.framework.annotations.Required;
 import com.mware.web.parameterProviders.ActiveWorkspaceId;
 import org.apache.commons.lang.StringUtils;
 
-import javax.xml.parsers.ParserConfigurationException;
-import java.io.InputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Arrays;
 
 import static com.mware.web.routes.vertex.ExportToXmlHelper.EXPORT_MIME_TYPE;
@@ -68,21 +68,22 @@ public class ExportToXml implements ParameterizedHandler {
     }
 
     @Handle
-    public InputStream handle(
+    public void handle(
             @Required(name = "vertices[]") String[] vertices,
             @ActiveWorkspaceId String workspaceId,
             User user,
             Authorizations authorizations,
             BcResponse response
-    ) throws ParserConfigurationException {
-        InputStream results = exportToXmlHelper.export(Arrays.asList(vertices), authorizations);
+    ) throws IOException {
         response.setContentType(EXPORT_MIME_TYPE);
         response.addHeader("Content-Disposition", "attachment; filename=\"" + getExportFileName() + "\"");
 
         auditService.auditGenericEvent(user, workspaceId != null ? workspaceId : StringUtils.EMPTY,
                 AuditEventType.EXPORT, "type", EXPORT_MIME_TYPE);
 
-        return results;
+        try (OutputStream out = response.getOutputStream()) {
+            exportToXmlHelper.export(Arrays.asList(vertices), authorizations, out);
+        }
     }
 }
 
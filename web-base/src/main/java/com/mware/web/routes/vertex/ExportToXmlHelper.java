@@ -38,7 +38,7 @@ package com.mware.web.routes.vertex;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
-import com.mware.core.model.schema.SchemaProperty;
+import com.mware.core.exception.BcException;
 import com.mware.core.model.schema.SchemaRepository;
 import com.mware.core.util.BcLogger;
 import com.mware.core.util.BcLoggerFactory;
@@ -50,25 +50,24 @@ import com.mware.ge.collection.Pair;
 import com.mware.ge.tools.GraphToolBase;
 import com.mware.ge.values.storable.DateTimeValue;
 import com.mware.ge.values.storable.StreamingPropertyValue;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.InputStream;
+import com.mware.ge.values.storable.Value;
+import com.mware.web.routes.vertex.ExportUtils.ExportedProperty;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 import static com.mware.ge.collection.Pair.pair;
-import static com.mware.web.routes.vertex.ExportUtils.CHARS_TO_AVOID;
+import static com.mware.web.routes.vertex.ExportUtils.forEachVertex;
+import static com.mware.web.routes.vertex.ExportUtils.getExportedProperties;
 
 @Singleton
 public class ExportToXmlHelper {
@@ -87,69 +86,105 @@ public class ExportToXmlHelper {
         this.ontologyRepository = ontologyRepository;
     }
 
-    public InputStream export(List<String> vertices, Authorizations authorizations) throws ParserConfigurationException {
-        Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
-        Element base = doc.createElement("Entities");
-        doc.appendChild(base);
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
+    public void export(List<String> vertices, Authorizations authorizations, OutputStream out) {
+        export(vertices, authorizations, out, ExportProgressListener.NONE);
+    }
+
+    /**
+     * Writes each entity to {@code out} as soon as its vertex is read. Streaming property values are copied through a
+     * small buffer so large texts are never loaded in one piece.
+     */
+    public void export(List<String> vertices, Authorizations authorizations, OutputStream out, ExportProgressListener progressListener) {
+        List<ExportedProperty> properties = getExportedProperties(ontologyRepository.getProperties());
+        properties.removeIf(prop -> !isValidElementName(prop.label));
         try {
-            vertices.forEach(vertexId -> {
-                Vertex v = graph.getVertex(vertexId, authorizations);
-                Element vertexElement = doc.createElement("Entity");
-                boolean vertexPropWritten = false;
-                if (v != null) {
-                    List<Pair<String, String>> addToTheEnd = new ArrayList<>();
-                    for (SchemaProperty prop : ontologyRepository.getProperties()) {
-                        try {
-                            if (prop.getUserVisible() && v.getProperty(prop.getName()) != null && v.getProperty(prop.getName()).getValue() != null) {
-                                String displayName = prop.getDisplayName();
-                                for (String stringToAvoid : CHARS_TO_AVOID) {
-                                    displayName = displayName.replace(stringToAvoid, "");
-                                }
-                                if (v.getProperty(prop.getName()).getValue() instanceof StreamingPropertyValue) {
-                                    String value = ((StreamingPropertyValue) v.getProperty(prop.getName()).getValue()).readToString();
-                                    addToTheEnd.add(pair(displayName, value));
-                                } else if (v.getProperty(prop.getName()).getValue() instanceof DateTimeValue) {
-                                    String value = v.getProperty(prop.getName()).getValue().prettyPrint();
-                                    addElement(doc, vertexElement, displayName, value);
-                                    vertexPropWritten = true;
-                                } else {
-                                    for (Property p : v.getProperties(prop.getName())) {
-                                        addElement(doc, vertexElement, displayName, p.getValue().prettyPrint());
-                                        vertexPropWritten = true;
-                                    }
-                                }
-                            }
-                        } catch (Exception e) {
-                            e.printStackTrace();
-                        }
-                    }
-                    for (Pair<String, String> pair : addToTheEnd) {
-                        addElement(doc, vertexElement, pair.first(), pair.other());
-                        vertexPropWritten = true;
-                    }
-                }
-                if (vertexPropWritten) {
-                    base.appendChild(vertexElement);
+            XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(out, StandardCharsets.UTF_8.name());
+            writer.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+            writer.writeCharacters("\n");
+            writer.writeStartElement("Entities");
+            forEachVertex(graph, vertices, authorizations, progressListener, v -> {
+                try {
+                    writeEntity(writer, v, properties);
+                } catch (XMLStreamException e) {
+                    throw new BcException("Could not write XML export", e);
                 }
             });
+            writer.writeCharacters("\n");
+            writer.writeEndElement();
+            writer.writeEndDocument();
+            writer.flush();
+            writer.close();
+        } catch (XMLStreamException e) {
+            throw new BcException("Could not write XML export", e);
+        }
+    }
 
-            TransformerFactory transformerFactory = TransformerFactory.newInstance();
-            transformerFactory.setAttribute("indent-number", 2);
-            Transformer transformer = transformerFactory.newTransformer();
-            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-            transformer.transform(new DOMSource(doc), new StreamResult(out));
-        } catch (Exception e) {
-            LOGGER.error(e.getMessage(), e);
+    private void writeEntity(XMLStreamWriter writer, Vertex v, List<ExportedProperty> properties) throws XMLStreamException {
+        List<ExportedProperty> present = new ArrayList<>();
+        for (ExportedProperty prop : properties) {
+            Property property = v.getProperty(prop.name);
+            if (property != null && property.getValue() != null) {
+                present.add(prop);
+            }
+        }
+        if (present.isEmpty()) {
+            return;
         }
 
-        return new ByteArrayInputStream(out.toByteArray());
+        writer.writeCharacters("\n  ");
+        writer.writeStartElement("Entity");
+        List<Pair<String, StreamingPropertyValue>> addToTheEnd = new ArrayList<>();
+        for (ExportedProperty prop : present) {
+            Value value = v.getProperty(prop.name).getValue();
+            if (value instanceof StreamingPropertyValue) {
+                addToTheEnd.add(pair(prop.label, (StreamingPropertyValue) value));
+            } else if (value instanceof DateTimeValue) {
+                addElement(writer, prop.label, value.prettyPrint());
+            } else {
+                for (Property p : v.getProperties(prop.name)) {
+                    addElement(writer, prop.label, p.getValue().prettyPrint());
+                }
+            }
+        }
+        for (Pair<String, StreamingPropertyValue> pair : addToTheEnd) {
+            writer.writeCharacters("\n    ");
+            writer.writeStartElement(pair.first());
+            try (Reader reader = new InputStreamReader(pair.other().getInputStream(), StandardCharsets.UTF_8)) {
+                char[] buffer = new char[8192];
+                int read;
+                while ((read = reader.read(buffer)) != -1) {
+                    writer.writeCharacters(buffer, 0, read);
+                }
+            } catch (IOException e) {
+                LOGGER.warn("Could not read %s of vertex %s", pair.first(), v.getId(), e);
+            }
+            writer.writeEndElement();
+        }
+        writer.writeCharacters("\n  ");
+        writer.writeEndElement();
     }
 
-    private void addElement(Document doc, Element vertexElement, String displayName, String value) {
-        Element elementProperty = doc.createElement(displayName);
-        elementProperty.appendChild(doc.createTextNode(value));
-        vertexElement.appendChild(elementProperty);
+    private void addElement(XMLStreamWriter writer, String displayName, String value) throws XMLStreamException {
+        writer.writeCharacters("\n    ");
+        writer.writeStartElement(displayName);
+        writer.writeCharacters(value);
+        writer.writeEndElement();
+    }
+
+    /**
+     * The DOM based writer rejected these names when creating the element, the stream writer does not check them.
+     */
+    private static boolean isValidElementName(String name) {
+        if (name.isEmpty() || !(Character.isLetter(name.charAt(0)) || name.charAt(0) == '_')) {
+            return false;
+        }
+        for (int i = 1; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '_' && c != '-' && c != '.') {
+                return false;
+            }
+        }
+        return true;
     }
 
     public static String getExportFileName() {
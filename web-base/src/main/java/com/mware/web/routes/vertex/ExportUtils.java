@@ -36,10 +36,84 @@
  */
 package com.mware.web.routes.vertex;
 
+import com.google.common.collect.Lists;
+import com.mware.core.model.schema.SchemaProperty;
+import com.mware.ge.Authorizations;
+import com.mware.ge.FetchHints;
+import com.mware.ge.Graph;
+import com.mware.ge.Vertex;
+
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public class ExportUtils {
     static final String[] CHARS_TO_AVOID = new String[] {" ",">","<","-","_",":",";","."};
     static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("dd-MM-yyyy HH:mm:ss");
+    static final int FETCH_BATCH_SIZE = 500;
+    private static final String LABEL_CHARS_TO_AVOID = String.join("", CHARS_TO_AVOID);
+
+    /**
+     * Loads the vertices {@link #FETCH_BATCH_SIZE} at a time and hands them out in the requested order. Ids that can
+     * not be read with the given authorizations are skipped, but still reported to the progress listener.
+     */
+    static void forEachVertex(
+            Graph graph,
+            List<String> vertexIds,
+            Authorizations authorizations,
+            ExportProgressListener progressListener,
+            Consumer<Vertex> consumer
+    ) {
+        for (List<String> batch : Lists.partition(vertexIds, FETCH_BATCH_SIZE)) {
+            Map<String, Vertex> verticesById = new HashMap<>();
+            for (Vertex v : graph.getVertices(batch, FetchHints.ALL, authorizations)) {
+                verticesById.put(v.getId(), v);
+            }
+
+            for (String vertexId : batch) {
+                Vertex v = verticesById.get(vertexId);
+                if (v != null) {
+                    consumer.accept(v);
+                }
+                progressListener.vertexExported();
+            }
+        }
+    }
+
+    /**
+     * User visible properties with their cleaned up display names, computed once per export instead of per vertex.
+     */
+    static List<ExportedProperty> getExportedProperties(Iterable<SchemaProperty> properties) {
+        List<ExportedProperty> result = new ArrayList<>();
+        for (SchemaProperty prop : properties) {
+            if (prop.getUserVisible()) {
+                result.add(new ExportedProperty(prop.getName(), toLabel(prop.getDisplayName())));
+            }
+        }
+        return result;
+    }
+
+    static String toLabel(String displayName) {
+        StringBuilder label = new StringBuilder(displayName.length());
+        for (int i = 0; i < displayName.length(); i++) {
+            char c = displayName.charAt(i);
+            if (LABEL_CHARS_TO_AVOID.indexOf(c) < 0) {
+                label.append(c);
+            }
+        }
+        return label.toString();
+    }
+
+    static class ExportedProperty {
+        final String name;
+        final String label;
 
+        ExportedProperty(String name, String label) {
+            this.name = name;
+            this.label = label;
+        }
+    }
 }
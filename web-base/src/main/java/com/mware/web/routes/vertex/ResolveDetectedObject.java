@@ -68,6 +68,7 @@ import com.mware.web.framework.annotations.Required;
 import com.mware.web.parameterProviders.ActiveWorkspaceId;
 import com.mware.web.parameterProviders.JustificationText;
 import com.mware.web.util.VisibilityValidator;
+import com.mware.workspace.WorkspaceChangeJournal;
 
 import java.time.ZonedDateTime;
 import java.util.Date;
@@ -82,6 +83,7 @@ public class ResolveDetectedObject implements ParameterizedHandler {
     private final SchemaRepository schemaRepository;
     private final WorkQueueRepository workQueueRepository;
     private final WebQueueRepository webQueueRepository;
+    private final WorkspaceChangeJournal workspaceChangeJournal;
     private final VisibilityTranslator visibilityTranslator;
     private final WorkspaceRepository workspaceRepository;
     private final TermMentionRepository termMentionRepository;
@@ -93,6 +95,7 @@ public class ResolveDetectedObject implements ParameterizedHandler {
             SchemaRepository schemaRepository,
             WorkQueueRepository workQueueRepository,
             WebQueueRepository webQueueRepository,
+            WorkspaceChangeJournal workspaceChangeJournal,
             VisibilityTranslator visibilityTranslator,
             WorkspaceRepository workspaceRepository,
             TermMentionRepository termMentionRepository,
@@ -102,6 +105,7 @@ public class ResolveDetectedObject implements ParameterizedHandler {
         this.schemaRepository = schemaRepository;
         this.workQueueRepository = workQueueRepository;
         this.webQueueRepository = webQueueRepository;
+        this.workspaceChangeJournal = workspaceChangeJournal;
         this.visibilityTranslator = visibilityTranslator;
         this.workspaceRepository = workspaceRepository;
         this.termMentionRepository = termMentionRepository;
@@ -187,6 +191,8 @@ public class ResolveDetectedObject implements ParameterizedHandler {
             RawObjectSchema.DETECTED_OBJECT.addPropertyValue(artifactVertex, propertyKey, artifactDetectedObject, bcVisibility.getVisibility(), authorizations);
         }
 
+        workspaceChangeJournal.recordElement(workspaceId, resolvedVertex);
+        workspaceChangeJournal.recordElement(workspaceId, edge);
         webQueueRepository.broadcastPropertyChange(edge, null, null, workspaceId);
         webQueueRepository.broadcastPropertyChange(artifactVertex, propertyKey, RawObjectSchema.DETECTED_OBJECT.getPropertyName(), null);
         workQueueRepository.pushGraphPropertyQueue(
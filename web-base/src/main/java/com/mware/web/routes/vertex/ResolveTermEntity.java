@@ -68,6 +68,7 @@ import com.mware.web.model.ClientApiSuccess;
 import com.mware.web.parameterProviders.ActiveWorkspaceId;
 import com.mware.web.parameterProviders.JustificationText;
 import com.mware.web.util.VisibilityValidator;
+import com.mware.workspace.WorkspaceChangeJournal;
 
 import java.time.ZonedDateTime;
 import java.util.Date;
@@ -83,6 +84,7 @@ public class ResolveTermEntity implements ParameterizedHandler {
     private final WorkspaceRepository workspaceRepository;
     private final WorkQueueRepository workQueueRepository;
     private final WebQueueRepository webQueueRepository;
+    private final WorkspaceChangeJournal workspaceChangeJournal;
     private final TermMentionRepository termMentionRepository;
 
     @Inject
@@ -94,6 +96,7 @@ public class ResolveTermEntity implements ParameterizedHandler {
             WorkspaceRepository workspaceRepository,
             WorkQueueRepository workQueueRepository,
             WebQueueRepository webQueueRepository,
+            WorkspaceChangeJournal workspaceChangeJournal,
             TermMentionRepository termMentionRepository
     ) {
         this.graph = graph;
@@ -103,6 +106,7 @@ public class ResolveTermEntity implements ParameterizedHandler {
         this.workspaceRepository = workspaceRepository;
         this.workQueueRepository = workQueueRepository;
         this.webQueueRepository = webQueueRepository;
+        this.workspaceChangeJournal = workspaceChangeJournal;
         this.termMentionRepository = termMentionRepository;
     }
 
@@ -194,6 +198,8 @@ public class ResolveTermEntity implements ParameterizedHandler {
 
         this.graph.flush();
         webQueueRepository.pushTextUpdated(artifactId);
+        workspaceChangeJournal.recordElement(workspaceId, vertex);
+        workspaceChangeJournal.recordElement(workspaceId, edge);
         webQueueRepository.broadcastPropertyChange(edge, null, null, null);
         workQueueRepository.pushGraphPropertyQueue(
                 edge,
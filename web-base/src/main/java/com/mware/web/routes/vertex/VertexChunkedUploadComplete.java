@@ -0,0 +1,131 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.web.routes.vertex;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.mware.core.config.Configuration;
+import com.mware.core.config.options.CoreOptions;
+import com.mware.core.model.workQueue.Priority;
+import com.mware.core.model.workspace.Workspace;
+import com.mware.core.model.workspace.WorkspaceRepository;
+import com.mware.core.user.User;
+import com.mware.ge.Authorizations;
+import com.mware.ge.Vertex;
+import com.mware.ingest.ChunkedUpload;
+import com.mware.ingest.ChunkedUploadRepository;
+import com.mware.ingest.FileImport;
+import com.mware.web.framework.ParameterizedHandler;
+import com.mware.web.framework.annotations.Handle;
+import com.mware.web.framework.annotations.Optional;
+import com.mware.web.framework.annotations.Required;
+import com.mware.web.model.ClientApiArtifactImportResponse;
+import com.mware.web.parameterProviders.ActiveWorkspaceId;
+import com.mware.workspace.WorkspaceHelper;
+
+import java.util.Collections;
+import java.util.List;
+
+@Singleton
+public class VertexChunkedUploadComplete implements ParameterizedHandler {
+    private final FileImport fileImport;
+    private final WorkspaceRepository workspaceRepository;
+    private final WorkspaceHelper workspaceHelper;
+    private final ChunkedUploadRepository chunkedUploadRepository;
+    private final boolean autoPublish;
+
+    @Inject
+    public VertexChunkedUploadComplete(
+            FileImport fileImport,
+            WorkspaceRepository workspaceRepository,
+            WorkspaceHelper workspaceHelper,
+            ChunkedUploadRepository chunkedUploadRepository,
+            Configuration configuration
+    ) {
+        this.fileImport = fileImport;
+        this.workspaceRepository = workspaceRepository;
+        this.workspaceHelper = workspaceHelper;
+        this.chunkedUploadRepository = chunkedUploadRepository;
+        this.autoPublish = configuration.get(CoreOptions.WORKSPACE_AUTO_PUBLISH);
+    }
+
+    @Handle
+    public ClientApiArtifactImportResponse handle(
+            @Required(name = "uploadId") String uploadId,
+            @Optional(name = "sha256") String sha256,
+            @Optional(name = "publish", defaultValue = "false") boolean shouldPublish,
+            @Optional(name = "addToWorkspace", defaultValue = "false") boolean addToWorkspace,
+            @Optional(name = "findExistingByFileHash", defaultValue = "true") boolean findExistingByFileHash,
+            @ActiveWorkspaceId String workspaceId,
+            Authorizations authorizations,
+            User user
+    ) throws Exception {
+        ChunkedUpload upload = chunkedUploadRepository.complete(uploadId, sha256, user);
+
+        workspaceId = workspaceHelper.getWorkspaceIdOrNullIfPublish(workspaceId, shouldPublish, user);
+        Workspace workspace = null;
+        if (!autoPublish) {
+            workspace = workspaceRepository.findById(workspaceId, user);
+        }
+
+        FileImport.FileOptions file = new FileImport.FileOptions();
+        file.setFile(upload.getDataFile());
+        file.setOriginalFilename(upload.getFileName());
+        file.setConceptId(upload.getConceptId());
+        file.setVisibilitySource(upload.getVisibilitySource());
+        file.setTitle(upload.getTitle());
+        // already hashed while the chunks arrived, and checked against the client's hash when one was sent
+        file.setSha256(upload.getSha256());
+
+        List<Vertex> vertices = fileImport.importVertices(
+                workspace,
+                Collections.singletonList(file),
+                Priority.HIGH,
+                addToWorkspace,
+                findExistingByFileHash,
+                user,
+                authorizations
+        );
+        chunkedUploadRepository.delete(uploadId, user);
+
+        ClientApiArtifactImportResponse response = new ClientApiArtifactImportResponse();
+        for (Vertex vertex : vertices) {
+            response.getVertexIds().add(vertex.getId());
+        }
+        return response;
+    }
+}
@@ -72,6 +72,7 @@ import com.mware.web.model.ClientApiAddElementProperties;
 import com.mware.web.parameterProviders.ActiveWorkspaceId;
 import com.mware.web.parameterProviders.JustificationText;
 import com.mware.web.util.VisibilityValidator;
+import com.mware.workspace.WorkspaceChangeJournal;
 import com.mware.workspace.WorkspaceHelper;
 import org.apache.commons.lang.StringUtils;
 
@@ -90,6 +91,7 @@ public class VertexNew implements ParameterizedHandler {
     private final VisibilityTranslator visibilityTranslator;
     private final WorkQueueRepository workQueueRepository;
     private final WebQueueRepository webQueueRepository;
+    private final WorkspaceChangeJournal workspaceChangeJournal;
     private final SchemaRepository ontologyRepository;
     private final GraphRepository graphRepository;
     private final WorkspaceHelper workspaceHelper;
@@ -101,6 +103,7 @@ public class VertexNew implements ParameterizedHandler {
             VisibilityTranslator visibilityTranslator,
             WorkQueueRepository workQueueRepository,
             WebQueueRepository webQueueRepository,
+            WorkspaceChangeJournal workspaceChangeJournal,
             SchemaRepository ontologyRepository,
             GraphRepository graphRepository,
             WorkspaceHelper workspaceHelper,
@@ -110,6 +113,7 @@ public class VertexNew implements ParameterizedHandler {
         this.visibilityTranslator = visibilityTranslator;
         this.workQueueRepository = workQueueRepository;
         this.webQueueRepository = webQueueRepository;
+        this.workspaceChangeJournal = workspaceChangeJournal;
         this.ontologyRepository = ontologyRepository;
         this.graphRepository = graphRepository;
         this.workspaceHelper = workspaceHelper;
@@ -227,6 +231,7 @@ public class VertexNew implements ParameterizedHandler {
         LOGGER.debug("Created new empty vertex with id: %s", vertex.getId());
         auditService.auditGenericEvent(user, workspaceId, AuditEventType.CREATE_VERTEX, "id", vertex.getId());
 
+        workspaceChangeJournal.recordElement(workspaceId, vertex);
         webQueueRepository.broadcastPropertyChange(vertex, null, null, workspaceId);
         workQueueRepository.pushGraphPropertyQueue(
                 vertex,
@@ -96,7 +96,7 @@ public class VertexPosterFrame implements ParameterizedHandler {
             response.addHeader("Content-Disposition", "inline; filename=thumbnail" + boundaryDims[0] + ".jpg");
             response.setMaxAge(BcResponse.EXPIRES_1_HOUR);
 
-            byte[] thumbnailData = artifactThumbnailRepository.getThumbnailData(artifactVertex.getId(), "poster-frame", boundaryDims[0], boundaryDims[1], user);
+            byte[] thumbnailData = artifactThumbnailRepository.getThumbnailData(artifactVertex, "poster-frame", boundaryDims[0], boundaryDims[1], user);
             if (thumbnailData != null) {
                 LOGGER.debug("Cache hit for: %s (poster-frame) %d x %d", graphVertexId, boundaryDims[0], boundaryDims[1]);
                 try (OutputStream out = response.getOutputStream()) {
@@ -112,24 +112,22 @@ public class VertexPosterFrame implements ParameterizedHandler {
             throw new BcResourceNotFoundException("Could not find raw poster from for artifact: " + artifactVertex.getId());
         }
 
-        try (InputStream in = rawPosterFrameValue.getInputStream()) {
-            if (width != null) {
-                LOGGER.info("Cache miss for: %s (poster-frame) %d x %d", graphVertexId, boundaryDims[0], boundaryDims[1]);
+        if (width != null) {
+            LOGGER.info("Cache miss for: %s (poster-frame) %d x %d", graphVertexId, boundaryDims[0], boundaryDims[1]);
 
-                response.setContentType("image/jpeg");
-                response.addHeader("Content-Disposition", "inline; filename=thumbnail" + boundaryDims[0] + ".jpg");
-                response.setMaxAge(BcResponse.EXPIRES_1_HOUR);
+            response.setContentType("image/jpeg");
+            response.addHeader("Content-Disposition", "inline; filename=thumbnail" + boundaryDims[0] + ".jpg");
+            response.setMaxAge(BcResponse.EXPIRES_1_HOUR);
 
-                byte[] thumbnailData = artifactThumbnailRepository
-                        .createThumbnail(artifactVertex, rawPosterFrame.getKey(), "poster-frame", in, boundaryDims, user, null).getData();
-                try (OutputStream out = response.getOutputStream()) {
-                    out.write(thumbnailData);
-                }
-            } else {
-                response.setContentType("image/png");
-                try (OutputStream out = response.getOutputStream()) {
-                    IOUtils.copy(in, out);
-                }
+            byte[] thumbnailData = artifactThumbnailRepository
+                    .getOrCreateThumbnail(artifactVertex, rawPosterFrame.getKey(), "poster-frame", rawPosterFrameValue::getInputStream, boundaryDims, user, null).getData();
+            try (OutputStream out = response.getOutputStream()) {
+                out.write(thumbnailData);
+            }
+        } else {
+            response.setContentType("image/png");
+            try (InputStream in = rawPosterFrameValue.getInputStream(); OutputStream out = response.getOutputStream()) {
+                IOUtils.copy(in, out);
             }
         }
     }
@@ -36,15 +36,19 @@
  */
 package com.mware.web.routes.vertex;
 
+import com.google.common.base.Charsets;
+import com.google.common.collect.Iterables;
+import com.google.common.hash.Hashing;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.mware.core.exception.BcException;
 import com.mware.core.exception.BcResourceNotFoundException;
 import com.mware.core.model.properties.BcSchema;
 import com.mware.core.model.properties.MediaBcSchema;
-import com.mware.core.util.LimitInputStream;
+import com.mware.core.model.properties.RawObjectSchema;
 import com.mware.ge.Authorizations;
 import com.mware.ge.Graph;
+import com.mware.ge.Property;
 import com.mware.ge.Vertex;
 import com.mware.ge.values.storable.StreamingPropertyValue;
 import com.mware.web.BadRequestException;
@@ -53,18 +57,13 @@ import com.mware.web.framework.ParameterizedHandler;
 import com.mware.web.framework.annotations.Handle;
 import com.mware.web.framework.annotations.Optional;
 import com.mware.web.framework.annotations.Required;
+import com.mware.web.util.ByteRangeResponder;
 
 import javax.servlet.http.HttpServletRequest;
-import javax.servlet.http.HttpServletResponse;
-import java.io.IOException;
 import java.io.InputStream;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 @Singleton
 public class VertexRaw implements ParameterizedHandler {
-    private static final Pattern RANGE_PATTERN = Pattern.compile("bytes=([0-9]*)-([0-9]*)");
-
     private final Graph graph;
 
     @Inject
@@ -73,7 +72,7 @@ public class VertexRaw implements ParameterizedHandler {
     }
 
     @Handle
-    public InputStream handle(
+    public void handle(
             HttpServletRequest request,
             @Required(name = "graphVertexId") String graphVertexId,
             @Optional(name = "download", defaultValue = "false") boolean download,
@@ -89,11 +88,18 @@ public class VertexRaw implements ParameterizedHandler {
 
         String fileName = BcSchema.FILE_NAME.getOnlyPropertyValue(artifactVertex);
 
+        Property property;
+        String contentType;
         if (playback) {
-            return handlePartialPlayback(request, response, artifactVertex, fileName, type);
+            if (type == null) {
+                throw new BadRequestException("type is required for partial playback");
+            }
+            response.setCharacterEncoding(null);
+            response.addHeader("Content-Disposition", "attachment; filename=" + fileName);
+            property = getPlaybackProperty(artifactVertex, type);
+            contentType = type;
         } else {
-            String mimeType = getMimeType(artifactVertex);
-            response.setContentType(mimeType);
+            contentType = getMimeType(artifactVertex);
             response.setMaxAge(BcResponse.EXPIRES_1_HOUR);
             if (fileName == null) {
                 throw new BcResourceNotFoundException("Could not find fileName on artifact: " + artifactVertex.getId());
@@ -106,69 +112,47 @@ public class VertexRaw implements ParameterizedHandler {
                 response.addHeader("Content-Disposition", "inline; filename=\"" + fileNameWithoutQuotes + "\"");
             }
 
-            StreamingPropertyValue rawValue = BcSchema.RAW.getPropertyValue(artifactVertex);
-            if (rawValue == null) {
-                throw new BcResourceNotFoundException("Could not find raw on artifact: " + artifactVertex.getId());
-            }
-            return rawValue.getInputStream();
+            property = BcSchema.RAW.getProperty(artifactVertex);
         }
-    }
-
-    private InputStream handlePartialPlayback(HttpServletRequest request, BcResponse response, Vertex artifactVertex, String fileName, String type) throws IOException {
-        if (type == null) {
-            throw new BadRequestException("type is required for partial playback");
+        if (property == null || !(property.getValue() instanceof StreamingPropertyValue)) {
+            throw new BcResourceNotFoundException("Could not find raw on artifact: " + artifactVertex.getId());
         }
 
-        InputStream in;
-        Long totalLength;
-        long partialStart = 0;
-        Long partialEnd = null;
-        String range = request.getHeader("Range");
-
-        if (range != null) {
-            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
-
-            Matcher m = RANGE_PATTERN.matcher(range);
-            if (m.matches()) {
-                partialStart = Long.parseLong(m.group(1));
-                if (m.group(2).length() > 0) {
-                    partialEnd = Long.parseLong(m.group(2));
-                }
+        // validators describe the property that is actually served
+        StreamingPropertyValue value = (StreamingPropertyValue) property.getValue();
+        long lastModified = property.getTimestamp();
+        ByteRangeResponder.send(request, response, new ByteRangeResponder.Source() {
+            @Override
+            public long getLength() {
+                return value.getLength();
             }
-        }
-
-        response.setCharacterEncoding(null);
-        response.setContentType(type);
-        response.addHeader("Content-Disposition", "attachment; filename=" + fileName);
 
-        StreamingPropertyValue mediaPropertyValue = getStreamingPropertyValue(artifactVertex, type);
-
-        totalLength = mediaPropertyValue.getLength();
-        in = mediaPropertyValue.getInputStream();
-
-        if (partialEnd == null) {
-            partialEnd = totalLength;
-        }
-
-        // Ensure that the last byte position is less than the instance-length
-        partialEnd = Math.min(partialEnd, totalLength - 1);
-        long partialLength = totalLength;
+            @Override
+            public InputStream open() {
+                return value.getInputStream();
+            }
+        }, contentType, getETag(artifactVertex, property), lastModified);
+    }
 
-        if (range != null) {
-            partialLength = partialEnd - partialStart + 1;
-            response.addHeader("Content-Range", "bytes " + partialStart + "-" + partialEnd + "/" + totalLength);
-            if (partialStart > 0) {
-                in.skip(partialStart);
+    /**
+     * The content hash only describes the raw value, any other property is identified by its name, key and
+     * timestamp.
+     */
+    private String getETag(Vertex artifactVertex, Property property) {
+        if (BcSchema.RAW.getPropertyName().equals(property.getName())) {
+            String contentHash = Iterables.getFirst(RawObjectSchema.CONTENT_HASH.getPropertyValues(artifactVertex), null);
+            if (contentHash != null) {
+                return contentHash;
             }
         }
-
-        response.addHeader("Content-Length", "" + partialLength);
-
-        return new LimitInputStream(in, partialLength);
+        return Hashing.sha256().hashString(
+                artifactVertex.getId() + "|" + property.getName() + "|" + property.getKey() + "|" + property.getTimestamp(),
+                Charsets.UTF_8
+        ).toString();
     }
 
-    private StreamingPropertyValue getStreamingPropertyValue(Vertex artifactVertex, String type) {
-        StreamingPropertyValue mediaPropertyValue = BcSchema.RAW.getPropertyValue(artifactVertex);
+    private Property getPlaybackProperty(Vertex artifactVertex, String type) {
+        Property mediaProperty = BcSchema.RAW.getProperty(artifactVertex);
 
         if (!MediaBcSchema.MIME_TYPE_AUDIO_MP4.equals(type)
                 && !MediaBcSchema.MIME_TYPE_AUDIO_OGG.equals(type)
@@ -176,7 +160,7 @@ public class VertexRaw implements ParameterizedHandler {
                 && !MediaBcSchema.MIME_TYPE_VIDEO_MP4.equals(type)) {
             throw new BcException("Invalid video type: " + type);
         }
-        return mediaPropertyValue;
+        return mediaProperty;
     }
 
     private String getMimeType(Vertex artifactVertex) {
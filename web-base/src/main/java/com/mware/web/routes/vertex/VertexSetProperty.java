@@ -79,6 +79,7 @@ import com.mware.web.parameterProviders.ActiveWorkspaceId;
 import com.mware.web.parameterProviders.JustificationText;
 import com.mware.web.routes.SetPropertyBase;
 import com.mware.web.util.VisibilityValidator;
+import com.mware.workspace.WorkspaceChangeJournal;
 import com.mware.workspace.WorkspaceHelper;
 import org.apache.commons.lang3.StringUtils;
 
@@ -99,6 +100,7 @@ public class VertexSetProperty extends SetPropertyBase implements ParameterizedH
     private final WorkspaceRepository workspaceRepository;
     private final WorkQueueRepository workQueueRepository;
     private final WebQueueRepository webQueueRepository;
+    private final WorkspaceChangeJournal workspaceChangeJournal;
     private final GraphRepository graphRepository;
     private final ACLProvider aclProvider;
     private final WorkspaceHelper workspaceHelper;
@@ -113,6 +115,7 @@ public class VertexSetProperty extends SetPropertyBase implements ParameterizedH
             WorkspaceRepository workspaceRepository,
             WorkQueueRepository workQueueRepository,
             WebQueueRepository webQueueRepository,
+            WorkspaceChangeJournal workspaceChangeJournal,
             WorkspaceHelper workspaceHelper,
             GraphRepository graphRepository,
             ACLProvider aclProvider,
@@ -124,6 +127,7 @@ public class VertexSetProperty extends SetPropertyBase implements ParameterizedH
         this.workspaceRepository = workspaceRepository;
         this.workQueueRepository = workQueueRepository;
         this.webQueueRepository = webQueueRepository;
+        this.workspaceChangeJournal = workspaceChangeJournal;
         this.workspaceHelper  = workspaceHelper;
         this.graphRepository = graphRepository;
         this.aclProvider = aclProvider;
@@ -203,6 +207,7 @@ public class VertexSetProperty extends SetPropertyBase implements ParameterizedH
             workspaceRepository.updateEntityOnWorkspace(workspaceId, vertex.getId(), user);
         }
 
+        workspaceChangeJournal.recordElement(workspaceId, vertex);
         for (SavePropertyResults savePropertyResult : savePropertyResults) {
             if (webQueueRepository.shouldBroadcastGraphPropertyChange(savePropertyResult.getPropertyName(), Priority.HIGH)) {
                 webQueueRepository.broadcastPropertyChange(vertex, savePropertyResult.getPropertyKey(), savePropertyResult.getPropertyName(), workspaceId);
@@ -61,6 +61,7 @@ import com.mware.web.framework.annotations.Required;
 import com.mware.web.model.ClientApiSuccess;
 import com.mware.web.parameterProviders.ActiveWorkspaceId;
 import com.mware.web.util.VisibilityValidator;
+import com.mware.workspace.WorkspaceChangeJournal;
 
 import java.util.ResourceBundle;
 
@@ -73,6 +74,7 @@ public class VertexSetPropertyVisibility implements ParameterizedHandler {
     private final GraphRepository graphRepository;
     private final WorkQueueRepository workQueueRepository;
     private final WebQueueRepository webQueueRepository;
+    private final WorkspaceChangeJournal workspaceChangeJournal;
 
     @Inject
     public VertexSetPropertyVisibility(
@@ -81,7 +83,8 @@ public class VertexSetPropertyVisibility implements ParameterizedHandler {
             VisibilityTranslator visibilityTranslator,
             GraphRepository graphRepository,
             WorkQueueRepository workQueueRepository,
-            WebQueueRepository webQueueRepository
+            WebQueueRepository webQueueRepository,
+            WorkspaceChangeJournal workspaceChangeJournal
     ) {
         this.graph = graph;
         this.workspaceRepository = workspaceRepository;
@@ -89,6 +92,7 @@ public class VertexSetPropertyVisibility implements ParameterizedHandler {
         this.graphRepository = graphRepository;
         this.workQueueRepository = workQueueRepository;
         this.webQueueRepository = webQueueRepository;
+        this.workspaceChangeJournal = workspaceChangeJournal;
     }
 
     @Handle
@@ -125,6 +129,7 @@ public class VertexSetPropertyVisibility implements ParameterizedHandler {
         );
         this.graph.flush();
 
+        workspaceChangeJournal.recordElement(workspaceId, vertex);
         if (webQueueRepository.shouldBroadcastGraphPropertyChange(property.getName(), Priority.HIGH)) {
             webQueueRepository.broadcastPropertyChange(vertex, property.getKey(), property.getName(), workspaceId);
         }
@@ -65,6 +65,7 @@ import com.mware.web.framework.annotations.Required;
 import com.mware.web.parameterProviders.ActiveWorkspaceId;
 import com.mware.web.parameterProviders.SourceGuid;
 import com.mware.web.util.VisibilityValidator;
+import com.mware.workspace.WorkspaceChangeJournal;
 
 import java.util.ResourceBundle;
 import java.util.Set;
@@ -76,6 +77,7 @@ public class VertexSetVisibility implements ParameterizedHandler {
     private final WorkspaceRepository workspaceRepository;
     private final WorkQueueRepository workQueueRepository;
     private final WebQueueRepository webQueueRepository;
+    private final WorkspaceChangeJournal workspaceChangeJournal;
     private final GraphRepository graphRepository;
     private final VisibilityTranslator visibilityTranslator;
     private final PrivilegeRepository privilegeRepository;
@@ -86,6 +88,7 @@ public class VertexSetVisibility implements ParameterizedHandler {
             WorkspaceRepository workspaceRepository,
             WorkQueueRepository workQueueRepository,
             WebQueueRepository webQueueRepository,
+            WorkspaceChangeJournal workspaceChangeJournal,
             GraphRepository graphRepository,
             VisibilityTranslator visibilityTranslator,
             PrivilegeRepository privilegeRepository
@@ -94,6 +97,7 @@ public class VertexSetVisibility implements ParameterizedHandler {
         this.workspaceRepository = workspaceRepository;
         this.workQueueRepository = workQueueRepository;
         this.webQueueRepository = webQueueRepository;
+        this.workspaceChangeJournal = workspaceChangeJournal;
         this.graphRepository = graphRepository;
         this.visibilityTranslator = visibilityTranslator;
         this.privilegeRepository = privilegeRepository;
@@ -136,6 +140,7 @@ public class VertexSetVisibility implements ParameterizedHandler {
 
         this.graph.flush();
 
+        workspaceChangeJournal.recordElement(workspaceId, graphVertex);
         webQueueRepository.broadcastPropertyChange(graphVertex, null, BcSchema.VISIBILITY_JSON.getPropertyName(), workspaceId);
         workQueueRepository.pushGraphPropertyQueue(
                 graphVertex,
@@ -56,7 +56,6 @@ import com.mware.web.framework.annotations.Handle;
 import com.mware.web.framework.annotations.Optional;
 import com.mware.web.framework.annotations.Required;
 
-import java.io.InputStream;
 import java.io.OutputStream;
 
 @Singleton
@@ -93,45 +92,34 @@ public class VertexThumbnail implements ParameterizedHandler {
             boundaryDims[0] = boundaryDims[1] = width;
         }
 
-        byte[] thumbnailData;
         ArtifactThumbnail thumbnail = artifactThumbnailRepository
-                .getThumbnail(artifactVertex.getId(), "raw", boundaryDims[0], boundaryDims[1], user, authorizations);
-        if (thumbnail != null) {
-            String format = thumbnail.getFormat();
-            response.setContentType("image/" + format);
-            response.addHeader("Content-Disposition", "inline; filename=thumbnail" + boundaryDims[0] + "." + format);
-            response.setMaxAge(BcResponse.EXPIRES_1_HOUR);
-
-            thumbnailData = thumbnail.getData();
-            if (thumbnailData != null) {
-                LOGGER.debug("Cache hit for: %s (raw) %d x %d", artifactVertex.getId(), boundaryDims[0], boundaryDims[1]);
-                try (OutputStream out = response.getOutputStream()) {
-                    out.write(thumbnailData);
-                }
-                return;
+                .getThumbnail(artifactVertex, "raw", boundaryDims[0], boundaryDims[1], user, authorizations);
+        if (thumbnail != null && thumbnail.getData() != null) {
+            LOGGER.debug("Cache hit for: %s (raw) %d x %d", artifactVertex.getId(), boundaryDims[0], boundaryDims[1]);
+        } else {
+            LOGGER.info("Cache miss for: %s (raw) %d x %d", artifactVertex.getId(), boundaryDims[0], boundaryDims[1]);
+            Property rawProperty = BcSchema.RAW.getProperty(artifactVertex);
+            StreamingPropertyValue rawPropertyValue = BcSchema.RAW.getPropertyValue(artifactVertex);
+            if (rawPropertyValue == null) {
+                throw new BcResourceNotFoundException("Could not find raw property on vertex: " + artifactVertex.getId());
             }
-        }
 
-        LOGGER.info("Cache miss for: %s (raw) %d x %d", artifactVertex.getId(), boundaryDims[0], boundaryDims[1]);
-        Property rawProperty = BcSchema.RAW.getProperty(artifactVertex);
-        StreamingPropertyValue rawPropertyValue = BcSchema.RAW.getPropertyValue(artifactVertex);
-        if (rawPropertyValue == null) {
-            throw new BcResourceNotFoundException("Could not find raw property on vertex: " + artifactVertex.getId());
+            thumbnail = artifactThumbnailRepository.getOrCreateThumbnail(
+                    artifactVertex, rawProperty.getKey(), "raw", rawPropertyValue::getInputStream, boundaryDims, user, authorizations);
         }
 
-        try (InputStream in = rawPropertyValue.getInputStream()) {
-            thumbnail = artifactThumbnailRepository
-                    .createThumbnail(artifactVertex, rawProperty.getKey(), "raw", in, boundaryDims, user, authorizations);
-
-            String format = thumbnail.getFormat();
-            response.setContentType("image/" + format);
-            response.addHeader("Content-Disposition", "inline; filename=thumbnail" + boundaryDims[0] + "." + format);
-            response.setMaxAge(BcResponse.EXPIRES_1_HOUR);
-
-            thumbnailData = thumbnail.getData();
+        String eTag = artifactThumbnailRepository.getETag(thumbnail, artifactVertex);
+        if (response.testEtagHeaders(eTag)) {
+            return;
         }
+        response.addETagHeader(eTag);
+
+        String format = thumbnail.getFormat();
+        response.setContentType("image/" + format);
+        response.addHeader("Content-Disposition", "inline; filename=thumbnail" + boundaryDims[0] + "." + format);
+        response.setMaxAge(BcResponse.EXPIRES_1_HOUR);
         try (OutputStream out = response.getOutputStream()) {
-            out.write(thumbnailData);
+            out.write(thumbnail.getData());
         }
     }
 }
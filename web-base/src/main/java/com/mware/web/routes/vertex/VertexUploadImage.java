@@ -39,6 +39,7 @@ package com.mware.web.routes.vertex;
 import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import com.mware.artifactThumbnails.ThumbnailPregenerator;
 import com.mware.bigconnect.image.ImageTransform;
 import com.mware.bigconnect.image.ImageTransformExtractor;
 import com.mware.core.exception.BcResourceNotFoundException;
@@ -71,6 +72,7 @@ import com.mware.web.framework.ParameterizedHandler;
 import com.mware.web.framework.annotations.Handle;
 import com.mware.web.framework.annotations.Required;
 import com.mware.web.parameterProviders.ActiveWorkspaceId;
+import com.mware.workspace.WorkspaceChangeJournal;
 import org.apache.commons.io.IOUtils;
 
 import javax.servlet.http.HttpServletRequest;
@@ -95,8 +97,10 @@ public class VertexUploadImage implements ParameterizedHandler {
     private final SchemaRepository schemaRepository;
     private final WorkQueueRepository workQueueRepository;
     private final WebQueueRepository webQueueRepository;
+    private final WorkspaceChangeJournal workspaceChangeJournal;
     private final VisibilityTranslator visibilityTranslator;
     private final WorkspaceRepository workspaceRepository;
+    private final ThumbnailPregenerator thumbnailPregenerator;
     private final String clockwiseRotationIri;
     private final String yAxisFlippedIri;
     private final String conceptIri;
@@ -108,15 +112,19 @@ public class VertexUploadImage implements ParameterizedHandler {
             final SchemaRepository schemaRepository,
             final WorkQueueRepository workQueueRepository,
             final WebQueueRepository webQueueRepository,
+            final WorkspaceChangeJournal workspaceChangeJournal,
             final VisibilityTranslator visibilityTranslator,
-            final WorkspaceRepository workspaceRepository
+            final WorkspaceRepository workspaceRepository,
+            final ThumbnailPregenerator thumbnailPregenerator
     ) {
         this.graph = graph;
         this.schemaRepository = schemaRepository;
         this.workQueueRepository = workQueueRepository;
         this.webQueueRepository = webQueueRepository;
+        this.workspaceChangeJournal = workspaceChangeJournal;
         this.visibilityTranslator = visibilityTranslator;
         this.workspaceRepository = workspaceRepository;
+        this.thumbnailPregenerator = thumbnailPregenerator;
 
         this.conceptIri = schemaRepository.getRequiredConceptNameByIntent(SchemaConstants.INTENT_ENTITY_IMAGE, SchemaRepository.PUBLIC);
         this.entityHasImageIri = schemaRepository.getRequiredRelationshipNameByIntent(SchemaConstants.INTENT_ENTITY_HAS_IMAGE, SchemaRepository.PUBLIC);
@@ -193,6 +201,7 @@ public class VertexUploadImage implements ParameterizedHandler {
                 ElementOrPropertyStatus.UPDATE,
                 null
         );
+        workspaceChangeJournal.recordElement(workspaceId, artifactVertex);
         webQueueRepository.broadcastPropertyChange(artifactVertex, null, BcSchema.RAW.getPropertyName(), workspaceId);
         workQueueRepository.pushGraphPropertyQueue(
                 artifactVertex,
@@ -210,8 +219,12 @@ public class VertexUploadImage implements ParameterizedHandler {
                 RawObjectSchema.ENTITY_IMAGE_VERTEX_ID.getPropertyName(),
                 Priority.HIGH
         );
+        workspaceChangeJournal.recordElement(workspaceId, entityVertex);
         webQueueRepository.broadcastElementImage(entityVertex);
 
+        // the client asks for the new entity image right away; have its thumbnails rendered in the background
+        thumbnailPregenerator.submit(artifactVertex.getId(), user, authorizations);
+
         return (ClientApiVertex) ClientApiConverter.toClientApi(entityVertex, workspaceId, authorizations);
     }
 
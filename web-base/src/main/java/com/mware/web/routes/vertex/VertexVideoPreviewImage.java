@@ -38,6 +38,7 @@ package com.mware.web.routes.vertex;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import com.mware.artifactThumbnails.ArtifactThumbnail;
 import com.mware.artifactThumbnails.ArtifactThumbnailRepository;
 import com.mware.bigconnect.ffmpeg.ArtifactThumbnailRepositoryProps;
 import com.mware.core.exception.BcResourceNotFoundException;
@@ -79,6 +80,7 @@ public class VertexVideoPreviewImage implements ParameterizedHandler {
     public void handle(
             @Required(name = "graphVertexId") String graphVertexId,
             @Optional(name = "width") Integer width,
+            @Optional(name = "frame") Integer frame,
             User user,
             Authorizations authorizations,
             BcResponse response
@@ -88,52 +90,98 @@ public class VertexVideoPreviewImage implements ParameterizedHandler {
             throw new BcResourceNotFoundException("Could not find vertex with id: " + graphVertexId);
         }
 
+        if (frame != null) {
+            respondWithFrame(artifactVertex, frame, width, user, authorizations, response);
+            return;
+        }
+
         int[] boundaryDims = new int[]{200 * ArtifactThumbnailRepositoryProps.FRAMES_PER_PREVIEW, 200};
 
+        ArtifactThumbnail thumbnail = null;
         if (width != null) {
             boundaryDims[0] = width * ArtifactThumbnailRepositoryProps.FRAMES_PER_PREVIEW;
             boundaryDims[1] = width;
 
-            response.setContentType("image/jpeg");
-            response.addHeader("Content-Disposition", "inline; filename=videoPreview" + boundaryDims[0] + ".jpg");
-            response.setMaxAge(BcResponse.EXPIRES_1_HOUR);
-
-            byte[] thumbnailData = artifactThumbnailRepository.getThumbnailData(artifactVertex.getId(), "video-preview", boundaryDims[0], boundaryDims[1], user);
-            if (thumbnailData != null) {
+            thumbnail = artifactThumbnailRepository.getThumbnail(artifactVertex, "video-preview", boundaryDims[0], boundaryDims[1], user, null);
+            if (thumbnail != null && thumbnail.getData() != null) {
                 LOGGER.debug("Cache hit for: %s (video-preview) %d x %d", artifactVertex.getId(), boundaryDims[0], boundaryDims[1]);
-                try (OutputStream out = response.getOutputStream()) {
-                    out.write(thumbnailData);
+            } else {
+                thumbnail = null;
+            }
+        }
+
+        if (thumbnail == null) {
+            Property videoPreviewImage = MediaBcSchema.VIDEO_PREVIEW_IMAGE.getProperty(artifactVertex);
+            StreamingPropertyValue videoPreviewImageValue = MediaBcSchema.VIDEO_PREVIEW_IMAGE.getPropertyValue(artifactVertex);
+            if (videoPreviewImageValue == null) {
+                LOGGER.warn("Could not find video preview image for artifact: %s", artifactVertex.getId());
+                response.respondWithNotFound();
+                return;
+            }
+
+            if (width == null) {
+                response.setContentType("image/png");
+                try (InputStream in = videoPreviewImageValue.getInputStream(); OutputStream out = response.getOutputStream()) {
+                    IOUtils.copy(in, out);
                 }
                 return;
             }
+
+            LOGGER.info("Cache miss for: %s (video-preview) %d x %d", artifactVertex.getId(), boundaryDims[0], boundaryDims[1]);
+            thumbnail = artifactThumbnailRepository.getOrCreateThumbnail(
+                    artifactVertex, videoPreviewImage.getKey(), "video-preview", videoPreviewImageValue::getInputStream, boundaryDims, user, null);
         }
 
-        Property videoPreviewImage = MediaBcSchema.VIDEO_PREVIEW_IMAGE.getProperty(artifactVertex);
+        String eTag = artifactThumbnailRepository.getETag(thumbnail, artifactVertex);
+        if (response.testEtagHeaders(eTag)) {
+            return;
+        }
+        response.addETagHeader(eTag);
+
+        response.setContentType("image/jpeg");
+        response.addHeader("Content-Disposition", "inline; filename=videoPreview" + boundaryDims[0] + ".jpg");
+        response.setMaxAge(BcResponse.EXPIRES_1_HOUR);
+        try (OutputStream out = response.getOutputStream()) {
+            out.write(thumbnail.getData());
+        }
+    }
+
+    /**
+     * Serves a single frame of the preview strip. Frames are cut from the strip once and kept with the other
+     * thumbnails. The frame URL carries no version of the strip, so responses are cached for a limited time and
+     * revalidated with their ETag rather than marked immutable.
+     */
+    private void respondWithFrame(
+            Vertex artifactVertex,
+            int frame,
+            Integer width,
+            User user,
+            Authorizations authorizations,
+            BcResponse response
+    ) throws Exception {
+        int frameCount = ArtifactThumbnailRepositoryProps.FRAMES_PER_PREVIEW;
         StreamingPropertyValue videoPreviewImageValue = MediaBcSchema.VIDEO_PREVIEW_IMAGE.getPropertyValue(artifactVertex);
-        if (videoPreviewImageValue == null) {
-            LOGGER.warn("Could not find video preview image for artifact: %s", artifactVertex.getId());
+        if (frame < 0 || frame >= frameCount || videoPreviewImageValue == null) {
             response.respondWithNotFound();
             return;
         }
-        try (InputStream in = videoPreviewImageValue.getInputStream()) {
-            if (width != null) {
-                LOGGER.info("Cache miss for: %s (video-preview) %d x %d", artifactVertex.getId(), boundaryDims[0], boundaryDims[1]);
-
-                response.setContentType("image/jpeg");
-                response.addHeader("Content-Disposition", "inline; filename=videoPreview" + boundaryDims[0] + ".jpg");
-                response.setMaxAge(BcResponse.EXPIRES_1_HOUR);
-
-                byte[] thumbnailData = artifactThumbnailRepository
-                        .createThumbnail(artifactVertex, videoPreviewImage.getKey(), "video-preview", in, boundaryDims, user, null).getData();
-                try (OutputStream out = response.getOutputStream()) {
-                    out.write(thumbnailData);
-                }
-            } else {
-                response.setContentType("image/png");
-                try (OutputStream out = response.getOutputStream()) {
-                    IOUtils.copy(in, out);
-                }
-            }
+
+        int bound = width == null ? 0 : width;
+        ArtifactThumbnail thumbnail = artifactThumbnailRepository.getOrCreateSpriteFrame(
+                artifactVertex, "video-preview", videoPreviewImageValue::getInputStream, frameCount, frame, bound, user, authorizations);
+
+        String eTag = artifactThumbnailRepository.getETag(thumbnail, artifactVertex);
+        if (response.testEtagHeaders(eTag)) {
+            return;
+        }
+        response.addETagHeader(eTag);
+
+        String format = thumbnail.getFormat();
+        response.setContentType("image/" + format);
+        response.addHeader("Content-Disposition", "inline; filename=videoPreviewFrame" + frame + "." + format);
+        response.setMaxAge(BcResponse.EXPIRES_1_HOUR);
+        try (OutputStream out = response.getOutputStream()) {
+            out.write(thumbnail.getData());
         }
     }
 }
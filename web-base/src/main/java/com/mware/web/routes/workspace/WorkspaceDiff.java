@@ -45,6 +45,7 @@ import com.mware.core.user.User;
 import com.mware.formula.FormulaEvaluator;
 import com.mware.web.framework.ParameterizedHandler;
 import com.mware.web.framework.annotations.Handle;
+import com.mware.web.framework.annotations.Optional;
 import com.mware.web.model.ClientApiWorkspaceDiff;
 import com.mware.web.parameterProviders.ActiveWorkspaceId;
 import com.mware.workspace.WorkspaceDiffHelper;
@@ -66,6 +67,7 @@ public class WorkspaceDiff implements ParameterizedHandler {
     @Handle
     public ClientApiWorkspaceDiff handle(
             @ActiveWorkspaceId String workspaceId,
+            @Optional(name = "since") String since,
             FormulaEvaluator.UserContext userContext,
             User user
     ) throws Exception {
@@ -74,6 +76,6 @@ public class WorkspaceDiff implements ParameterizedHandler {
             throw new BcResourceNotFoundException("Cannot find workspace: " + workspaceId);
         }
 
-        return workspaceDiffHelper.getDiff(workspace, user, userContext);
+        return workspaceDiffHelper.getDiff(workspace, user, userContext, since);
     }
 }
@@ -39,6 +39,9 @@ package com.mware.web.routes.workspace;
 import com.google.common.base.Joiner;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import com.mware.config.WebOptions;
+import com.mware.core.config.Configuration;
+import com.mware.core.model.longRunningProcess.LongRunningProcessRepository;
 import com.mware.core.user.User;
 import com.mware.core.util.BcLogger;
 import com.mware.core.util.BcLoggerFactory;
@@ -50,6 +53,7 @@ import com.mware.web.model.ClientApiUndoItem;
 import com.mware.web.model.ClientApiWorkspaceUndoResponse;
 import com.mware.web.parameterProviders.ActiveWorkspaceId;
 import com.mware.workspace.WorkspaceUndoHelper;
+import com.mware.workspace.WorkspaceUndoQueueItem;
 
 import java.util.Arrays;
 
@@ -57,10 +61,18 @@ import java.util.Arrays;
 public class WorkspaceUndo implements ParameterizedHandler {
     private static final BcLogger LOGGER = BcLoggerFactory.getLogger(WorkspaceUndo.class);
     private final WorkspaceUndoHelper workspaceUndoHelper;
+    private final LongRunningProcessRepository longRunningProcessRepository;
+    private final int asyncThreshold;
 
     @Inject
-    public WorkspaceUndo(final WorkspaceUndoHelper workspaceUndoHelper) {
+    public WorkspaceUndo(
+            final WorkspaceUndoHelper workspaceUndoHelper,
+            final LongRunningProcessRepository longRunningProcessRepository,
+            final Configuration configuration
+    ) {
         this.workspaceUndoHelper = workspaceUndoHelper;
+        this.longRunningProcessRepository = longRunningProcessRepository;
+        this.asyncThreshold = configuration.get(WebOptions.WORKSPACE_UNDO_ASYNC_THRESHOLD);
     }
 
     @Handle
@@ -72,6 +84,12 @@ public class WorkspaceUndo implements ParameterizedHandler {
     ) throws Exception {
         LOGGER.debug("undoing:\n%s", Joiner.on("\n").join(undoData));
         ClientApiWorkspaceUndoResponse workspaceUndoResponse = new ClientApiWorkspaceUndoResponse();
+        if (undoData.length > asyncThreshold) {
+            WorkspaceUndoQueueItem queueItem = new WorkspaceUndoQueueItem(user.getUserId(), authorizations, workspaceId, undoData);
+            String id = longRunningProcessRepository.enqueue(queueItem.toJson(), user, authorizations);
+            workspaceUndoResponse.setLongRunningProcessId(id);
+            return workspaceUndoResponse;
+        }
         workspaceUndoHelper.undo(Arrays.asList(undoData), workspaceUndoResponse, workspaceId, user, authorizations);
         LOGGER.debug("undoing results: %s", workspaceUndoResponse);
         return workspaceUndoResponse;
@@ -0,0 +1,294 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.web.util;
+
+import com.mware.web.BcResponse;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Writes a binary value honoring Range, If-Range, If-None-Match and If-Modified-Since. Single ranges are answered
+ * with a plain 206, several with multipart/byteranges. Values backed by a local file are read from its channel at
+ * the requested offsets; other values are skipped forward and only reopened when a range goes backwards.
+ */
+public class ByteRangeResponder {
+    public static final int MAX_RANGES = 16;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public interface Source {
+        long getLength();
+
+        InputStream open() throws IOException;
+    }
+
+    public static class ByteRange {
+        public final long start;
+        public final long end;
+
+        public ByteRange(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        public long getLength() {
+            return end - start + 1;
+        }
+
+        @Override
+        public String toString() {
+            return start + "-" + end;
+        }
+    }
+
+    /**
+     * @return null if the whole value should be sent (no header, a malformed header or more than
+     * {@link #MAX_RANGES} ranges), an empty list if no range is satisfiable
+     */
+    public static List<ByteRange> parseRanges(String header, long length) {
+        if (header == null || !header.startsWith("bytes=")) {
+            return null;
+        }
+        String[] specs = header.substring("bytes=".length()).split(",");
+        if (specs.length > MAX_RANGES) {
+            return null;
+        }
+
+        List<ByteRange> ranges = new ArrayList<>();
+        for (String spec : specs) {
+            spec = spec.trim();
+            int dash = spec.indexOf('-');
+            if (dash < 0) {
+                return null;
+            }
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            try {
+                if (first.isEmpty()) {
+                    if (last.isEmpty()) {
+                        return null;
+                    }
+                    long suffixLength = Long.parseLong(last);
+                    if (suffixLength > 0 && length > 0) {
+                        ranges.add(new ByteRange(Math.max(0, length - suffixLength), length - 1));
+                    }
+                } else {
+                    long start = Long.parseLong(first);
+                    long end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+                    if (!last.isEmpty() && Long.parseLong(last) < start) {
+                        return null;
+                    }
+                    if (start < length) {
+                        ranges.add(new ByteRange(start, end));
+                    }
+                }
+            } catch (NumberFormatException ex) {
+                return null;
+            }
+        }
+        return ranges;
+    }
+
+    public static void send(
+            HttpServletRequest request,
+            BcResponse response,
+            Source source,
+            String contentType,
+            String eTag,
+            Long lastModified
+    ) throws IOException {
+        HttpServletResponse servletResponse = response.getHttpServletResponse();
+        servletResponse.setHeader("Accept-Ranges", "bytes");
+        if (lastModified != null) {
+            servletResponse.setDateHeader("Last-Modified", lastModified);
+        }
+        if (eTag != null) {
+            if (response.testEtagHeaders(eTag)) {
+                return;
+            }
+            response.addETagHeader(eTag);
+        }
+        if (lastModified != null && request.getHeader("If-None-Match") == null) {
+            long ifModifiedSince = getDateHeader(request, "If-Modified-Since");
+            if (ifModifiedSince >= 0 && lastModified / 1000 <= ifModifiedSince / 1000) {
+                response.respondWithNotModified();
+                return;
+            }
+        }
+
+        long length = source.getLength();
+        List<ByteRange> ranges = ifRangeMatches(request, eTag, lastModified)
+                ? parseRanges(request.getHeader("Range"), length)
+                : null;
+
+        if (ranges == null) {
+            response.setContentType(contentType);
+            servletResponse.setHeader("Content-Length", Long.toString(length));
+            try (RangeReader reader = new RangeReader(source); OutputStream out = response.getOutputStream()) {
+                reader.copy(0, length, out);
+            }
+        } else if (ranges.isEmpty()) {
+            servletResponse.setHeader("Content-Range", "bytes */" + length);
+            servletResponse.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+        } else if (ranges.size() == 1) {
+            ByteRange range = ranges.get(0);
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setContentType(contentType);
+            servletResponse.setHeader("Content-Range", "bytes " + range + "/" + length);
+            servletResponse.setHeader("Content-Length", Long.toString(range.getLength()));
+            try (RangeReader reader = new RangeReader(source); OutputStream out = response.getOutputStream()) {
+                reader.copy(range.start, range.getLength(), out);
+            }
+        } else {
+            String boundary = UUID.randomUUID().toString();
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setContentType("multipart/byteranges; boundary=" + boundary);
+            try (RangeReader reader = new RangeReader(source); OutputStream out = response.getOutputStream()) {
+                for (ByteRange range : ranges) {
+                    String partHeader = "\r\n--" + boundary + "\r\n"
+                            + "Content-Type: " + contentType + "\r\n"
+                            + "Content-Range: bytes " + range + "/" + length + "\r\n\r\n";
+                    out.write(partHeader.getBytes(StandardCharsets.US_ASCII));
+                    reader.copy(range.start, range.getLength(), out);
+                }
+                out.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+            }
+        }
+    }
+
+    private static boolean ifRangeMatches(HttpServletRequest request, String eTag, Long lastModified) {
+        String ifRange = request.getHeader("If-Range");
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return eTag != null && ifRange.equals("\"" + eTag + "\"");
+        }
+        long date = getDateHeader(request, "If-Range");
+        return lastModified != null && date >= 0 && lastModified / 1000 <= date / 1000;
+    }
+
+    private static long getDateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException ex) {
+            return -1;
+        }
+    }
+
+    private static class RangeReader implements AutoCloseable {
+        private final Source source;
+        private InputStream in;
+        private long position;
+
+        RangeReader(Source source) {
+            this.source = source;
+        }
+
+        void copy(long start, long length, OutputStream out) throws IOException {
+            if (in == null || (start < position && !(in instanceof FileInputStream))) {
+                close();
+                in = source.open();
+                position = 0;
+            }
+
+            byte[] buffer = new byte[BUFFER_SIZE];
+            if (in instanceof FileInputStream) {
+                // positional reads instead of skipping; the servlet stream is not a channel, so this is still a copy
+                // through the buffer rather than a kernel-side transfer
+                FileChannel channel = ((FileInputStream) in).getChannel();
+                ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+                long transferred = 0;
+                while (transferred < length) {
+                    byteBuffer.clear().limit((int) Math.min(buffer.length, length - transferred));
+                    int read = channel.read(byteBuffer, start + transferred);
+                    if (read < 0) {
+                        throw new EOFException("Value ended at " + (start + transferred));
+                    }
+                    out.write(buffer, 0, read);
+                    transferred += read;
+                }
+                return;
+            }
+
+            skipFully(start - position);
+            long remaining = length;
+            while (remaining > 0) {
+                int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read < 0) {
+                    throw new EOFException("Value ended at " + (start + length - remaining));
+                }
+                out.write(buffer, 0, read);
+                remaining -= read;
+            }
+            position = start + length;
+        }
+
+        private void skipFully(long count) throws IOException {
+            while (count > 0) {
+                long skipped = in.skip(count);
+                if (skipped <= 0) {
+                    if (in.read() < 0) {
+                        throw new EOFException("Value ended while seeking");
+                    }
+                    skipped = 1;
+                }
+                count -= skipped;
+                position += skipped;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (in != null) {
+                in.close();
+                in = null;
+            }
+        }
+    }
+}
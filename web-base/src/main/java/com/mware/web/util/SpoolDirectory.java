@@ -0,0 +1,151 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.web.util;
+
+import com.mware.core.exception.BcException;
+import com.mware.core.exception.BcResourceNotFoundException;
+import com.mware.core.util.BcLogger;
+import com.mware.core.util.BcLoggerFactory;
+import org.apache.commons.io.FileUtils;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * A local directory holding one sub directory per entry, named by a UUID, with a small json state file next to the
+ * entry's data. Entries whose state was not written for longer than the expiration are deleted.
+ */
+public class SpoolDirectory {
+    private static final BcLogger LOGGER = BcLoggerFactory.getLogger(SpoolDirectory.class);
+    private final File root;
+    private final String stateFileName;
+    private final long expirationMillis;
+
+    public SpoolDirectory(File root, String stateFileName, long expirationMillis) {
+        this.root = root;
+        this.stateFileName = stateFileName;
+        this.expirationMillis = expirationMillis;
+        if (!root.exists()) {
+            if (!root.mkdirs()) {
+                throw new BcException("Could not make directory: " + root.getAbsolutePath());
+            }
+        }
+    }
+
+    public File getRoot() {
+        return root;
+    }
+
+    public File create(String id) {
+        File directory = getDirectory(id);
+        if (!directory.mkdirs()) {
+            throw new BcException("Could not make directory: " + directory.getAbsolutePath());
+        }
+        return directory;
+    }
+
+    /**
+     * @throws BcResourceNotFoundException if the id is not a UUID, so it can never point outside the root
+     */
+    public File getDirectory(String id) {
+        try {
+            if (id != null && UUID.fromString(id).toString().equals(id)) {
+                return new File(root, id);
+            }
+        } catch (IllegalArgumentException ex) {
+            // handled below
+        }
+        throw new BcResourceNotFoundException("Could not find: " + id);
+    }
+
+    /**
+     * @return the saved state, or null if there is none
+     */
+    public JSONObject readState(File directory) throws IOException {
+        File stateFile = new File(directory, stateFileName);
+        if (!stateFile.exists()) {
+            return null;
+        }
+        return new JSONObject(FileUtils.readFileToString(stateFile, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Replaces the state atomically, readers never see a partially written file.
+     */
+    public void writeState(File directory, JSONObject state) throws IOException {
+        File stateFile = new File(directory, stateFileName);
+        File tmpFile = new File(directory, stateFileName + ".tmp");
+        FileUtils.writeStringToFile(tmpFile, state.toString(), StandardCharsets.UTF_8);
+        if (!tmpFile.renameTo(stateFile)) {
+            throw new BcException("Could not save state: " + stateFile.getAbsolutePath());
+        }
+    }
+
+    public void delete(File directory) {
+        FileUtils.deleteQuietly(directory);
+    }
+
+    public void deleteExpired() {
+        deleteExpired(id -> {
+        });
+    }
+
+    /**
+     * @param onDelete called with the id of every deleted entry
+     */
+    public void deleteExpired(Consumer<String> onDelete) {
+        File[] directories = root.listFiles(File::isDirectory);
+        if (directories == null) {
+            return;
+        }
+        long expiredBefore = System.currentTimeMillis() - expirationMillis;
+        for (File directory : directories) {
+            File stateFile = new File(directory, stateFileName);
+            // an entry that is still being created has no state yet, its directory age counts instead
+            long lastModified = stateFile.exists() ? stateFile.lastModified() : directory.lastModified();
+            if (lastModified < expiredBefore) {
+                LOGGER.info("deleting expired entry: %s", directory.getAbsolutePath());
+                onDelete.accept(directory.getName());
+                FileUtils.deleteQuietly(directory);
+            }
+        }
+    }
+}
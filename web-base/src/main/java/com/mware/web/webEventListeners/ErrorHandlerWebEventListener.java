@@ -44,6 +44,7 @@ import com.mware.core.util.BcLoggerFactory;
 import com.mware.web.BadRequestException;
 import com.mware.web.BcResponse;
 import com.mware.web.ResponseTypes;
+import com.mware.web.ServiceUnavailableException;
 import com.mware.web.WebApp;
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -74,6 +75,10 @@ public class ErrorHandlerWebEventListener extends DefaultWebEventListener {
             handleAccessDenied(response, (BcAccessDeniedException) e.getCause());
             return;
         }
+        if (e.getCause() instanceof ServiceUnavailableException) {
+            handleServiceUnavailable(response, (ServiceUnavailableException) e.getCause());
+            return;
+        }
         if (handleIllegalState(request, response, e)) {
             return;
         }
@@ -145,6 +150,12 @@ public class ErrorHandlerWebEventListener extends DefaultWebEventListener {
         response.sendError(HttpServletResponse.SC_FORBIDDEN, accessDenied.getMessage());
     }
 
+    private void handleServiceUnavailable(HttpServletResponse response, ServiceUnavailableException serviceUnavailable) throws IOException {
+        LOGGER.debug("service unavailable: %s", serviceUnavailable.getMessage());
+        response.setHeader("Retry-After", Integer.toString(serviceUnavailable.getRetryAfterSeconds()));
+        response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, serviceUnavailable.getMessage());
+    }
+
     private void handleNotFound(HttpServletResponse response, BcResourceNotFoundException notFoundException) throws IOException {
         response.sendError(HttpServletResponse.SC_NOT_FOUND, notFoundException.getMessage());
     }
@@ -0,0 +1,146 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.workspace;
+
+import com.mware.core.util.BcLogger;
+import com.mware.core.util.BcLoggerFactory;
+import com.mware.ge.Graph;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Lets a batch of graph mutations be written with a single flush. Web and work queue notifications must only go
+ * out once the data is flushed, so they are collected here and sent by {@link #flush()}.
+ */
+class DeferredNotifications {
+    private static final BcLogger LOGGER = BcLoggerFactory.getLogger(DeferredNotifications.class);
+    private final Graph graph;
+    private final boolean retry;
+    private final Queue<Notification> notifications = new ConcurrentLinkedQueue<>();
+
+    DeferredNotifications(Graph graph) {
+        this(graph, false);
+    }
+
+    private DeferredNotifications(Graph graph, boolean retry) {
+        this.graph = graph;
+        this.retry = retry;
+    }
+
+    /**
+     * Applies the items with a single flush. When that flush fails it is not known which mutations were written, so
+     * every item that has not failed yet is applied again on its own, with its own flush, and only the items that
+     * fail then are reported to {@code onFailure}.
+     *
+     * @param failed tells which items already failed while being applied
+     */
+    static <T> void applyAll(
+            Graph graph,
+            String description,
+            List<T> items,
+            Predicate<T> failed,
+            BiConsumer<List<T>, DeferredNotifications> apply,
+            BiConsumer<T, Exception> onFailure
+    ) {
+        if (items.isEmpty()) {
+            return;
+        }
+        DeferredNotifications notifications = new DeferredNotifications(graph);
+        apply.accept(items, notifications);
+        try {
+            notifications.flush();
+        } catch (Exception ex) {
+            LOGGER.warn("Could not flush %s, applying them one at a time", description, ex);
+            for (T item : items) {
+                if (failed.test(item)) {
+                    continue;
+                }
+                DeferredNotifications itemNotifications = new DeferredNotifications(graph, true);
+                try {
+                    apply.accept(Collections.singletonList(item), itemNotifications);
+                    itemNotifications.flush();
+                } catch (Exception itemEx) {
+                    onFailure.accept(item, itemEx);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return true when the item is applied again after a failed batch flush, which may already have written its
+     * changes; finding them written then means the item is done rather than failed
+     */
+    boolean isRetry() {
+        return retry;
+    }
+
+    void afterFlush(Runnable action) {
+        afterFlush(action, ex -> LOGGER.error("Could not send notification", ex));
+    }
+
+    void afterFlush(Runnable action, Consumer<Exception> onFailure) {
+        notifications.add(new Notification(action, onFailure));
+    }
+
+    void flush() {
+        graph.flush();
+        Notification notification;
+        while ((notification = notifications.poll()) != null) {
+            try {
+                notification.action.run();
+            } catch (Exception ex) {
+                notification.onFailure.accept(ex);
+            }
+        }
+    }
+
+    private static class Notification {
+        private final Runnable action;
+        private final Consumer<Exception> onFailure;
+
+        Notification(Runnable action, Consumer<Exception> onFailure) {
+            this.action = action;
+            this.onFailure = onFailure;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.workspace;
+
+import com.mware.core.model.clientapi.dto.GraphPosition;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Occupied positions of a product layout bucketed into a uniform grid with the size of the layout spacing. A
+ * position can only conflict with positions in its own or the eight surrounding cells, so occupancy checks no
+ * longer depend on the number of positions already placed.
+ *
+ * Build one index per placement batch and {@link #place(GraphPosition)} each new position so later placements
+ * see it.
+ */
+public class LayoutGridIndex {
+    private final LayoutHints layoutHints;
+    private final Map<Long, List<GraphPosition>> cells = new HashMap<>();
+
+    public LayoutGridIndex(Iterable<GraphPosition> existingPositions, LayoutHints layoutHints) {
+        this.layoutHints = layoutHints;
+        for (GraphPosition graphPosition : existingPositions) {
+            add(graphPosition);
+        }
+    }
+
+    public void add(GraphPosition graphPosition) {
+        if (!hasSpacing()) {
+            return;
+        }
+        long cell = cell(cellX(graphPosition.getX()), cellY(graphPosition.getY()));
+        cells.computeIfAbsent(cell, k -> new ArrayList<>()).add(graphPosition);
+    }
+
+    public boolean isOccupied(GraphPosition graphPosition) {
+        if (!hasSpacing()) {
+            return false;
+        }
+        int cellX = cellX(graphPosition.getX());
+        int cellY = cellY(graphPosition.getY());
+        for (int x = cellX - 1; x <= cellX + 1; x++) {
+            for (int y = cellY - 1; y <= cellY + 1; y++) {
+                List<GraphPosition> positions = cells.get(cell(x, y));
+                if (positions == null) {
+                    continue;
+                }
+                for (GraphPosition gp : positions) {
+                    if (gp.getX() > graphPosition.getX() - layoutHints.getXSpacing()
+                            && gp.getX() < graphPosition.getX() + layoutHints.getXSpacing()
+                            && gp.getY() > graphPosition.getY() - layoutHints.getYSpacing()
+                            && gp.getY() < graphPosition.getY() + layoutHints.getYSpacing()) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    public GraphPosition findOpening(GraphPosition graphPosition) {
+        while (isOccupied(graphPosition)) {
+            graphPosition = WorkspaceLayoutHelper.findNextPosition(graphPosition, layoutHints);
+        }
+        return graphPosition;
+    }
+
+    /**
+     * Finds the first opening starting at the given position and marks it as occupied.
+     */
+    public GraphPosition place(GraphPosition graphPosition) {
+        GraphPosition opening = findOpening(graphPosition);
+        add(opening);
+        return opening;
+    }
+
+    private boolean hasSpacing() {
+        // with no spacing nothing can overlap, see WorkspaceLayoutHelper.isOccupied
+        return layoutHints.getXSpacing() > 0 && layoutHints.getYSpacing() > 0;
+    }
+
+    private int cellX(int x) {
+        return Math.floorDiv(x, layoutHints.getXSpacing());
+    }
+
+    private int cellY(int y) {
+        return Math.floorDiv(y, layoutHints.getYSpacing());
+    }
+
+    private static long cell(int cellX, int cellY) {
+        return ((long) cellX << 32) | (cellY & 0xffffffffL);
+    }
+}
@@ -40,6 +40,8 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.google.inject.Inject;
+import com.mware.artifactThumbnails.ImageScalingService;
+import com.mware.config.WebOptions;
 import com.mware.core.bootstrap.InjectHelper;
 import com.mware.core.config.Configuration;
 import com.mware.core.exception.BcAccessDeniedException;
@@ -75,6 +77,7 @@ import com.mware.ontology.WebWorkspaceSchema;
 import com.mware.product.*;
 import com.mware.web.WebAppPlugin;
 import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang.StringUtils;
 import org.json.JSONObject;
 
 import javax.inject.Singleton;
@@ -93,6 +96,8 @@ import static com.mware.core.util.StreamUtil.stream;
 public class WebWorkspaceRepository {
     private static final BcLogger LOGGER = BcLoggerFactory.getLogger(WebWorkspaceRepository.class);
     public static final BcVisibility VISIBILITY_PRODUCT = new BcVisibility(VISIBILITY_PRODUCT_STRING);
+    private static final String PREVIEW_MD5_METADATA_KEY = "product#previewImageMD5";
+    private static final String SCALED_PREVIEW_KEY_SEPARATOR = "#";
 
     private final Graph graph;
     private final WebQueueRepository webQueueRepository;
@@ -102,6 +107,9 @@ public class WebWorkspaceRepository {
     private final VisibilityTranslator visibilityTranslator;
     private final GraphRepository graphRepository;
     private final PluginStateRepository pluginStateRepository;
+    private final ProductExtendedDataCache productExtendedDataCache;
+    private final ImageScalingService imageScalingService;
+    private final List<Integer> productPreviewSizes;
 
     private Collection<WorkProductService> workProductServices;
     private Collection<WebWorkspaceListener> webWorkspaceListeners;
@@ -116,7 +124,9 @@ public class WebWorkspaceRepository {
             Configuration configuration,
             GraphAuthorizationRepository graphAuthorizationRepository,
             GraphRepository graphRepository,
-            PluginStateRepository pluginStateRepository
+            PluginStateRepository pluginStateRepository,
+            ProductExtendedDataCache productExtendedDataCache,
+            ImageScalingService imageScalingService
     ) {
         this.graph = graph;
         this.webQueueRepository = webQueueRepository;
@@ -126,6 +136,9 @@ public class WebWorkspaceRepository {
         this.configuration = configuration;
         this.graphRepository = graphRepository;
         this.pluginStateRepository = pluginStateRepository;
+        this.productExtendedDataCache = productExtendedDataCache;
+        this.imageScalingService = imageScalingService;
+        this.productPreviewSizes = parsePreviewSizes(configuration.get(WebOptions.PRODUCT_PREVIEW_SIZES));
 
         graphAuthorizationRepository.addAuthorizationToGraph(VISIBILITY_PRODUCT_STRING);
     }
@@ -379,6 +392,7 @@ public class WebWorkspaceRepository {
 
         graph.deleteVertex(productId, authorizations);
         graph.flush();
+        productExtendedDataCache.invalidateProduct(productId);
 
         Workspace ws = workspaceRepository.findById(workspaceId, user);
         ClientApiWorkspace userWorkspace = workspaceRepository.toClientApi(ws, user, authorizations);
@@ -469,22 +483,47 @@ public class WebWorkspaceRepository {
     }
 
     public InputStream getProductPreviewById(String workspaceId, String productId, User user) {
+        ProductPreviewImage preview = getProductPreview(workspaceId, productId, null, user);
+        return preview == null ? null : preview.getInputStream();
+    }
+
+    /**
+     * @param width the width the preview is displayed at; the smallest stored copy at least that wide is returned,
+     *              or the full-size preview when there is none or the width is null
+     */
+    public ProductPreviewImage getProductPreview(String workspaceId, String productId, Integer width, User user) {
         Authorizations authorizations = authorizationRepository.getGraphAuthorizations(
                 user,
                 VISIBILITY_STRING,
                 workspaceId
         );
         Vertex productVertex = graph.getVertex(productId, authorizations);
-        if (productVertex != null) {
-            Property previewDataUrlProperty = WebWorkspaceSchema.PRODUCT_PREVIEW_DATA_URL.getProperty(productVertex, user.getUserId());
-            if (previewDataUrlProperty != null) {
-                StreamingPropertyValue previewValue = (StreamingPropertyValue) previewDataUrlProperty.getValue();
-                if (previewValue != null) {
-                    return previewValue.getInputStream();
+        if (productVertex == null) {
+            return null;
+        }
+        Property previewDataUrlProperty = WebWorkspaceSchema.PRODUCT_PREVIEW_DATA_URL.getProperty(productVertex, user.getUserId());
+        if (previewDataUrlProperty == null || previewDataUrlProperty.getValue() == null) {
+            return null;
+        }
+        String md5 = getPreviewMd5(previewDataUrlProperty);
+
+        if (width != null) {
+            for (Integer previewSize : productPreviewSizes) {
+                if (previewSize < width) {
+                    continue;
                 }
+                Property scaledProperty = WebWorkspaceSchema.PRODUCT_PREVIEW_DATA_URL.getProperty(
+                        productVertex,
+                        getScaledPreviewKey(user.getUserId(), previewSize)
+                );
+                // previews saved before the scaled copies existed, or that could not be scaled, only have the full size
+                if (scaledProperty != null && scaledProperty.getValue() != null && Objects.equals(md5, getPreviewMd5(scaledProperty))) {
+                    return new ProductPreviewImage(md5, previewSize, (StreamingPropertyValue) scaledProperty.getValue());
+                }
+                break;
             }
         }
-        return null;
+        return new ProductPreviewImage(md5, null, (StreamingPropertyValue) previewDataUrlProperty.getValue());
     }
 
     public Vertex getProductVertex(String workspaceId, String productId, User user) {
@@ -547,22 +586,33 @@ public class WebWorkspaceRepository {
         Vertex productVertex;
         ProductPreview preview = getProductPreviewFromUrl(previewDataUrl);
 
+        // clients send a new preview after every render, most of them identical to the stored one
+        Vertex existingProductVertex = graph.getVertex(productId, authorizations);
+        if (existingProductVertex != null && preview != null && isPreviewStored(existingProductVertex, preview.getMD5(), user)) {
+            return productVertexToProduct(workspaceId, existingProductVertex, false, null, authorizations, user);
+        }
+        Map<Integer, byte[]> scaledPreviews = preview == null ? Collections.emptyMap() : scalePreview(productId, preview);
+
         try (GraphUpdateContext ctx = graphRepository.beginGraphUpdate(Priority.NORMAL, user, authorizations)) {
             productVertex = ctx.getOrCreateVertexAndUpdate(productId, visibility, SchemaConstants.CONCEPT_TYPE_THING, elCtx -> {
                 if (preview == null) {
                     WebWorkspaceSchema.PRODUCT_PREVIEW_DATA_URL.removeProperty(elCtx.getMutation(), user.getUserId(), visibility);
+                    for (Integer previewSize : productPreviewSizes) {
+                        WebWorkspaceSchema.PRODUCT_PREVIEW_DATA_URL.removeProperty(
+                                elCtx.getMutation(),
+                                getScaledPreviewKey(user.getUserId(), previewSize),
+                                visibility
+                        );
+                    }
                 } else {
-                    StreamingPropertyValue value = new DefaultStreamingPropertyValue(new ByteArrayInputStream(preview.getImageData()), ByteArray.class);
-                    value.searchIndex(false);
-                    Metadata metadata = Metadata.create();
-                    metadata.add("product#previewImageMD5", Values.stringValue(preview.getMD5()), visibility);
-                    WebWorkspaceSchema.PRODUCT_PREVIEW_DATA_URL.addPropertyValue(
-                            elCtx.getMutation(),
-                            user.getUserId(),
-                            value,
-                            metadata,
+                    addPreviewPropertyValue(elCtx, user.getUserId(), preview.getImageData(), preview.getMD5(), visibility);
+                    scaledPreviews.forEach((previewSize, imageData) -> addPreviewPropertyValue(
+                            elCtx,
+                            getScaledPreviewKey(user.getUserId(), previewSize),
+                            imageData,
+                            preview.getMD5(),
                             visibility
-                    );
+                    ));
                 }
             }).get();
         } catch (Exception e) {
@@ -754,6 +804,75 @@ public class WebWorkspaceRepository {
         });
     }
 
+    private void addPreviewPropertyValue(
+            ElementUpdateContext<Vertex> elCtx,
+            String key,
+            byte[] imageData,
+            String md5,
+            Visibility visibility
+    ) {
+        StreamingPropertyValue value = new DefaultStreamingPropertyValue(new ByteArrayInputStream(imageData), ByteArray.class);
+        value.searchIndex(false);
+        Metadata metadata = Metadata.create();
+        metadata.add(PREVIEW_MD5_METADATA_KEY, Values.stringValue(md5), visibility);
+        WebWorkspaceSchema.PRODUCT_PREVIEW_DATA_URL.addPropertyValue(
+                elCtx.getMutation(),
+                key,
+                value,
+                metadata,
+                visibility
+        );
+    }
+
+    private Map<Integer, byte[]> scalePreview(String productId, ProductPreview preview) {
+        Map<Integer, byte[]> scaledPreviews = new LinkedHashMap<>();
+        for (Integer previewSize : productPreviewSizes) {
+            try {
+                scaledPreviews.put(previewSize, imageScalingService.resize(
+                        preview.getImageData(),
+                        previewSize,
+                        previewSize,
+                        ImageScalingService.JpegQuality.THUMBNAIL.getQuality()
+                ));
+            } catch (BcException ex) {
+                LOGGER.warn("Could not scale preview of product %s to %d, only the full size is stored", productId, previewSize, ex);
+                break;
+            }
+        }
+        return scaledPreviews;
+    }
+
+    private boolean isPreviewStored(Vertex productVertex, String md5, User user) {
+        if (!md5.equals(getProductPreviewDataMd5(productVertex, user))) {
+            return false;
+        }
+        for (Integer previewSize : productPreviewSizes) {
+            Property scaledProperty = WebWorkspaceSchema.PRODUCT_PREVIEW_DATA_URL.getProperty(
+                    productVertex,
+                    getScaledPreviewKey(user.getUserId(), previewSize)
+            );
+            if (scaledProperty == null || !md5.equals(getPreviewMd5(scaledProperty))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String getScaledPreviewKey(String userId, int previewSize) {
+        return userId + SCALED_PREVIEW_KEY_SEPARATOR + previewSize;
+    }
+
+    private static List<Integer> parsePreviewSizes(String sizes) {
+        List<Integer> result = new ArrayList<>();
+        for (String size : StringUtils.split(sizes, ',')) {
+            if (!StringUtils.isBlank(size)) {
+                result.add(Integer.parseInt(size.trim()));
+            }
+        }
+        Collections.sort(result);
+        return result;
+    }
+
     private ProductPreview getProductPreviewFromUrl(String url) {
         if (url != null && url.contains("base64")) {
             String encodingPrefix = "base64,";
@@ -789,14 +908,12 @@ public class WebWorkspaceRepository {
 
     private String getProductPreviewDataMd5(Vertex productVertex, User user) {
         Property previewDataUrlProperty = WebWorkspaceSchema.PRODUCT_PREVIEW_DATA_URL.getProperty(productVertex, user.getUserId());
-        String md5 = null;
-        if (previewDataUrlProperty != null) {
-            Metadata.Entry entry = previewDataUrlProperty.getMetadata().getEntry("product#previewImageMD5");
-            if (entry != null) {
-                md5 = ((TextValue) entry.getValue()).stringValue();
-            }
-        }
-        return md5;
+        return previewDataUrlProperty == null ? null : getPreviewMd5(previewDataUrlProperty);
+    }
+
+    private static String getPreviewMd5(Property previewDataUrlProperty) {
+        Metadata.Entry entry = previewDataUrlProperty.getMetadata().getEntry(PREVIEW_MD5_METADATA_KEY);
+        return entry == null ? null : ((TextValue) entry.getValue()).stringValue();
     }
 
     private Product productVertexToProduct(
@@ -0,0 +1,394 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.workspace;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.mware.config.WebOptions;
+import com.mware.core.config.Configuration;
+import com.mware.core.model.workQueue.WebQueueRepository;
+import com.mware.core.util.BcLogger;
+import com.mware.core.util.BcLoggerFactory;
+import com.mware.ge.Direction;
+import com.mware.ge.Edge;
+import com.mware.ge.Element;
+import com.mware.ge.ElementType;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers which elements had sandboxed changes in each workspace, so that {@link WorkspaceDiffHelper} can re-diff
+ * only those elements instead of the whole workspace. Clients receive an opaque cursor with every diff and send it
+ * back to ask for the changes made since. A cursor is rejected, and a full diff is needed, when the journal was
+ * created after it (e.g. after a restart), when the entries it refers to were evicted, or when the journal is older
+ * than {@link WebOptions#WORKSPACE_CHANGE_JOURNAL_MAX_AGE_SECONDS}.
+ * <p>
+ * Journals live in memory on each web server. Besides the web routes that record their own changes, the journal
+ * reads the element change messages broadcast by every web server, long running process and data worker. A change
+ * message it cannot attribute to specific elements drops every journal, so the next diff of each workspace is a
+ * full one. Changes that are neither recorded nor broadcast are only picked up once the journal reaches its
+ * maximum age.
+ */
+@Singleton
+public class WorkspaceChangeJournal {
+    private static final BcLogger LOGGER = BcLoggerFactory.getLogger(WorkspaceChangeJournal.class);
+    private static final String CURSOR_SEPARATOR = ":";
+    private static final Set<String> ELEMENT_CHANGE_MESSAGE_TYPES = new HashSet<>(Arrays.asList(
+            "propertyChange", "publish", "verticesDeleted", "edgeDeletion", "elementsDeleted", "entityImageUpdated"
+    ));
+    private final Map<String, Journal> journals = new ConcurrentHashMap<>();
+    private final List<ElementListener> listeners = new CopyOnWriteArrayList<>();
+    private final List<WorkspaceChangeListener> workspaceListeners = new CopyOnWriteArrayList<>();
+    private final int maxSize;
+    private final long maxAgeMillis;
+
+    @Inject
+    public WorkspaceChangeJournal(Configuration configuration) {
+        this.maxSize = configuration.get(WebOptions.WORKSPACE_CHANGE_JOURNAL_MAX_SIZE);
+        this.maxAgeMillis = TimeUnit.SECONDS.toMillis(configuration.get(WebOptions.WORKSPACE_CHANGE_JOURNAL_MAX_AGE_SECONDS));
+    }
+
+    @Inject
+    public void setWebQueueRepository(WebQueueRepository webQueueRepository) {
+        webQueueRepository.subscribeToBroadcastMessages(new WebQueueRepository.BroadcastConsumer() {
+            @Override
+            public void broadcastReceived(JSONObject json) {
+                recordBroadcast(json);
+            }
+        });
+    }
+
+    /**
+     * Listeners are told about every recorded element, including changes that are not sandboxed in a workspace.
+     */
+    public void addListener(ElementListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Workspace change listeners are told which workspace each recorded change was made in.
+     */
+    public void addWorkspaceChangeListener(WorkspaceChangeListener listener) {
+        workspaceListeners.add(listener);
+    }
+
+    public void recordElement(String workspaceId, Element element) {
+        if (element instanceof Edge) {
+            Edge edge = (Edge) element;
+            recordEdge(workspaceId, edge.getId());
+            notifyListeners(edge.getVertexId(Direction.OUT));
+            notifyListeners(edge.getVertexId(Direction.IN));
+        } else {
+            recordVertex(workspaceId, element.getId());
+        }
+    }
+
+    public void recordVertex(String workspaceId, String vertexId) {
+        record(workspaceId, ElementType.VERTEX, vertexId);
+    }
+
+    public void recordEdge(String workspaceId, String edgeId) {
+        record(workspaceId, ElementType.EDGE, edgeId);
+    }
+
+    private void record(String workspaceId, ElementType type, String elementId) {
+        notifyListeners(elementId);
+        if (elementId == null) {
+            return;
+        }
+        notifyWorkspaceListeners(workspaceId);
+        if (workspaceId == null) {
+            return;
+        }
+        Journal journal = journals.get(workspaceId);
+        if (journal != null) {
+            journal.record(new ChangedElement(type, elementId));
+        }
+    }
+
+    /**
+     * Records the elements named by a broadcast element change message. Changes to published data can change what
+     * any workspace shows for the element, so they are recorded in every journal.
+     */
+    public void recordBroadcast(JSONObject json) {
+        String type = json.optString("type", null);
+        if ("batch".equals(type)) {
+            JSONArray messages = json.optJSONArray("data");
+            if (messages != null) {
+                for (int i = 0; i < messages.length(); i++) {
+                    JSONObject message = messages.optJSONObject(i);
+                    if (message != null) {
+                        recordBroadcast(message);
+                    }
+                }
+            }
+            return;
+        }
+        if (!ELEMENT_CHANGE_MESSAGE_TYPES.contains(type)) {
+            return;
+        }
+
+        JSONObject data = json.optJSONObject("data");
+        List<ChangedElement> elements = data == null ? Collections.emptyList() : getBroadcastElements(data);
+        if (elements.isEmpty()) {
+            LOGGER.debug("could not tell which elements a %s message changed, dropping all workspace change journals", type);
+            journals.clear();
+            notifyWorkspaceListeners(null);
+            return;
+        }
+
+        String workspaceId = data.optString("workspaceId", null);
+        notifyWorkspaceListeners("publish".equals(type) ? null : workspaceId);
+        for (ChangedElement element : elements) {
+            notifyListeners(element.id);
+            if (workspaceId == null) {
+                for (Journal journal : journals.values()) {
+                    journal.record(element);
+                }
+            } else {
+                Journal journal = journals.get(workspaceId);
+                if (journal != null) {
+                    journal.record(element);
+                }
+            }
+        }
+        notifyListeners(data.optString("inVertexId", null));
+        notifyListeners(data.optString("outVertexId", null));
+    }
+
+    private static List<ChangedElement> getBroadcastElements(JSONObject data) {
+        List<ChangedElement> elements = new ArrayList<>();
+        addBroadcastElement(elements, ElementType.VERTEX, data.optString("graphVertexId", null));
+        addBroadcastElement(elements, ElementType.EDGE, data.optString("graphEdgeId", null));
+        addBroadcastElement(elements, ElementType.EDGE, data.optString("edgeId", null));
+        addBroadcastElements(elements, ElementType.VERTEX, data.optJSONArray("vertexIds"));
+        addBroadcastElements(elements, ElementType.EDGE, data.optJSONArray("edgeIds"));
+        return elements;
+    }
+
+    private static void addBroadcastElements(List<ChangedElement> elements, ElementType type, JSONArray ids) {
+        if (ids != null) {
+            for (int i = 0; i < ids.length(); i++) {
+                addBroadcastElement(elements, type, ids.optString(i, null));
+            }
+        }
+    }
+
+    private static void addBroadcastElement(List<ChangedElement> elements, ElementType type, String id) {
+        if (id != null && !id.isEmpty()) {
+            elements.add(new ChangedElement(type, id));
+        }
+    }
+
+    private void notifyWorkspaceListeners(String workspaceId) {
+        for (WorkspaceChangeListener listener : workspaceListeners) {
+            listener.workspaceChanged(workspaceId);
+        }
+    }
+
+    private void notifyListeners(String elementId) {
+        if (elementId == null) {
+            return;
+        }
+        for (ElementListener listener : listeners) {
+            listener.elementChanged(elementId);
+        }
+    }
+
+    /**
+     * Returns the current cursor of the workspace journal, starting a journal when there is none or the existing one
+     * is too old to answer. Call this before computing a full diff; the returned cursor then covers every change made
+     * while the full diff was running. Cursors already handed to other clients of the workspace stay valid.
+     */
+    public String getCursor(String workspaceId) {
+        long now = System.currentTimeMillis();
+        Journal journal = journals.compute(workspaceId, (id, existing) -> {
+            if (existing != null && now - existing.createdTime < maxAgeMillis) {
+                return existing;
+            }
+            return new Journal(UUID.randomUUID().toString(), maxSize, now);
+        });
+        return journal.getCursor();
+    }
+
+    public void remove(String workspaceId) {
+        journals.remove(workspaceId);
+    }
+
+    /**
+     * @return the elements changed since the cursor, or null when the journal cannot answer and a full diff is needed
+     */
+    public Changes getChangesSince(String workspaceId, String cursor) {
+        Journal journal = journals.get(workspaceId);
+        if (journal == null || cursor == null || System.currentTimeMillis() - journal.createdTime >= maxAgeMillis) {
+            return null;
+        }
+        int separatorIndex = cursor.lastIndexOf(CURSOR_SEPARATOR);
+        if (separatorIndex < 0 || !journal.epoch.equals(cursor.substring(0, separatorIndex))) {
+            return null;
+        }
+        long sequence;
+        try {
+            sequence = Long.parseLong(cursor.substring(separatorIndex + 1));
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+        return journal.getChangesSince(sequence);
+    }
+
+    public interface ElementListener {
+        /**
+         * @param elementId the id of a changed vertex or edge; for edges this is also called with both vertex ids
+         */
+        void elementChanged(String elementId);
+    }
+
+    public interface WorkspaceChangeListener {
+        /**
+         * @param workspaceId the workspace the change was made in, or null for changes to published data, which are
+         *                    seen by every workspace
+         */
+        void workspaceChanged(String workspaceId);
+    }
+
+    public static class Changes {
+        private final String cursor;
+        private final List<String> vertexIds = new ArrayList<>();
+        private final List<String> edgeIds = new ArrayList<>();
+
+        Changes(String cursor) {
+            this.cursor = cursor;
+        }
+
+        public String getCursor() {
+            return cursor;
+        }
+
+        public List<String> getVertexIds() {
+            return vertexIds;
+        }
+
+        public List<String> getEdgeIds() {
+            return edgeIds;
+        }
+
+        public boolean isEmpty() {
+            return vertexIds.isEmpty() && edgeIds.isEmpty();
+        }
+    }
+
+    private static class Journal {
+        private final String epoch;
+        private final int maxSize;
+        private final long createdTime;
+        // insertion ordered, so the oldest change is always first and re-recorded elements move to the end
+        private final LinkedHashMap<ChangedElement, Long> entries = new LinkedHashMap<>();
+        private long sequence;
+        private long evictedSequence;
+
+        Journal(String epoch, int maxSize, long createdTime) {
+            this.epoch = epoch;
+            this.maxSize = maxSize;
+            this.createdTime = createdTime;
+        }
+
+        synchronized void record(ChangedElement element) {
+            entries.remove(element);
+            entries.put(element, ++sequence);
+            if (entries.size() > maxSize) {
+                Iterator<Map.Entry<ChangedElement, Long>> it = entries.entrySet().iterator();
+                evictedSequence = it.next().getValue();
+                it.remove();
+            }
+        }
+
+        synchronized String getCursor() {
+            return epoch + CURSOR_SEPARATOR + sequence;
+        }
+
+        synchronized Changes getChangesSince(long since) {
+            if (since < evictedSequence || since > sequence) {
+                return null;
+            }
+            Changes changes = new Changes(getCursor());
+            for (Map.Entry<ChangedElement, Long> entry : entries.entrySet()) {
+                if (entry.getValue() <= since) {
+                    continue;
+                }
+                ChangedElement element = entry.getKey();
+                if (element.type == ElementType.EDGE) {
+                    changes.edgeIds.add(element.id);
+                } else {
+                    changes.vertexIds.add(element.id);
+                }
+            }
+            return changes;
+        }
+    }
+
+    private static class ChangedElement {
+        private final ElementType type;
+        private final String id;
+
+        ChangedElement(ElementType type, String id) {
+            this.type = type;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ChangedElement)) {
+                return false;
+            }
+            ChangedElement that = (ChangedElement) o;
+            return type == that.type && id.equals(that.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * type.hashCode() + id.hashCode();
+        }
+    }
+}
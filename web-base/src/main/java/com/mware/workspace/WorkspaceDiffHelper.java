@@ -63,12 +63,18 @@ import static com.mware.ge.util.IterableUtils.toList;
 
 @Singleton
 public class WorkspaceDiffHelper {
+    private static final FetchHints DIFF_FETCH_HINTS = new FetchHintsBuilder()
+            .setIncludeAllProperties(true)
+            .setIncludeAllPropertyMetadata(true)
+            .setIncludeHidden(true)
+            .build();
     private final Graph graph;
     private final AuthorizationRepository authorizationRepository;
     private final FormulaEvaluator formulaEvaluator;
     private final WebWorkspaceRepository webWorkspaceRepository;
     private final WorkspaceRepository workspaceRepository;
     private final LockRepository lockRepository;
+    private final WorkspaceChangeJournal workspaceChangeJournal;
 
     @Inject
     public WorkspaceDiffHelper(
@@ -77,7 +83,8 @@ public class WorkspaceDiffHelper {
             FormulaEvaluator formulaEvaluator,
             WebWorkspaceRepository webWorkspaceRepository,
             WorkspaceRepository workspaceRepository,
-            LockRepository lockRepository
+            LockRepository lockRepository,
+            WorkspaceChangeJournal workspaceChangeJournal
     ) {
         this.graph = graph;
         this.authorizationRepository = authorizationRepository;
@@ -85,6 +92,7 @@ public class WorkspaceDiffHelper {
         this.webWorkspaceRepository = webWorkspaceRepository;
         this.workspaceRepository = workspaceRepository;
         this.lockRepository = lockRepository;
+        this.workspaceChangeJournal = workspaceChangeJournal;
     }
 
     @Traced
@@ -92,6 +100,20 @@ public class WorkspaceDiffHelper {
             Workspace workspace,
             User user,
             FormulaEvaluator.UserContext userContext
+    ) {
+        return getDiff(workspace, user, userContext, null);
+    }
+
+    /**
+     * Returns only the elements changed since {@code since} when the workspace change journal can answer for that
+     * cursor, otherwise the full diff.
+     */
+    @Traced
+    public ClientApiWorkspaceDiff getDiff(
+            Workspace workspace,
+            User user,
+            FormulaEvaluator.UserContext userContext,
+            String since
     ) {
         if (!workspaceRepository.hasReadPermissions(workspace.getWorkspaceId(), user)) {
             throw new BcAccessDeniedException(
@@ -101,13 +123,53 @@ public class WorkspaceDiffHelper {
             );
         }
 
+        WorkspaceChangeJournal.Changes changes = workspaceChangeJournal.getChangesSince(workspace.getWorkspaceId(), since);
+        if (changes != null) {
+            return diffChanges(workspace, changes, userContext, user);
+        }
+
         return lockRepository.lock(workspaceRepository.getLockName(workspace), () -> {
+            String cursor = workspaceChangeJournal.getCursor(workspace.getWorkspaceId());
             List<WorkspaceEntity> workspaceEntities = workspaceRepository.findEntities(workspace, true, user, false, true);
             Iterable<Edge> workspaceEdges = webWorkspaceRepository.findModifiedEdges(workspace, workspaceEntities, true, user);
-            return diff(workspace, workspaceEntities, workspaceEdges, userContext, user);
+            ClientApiWorkspaceDiff result = diff(workspace, workspaceEntities, workspaceEdges, userContext, user);
+            result.setCursor(cursor);
+            return result;
         });
     }
 
+    @Traced
+    protected ClientApiWorkspaceDiff diffChanges(
+            Workspace workspace,
+            WorkspaceChangeJournal.Changes changes,
+            FormulaEvaluator.UserContext userContext,
+            User user
+    ) {
+        ClientApiWorkspaceDiff result = new ClientApiWorkspaceDiff();
+        result.setFull(false);
+        result.setCursor(changes.getCursor());
+        if (changes.isEmpty()) {
+            return result;
+        }
+
+        Authorizations authorizations = authorizationRepository.getGraphAuthorizations(
+                user,
+                WorkspaceRepository.VISIBILITY_STRING,
+                workspace.getWorkspaceId()
+        );
+        result.getChangedElementIds().addAll(changes.getVertexIds());
+        result.getChangedElementIds().addAll(changes.getEdgeIds());
+
+        // deleted elements are simply missing here, which tells the client to drop their items
+        for (Vertex vertex : graph.getVertices(changes.getVertexIds(), DIFF_FETCH_HINTS, authorizations)) {
+            result.addAll(diffVertex(workspace, vertex, userContext, authorizations));
+        }
+        for (Edge edge : graph.getEdges(changes.getEdgeIds(), DIFF_FETCH_HINTS, authorizations)) {
+            result.addAll(diffEdge(workspace, edge, authorizations));
+        }
+        return result;
+    }
+
     @Traced
     public ClientApiWorkspaceDiff diff(
             Workspace workspace,
@@ -206,17 +268,9 @@ public class WorkspaceDiffHelper {
             FormulaEvaluator.UserContext userContext,
             Authorizations authorizations
     ) {
-        List<ClientApiWorkspaceDiff.Item> result = new ArrayList<>();
-
-        FetchHints hints = new FetchHintsBuilder()
-                .setIncludeAllProperties(true)
-                .setIncludeAllPropertyMetadata(true)
-                .setIncludeHidden(true)
-                .build();
-
         // Workspace vertex will be null if deleted, so retrieve with hidden
         Vertex entityVertex = workspaceEntity.getVertex() == null ?
-                this.graph.getVertex(workspaceEntity.getEntityVertexId(), hints, authorizations) :
+                this.graph.getVertex(workspaceEntity.getEntityVertexId(), DIFF_FETCH_HINTS, authorizations) :
                 workspaceEntity.getVertex();
 
         // vertex can be null if the user doesn't have access to the entity
@@ -224,6 +278,17 @@ public class WorkspaceDiffHelper {
             return null;
         }
 
+        return diffVertex(workspace, entityVertex, userContext, authorizations);
+    }
+
+    protected List<ClientApiWorkspaceDiff.Item> diffVertex(
+            Workspace workspace,
+            Vertex entityVertex,
+            FormulaEvaluator.UserContext userContext,
+            Authorizations authorizations
+    ) {
+        List<ClientApiWorkspaceDiff.Item> result = new ArrayList<>();
+
         SandboxStatus sandboxStatus = SandboxStatusUtil.getSandboxStatus(entityVertex, workspace.getWorkspaceId());
         boolean isPrivateChange = sandboxStatus != SandboxStatus.PUBLIC;
         boolean isPublicDelete = isPublicDelete(entityVertex, authorizations);
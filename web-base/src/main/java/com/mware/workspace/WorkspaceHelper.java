@@ -67,12 +67,14 @@ import com.mware.core.util.BcLogger;
 import com.mware.core.util.BcLoggerFactory;
 import com.mware.core.util.SandboxStatusUtil;
 import com.mware.ge.*;
+import com.mware.ge.util.CloseableUtils;
 import com.mware.ge.util.IterableUtils;
 import com.mware.ontology.WebWorkspaceSchema;
+import org.json.JSONArray;
+import org.json.JSONObject;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
+import java.util.*;
+import java.util.function.Predicate;
 
 import static com.mware.ge.util.IterableUtils.toList;
 
@@ -84,6 +86,7 @@ public class WorkspaceHelper {
     private final TermMentionRepository termMentionRepository;
     private final WorkQueueRepository workQueueRepository;
     private final WebQueueRepository webQueueRepository;
+    private final WorkspaceChangeJournal workspaceChangeJournal;
     private final Graph graph;
     private final SchemaRepository schemaRepository;
     private final WorkspaceRepository workspaceRepository;
@@ -99,6 +102,7 @@ public class WorkspaceHelper {
             TermMentionRepository termMentionRepository,
             WorkQueueRepository workQueueRepository,
             WebQueueRepository webQueueRepository,
+            WorkspaceChangeJournal workspaceChangeJournal,
             Graph graph,
             SchemaRepository schemaRepository,
             WorkspaceRepository workspaceRepository,
@@ -109,6 +113,7 @@ public class WorkspaceHelper {
         this.termMentionRepository = termMentionRepository;
         this.workQueueRepository = workQueueRepository;
         this.webQueueRepository = webQueueRepository;
+        this.workspaceChangeJournal = workspaceChangeJournal;
         this.graph = graph;
         this.schemaRepository = schemaRepository;
         this.workspaceRepository = workspaceRepository;
@@ -149,41 +154,54 @@ public class WorkspaceHelper {
     }
 
     public void unresolveTerm(Vertex termMention, Authorizations authorizations) {
-        Vertex outVertex = termMentionRepository.findOutVertex(termMention, authorizations);
-        if (outVertex == null) {
-            return;
+        DeferredNotifications notifications = new DeferredNotifications(graph);
+        unresolveTerms(Collections.singletonList(termMention), authorizations, notifications);
+        notifications.flush();
+    }
+
+    private void unresolveTerms(List<Vertex> termMentions, Authorizations authorizations, DeferredNotifications notifications) {
+        Set<String> resolveEdgeIds = new HashSet<>();
+        for (Vertex termMention : termMentions) {
+            String resolveEdgeId = BcSchema.TERM_MENTION_RESOLVED_EDGE_ID.getPropertyValue(termMention, null);
+            if (resolveEdgeId != null) {
+                resolveEdgeIds.add(resolveEdgeId);
+            }
         }
+        Map<String, Edge> resolveEdgesById = toMapById(graph.getEdges(resolveEdgeIds, authorizations));
+
+        for (Vertex termMention : termMentions) {
+            Vertex outVertex = termMentionRepository.findOutVertex(termMention, authorizations);
+            if (outVertex == null) {
+                continue;
+            }
 
-        String resolveEdgeId = BcSchema.TERM_MENTION_RESOLVED_EDGE_ID.getPropertyValue(termMention, null);
-        if (resolveEdgeId != null) {
-            Edge resolveEdge = graph.getEdge(resolveEdgeId, authorizations);
+            String resolveEdgeId = BcSchema.TERM_MENTION_RESOLVED_EDGE_ID.getPropertyValue(termMention, null);
+            Edge resolveEdge = resolveEdgeId == null ? null : resolveEdgesById.remove(resolveEdgeId);
             if (resolveEdge != null) {
                 long beforeDeletionTimestamp = System.currentTimeMillis() - 1;
                 graph.deleteEdge(resolveEdge, authorizations);
-                graph.flush();
 
-                webQueueRepository.broadcastEdgeDeletion(resolveEdge);
+                notifications.afterFlush(() -> {
+                    webQueueRepository.broadcastEdgeDeletion(resolveEdge);
 
-                webQueueRepository.broadcastPropertyChange(resolveEdge, null, null, null);
+                    webQueueRepository.broadcastPropertyChange(resolveEdge, null, null, null);
 
-                workQueueRepository.pushGraphPropertyQueue(
-                        resolveEdge,
-                        null,
-                        null,
-                        null,
-                        null,
-                        Priority.HIGH,
-                        ElementOrPropertyStatus.DELETION,
-                        beforeDeletionTimestamp
-                );
+                    workQueueRepository.pushGraphPropertyQueue(
+                            resolveEdge,
+                            null,
+                            null,
+                            null,
+                            null,
+                            Priority.HIGH,
+                            ElementOrPropertyStatus.DELETION,
+                            beforeDeletionTimestamp
+                    );
+                });
             }
-        }
-
-        termMentionRepository.delete(termMention, authorizations);
-        webQueueRepository.pushTextUpdated(outVertex.getId());
-
-        graph.flush();
 
+            termMentionRepository.delete(termMention, authorizations);
+            notifications.afterFlush(() -> webQueueRepository.pushTextUpdated(outVertex.getId()));
+        }
     }
 
     public void deleteProperty(
@@ -193,6 +211,36 @@ public class WorkspaceHelper {
             String workspaceId,
             Priority priority,
             Authorizations authorizations
+    ) {
+        DeferredNotifications notifications = new DeferredNotifications(graph);
+        deleteProperty(e, property, propertyIsPublic, workspaceId, priority, authorizations, notifications);
+        notifications.flush();
+    }
+
+    /**
+     * Deletes the property without flushing, the caller flushes once for a whole batch of properties.
+     */
+    void deleteProperty(
+            Element e,
+            Property property,
+            boolean propertyIsPublic,
+            String workspaceId,
+            Priority priority,
+            Authorizations authorizations,
+            DeferredNotifications notifications
+    ) {
+        deleteProperty(e, property, propertyIsPublic, workspaceId, priority, authorizations, notifications, true);
+    }
+
+    private void deleteProperty(
+            Element e,
+            Property property,
+            boolean propertyIsPublic,
+            String workspaceId,
+            Priority priority,
+            Authorizations authorizations,
+            DeferredNotifications notifications,
+            boolean unresolveTermMentions
     ) {
         if (autoPublish) {
             workspaceId = null;
@@ -203,15 +251,17 @@ public class WorkspaceHelper {
             e.softDeleteProperty(property.getKey(), property.getName(), property.getVisibility(), authorizations);
         }
 
-        if (e instanceof Vertex) {
-            unresolveTermMentionsForProperty((Vertex) e, property, authorizations);
+        if (unresolveTermMentions && e instanceof Vertex) {
+            unresolveTermMentionsForProperty((Vertex) e, property, authorizations, notifications);
         }
 
-        graph.flush();
-
-        if (webQueueRepository.shouldBroadcastGraphPropertyChange(property.getName(), priority)) {
-            webQueueRepository.broadcastPropertyChange(e, property.getKey(), property.getName(), workspaceId);
-        }
+        String changedWorkspaceId = workspaceId;
+        notifications.afterFlush(() -> {
+            workspaceChangeJournal.recordElement(changedWorkspaceId, e);
+            if (webQueueRepository.shouldBroadcastGraphPropertyChange(property.getName(), priority)) {
+                webQueueRepository.broadcastPropertyChange(e, property.getKey(), property.getName(), changedWorkspaceId);
+            }
+        });
     }
 
     public void deleteEdge(
@@ -224,100 +274,239 @@ public class WorkspaceHelper {
             Authorizations authorizations,
             User user
     ) {
+        Map<String, Vertex> verticesById = new HashMap<>();
+        verticesById.put(outVertex.getId(), outVertex);
+        verticesById.put(inVertex.getId(), inVertex);
+        deleteEdges(Collections.singletonList(edge), e -> isPublicEdge, verticesById, workspaceId, priority, authorizations, user);
+    }
+
+    /**
+     * Deletes a batch of edges with a single flush. The edge vertices and the term mentions of all edges are loaded
+     * together and the web clients get one deletion message for the whole batch.
+     */
+    public void deleteEdges(
+            Collection<Edge> edges,
+            String workspaceId,
+            Priority priority,
+            Authorizations authorizations,
+            User user
+    ) {
+        Set<String> vertexIds = new HashSet<>();
+        for (Edge edge : edges) {
+            vertexIds.add(edge.getVertexId(Direction.OUT));
+            vertexIds.add(edge.getVertexId(Direction.IN));
+        }
+        Map<String, Vertex> verticesById = toMapById(graph.getVertices(vertexIds, authorizations));
+        deleteEdges(
+                edges,
+                edge -> SandboxStatusUtil.getSandboxStatus(edge, workspaceId) == SandboxStatus.PUBLIC,
+                verticesById,
+                workspaceId,
+                priority,
+                authorizations,
+                user
+        );
+    }
+
+    private void deleteEdges(
+            Collection<Edge> edges,
+            Predicate<Edge> isPublicEdge,
+            Map<String, Vertex> verticesById,
+            String workspaceId,
+            Priority priority,
+            Authorizations authorizations,
+            User user
+    ) {
+        if (edges.isEmpty()) {
+            return;
+        }
+        LOGGER.debug("BEGIN deleteEdges(count: %d, workspaceId: %s, user: %s)", edges.size(), workspaceId, user.getUsername());
         ensureOntologyIrisInitialized();
         long beforeActionTimestamp = System.currentTimeMillis() - 1;
+        DeferredNotifications notifications = new DeferredNotifications(graph);
+        DeletedElements deleted = new DeletedElements();
+        Map<String, List<Vertex>> termMentionsByEdgeId = findTermMentionsByEdgeId(edges, authorizations);
+        Set<String> changedVertexIds = new HashSet<>();
+
+        for (Edge edge : edges) {
+            Vertex outVertex = verticesById.get(edge.getVertexId(Direction.OUT));
+            Vertex inVertex = verticesById.get(edge.getVertexId(Direction.IN));
+            if (outVertex == null || inVertex == null) {
+                LOGGER.warn("Could not load the vertices of edge %s, skipping it", edge.getId());
+                continue;
+            }
+            List<Vertex> termMentions = termMentionsByEdgeId.getOrDefault(edge.getId(), Collections.emptyList());
+
+            deleteProperties(edge, workspaceId, priority, authorizations, notifications);
+            unresolveDetectedObjects(workspaceId, edge, outVertex, inVertex, priority, authorizations, notifications);
+            changedVertexIds.add(inVertex.getId());
+            changedVertexIds.add(outVertex.getId());
+
+            if (isPublicEdge.test(edge)) {
+                Visibility workspaceVisibility = new Visibility(workspaceId);
+
+                graph.markEdgeHidden(edge, workspaceVisibility, authorizations);
+
+                if (edge.getLabel().equals(entityHasImageIri)) {
+                    Property entityHasImage = outVertex.getProperty(RawObjectSchema.ENTITY_IMAGE_VERTEX_ID.getPropertyName());
+                    if (entityHasImage != null) {
+                        outVertex.markPropertyHidden(entityHasImage, workspaceVisibility, authorizations);
+                        notifications.afterFlush(() -> {
+                            workQueueRepository.pushElementImageQueue(outVertex, entityHasImage.getKey(), entityHasImage.getName(), priority);
+                            webQueueRepository.broadcastElementImage(outVertex);
+                        });
+                    }
+                }
 
-        deleteProperties(edge, workspaceId, priority, authorizations);
-        unresolveDetectedObjects(workspaceId, edge, outVertex, inVertex, priority, authorizations);
+                for (Vertex termMention : termMentions) {
+                    termMentionRepository.markHidden(termMention, workspaceVisibility, authorizations);
+                    notifications.afterFlush(() -> webQueueRepository.pushTextUpdated(outVertex.getId()));
+                }
 
-        if (!autoPublish) {
-            // add the vertex to the workspace so that the changes show up in the diff panel
-            workspaceRepository.updateEntityOnWorkspace(workspaceId, edge.getVertexId(Direction.IN), user);
-            workspaceRepository.updateEntityOnWorkspace(workspaceId, edge.getVertexId(Direction.OUT), user);
-        }
+                if (autoPublish) {
+                    long beforeDeletionTimestamp = System.currentTimeMillis() - 1;
+                    graph.deleteEdge(edge, authorizations);
+
+                    notifications.afterFlush(() -> {
+                        if (webQueueRepository.shouldBroadcastGraphPropertyChange(null, priority)) {
+                            webQueueRepository.broadcastPropertyChange(edge, null, null, workspaceId);
+                        }
+                        workQueueRepository.pushGraphPropertyQueue(edge, null, null, null, null, priority, ElementOrPropertyStatus.DELETION, beforeDeletionTimestamp);
+                    });
+                } else {
+                    deleted.edgeIds.put(edge.getId());
+                    notifications.afterFlush(() -> {
+                        webQueueRepository.broadcastPropertyChange(edge, null, null, workspaceId);
+                        workQueueRepository.pushGraphPropertyQueue(edge, null, null, null, null, Priority.HIGH, ElementOrPropertyStatus.HIDDEN, beforeActionTimestamp);
+                    });
+                }
+            } else {
+                graph.softDeleteEdge(edge, authorizations);
 
-        if (isPublicEdge) {
-            Visibility workspaceVisibility = new Visibility(workspaceId);
+                if (edge.getLabel().equals(entityHasImageIri)) {
+                    Property entityHasImage = outVertex.getProperty(RawObjectSchema.ENTITY_IMAGE_VERTEX_ID.getPropertyName());
+                    if (entityHasImage != null) {
+                        outVertex.softDeleteProperty(entityHasImage.getKey(), entityHasImage.getName(), authorizations);
+                        notifications.afterFlush(() -> {
+                            workQueueRepository.pushElementImageQueue(outVertex, entityHasImage.getKey(), entityHasImage.getName(), priority);
+                            webQueueRepository.broadcastElementImage(outVertex);
+                        });
+                    }
+                }
 
-            graph.markEdgeHidden(edge, workspaceVisibility, authorizations);
+                for (Vertex termMention : termMentions) {
+                    termMentionRepository.delete(termMention, authorizations);
+                    notifications.afterFlush(() -> webQueueRepository.pushTextUpdated(outVertex.getId()));
+                }
 
-            if (edge.getLabel().equals(entityHasImageIri)) {
-                Property entityHasImage = outVertex.getProperty(RawObjectSchema.ENTITY_IMAGE_VERTEX_ID.getPropertyName());
-                if (entityHasImage != null) {
-                    outVertex.markPropertyHidden(entityHasImage, workspaceVisibility, authorizations);
-                    workQueueRepository.pushElementImageQueue(outVertex, entityHasImage.getKey(), entityHasImage.getName(), priority);
-                    webQueueRepository.broadcastElementImage(outVertex);
+                if (autoPublish) {
+                    long beforeDeletionTimestamp = System.currentTimeMillis() - 1;
+                    notifications.afterFlush(() -> {
+                        if (webQueueRepository.shouldBroadcast(priority)) {
+                            webQueueRepository.broadcastPropertyChange(edge, null, null, null);
+                        }
+                        workQueueRepository.pushGraphPropertyQueue(edge, null, null, null, null, priority, ElementOrPropertyStatus.DELETION, beforeDeletionTimestamp);
+                    });
+                } else {
+                    deleted.edgeIds.put(edge.getId());
+                    notifications.afterFlush(() -> {
+                        webQueueRepository.broadcastPropertyChange(edge, null, null, null);
+                        workQueueRepository.pushGraphPropertyQueue(
+                                edge,
+                                null, null, null, null,
+                                Priority.HIGH,
+                                ElementOrPropertyStatus.DELETION,
+                                beforeActionTimestamp
+                        );
+                    });
                 }
             }
 
-            for (Vertex termMention : termMentionRepository.findByEdgeId(
-                    outVertex.getId(),
-                    edge.getId(),
-                    authorizations
-            )) {
-                termMentionRepository.markHidden(termMention, workspaceVisibility, authorizations);
-                webQueueRepository.pushTextUpdated(outVertex.getId());
-            }
+            notifications.afterFlush(() -> {
+                workspaceChangeJournal.recordElement(workspaceId, edge);
+                workspaceChangeJournal.recordElement(workspaceId, outVertex);
+            });
+        }
 
-            if (autoPublish) {
-                long beforeDeletionTimestamp = System.currentTimeMillis() - 1;
-                graph.deleteEdge(edge, authorizations);
-                graph.flush();
+        if (!autoPublish) {
+            // add the vertices to the workspace so that the changes show up in the diff panel
+            addEntitiesToWorkspace(workspaceId, changedVertexIds, user);
+        }
 
-                if (webQueueRepository.shouldBroadcastGraphPropertyChange(null, priority)) {
-                    webQueueRepository.broadcastPropertyChange(edge, null, null, workspaceId);
-                }
-                this.workQueueRepository.pushGraphPropertyQueue(edge, null, null, null, null, priority, ElementOrPropertyStatus.DELETION, beforeDeletionTimestamp);
-            } else {
-                graph.flush();
-                webQueueRepository.broadcastEdgeDeletion(edge);
-                webQueueRepository.broadcastPropertyChange(edge, null, null, workspaceId);
-                workQueueRepository.pushGraphPropertyQueue(edge, null, null, null, null, Priority.HIGH, ElementOrPropertyStatus.HIDDEN, beforeActionTimestamp);
-            }
-        } else {
-            graph.softDeleteEdge(edge, authorizations);
+        notifications.flush();
+        broadcastElementsDeleted(deleted, workspaceId);
+        LOGGER.debug("END deleteEdges");
+    }
 
-            if (edge.getLabel().equals(entityHasImageIri)) {
-                Property entityHasImage = outVertex.getProperty(RawObjectSchema.ENTITY_IMAGE_VERTEX_ID.getPropertyName());
-                if (entityHasImage != null) {
-                    outVertex.softDeleteProperty(entityHasImage.getKey(), entityHasImage.getName(), authorizations);
-                    workQueueRepository.pushElementImageQueue(outVertex, entityHasImage.getKey(), entityHasImage.getName(), priority);
-                    webQueueRepository.broadcastElementImage(outVertex);
-                }
-            }
+    /**
+     * Term mentions of the given edges, keyed by edge id. Term mentions hang off the out vertex of the edge they
+     * resolve, so the out vertices and their term mentions are each loaded with one call for the whole batch.
+     */
+    private Map<String, List<Vertex>> findTermMentionsByEdgeId(Collection<Edge> edges, Authorizations authorizations) {
+        Authorizations termMentionAuthorizations = termMentionRepository.getAuthorizations(authorizations);
+        Set<String> edgeIds = new HashSet<>();
+        Set<String> outVertexIds = new HashSet<>();
+        for (Edge edge : edges) {
+            edgeIds.add(edge.getId());
+            outVertexIds.add(edge.getVertexId(Direction.OUT));
+        }
 
-            for (Vertex termMention : termMentionRepository.findByEdgeId(
-                    outVertex.getId(),
-                    edge.getId(),
-                    authorizations
-            )) {
-                termMentionRepository.delete(termMention, authorizations);
-                webQueueRepository.pushTextUpdated(outVertex.getId());
+        Set<String> termMentionIds = new HashSet<>();
+        Iterable<Vertex> outVertices = graph.getVertices(outVertexIds, FetchHints.ALL, termMentionAuthorizations);
+        for (Vertex outVertex : outVertices) {
+            termMentionIds.addAll(toList(outVertex.getVertexIds(Direction.OUT, BcSchema.TERM_MENTION_LABEL_HAS_TERM_MENTION, termMentionAuthorizations)));
+        }
+        CloseableUtils.closeQuietly(outVertices);
+
+        Map<String, List<Vertex>> termMentionsByEdgeId = new HashMap<>();
+        Iterable<Vertex> termMentions = graph.getVertices(termMentionIds, termMentionAuthorizations);
+        for (Vertex termMention : termMentions) {
+            String edgeId = BcSchema.TERM_MENTION_RESOLVED_EDGE_ID.getPropertyValue(termMention, null);
+            if (edgeId != null && edgeIds.contains(edgeId)) {
+                termMentionsByEdgeId.computeIfAbsent(edgeId, k -> new ArrayList<>()).add(termMention);
             }
+        }
+        CloseableUtils.closeQuietly(termMentions);
+        return termMentionsByEdgeId;
+    }
 
-            if (autoPublish) {
-                long beforeDeletionTimestamp = System.currentTimeMillis() - 1;
-                graph.softDeleteEdge(edge, authorizations);
-                graph.flush();
+    /**
+     * Term mentions resolved to any of the given vertices, loaded with one call for the whole batch.
+     */
+    private List<Vertex> findTermMentionsResolvedTo(Collection<String> vertexIds, Authorizations authorizations) {
+        Authorizations termMentionAuthorizations = termMentionRepository.getAuthorizations(authorizations);
+        Set<String> termMentionIds = new HashSet<>();
+        Iterable<Vertex> vertices = graph.getVertices(vertexIds, FetchHints.ALL, termMentionAuthorizations);
+        for (Vertex vertex : vertices) {
+            termMentionIds.addAll(toList(vertex.getVertexIds(Direction.IN, BcSchema.TERM_MENTION_LABEL_RESOLVED_TO, termMentionAuthorizations)));
+        }
+        CloseableUtils.closeQuietly(vertices);
+        return toList(graph.getVertices(termMentionIds, termMentionAuthorizations));
+    }
 
-                if(webQueueRepository.shouldBroadcast(priority)) {
-                    webQueueRepository.broadcastPropertyChange(edge, null, null, null);
-                }
-                workQueueRepository.pushGraphPropertyQueue(edge, null, null, null, null, priority, ElementOrPropertyStatus.DELETION, beforeDeletionTimestamp);
-            } else {
-                graph.flush();
+    private void addEntitiesToWorkspace(String workspaceId, Set<String> vertexIds, User user) {
+        if (vertexIds.isEmpty()) {
+            return;
+        }
+        Workspace workspace = workspaceRepository.findById(workspaceId, user);
+        workspaceRepository.updateEntitiesOnWorkspace(workspace, vertexIds, user);
+    }
 
-                webQueueRepository.broadcastEdgeDeletion(edge);
-                webQueueRepository.broadcastPropertyChange(edge, null, null, null);
-                workQueueRepository.pushGraphPropertyQueue(
-                        edge,
-                        null, null, null, null,
-                        Priority.HIGH,
-                        ElementOrPropertyStatus.DELETION,
-                        beforeActionTimestamp
-                );
-            }
+    /**
+     * Sends one message for everything a batch removed from the graph, instead of one message per element.
+     */
+    private void broadcastElementsDeleted(DeletedElements deleted, String workspaceId) {
+        if (deleted.isEmpty()) {
+            return;
         }
+        JSONObject data = new JSONObject();
+        data.put("vertexIds", deleted.vertexIds);
+        data.put("edgeIds", deleted.edgeIds);
+        data.putOpt("workspaceId", workspaceId);
+        JSONObject json = new JSONObject();
+        json.put("type", "elementsDeleted");
+        json.put("data", data);
+        webQueueRepository.broadcastJson(json);
     }
 
     private void ensureOntologyIrisInitialized() {
@@ -386,14 +575,15 @@ public class WorkspaceHelper {
         }
     }
 
-    private void deleteProperties(Element e, String workspaceId, Priority priority, Authorizations authorizations) {
+    private void deleteProperties(Element e, String workspaceId, Priority priority, Authorizations authorizations, DeferredNotifications notifications) {
         List<Property> properties = IterableUtils.toList(e.getProperties());
         SandboxStatus[] sandboxStatuses = SandboxStatusUtil.getPropertySandboxStatuses(properties, workspaceId);
 
         for (int i = 0; i < sandboxStatuses.length; i++) {
             boolean propertyIsPublic = (sandboxStatuses[i] == SandboxStatus.PUBLIC);
             Property property = properties.get(i);
-            deleteProperty(e, property, propertyIsPublic, workspaceId, priority, authorizations);
+            // the term mentions resolved to a deleted element are unresolved all at once
+            deleteProperty(e, property, propertyIsPublic, workspaceId, priority, authorizations, notifications, false);
         }
     }
 
@@ -405,66 +595,112 @@ public class WorkspaceHelper {
             Authorizations authorizations,
             User user
     ) {
+        deleteVertices(Collections.singletonList(vertex), v -> isPublicVertex, workspaceId, priority, authorizations, user);
+    }
+
+    /**
+     * Deletes a batch of vertices with a single flush. The term mentions resolved to any of the vertices are loaded
+     * together and the web clients get one deletion message for the whole batch.
+     */
+    public void deleteVertices(
+            Collection<Vertex> vertices,
+            String workspaceId,
+            Priority priority,
+            Authorizations authorizations,
+            User user
+    ) {
+        deleteVertices(
+                vertices,
+                vertex -> SandboxStatusUtil.getSandboxStatus(vertex, workspaceId) == SandboxStatus.PUBLIC,
+                workspaceId,
+                priority,
+                authorizations,
+                user
+        );
+    }
+
+    private void deleteVertices(
+            Collection<Vertex> vertices,
+            Predicate<Vertex> isPublicVertex,
+            String workspaceId,
+            Priority priority,
+            Authorizations authorizations,
+            User user
+    ) {
+        if (vertices.isEmpty()) {
+            return;
+        }
         LOGGER.debug(
-                "BEGIN deleteVertex(vertexId: %s, workspaceId: %s, isPublicVertex: %b, user: %s)",
-                vertex.getId(),
+                "BEGIN deleteVertices(count: %d, workspaceId: %s, user: %s)",
+                vertices.size(),
                 workspaceId,
-                isPublicVertex,
                 user.getUsername()
         );
         ensureOntologyIrisInitialized();
         long beforeActionTimestamp = System.currentTimeMillis() - 1;
+        DeferredNotifications notifications = new DeferredNotifications(graph);
+        DeletedElements deleted = new DeletedElements();
+        Set<String> vertexIds = new HashSet<>();
+        for (Vertex vertex : vertices) {
+            vertexIds.add(vertex.getId());
+        }
 
-        deleteProperties(vertex, workspaceId, priority, authorizations);
+        for (Vertex vertex : vertices) {
+            deleteProperties(vertex, workspaceId, priority, authorizations, notifications);
+        }
 
-        // make sure the entity is on the workspace so that it shows up in the diff panel
+        // make sure the entities are on the workspace so that they show up in the diff panel
         if (!autoPublish) {
-            workspaceRepository.updateEntityOnWorkspace(workspaceId, vertex.getId(), user);
-        }
-        VisibilityJson visibilityJson = BcSchema.VISIBILITY_JSON.getPropertyValue(vertex);
-        VisibilityJson.removeFromAllWorkspace(visibilityJson);
-
-        // because we store the current vertex image in a property we need to possibly find that property and change it
-        // if we are deleting the current image.
-        LOGGER.debug("change entity image properties");
-        for (Edge edge : vertex.getEdges(Direction.BOTH, entityHasImageIri, authorizations)) {
-            if (edge.getVertexId(Direction.IN).equals(vertex.getId())) {
-                Vertex outVertex = edge.getVertex(Direction.OUT, authorizations);
-                Property entityHasImage = outVertex.getProperty(RawObjectSchema.ENTITY_IMAGE_VERTEX_ID.getPropertyName());
-                outVertex.softDeleteProperty(entityHasImage.getKey(), entityHasImage.getName(), authorizations);
-                workQueueRepository.pushElementImageQueue(outVertex, entityHasImage.getKey(), entityHasImage.getName(), priority);
-                webQueueRepository.broadcastElementImage(outVertex);
-                graph.softDeleteEdge(edge, authorizations);
-
-                webQueueRepository.broadcastEdgeDeletion(edge);
-                webQueueRepository.broadcastPropertyChange(edge, null, null, null);
-            }
+            addEntitiesToWorkspace(workspaceId, vertexIds, user);
         }
 
-        // because detected objects are currently stored as properties on the artifact that reference the entity
-        //   that they are resolved to we need to delete that property
-        LOGGER.debug("change artifact contains image of entity");
-        for (Edge edge : vertex.getEdges(Direction.BOTH, artifactContainsImageOfEntityIri, authorizations)) {
-            for (Property rowKeyProperty : vertex.getProperties(RawObjectSchema.ROW_KEY.getPropertyName())) {
-                String multiValueKey = rowKeyProperty.getValue().toString();
+        for (Vertex vertex : vertices) {
+            // because we store the current vertex image in a property we need to possibly find that property and change it
+            // if we are deleting the current image.
+            LOGGER.debug("change entity image properties");
+            for (Edge edge : vertex.getEdges(Direction.BOTH, entityHasImageIri, authorizations)) {
                 if (edge.getVertexId(Direction.IN).equals(vertex.getId())) {
                     Vertex outVertex = edge.getVertex(Direction.OUT, authorizations);
-                    // remove property
-                    RawObjectSchema.DETECTED_OBJECT.removeProperty(outVertex, multiValueKey, authorizations);
+                    Property entityHasImage = outVertex.getProperty(RawObjectSchema.ENTITY_IMAGE_VERTEX_ID.getPropertyName());
+                    outVertex.softDeleteProperty(entityHasImage.getKey(), entityHasImage.getName(), authorizations);
                     graph.softDeleteEdge(edge, authorizations);
 
-                    webQueueRepository.broadcastEdgeDeletion(edge);
-                    webQueueRepository.broadcastPropertyChange(edge, null, null, null);
-                    workQueueRepository.pushGraphPropertyQueue(
-                            edge,
-                            null, null, null, null,
-                            Priority.HIGH,
-                            ElementOrPropertyStatus.DELETION,
-                            beforeActionTimestamp
-                    );
+                    deleted.edgeIds.put(edge.getId());
+                    notifications.afterFlush(() -> {
+                        workQueueRepository.pushElementImageQueue(outVertex, entityHasImage.getKey(), entityHasImage.getName(), priority);
+                        webQueueRepository.broadcastElementImage(outVertex);
+                        webQueueRepository.broadcastPropertyChange(edge, null, null, null);
+                    });
+                }
+            }
 
-                    if(webQueueRepository.shouldBroadcast(priority)) {
-                        webQueueRepository.broadcastPropertyChange(outVertex, multiValueKey, RawObjectSchema.DETECTED_OBJECT.getPropertyName(), workspaceId);
+            // because detected objects are currently stored as properties on the artifact that reference the entity
+            //   that they are resolved to we need to delete that property
+            LOGGER.debug("change artifact contains image of entity");
+            for (Edge edge : vertex.getEdges(Direction.BOTH, artifactContainsImageOfEntityIri, authorizations)) {
+                for (Property rowKeyProperty : vertex.getProperties(RawObjectSchema.ROW_KEY.getPropertyName())) {
+                    String multiValueKey = rowKeyProperty.getValue().toString();
+                    if (edge.getVertexId(Direction.IN).equals(vertex.getId())) {
+                        Vertex outVertex = edge.getVertex(Direction.OUT, authorizations);
+                        // remove property
+                        RawObjectSchema.DETECTED_OBJECT.removeProperty(outVertex, multiValueKey, authorizations);
+                        graph.softDeleteEdge(edge, authorizations);
+
+                        deleted.edgeIds.put(edge.getId());
+                        notifications.afterFlush(() -> {
+                            webQueueRepository.broadcastPropertyChange(edge, null, null, null);
+                            workQueueRepository.pushGraphPropertyQueue(
+                                    edge,
+                                    null, null, null, null,
+                                    Priority.HIGH,
+                                    ElementOrPropertyStatus.DELETION,
+                                    beforeActionTimestamp
+                            );
+
+                            if (webQueueRepository.shouldBroadcast(priority)) {
+                                webQueueRepository.broadcastPropertyChange(outVertex, multiValueKey, RawObjectSchema.DETECTED_OBJECT.getPropertyName(), workspaceId);
+                            }
+                        });
                     }
                 }
             }
@@ -473,71 +709,95 @@ public class WorkspaceHelper {
         // because we store term mentions with an added visibility we need to delete them with that added authorizations.
         //  we also need to notify the front-end of changes as well as audit the changes
         LOGGER.debug("unresolve terms");
-        for (Vertex termMention : termMentionRepository.findResolvedTo(vertex.getId(), authorizations)) {
-            unresolveTerm(termMention, authorizations);
-        }
+        unresolveTerms(findTermMentionsResolvedTo(vertexIds, authorizations), authorizations, notifications);
 
         Authorizations systemAuthorization = authorizationRepository.getGraphAuthorizations(
                 user,
                 WorkspaceRepository.VISIBILITY_STRING,
                 workspaceId
         );
-        if (isPublicVertex) {
-            Visibility workspaceVisibility = new Visibility(workspaceId);
-            graph.markVertexHidden(vertex, workspaceVisibility, systemAuthorization);
-            graph.flush();
-            if (autoPublish) {
-                long beforeDeletionTimestamp = System.currentTimeMillis() - 1;
-                graph.deleteVertex(vertex, authorizations);
-                graph.flush();
-                webQueueRepository.broadcastPropertyChange(vertex, null, null, null);
-                workQueueRepository.pushGraphPropertyQueue(vertex, null, null, null, null, Priority.HIGH, ElementOrPropertyStatus.DELETION, beforeDeletionTimestamp);
+        List<Vertex> privateVertices = new ArrayList<>();
+        for (Vertex vertex : vertices) {
+            if (isPublicVertex.test(vertex)) {
+                Visibility workspaceVisibility = new Visibility(workspaceId);
+                graph.markVertexHidden(vertex, workspaceVisibility, systemAuthorization);
+                if (autoPublish) {
+                    long beforeDeletionTimestamp = System.currentTimeMillis() - 1;
+                    graph.deleteVertex(vertex, authorizations);
+                    notifications.afterFlush(() -> {
+                        webQueueRepository.broadcastPropertyChange(vertex, null, null, null);
+                        workQueueRepository.pushGraphPropertyQueue(vertex, null, null, null, null, Priority.HIGH, ElementOrPropertyStatus.DELETION, beforeDeletionTimestamp);
+                    });
+                } else {
+                    deleted.vertexIds.put(vertex.getId());
+                    notifications.afterFlush(() -> {
+                        webQueueRepository.broadcastPropertyChange(vertex, null, null, null);
+                        workQueueRepository.pushGraphPropertyQueue(vertex, null, null, null, null, Priority.HIGH, ElementOrPropertyStatus.HIDDEN, beforeActionTimestamp);
+                    });
+                }
+                notifications.afterFlush(() -> workspaceChangeJournal.recordElement(workspaceId, vertex));
             } else {
-                webQueueRepository.broadcastVerticesDeletion(vertex.getId());
-                webQueueRepository.broadcastPropertyChange(vertex, null, null, null);
-                workQueueRepository.pushGraphPropertyQueue(vertex, null, null, null, null, Priority.HIGH, ElementOrPropertyStatus.HIDDEN, beforeActionTimestamp);
+                privateVertices.add(vertex);
             }
-        } else {
+        }
+
+        if (!privateVertices.isEmpty()) {
             // because we store workspaces with an added visibility we need to delete them with that added authorizations.
             LOGGER.debug("soft delete edges");
             Vertex workspaceVertex = graph.getVertex(workspaceId, systemAuthorization);
-            for (Edge edge : workspaceVertex.getEdges(vertex, Direction.BOTH, systemAuthorization)) {
-                graph.softDeleteEdge(edge, systemAuthorization);
+            Set<String> privateVertexIds = new HashSet<>();
+            for (Vertex vertex : privateVertices) {
+                privateVertexIds.add(vertex.getId());
+                if (workspaceVertex != null) {
+                    for (Edge edge : workspaceVertex.getEdges(vertex, Direction.BOTH, systemAuthorization)) {
+                        graph.softDeleteEdge(edge, systemAuthorization);
+                    }
+                }
             }
 
-            vertex = graph.getVertex(vertex.getId(), FetchHints.ALL_INCLUDING_HIDDEN, systemAuthorization);
-            for (Edge edge : vertex.getEdges(Direction.IN, WebWorkspaceSchema.PRODUCT_TO_ENTITY_RELATIONSHIP_NAME, systemAuthorization)) {
-                graph.softDeleteEdge(edge, systemAuthorization);
-            }
+            Iterable<Vertex> hiddenIncluded = graph.getVertices(privateVertexIds, FetchHints.ALL_INCLUDING_HIDDEN, systemAuthorization);
+            for (Vertex vertex : hiddenIncluded) {
+                for (Edge edge : vertex.getEdges(Direction.IN, WebWorkspaceSchema.PRODUCT_TO_ENTITY_RELATIONSHIP_NAME, systemAuthorization)) {
+                    graph.softDeleteEdge(edge, systemAuthorization);
+                }
 
-            LOGGER.debug("soft delete vertex");
-            graph.softDeleteVertex(vertex, authorizations);
-            graph.flush();
-            if (autoPublish) {
-                long beforeDeletionTimestamp = System.currentTimeMillis() - 1;
-                webQueueRepository.broadcastPropertyChange(vertex, null, null, null);
-                workQueueRepository.pushGraphPropertyQueue(vertex, null, null, null, null, Priority.HIGH, ElementOrPropertyStatus.DELETION, beforeDeletionTimestamp);
-            } else {
-                webQueueRepository.broadcastVerticesDeletion(vertex.getId());
-                webQueueRepository.broadcastPropertyChange(vertex, null, null, null);
-                workQueueRepository.pushGraphPropertyQueue(vertex, null, null, null, null, Priority.HIGH, ElementOrPropertyStatus.DELETION, beforeActionTimestamp);
+                LOGGER.debug("soft delete vertex");
+                graph.softDeleteVertex(vertex, authorizations);
+                if (autoPublish) {
+                    long beforeDeletionTimestamp = System.currentTimeMillis() - 1;
+                    notifications.afterFlush(() -> {
+                        webQueueRepository.broadcastPropertyChange(vertex, null, null, null);
+                        workQueueRepository.pushGraphPropertyQueue(vertex, null, null, null, null, Priority.HIGH, ElementOrPropertyStatus.DELETION, beforeDeletionTimestamp);
+                    });
+                } else {
+                    deleted.vertexIds.put(vertex.getId());
+                    notifications.afterFlush(() -> {
+                        webQueueRepository.broadcastPropertyChange(vertex, null, null, null);
+                        workQueueRepository.pushGraphPropertyQueue(vertex, null, null, null, null, Priority.HIGH, ElementOrPropertyStatus.DELETION, beforeActionTimestamp);
+                    });
+                }
+                notifications.afterFlush(() -> workspaceChangeJournal.recordElement(workspaceId, vertex));
             }
+            CloseableUtils.closeQuietly(hiddenIncluded);
         }
 
-        graph.flush();
-        LOGGER.debug("END deleteVertex");
+        notifications.flush();
+        broadcastElementsDeleted(deleted, workspaceId);
+        LOGGER.debug("END deleteVertices");
     }
 
-    private void unresolveTermMentionsForProperty(Vertex vertex, Property property, Authorizations authorizations) {
+    private void unresolveTermMentionsForProperty(Vertex vertex, Property property, Authorizations authorizations, DeferredNotifications notifications) {
+        List<Vertex> termMentions = new ArrayList<>();
         for (Vertex termMention : termMentionRepository.findResolvedTo(vertex.getId(), authorizations)) {
             String key = BcSchema.TERM_MENTION_REF_PROPERTY_KEY.getPropertyValue(termMention);
             String name = BcSchema.TERM_MENTION_REF_PROPERTY_NAME.getPropertyValue(termMention);
             String visibility = BcSchema.TERM_MENTION_REF_PROPERTY_VISIBILITY.getPropertyValue(termMention);
             if (property.getKey().equals(key) && property.getName().equals(name) &&
                     property.getVisibility().getVisibilityString().equals(visibility)) {
-                unresolveTerm(termMention, authorizations);
+                termMentions.add(termMention);
             }
         }
+        unresolveTerms(termMentions, authorizations, notifications);
     }
 
     private void unresolveDetectedObjects(
@@ -546,7 +806,8 @@ public class WorkspaceHelper {
             Vertex outVertex,
             Vertex inVertex,
             Priority priority,
-            Authorizations authorizations
+            Authorizations authorizations,
+            DeferredNotifications notifications
     ) {
         for (ArtifactDetectedObject artifactDetectedObject : RawObjectSchema.DETECTED_OBJECT.getPropertyValues(
                 outVertex)) {
@@ -558,7 +819,8 @@ public class WorkspaceHelper {
                         outVertex,
                         inVertex,
                         priority,
-                        authorizations
+                        authorizations,
+                        notifications
                 );
             }
         }
@@ -571,7 +833,8 @@ public class WorkspaceHelper {
             Vertex outVertex,
             Vertex inVertex,
             Priority priority,
-            Authorizations authorizations
+            Authorizations authorizations,
+            DeferredNotifications notifications
     ) {
         String multiValueKey = artifactDetectedObject.getMultivalueKey(DETECTED_OBJECT_MULTI_VALUE_KEY_PREFIX);
         SandboxStatus vertexSandboxStatus = SandboxStatusUtil.getSandboxStatus(inVertex, workspaceId);
@@ -585,19 +848,22 @@ public class WorkspaceHelper {
         }
         RawObjectSchema.DETECTED_OBJECT.removeProperty(outVertex, multiValueKey, authorizations);
 
-        if(webQueueRepository.shouldBroadcast(priority)) {
-            webQueueRepository.broadcastPropertyChange(outVertex, multiValueKey, RawObjectSchema.DETECTED_OBJECT.getPropertyName(), workspaceId);
-        }
-        workQueueRepository.pushGraphPropertyQueue(
-                outVertex,
-                multiValueKey,
-                RawObjectSchema.DETECTED_OBJECT.getPropertyName(),
-                workspaceId,
-                visibilityJson.getSource(),
-                priority,
-                ElementOrPropertyStatus.UPDATE,
-                null
-        );
+        VisibilityJson changedVisibilityJson = visibilityJson;
+        notifications.afterFlush(() -> {
+            if (webQueueRepository.shouldBroadcast(priority)) {
+                webQueueRepository.broadcastPropertyChange(outVertex, multiValueKey, RawObjectSchema.DETECTED_OBJECT.getPropertyName(), workspaceId);
+            }
+            workQueueRepository.pushGraphPropertyQueue(
+                    outVertex,
+                    multiValueKey,
+                    RawObjectSchema.DETECTED_OBJECT.getPropertyName(),
+                    workspaceId,
+                    changedVisibilityJson.getSource(),
+                    priority,
+                    ElementOrPropertyStatus.UPDATE,
+                    null
+            );
+        });
     }
 
     public void updateEntitiesOnWorkspace(
@@ -623,4 +889,22 @@ public class WorkspaceHelper {
                 webQueueRepository.getPermissionsWithUsers(clientApiWorkspace, null)
         );
     }
+
+    private static <T extends Element> Map<String, T> toMapById(Iterable<T> elements) {
+        Map<String, T> result = new HashMap<>();
+        for (T element : elements) {
+            result.put(element.getId(), element);
+        }
+        CloseableUtils.closeQuietly(elements);
+        return result;
+    }
+
+    private static class DeletedElements {
+        final JSONArray vertexIds = new JSONArray();
+        final JSONArray edgeIds = new JSONArray();
+
+        boolean isEmpty() {
+            return vertexIds.length() == 0 && edgeIds.length() == 0;
+        }
+    }
 }
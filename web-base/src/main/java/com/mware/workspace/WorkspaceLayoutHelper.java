@@ -40,6 +40,8 @@ import com.mware.core.exception.BcException;
 import com.mware.core.model.clientapi.dto.GraphPosition;
 import com.mware.core.util.StreamUtil;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.OptionalInt;
 
 public class WorkspaceLayoutHelper {
@@ -48,10 +50,26 @@ public class WorkspaceLayoutHelper {
             GraphPosition graphPosition,
             LayoutHints layoutHints
     ) {
-        while (isOccupied(existingPositions, graphPosition, layoutHints)) {
-            graphPosition = findNextPosition(graphPosition, layoutHints);
+        return new LayoutGridIndex(existingPositions, layoutHints).findOpening(graphPosition);
+    }
+
+    /**
+     * Places several positions in one go. The existing positions are indexed once and every placement is added to
+     * the index, so each new position starts its search at the previous one and avoids it.
+     */
+    public static List<GraphPosition> findOpenings(
+            Iterable<GraphPosition> existingPositions,
+            GraphPosition graphPosition,
+            int count,
+            LayoutHints layoutHints
+    ) {
+        LayoutGridIndex index = new LayoutGridIndex(existingPositions, layoutHints);
+        List<GraphPosition> openings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            graphPosition = index.place(graphPosition);
+            openings.add(graphPosition);
         }
-        return graphPosition;
+        return openings;
     }
 
     public static GraphPosition findNextPosition(
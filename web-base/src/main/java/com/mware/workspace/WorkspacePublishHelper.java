@@ -36,8 +36,11 @@
  */
 package com.mware.workspace;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import com.mware.config.WebOptions;
+import com.mware.core.config.Configuration;
 import com.mware.core.exception.BcException;
 import com.mware.core.ingest.dataworker.ElementOrPropertyStatus;
 import com.mware.core.ingest.video.VideoFrameInfo;
@@ -67,6 +70,9 @@ import com.mware.ge.values.storable.Values;
 import com.mware.web.model.*;
 
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -80,8 +86,11 @@ public class WorkspacePublishHelper {
     private final Graph graph;
     private final WorkQueueRepository workQueueRepository;
     private final WebQueueRepository webQueueRepository;
+    private final WorkspaceChangeJournal workspaceChangeJournal;
     private final VisibilityTranslator visibilityTranslator;
     private final TermMentionRepository termMentionRepository;
+    private final ExecutorService executor;
+    private final int publishThreads;
 
     private String entityHasImageRelName;
 
@@ -92,15 +101,26 @@ public class WorkspacePublishHelper {
             Graph graph,
             WorkQueueRepository workQueueRepository,
             WebQueueRepository webQueueRepository,
+            WorkspaceChangeJournal workspaceChangeJournal,
             VisibilityTranslator visibilityTranslator,
-            TermMentionRepository termMentionRepository
+            TermMentionRepository termMentionRepository,
+            Configuration configuration
     ) {
         this.schemaRepository = schemaRepository;
         this.graph = graph;
         this.workQueueRepository = workQueueRepository;
         this.webQueueRepository = webQueueRepository;
+        this.workspaceChangeJournal = workspaceChangeJournal;
         this.visibilityTranslator = visibilityTranslator;
         this.termMentionRepository = termMentionRepository;
+        this.publishThreads = configuration.get(WebOptions.WORKSPACE_PUBLISH_THREADS);
+        this.executor = Executors.newFixedThreadPool(
+                publishThreads,
+                new ThreadFactoryBuilder()
+                        .setNameFormat("workspace-publish-%d")
+                        .setDaemon(true)
+                        .build()
+        );
 
         this.entityHasImageRelName = schemaRepository.getRelationshipNameByIntent(SchemaConstants.INTENT_ENTITY_HAS_IMAGE, SchemaRepository.PUBLIC);
         if (this.entityHasImageRelName == null) {
@@ -147,6 +167,7 @@ public class WorkspacePublishHelper {
             if (data.getErrorMessage() != null) {
                 workspacePublishResponse.addFailure(data);
             }
+            recordPublishedItem(data, workspaceId);
         }
 
         return workspacePublishResponse;
@@ -154,10 +175,22 @@ public class WorkspacePublishHelper {
 
     private void publishVertices(List<ClientApiPublishItem> publishData, String workspaceId, Authorizations authorizations) {
         LOGGER.debug("BEGIN publishVertices");
-
-        Map<String, ClientApiVertexPublishItem> vertexIdToPublishData = publishData.stream()
+        List<ClientApiVertexPublishItem> vertexPublishItems = publishData.stream()
                 .filter(data -> data instanceof ClientApiVertexPublishItem)
                 .map(data -> ((ClientApiVertexPublishItem) data))
+                .collect(Collectors.toList());
+        runPhase("vertices", vertexPublishItems, (items, notifications) ->
+                publishVertexItems(items, workspaceId, authorizations, notifications));
+        LOGGER.debug("END publishVertices");
+    }
+
+    private void publishVertexItems(
+            List<ClientApiVertexPublishItem> vertexPublishItems,
+            String workspaceId,
+            Authorizations authorizations,
+            DeferredNotifications notifications
+    ) {
+        Map<String, ClientApiVertexPublishItem> vertexIdToPublishData = vertexPublishItems.stream()
                 .collect(Collectors.toMap(ClientApiVertexPublishItem::getVertexId, Function.identity()));
 
         // Need to elevate with videoFrame auth to be able to load and publish VideoFrame properties
@@ -171,36 +204,44 @@ public class WorkspacePublishHelper {
                 authWithVideoFrame
         );
 
+        List<Runnable> tasks = new ArrayList<>();
         for (Vertex vertex : verticesToPublish) {
             String vertexId = vertex.getId();
-            ClientApiPublishItem data = vertexIdToPublishData.get(vertexId);
-            vertexIdToPublishData.remove(vertexId); // remove to indicate that it's been handled
-
-            try {
-                if (SandboxStatusUtil.getSandboxStatus(vertex, workspaceId) == SandboxStatus.PUBLIC
-                        && !WorkspaceDiffHelper.isPublicDelete(vertex, authorizations)) {
-                    String msg;
-                    if (data.getAction() == ClientApiPublishItem.Action.DELETE) {
-                        msg = "Cannot delete public vertex " + vertexId;
-                    } else {
-                        msg = "Vertex " + vertexId + " is already public";
+            ClientApiPublishItem data = vertexIdToPublishData.remove(vertexId); // remove to indicate that it's been handled
+
+            tasks.add(() -> {
+                try {
+                    if (SandboxStatusUtil.getSandboxStatus(vertex, workspaceId) == SandboxStatus.PUBLIC
+                            && !WorkspaceDiffHelper.isPublicDelete(vertex, authorizations)) {
+                        String msg;
+                        if (data.getAction() == ClientApiPublishItem.Action.DELETE) {
+                            msg = "Cannot delete public vertex " + vertexId;
+                        } else if (notifications.isRetry()) {
+                            notifications.afterFlush(() -> webQueueRepository.broadcastPublishVertex(vertex), failure(data));
+                            return;
+                        } else {
+                            msg = "Vertex " + vertexId + " is already public";
+                        }
+                        data.setErrorMessage(msg);
+                        return;
                     }
-                    data.setErrorMessage(msg);
-                    continue;
+                    publishVertex(vertex, data, authWithVideoFrame, workspaceId, notifications);
+                } catch (Exception ex) {
+                    data.setErrorMessage(ex.getMessage());
                 }
-                publishVertex(vertex, data.getAction(), authWithVideoFrame, workspaceId);
-            } catch (Exception ex) {
-                data.setErrorMessage(ex.getMessage());
-            }
+            });
         }
 
         CloseableUtils.closeQuietly(verticesToPublish);
 
-        vertexIdToPublishData.forEach((vertexId, data) ->
-                data.setErrorMessage("Unable to load vertex with id " + vertexId));
+        vertexIdToPublishData.forEach((vertexId, data) -> {
+            if (!isDeletedByFailedFlush(data, notifications)) {
+                data.setErrorMessage("Unable to load vertex with id " + vertexId);
+            }
+        });
 
-        LOGGER.debug("END publishVertices");
-        graph.flush();
+        // vertices are independent of each other, only edges and properties need to wait for them
+        runAll(tasks);
     }
 
     private void publishRequiredConcepts(
@@ -382,24 +423,52 @@ public class WorkspacePublishHelper {
             Authorizations authorizations
     ) {
         LOGGER.debug("BEGIN publishEdges");
-        for (ClientApiPublishItem data : publishData) {
+        List<ClientApiRelationshipPublishItem> relationshipPublishItems = publishData.stream()
+                .filter(data -> data instanceof ClientApiRelationshipPublishItem)
+                .map(data -> (ClientApiRelationshipPublishItem) data)
+                .collect(Collectors.toList());
+        runPhase("edges", relationshipPublishItems, (items, notifications) ->
+                publishEdgeItems(items, workspaceId, authorizations, notifications));
+        LOGGER.debug("END publishEdges");
+    }
+
+    private void publishEdgeItems(
+            List<ClientApiRelationshipPublishItem> relationshipPublishItems,
+            String workspaceId,
+            Authorizations authorizations,
+            DeferredNotifications notifications
+    ) {
+        Set<String> edgeIds = relationshipPublishItems.stream()
+                .map(ClientApiRelationshipPublishItem::getEdgeId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<String, Edge> edgesById = toMapById(graph.getEdges(edgeIds, FetchHints.ALL_INCLUDING_HIDDEN, authorizations));
+        Set<String> vertexIds = new HashSet<>();
+        for (Edge edge : edgesById.values()) {
+            vertexIds.add(edge.getVertexId(Direction.OUT));
+            vertexIds.add(edge.getVertexId(Direction.IN));
+        }
+        Map<String, Vertex> verticesById = toMapById(graph.getVertices(vertexIds, authorizations));
+
+        for (ClientApiRelationshipPublishItem data : relationshipPublishItems) {
             try {
-                if (!(data instanceof ClientApiRelationshipPublishItem)) {
+                Edge edge = edgesById.get(data.getEdgeId());
+                if (edge == null) {
+                    if (!isDeletedByFailedFlush(data, notifications)) {
+                        data.setErrorMessage("Unable to load edge with id " + data.getEdgeId());
+                    }
                     continue;
                 }
-                ClientApiRelationshipPublishItem relationshipPublishItem = (ClientApiRelationshipPublishItem) data;
-                Edge edge = graph.getEdge(
-                        relationshipPublishItem.getEdgeId(),
-                        FetchHints.ALL_INCLUDING_HIDDEN,
-                        authorizations
-                );
-                Vertex outVertex = edge.getVertex(Direction.OUT, authorizations);
-                Vertex inVertex = edge.getVertex(Direction.IN, authorizations);
+                Vertex outVertex = verticesById.get(edge.getVertexId(Direction.OUT));
+                Vertex inVertex = verticesById.get(edge.getVertexId(Direction.IN));
                 if (SandboxStatusUtil.getSandboxStatus(edge, workspaceId) == SandboxStatus.PUBLIC
                         && !WorkspaceDiffHelper.isPublicDelete(edge, authorizations)) {
                     String error_msg;
                     if (data.getAction() == ClientApiPublishItem.Action.DELETE) {
                         error_msg = "Cannot delete a public edge";
+                    } else if (notifications.isRetry()) {
+                        notifications.afterFlush(() -> webQueueRepository.broadcastPublishEdge(edge), failure(data));
+                        continue;
                     } else {
                         error_msg = "Edge is already public";
                     }
@@ -413,13 +482,11 @@ public class WorkspacePublishHelper {
                     data.setErrorMessage("Cannot publish edge, " + edge.getId() + ", because either source and/or dest vertex are not public");
                     continue;
                 }
-                publishEdge(edge, outVertex, inVertex, data.getAction(), workspaceId, authorizations);
+                publishEdge(edge, outVertex, inVertex, data, workspaceId, authorizations, notifications);
             } catch (Exception ex) {
                 data.setErrorMessage(ex.getMessage());
             }
         }
-        LOGGER.debug("END publishEdges");
-        graph.flush();
     }
 
     private void publishProperties(
@@ -428,13 +495,35 @@ public class WorkspacePublishHelper {
             Authorizations authorizations
     ) {
         LOGGER.debug("BEGIN publishProperties");
-        for (ClientApiPublishItem data : publishData) {
+        List<ClientApiPropertyPublishItem> propertyPublishItems = Arrays.stream(publishData)
+                .filter(data -> data instanceof ClientApiPropertyPublishItem && data.getErrorMessage() == null)
+                .map(data -> (ClientApiPropertyPublishItem) data)
+                .collect(Collectors.toList());
+        runPhase("properties", propertyPublishItems, (items, notifications) ->
+                publishPropertyItems(items, workspaceId, authorizations, notifications));
+        LOGGER.debug("END publishProperties");
+    }
+
+    private void publishPropertyItems(
+            List<ClientApiPropertyPublishItem> propertyPublishItems,
+            String workspaceId,
+            Authorizations authorizations,
+            DeferredNotifications notifications
+    ) {
+        Set<String> vertexIds = new HashSet<>();
+        Set<String> edgeIds = new HashSet<>();
+        for (ClientApiPropertyPublishItem data : propertyPublishItems) {
+            addIfNotNull(edgeIds, data.getEdgeId());
+            addIfNotNull(vertexIds, data.getVertexId());
+            addIfNotNull(vertexIds, data.getElementId());
+            addIfNotNull(edgeIds, data.getElementId());
+        }
+        Map<String, Vertex> verticesById = toMapById(graph.getVertices(vertexIds, FetchHints.ALL_INCLUDING_HIDDEN, authorizations));
+        Map<String, Edge> edgesById = toMapById(graph.getEdges(edgeIds, FetchHints.ALL_INCLUDING_HIDDEN, authorizations));
+
+        for (ClientApiPropertyPublishItem propertyPublishItem : propertyPublishItems) {
             try {
-                if (!(data instanceof ClientApiPropertyPublishItem) || data.getErrorMessage() != null) {
-                    continue;
-                }
-                ClientApiPropertyPublishItem propertyPublishItem = (ClientApiPropertyPublishItem) data;
-                Element element = getPropertyElement(propertyPublishItem, authorizations);
+                Element element = getPropertyElement(propertyPublishItem, verticesById, edgesById);
 
                 String propertyKey = propertyPublishItem.getKey();
                 String propertyName = propertyPublishItem.getName();
@@ -446,48 +535,47 @@ public class WorkspacePublishHelper {
                 //TODO - If more exceptions appear we should make a nice method
                 if ((!ontologyProperty.getUserVisible() && !propertyName.equals(BcSchema.COMMENT.getPropertyName()))
                         || propertyName.equals(RawObjectSchema.ENTITY_IMAGE_VERTEX_ID.getPropertyName())) {
-                    data.setErrorMessage("Cannot publish a modification of a property which is not user visible: " + element.getId());
+                    propertyPublishItem.setErrorMessage("Cannot publish a modification of a property which is not user visible: " + element.getId());
                     continue;
                 }
 
                 if (SandboxStatusUtil.getSandboxStatus(element, workspaceId) != SandboxStatus.PUBLIC) {
-                    data.setErrorMessage("Cannot publish a modification of a property on a private element: " + element.getId());
+                    propertyPublishItem.setErrorMessage("Cannot publish a modification of a property on a private element: " + element.getId());
                     continue;
                 }
 
-                publishProperty(element, data.getAction(), propertyKey, propertyName, workspaceId, authorizations);
+                publishProperty(element, propertyPublishItem, propertyKey, propertyName, workspaceId, authorizations, notifications);
             } catch (Exception ex) {
-                data.setErrorMessage(ex.getMessage());
+                propertyPublishItem.setErrorMessage(ex.getMessage());
             }
         }
-        LOGGER.debug("END publishProperties");
-        graph.flush();
     }
 
     private void publishVertex(
             Vertex vertex,
-            ClientApiPublishItem.Action action,
+            ClientApiPublishItem data,
             Authorizations authorizations,
-            String workspaceId
+            String workspaceId,
+            DeferredNotifications notifications
     ) {
-        if (action == ClientApiPublishItem.Action.DELETE || WorkspaceDiffHelper.isPublicDelete(vertex, authorizations)) {
+        if (data.getAction() == ClientApiPublishItem.Action.DELETE || WorkspaceDiffHelper.isPublicDelete(vertex, authorizations)) {
             long beforeDeletionTimestamp = System.currentTimeMillis() - 1;
             graph.deleteVertex(vertex, authorizations);
-            graph.flush();
-
-            webQueueRepository.broadcastPublishVertexDelete(vertex);
-            webQueueRepository.broadcastPropertyChange(vertex, null, null, null);
-            workQueueRepository.pushGraphPropertyQueue(
-                    vertex,
-                    null,
-                    null,
-                    null,
-                    null,
-                    Priority.HIGH,
-                    ElementOrPropertyStatus.DELETION,
-                    beforeDeletionTimestamp
-            );
 
+            notifications.afterFlush(() -> {
+                webQueueRepository.broadcastPublishVertexDelete(vertex);
+                webQueueRepository.broadcastPropertyChange(vertex, null, null, null);
+                workQueueRepository.pushGraphPropertyQueue(
+                        vertex,
+                        null,
+                        null,
+                        null,
+                        null,
+                        Priority.HIGH,
+                        ElementOrPropertyStatus.DELETION,
+                        beforeDeletionTimestamp
+                );
+            }, failure(data));
             return;
         }
 
@@ -522,37 +610,28 @@ public class WorkspacePublishHelper {
                 visibilityJson,
                 visibilityTranslator.getDefaultVisibility()
         );
-        vertex = vertexElementMutation.save(authorizations);
-        graph.flush();
+        Vertex publishedVertex = vertexElementMutation.save(authorizations);
 
-        for (Vertex termMention : termMentionRepository.findByVertexId(vertex.getId(), authorizations)) {
+        for (Vertex termMention : termMentionRepository.findByVertexId(publishedVertex.getId(), authorizations)) {
             termMentionRepository.updateVisibility(termMention, bcVisibility.getVisibility(), authorizations);
         }
 
-        graph.flush();
-
-        webQueueRepository.broadcastPublishVertex(vertex);
+        notifications.afterFlush(() -> webQueueRepository.broadcastPublishVertex(publishedVertex), failure(data));
     }
 
     private void publishProperty(
             Element element,
-            ClientApiPublishItem.Action action,
+            ClientApiPublishItem data,
             String key,
             String name,
             String workspaceId,
-            Authorizations authorizations
+            Authorizations authorizations,
+            DeferredNotifications notifications
     ) {
         long beforeActionTimestamp = System.currentTimeMillis() - 1;
-        if (action == ClientApiPublishItem.Action.DELETE) {
+        if (data.getAction() == ClientApiPublishItem.Action.DELETE) {
             element.softDeleteProperty(key, name, authorizations);
-            graph.flush();
-
-            webQueueRepository.broadcastPublishPropertyDelete(element, key, name);
-            if(webQueueRepository.shouldBroadcastGraphPropertyChange(name, Priority.HIGH)) {
-                webQueueRepository.broadcastPropertyChange(element, key, name, null);
-            }
-            workQueueRepository.pushGraphPropertyQueue(element, key, name, null, null, Priority.HIGH, ElementOrPropertyStatus.DELETION, beforeActionTimestamp);
-
+            notifications.afterFlush(() -> broadcastPropertyDelete(element, key, name, beforeActionTimestamp), failure(data));
             return;
         }
         ExistingElementMutation elementMutation = element.prepareMutation();
@@ -577,24 +656,12 @@ public class WorkspacePublishHelper {
             if (WorkspaceDiffHelper.isPublicDelete(property, authorizations)) {
                 if (publicProperty == null) {
                     element.softDeleteProperty(key, name, new Visibility(workspaceId), authorizations);
-                    graph.flush();
-
-                    webQueueRepository.broadcastPublishPropertyDelete(element, key, name);
-                    if(webQueueRepository.shouldBroadcastGraphPropertyChange(name, Priority.HIGH)) {
-                        webQueueRepository.broadcastPropertyChange(element, key, name, null);
-                    }
-                    workQueueRepository.pushGraphPropertyQueue(element, key, name, null, null, Priority.HIGH, ElementOrPropertyStatus.DELETION, beforeActionTimestamp);
-
+                    notifications.afterFlush(() -> broadcastPropertyDelete(element, key, name, beforeActionTimestamp), failure(data));
                     foundProperty = true;
                 }
             } else if (sandboxStatus == SandboxStatus.PUBLIC_CHANGED) {
                 element.softDeleteProperty(key, name, propertyVisibility, authorizations);
-
-                webQueueRepository.broadcastPublishPropertyDelete(element, key, name);
-                if(webQueueRepository.shouldBroadcastGraphPropertyChange(name, Priority.HIGH)) {
-                    webQueueRepository.broadcastPropertyChange(element, key, name, null);
-                }
-                workQueueRepository.pushGraphPropertyQueue(element, key, name, null, null, Priority.HIGH, ElementOrPropertyStatus.DELETION, beforeActionTimestamp);
+                notifications.afterFlush(() -> broadcastPropertyDelete(element, key, name, beforeActionTimestamp), failure(data));
 
                 if (publicProperty != null) {
                     element.markPropertyVisible(publicProperty, new Visibility(workspaceId), authorizations);
@@ -617,27 +684,27 @@ public class WorkspacePublishHelper {
                         newVisibility = publicVisibility;
                     }
                     element.addPropertyValue(key, name, property.getValue(), metadata, newVisibility, authorizations);
-                    if(webQueueRepository.shouldBroadcastGraphPropertyChange(name, Priority.HIGH)) {
-                        webQueueRepository.broadcastPropertyChange(element, key, name, null);
-                    }
-                    workQueueRepository.pushGraphPropertyQueue(
-                            element,
-                            key,
-                            name,
-                            null,
-                            null,
-                            Priority.HIGH,
-                            ElementOrPropertyStatus.UNHIDDEN,
-                            beforeActionTimestamp
-                    );
+                    notifications.afterFlush(() -> {
+                        if (webQueueRepository.shouldBroadcastGraphPropertyChange(name, Priority.HIGH)) {
+                            webQueueRepository.broadcastPropertyChange(element, key, name, null);
+                        }
+                        workQueueRepository.pushGraphPropertyQueue(
+                                element,
+                                key,
+                                name,
+                                null,
+                                null,
+                                Priority.HIGH,
+                                ElementOrPropertyStatus.UNHIDDEN,
+                                beforeActionTimestamp
+                        );
+                    }, failure(data));
                 }
-                graph.flush();
-                webQueueRepository.broadcastPublishProperty(element, key, name);
+                notifications.afterFlush(() -> webQueueRepository.broadcastPublishProperty(element, key, name), failure(data));
                 foundProperty = true;
             } else if (publishNewProperty(elementMutation, property, workspaceId)) {
                 elementMutation.save(authorizations);
-                graph.flush();
-                webQueueRepository.broadcastPublishProperty(element, key, name);
+                notifications.afterFlush(() -> webQueueRepository.broadcastPublishProperty(element, key, name), failure(data));
                 foundProperty = true;
             }
 
@@ -660,6 +727,10 @@ public class WorkspacePublishHelper {
                 }
             }
         }
+        if (!foundProperty && notifications.isRetry() && Arrays.asList(sandboxStatuses).contains(SandboxStatus.PUBLIC)) {
+            notifications.afterFlush(() -> webQueueRepository.broadcastPublishProperty(element, key, name), failure(data));
+            return;
+        }
         if (!foundProperty) {
             throw new BcException(String.format(
                     "no property with key '%s' and name '%s' found on workspace '%s'",
@@ -670,6 +741,14 @@ public class WorkspacePublishHelper {
         }
     }
 
+    private void broadcastPropertyDelete(Element element, String key, String name, long beforeActionTimestamp) {
+        webQueueRepository.broadcastPublishPropertyDelete(element, key, name);
+        if (webQueueRepository.shouldBroadcastGraphPropertyChange(name, Priority.HIGH)) {
+            webQueueRepository.broadcastPropertyChange(element, key, name, null);
+        }
+        workQueueRepository.pushGraphPropertyQueue(element, key, name, null, null, Priority.HIGH, ElementOrPropertyStatus.DELETION, beforeActionTimestamp);
+    }
+
     private boolean publishNewProperty(ExistingElementMutation elementMutation, Property property, String workspaceId) {
         VisibilityJson visibilityJson = BcSchema.VISIBILITY_JSON_METADATA.getMetadataValue(property.getMetadata());
         if (visibilityJson == null) {
@@ -709,27 +788,29 @@ public class WorkspacePublishHelper {
             Edge edge,
             @SuppressWarnings("UnusedParameters") Vertex outVertex,
             Vertex inVertex,
-            ClientApiPublishItem.Action action,
+            ClientApiPublishItem data,
             String workspaceId,
-            Authorizations authorizations
+            Authorizations authorizations,
+            DeferredNotifications notifications
     ) {
-        if (action == ClientApiPublishItem.Action.DELETE || WorkspaceDiffHelper.isPublicDelete(edge, authorizations)) {
+        if (data.getAction() == ClientApiPublishItem.Action.DELETE || WorkspaceDiffHelper.isPublicDelete(edge, authorizations)) {
             long beforeDeletionTimestamp = System.currentTimeMillis() - 1;
             graph.softDeleteEdge(edge, authorizations);
-            graph.flush();
-
-            webQueueRepository.broadcastPublishEdgeDelete(edge);
-            webQueueRepository.broadcastPropertyChange(edge, null, null, null);
-            workQueueRepository.pushGraphPropertyQueue(
-                    edge,
-                    null,
-                    null,
-                    null,
-                    null,
-                    Priority.HIGH,
-                    ElementOrPropertyStatus.DELETION,
-                    beforeDeletionTimestamp
-            );
+
+            notifications.afterFlush(() -> {
+                webQueueRepository.broadcastPublishEdgeDelete(edge);
+                webQueueRepository.broadcastPropertyChange(edge, null, null, null);
+                workQueueRepository.pushGraphPropertyQueue(
+                        edge,
+                        null,
+                        null,
+                        null,
+                        null,
+                        Priority.HIGH,
+                        ElementOrPropertyStatus.DELETION,
+                        beforeDeletionTimestamp
+                );
+            }, failure(data));
             return;
         }
 
@@ -785,19 +866,17 @@ public class WorkspacePublishHelper {
                 visibilityJson,
                 visibilityTranslator.getDefaultVisibility()
         );
-        edge = edgeExistingElementMutation.save(authorizations);
-        graph.flush();
+        Edge publishedEdge = edgeExistingElementMutation.save(authorizations);
 
         for (Vertex termMention : termMentionRepository.findResolvedTo(inVertex.getId(), authorizations)) {
             termMentionRepository.updateVisibility(termMention, bcVisibility.getVisibility(), authorizations);
         }
 
-        for (Vertex termMention : termMentionRepository.findByEdgeForEdge(edge, authorizations)) {
+        for (Vertex termMention : termMentionRepository.findByEdgeForEdge(publishedEdge, authorizations)) {
             termMentionRepository.updateVisibility(termMention, bcVisibility.getVisibility(), authorizations);
         }
 
-        graph.flush();
-        webQueueRepository.broadcastPublishEdge(edge);
+        notifications.afterFlush(() -> webQueueRepository.broadcastPublishEdge(publishedEdge), failure(data));
     }
 
     private boolean shouldAutoPublishElementProperty(Property property, boolean userVisible) {
@@ -844,31 +923,124 @@ public class WorkspacePublishHelper {
         LOGGER.warn("new has image edge without a glyph icon property being set on vertex %s", entityVertex.getId());
     }
 
-    private Element getPropertyElement(ClientApiPropertyPublishItem data, Authorizations authorizations) {
+    private void recordPublishedItem(ClientApiPublishItem data, String workspaceId) {
+        if (data instanceof ClientApiVertexPublishItem) {
+            workspaceChangeJournal.recordVertex(workspaceId, ((ClientApiVertexPublishItem) data).getVertexId());
+        } else if (data instanceof ClientApiRelationshipPublishItem) {
+            workspaceChangeJournal.recordEdge(workspaceId, ((ClientApiRelationshipPublishItem) data).getEdgeId());
+        } else if (data instanceof ClientApiPropertyPublishItem) {
+            ClientApiPropertyPublishItem propertyPublishItem = (ClientApiPropertyPublishItem) data;
+            workspaceChangeJournal.recordEdge(workspaceId, propertyPublishItem.getEdgeId());
+            workspaceChangeJournal.recordVertex(workspaceId, propertyPublishItem.getVertexId());
+            // elementId does not say whether it is a vertex or an edge
+            workspaceChangeJournal.recordVertex(workspaceId, propertyPublishItem.getElementId());
+            workspaceChangeJournal.recordEdge(workspaceId, propertyPublishItem.getElementId());
+        }
+    }
+
+    private Element getPropertyElement(
+            ClientApiPropertyPublishItem data,
+            Map<String, Vertex> verticesById,
+            Map<String, Edge> edgesById
+    ) {
         Element element = null;
 
         String elementId = data.getEdgeId();
         if (elementId != null) {
-            element = graph.getEdge(elementId, FetchHints.ALL_INCLUDING_HIDDEN, authorizations);
+            element = edgesById.get(elementId);
         }
 
         if (element == null) {
             elementId = data.getVertexId();
             if (elementId != null) {
-                element = graph.getVertex(elementId, FetchHints.ALL_INCLUDING_HIDDEN, authorizations);
+                element = verticesById.get(elementId);
             }
         }
 
         if (element == null) {
             elementId = data.getElementId();
             checkNotNull(elementId, "elementId, vertexId, or edgeId is required to publish a property");
-            element = graph.getVertex(elementId, FetchHints.ALL_INCLUDING_HIDDEN, authorizations);
+            element = verticesById.get(elementId);
             if (element == null) {
-                element = graph.getEdge(elementId, FetchHints.ALL_INCLUDING_HIDDEN, authorizations);
+                element = edgesById.get(elementId);
             }
         }
 
         checkNotNull(element, "Could not find edge/vertex with id: " + elementId);
         return element;
     }
+
+    private static void addIfNotNull(Set<String> ids, String id) {
+        if (id != null) {
+            ids.add(id);
+        }
+    }
+
+    private static <T extends Element> Map<String, T> toMapById(Iterable<T> elements) {
+        Map<String, T> result = new HashMap<>();
+        for (T element : elements) {
+            result.put(element.getId(), element);
+        }
+        CloseableUtils.closeQuietly(elements);
+        return result;
+    }
+
+    /**
+     * Publishes the items of one phase with a single flush, see {@link DeferredNotifications#applyAll}. An item found
+     * already published or deleted when it is published again after a failed flush was written by that flush, so it
+     * is reported as published.
+     */
+    private <T extends ClientApiPublishItem> void runPhase(
+            String phase,
+            List<T> items,
+            BiConsumer<List<T>, DeferredNotifications> publisher
+    ) {
+        DeferredNotifications.applyAll(
+                graph,
+                "published " + phase,
+                items,
+                item -> item.getErrorMessage() != null,
+                publisher,
+                (item, ex) -> item.setErrorMessage(ex.getMessage())
+        );
+    }
+
+    /**
+     * Runs the tasks on the calling thread, helped by at most {@link WebOptions#WORKSPACE_PUBLISH_THREADS} pool
+     * threads. The pool is shared by every publish request, so the calling thread keeps taking tasks itself and
+     * never waits for helpers that are still queued behind other publishes. Tasks must report their own failures.
+     */
+    private void runAll(List<Runnable> tasks) {
+        Queue<Runnable> queue = new ConcurrentLinkedQueue<>(tasks);
+        CountDownLatch done = new CountDownLatch(tasks.size());
+        Runnable drain = () -> {
+            Runnable task;
+            while ((task = queue.poll()) != null) {
+                try {
+                    task.run();
+                } finally {
+                    done.countDown();
+                }
+            }
+        };
+        int helpers = Math.min(publishThreads, tasks.size() - 1);
+        for (int i = 0; i < helpers; i++) {
+            executor.execute(drain);
+        }
+        drain.run();
+        try {
+            done.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new BcException("Interrupted while publishing", ex);
+        }
+    }
+
+    private static boolean isDeletedByFailedFlush(ClientApiPublishItem data, DeferredNotifications notifications) {
+        return notifications.isRetry() && data.getAction() == ClientApiPublishItem.Action.DELETE;
+    }
+
+    private static Consumer<Exception> failure(ClientApiPublishItem data) {
+        return ex -> data.setErrorMessage(ex.getMessage());
+    }
 }
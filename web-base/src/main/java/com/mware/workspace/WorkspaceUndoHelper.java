@@ -38,6 +38,7 @@ package com.mware.workspace;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import com.mware.core.exception.BcResourceNotFoundException;
 import com.mware.core.ingest.dataworker.ElementOrPropertyStatus;
 import com.mware.core.model.clientapi.dto.SandboxStatus;
 import com.mware.core.model.workQueue.Priority;
@@ -48,14 +49,19 @@ import com.mware.core.util.BcLogger;
 import com.mware.core.util.BcLoggerFactory;
 import com.mware.core.util.SandboxStatusUtil;
 import com.mware.ge.*;
+import com.mware.ge.util.CloseableUtils;
 import com.mware.ge.util.IterableUtils;
 import com.mware.web.model.*;
-import org.json.JSONArray;
 
-import java.util.List;
-
-import static com.google.common.base.Preconditions.checkNotNull;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
+/**
+ * Undoes sandboxed workspace changes. All the elements the undo items refer to are loaded and sorted into vertex,
+ * edge and property work up front, then each of the three phases is applied with a single flush. Items made
+ * redundant by an earlier phase (e.g. the properties of a vertex that is being removed) are skipped.
+ */
 @Singleton
 public class WorkspaceUndoHelper {
     private static final BcLogger LOGGER = BcLoggerFactory.getLogger(WorkspaceUndoHelper.class);
@@ -63,6 +69,7 @@ public class WorkspaceUndoHelper {
     private final Graph graph;
     private final WorkQueueRepository workQueueRepository;
     private final WebQueueRepository webQueueRepository;
+    private final WorkspaceChangeJournal workspaceChangeJournal;
     private final WorkspaceHelper workspaceHelper;
 
     @Inject
@@ -70,155 +77,237 @@ public class WorkspaceUndoHelper {
             Graph graph,
             WorkspaceHelper workspaceHelper,
             WorkQueueRepository workQueueRepository,
-            WebQueueRepository webQueueRepository
+            WebQueueRepository webQueueRepository,
+            WorkspaceChangeJournal workspaceChangeJournal
     ) {
         this.graph = graph;
         this.workspaceHelper = workspaceHelper;
         this.workQueueRepository = workQueueRepository;
         this.webQueueRepository = webQueueRepository;
+        this.workspaceChangeJournal = workspaceChangeJournal;
     }
 
     public void undo(Iterable<ClientApiUndoItem> undoItems, ClientApiWorkspaceUndoResponse workspaceUndoResponse,
                      String workspaceId, User user, Authorizations authorizations) {
-        undoVertices(undoItems, workspaceUndoResponse, workspaceId, user, authorizations);
-        undoEdges(undoItems, workspaceUndoResponse, workspaceId, user, authorizations);
-        undoProperties(undoItems, workspaceUndoResponse, workspaceId, authorizations);
+        undo(undoItems, workspaceUndoResponse, workspaceId, user, authorizations, null);
     }
 
-    private void undoVertices(Iterable<ClientApiUndoItem> undoItems, ClientApiWorkspaceUndoResponse workspaceUndoResponse,
-                              String workspaceId, User user, Authorizations authorizations) {
-        LOGGER.debug("BEGIN undoVertices");
-        JSONArray verticesDeleted = new JSONArray();
+    public void undo(Iterable<ClientApiUndoItem> undoItems, ClientApiWorkspaceUndoResponse workspaceUndoResponse,
+                     String workspaceId, User user, Authorizations authorizations, ProgressListener progressListener) {
+        UndoPlan plan = plan(undoItems, workspaceUndoResponse, authorizations, progressListener);
+        undoVertices(plan, workspaceId, user, authorizations);
+        undoEdges(plan, workspaceId, user, authorizations);
+        undoProperties(plan, workspaceId, authorizations);
         for (ClientApiUndoItem undoItem : undoItems) {
-            try {
-                if (!(undoItem instanceof ClientApiVertexUndoItem)) {
-                    continue;
-                }
-                ClientApiVertexUndoItem vertexUndoItem = (ClientApiVertexUndoItem) undoItem;
-                String vertexId = vertexUndoItem.getVertexId();
-                checkNotNull(vertexId);
-                Vertex vertex = graph.getVertex(vertexId, FetchHints.ALL_INCLUDING_HIDDEN, authorizations);
-                checkNotNull(vertex);
-                if (WorkspaceDiffHelper.isPublicDelete(vertex, authorizations)) {
-                    LOGGER.debug("un-hiding vertex: %s (workspaceId: %s)", vertex.getId(), workspaceId);
-                    // TODO see WorkspaceHelper.deleteVertex for all the other things we need to bring back
-                    graph.markVertexVisible(vertex, new Visibility(workspaceId), authorizations);
-
-                    for (Property property : vertex.getProperties()) {
-                        undoProperties(
-                                property.getKey(), property.getName(), property.getVisibility().getVisibilityString(),
-                                vertex, workspaceId, authorizations);
-                    }
+            recordUndoneItem(undoItem, workspaceId);
+        }
+    }
 
-                    graph.flush();
-                    webQueueRepository.broadcastUndoVertexDelete(vertex);
-                    webQueueRepository.broadcastPropertyChange(vertex, null, null, null);
-                    workQueueRepository.pushGraphPropertyQueue(vertex, null, null, null, null, Priority.HIGH, ElementOrPropertyStatus.UNHIDDEN, null);
+    public interface ProgressListener {
+        void itemsUndone(int undone, int total);
+    }
 
-                } else if (SandboxStatusUtil.getSandboxStatus(vertex, workspaceId) == SandboxStatus.PUBLIC) {
-                    LOGGER.warn("Cannot undo a public vertex");
+    private UndoPlan plan(Iterable<ClientApiUndoItem> undoItems, ClientApiWorkspaceUndoResponse workspaceUndoResponse,
+                          Authorizations authorizations, ProgressListener progressListener) {
+        LOGGER.debug("BEGIN plan");
+        UndoPlan plan = new UndoPlan(workspaceUndoResponse, progressListener);
+        Set<String> vertexIds = new HashSet<>();
+        Set<String> edgeIds = new HashSet<>();
+        for (ClientApiUndoItem undoItem : undoItems) {
+            plan.total++;
+            if (undoItem instanceof ClientApiVertexUndoItem) {
+                addIfNotNull(vertexIds, ((ClientApiVertexUndoItem) undoItem).getVertexId());
+            } else if (undoItem instanceof ClientApiRelationshipUndoItem) {
+                addIfNotNull(edgeIds, ((ClientApiRelationshipUndoItem) undoItem).getEdgeId());
+            } else if (undoItem instanceof ClientApiPropertyUndoItem) {
+                ClientApiPropertyUndoItem propertyUndoItem = (ClientApiPropertyUndoItem) undoItem;
+                if (propertyUndoItem.getEdgeId() != null) {
+                    edgeIds.add(propertyUndoItem.getEdgeId());
                 } else {
-                    workspaceHelper.deleteVertex(vertex, workspaceId, false, Priority.HIGH, authorizations, user);
-                    verticesDeleted.put(vertexId);
-                    graph.flush();
-                    webQueueRepository.broadcastUndoVertex(vertex);
+                    addIfNotNull(vertexIds, propertyUndoItem.getVertexId());
                 }
-            } catch (Exception ex) {
-                LOGGER.error("Error undoing %s", undoItem.toString(), ex);
-                undoItem.setErrorMessage(ex.getMessage());
-                workspaceUndoResponse.addFailure(undoItem);
             }
         }
-        LOGGER.debug("END undoVertices");
-        if (verticesDeleted.length() > 0) {
-            webQueueRepository.broadcastVerticesDeletion(verticesDeleted);
+
+        Map<String, Vertex> verticesById = toMapById(graph.getVertices(vertexIds, FetchHints.ALL_INCLUDING_HIDDEN, authorizations));
+        Map<String, Edge> edgesById = toMapById(graph.getEdges(edgeIds, FetchHints.ALL_INCLUDING_HIDDEN, authorizations));
+        Set<String> edgeVertexIds = new HashSet<>();
+        for (Edge edge : edgesById.values()) {
+            edgeVertexIds.add(edge.getVertexId(Direction.OUT));
+            edgeVertexIds.add(edge.getVertexId(Direction.IN));
         }
-        graph.flush();
-    }
+        Map<String, Vertex> edgeVerticesById = toMapById(graph.getVertices(edgeVertexIds, authorizations));
 
-    private void undoEdges(Iterable<ClientApiUndoItem> undoItems, ClientApiWorkspaceUndoResponse workspaceUndoResponse,
-                           String workspaceId, User user, Authorizations authorizations) {
-        LOGGER.debug("BEGIN undoEdges");
         for (ClientApiUndoItem undoItem : undoItems) {
-            try {
-                if (!(undoItem instanceof ClientApiRelationshipUndoItem)) {
+            if (undoItem instanceof ClientApiVertexUndoItem) {
+                String vertexId = ((ClientApiVertexUndoItem) undoItem).getVertexId();
+                Vertex vertex = vertexId == null ? null : verticesById.get(vertexId);
+                if (vertex == null) {
+                    plan.fail(undoItem, "Unable to load vertex with id " + vertexId);
+                    plan.skip();
                     continue;
                 }
-
-                ClientApiRelationshipUndoItem relationshipUndoItem = (ClientApiRelationshipUndoItem) undoItem;
-                Edge edge = graph.getEdge(relationshipUndoItem.getEdgeId(), FetchHints.ALL_INCLUDING_HIDDEN, authorizations);
-                if (edge == null) {
+                plan.vertices.add(new Planned<>(undoItem, vertex));
+            } else if (undoItem instanceof ClientApiRelationshipUndoItem) {
+                Edge edge = edgesById.get(((ClientApiRelationshipUndoItem) undoItem).getEdgeId());
+                Vertex outVertex = edge == null ? null : edgeVerticesById.get(edge.getVertexId(Direction.OUT));
+                Vertex inVertex = edge == null ? null : edgeVerticesById.get(edge.getVertexId(Direction.IN));
+                if (outVertex == null || inVertex == null) {
+                    plan.skip();
                     continue;
                 }
-                Vertex outVertex = edge.getVertex(Direction.OUT, authorizations);
-                Vertex inVertex = edge.getVertex(Direction.IN, authorizations);
-                if (outVertex == null || inVertex == null) {
+                plan.edges.add(new PlannedEdge(undoItem, edge, outVertex, inVertex));
+            } else if (undoItem instanceof ClientApiPropertyUndoItem) {
+                ClientApiPropertyUndoItem propertyUndoItem = (ClientApiPropertyUndoItem) undoItem;
+                Element element = propertyUndoItem.getEdgeId() != null
+                        ? edgesById.get(propertyUndoItem.getEdgeId())
+                        : verticesById.get(propertyUndoItem.getVertexId());
+                if (element == null) {
+                    plan.skip();
                     continue;
                 }
+                plan.properties.add(new Planned<>(propertyUndoItem, element));
+            } else {
+                plan.skip();
+            }
+        }
+        LOGGER.debug("END plan");
+        return plan;
+    }
 
-                checkNotNull(edge);
-
-                if (WorkspaceDiffHelper.isPublicDelete(edge, authorizations)) {
-                    LOGGER.debug("un-hiding edge: %s (workspaceId: %s)", edge.getId(), workspaceId);
-                    // TODO see workspaceHelper.deleteEdge for all the other things we need to bring back
-                    graph.markEdgeVisible(edge, new Visibility(workspaceId), authorizations);
-                    graph.flush();
-                    webQueueRepository.broadcastUndoEdgeDelete(edge);
-                    webQueueRepository.broadcastPropertyChange(edge, null, null, null);
-                    workQueueRepository.pushGraphPropertyQueue(edge, null, null, null, null, Priority.HIGH, ElementOrPropertyStatus.UNHIDDEN, null);
-
-                } else if (SandboxStatusUtil.getSandboxStatus(edge, workspaceId) == SandboxStatus.PUBLIC) {
-                    LOGGER.warn("Cannot undo a public edge");
+    private void undoVertices(UndoPlan plan, String workspaceId, User user, Authorizations authorizations) {
+        LOGGER.debug("BEGIN undoVertices");
+        List<Planned<Vertex>> hidden = new ArrayList<>();
+        List<Planned<Vertex>> sandboxed = new ArrayList<>();
+        for (Planned<Vertex> planned : plan.vertices) {
+            try {
+                if (WorkspaceDiffHelper.isPublicDelete(planned.element, authorizations)) {
+                    hidden.add(planned);
+                } else if (SandboxStatusUtil.getSandboxStatus(planned.element, workspaceId) == SandboxStatus.PUBLIC) {
+                    LOGGER.warn("Cannot undo a public vertex");
                 } else {
-                    workspaceHelper.deleteEdge(workspaceId, edge, outVertex, inVertex, false, Priority.HIGH, authorizations, user);
-                    graph.flush();
-                    webQueueRepository.broadcastUndoEdge(edge);
+                    sandboxed.add(planned);
                 }
             } catch (Exception ex) {
-                LOGGER.error("Error publishing %s", undoItem.toString(), ex);
-                undoItem.setErrorMessage(ex.getMessage());
-                workspaceUndoResponse.addFailure(undoItem);
+                plan.fail(planned.undoItem, ex);
+            } finally {
+                plan.itemDone();
             }
         }
-        LOGGER.debug("END undoEdges");
-        graph.flush();
+        applyAll(plan, "un-hidden vertices", hidden, (planned, notifications) -> {
+            Vertex vertex = planned.element;
+            LOGGER.debug("un-hiding vertex: %s (workspaceId: %s)", vertex.getId(), workspaceId);
+            // TODO see WorkspaceHelper.deleteVertex for all the other things we need to bring back
+            graph.markVertexVisible(vertex, new Visibility(workspaceId), authorizations);
+
+            for (Property property : vertex.getProperties()) {
+                undoProperties(
+                        property.getKey(), property.getName(), property.getVisibility().getVisibilityString(),
+                        vertex, workspaceId, authorizations, notifications, plan.failure(planned.undoItem));
+            }
+            plan.unhiddenVertexIds.add(vertex.getId());
+
+            notifications.afterFlush(() -> {
+                webQueueRepository.broadcastUndoVertexDelete(vertex);
+                webQueueRepository.broadcastPropertyChange(vertex, null, null, null);
+                workQueueRepository.pushGraphPropertyQueue(vertex, null, null, null, null, Priority.HIGH, ElementOrPropertyStatus.UNHIDDEN, null);
+            }, plan.failure(planned.undoItem));
+        });
+
+        List<Vertex> vertices = new ArrayList<>();
+        for (Planned<Vertex> planned : sandboxed) {
+            vertices.add(planned.element);
+        }
+        try {
+            workspaceHelper.deleteVertices(vertices, workspaceId, Priority.HIGH, authorizations, user);
+            for (Planned<Vertex> planned : sandboxed) {
+                plan.removedElementIds.add(planned.element.getId());
+                webQueueRepository.broadcastUndoVertex(planned.element);
+            }
+        } catch (Exception ex) {
+            sandboxed.forEach(planned -> plan.fail(planned.undoItem, ex));
+        }
+        LOGGER.debug("END undoVertices");
     }
 
-    private void undoProperties(
-            Iterable<ClientApiUndoItem> undoItems, ClientApiWorkspaceUndoResponse workspaceUndoResponse,
-            String workspaceId, Authorizations authorizations) {
-        LOGGER.debug("BEGIN undoProperties");
-        for (ClientApiUndoItem undoItem : undoItems) {
+    private void undoEdges(UndoPlan plan, String workspaceId, User user, Authorizations authorizations) {
+        LOGGER.debug("BEGIN undoEdges");
+        List<PlannedEdge> hidden = new ArrayList<>();
+        List<PlannedEdge> sandboxed = new ArrayList<>();
+        for (PlannedEdge planned : plan.edges) {
+            Edge edge = planned.element;
             try {
-                if (!(undoItem instanceof ClientApiPropertyUndoItem)) {
+                // the edge was already removed together with one of its vertices
+                if (plan.removedElementIds.contains(planned.outVertex.getId())
+                        || plan.removedElementIds.contains(planned.inVertex.getId())) {
                     continue;
                 }
-                ClientApiPropertyUndoItem propertyUndoItem = (ClientApiPropertyUndoItem) undoItem;
-                Element element;
-                if (propertyUndoItem.getEdgeId() != null) {
-                    element = graph.getEdge(propertyUndoItem.getEdgeId(), FetchHints.ALL_INCLUDING_HIDDEN, authorizations);
+
+                if (WorkspaceDiffHelper.isPublicDelete(edge, authorizations)) {
+                    hidden.add(planned);
+                } else if (SandboxStatusUtil.getSandboxStatus(edge, workspaceId) == SandboxStatus.PUBLIC) {
+                    LOGGER.warn("Cannot undo a public edge");
                 } else {
-                    element = graph.getVertex(propertyUndoItem.getVertexId(), FetchHints.ALL_INCLUDING_HIDDEN, authorizations);
-                }
-                if (element == null) {
-                    continue;
+                    sandboxed.add(planned);
                 }
-                undoProperties(
-                        propertyUndoItem.getKey(), propertyUndoItem.getName(), propertyUndoItem.getVisibilityString(),
-                        element, workspaceId, authorizations);
             } catch (Exception ex) {
-                LOGGER.error("Error publishing %s", undoItem.toString(), ex);
-                undoItem.setErrorMessage(ex.getMessage());
-                workspaceUndoResponse.addFailure(undoItem);
+                plan.fail(planned.undoItem, ex);
+            } finally {
+                plan.itemDone();
+            }
+        }
+        applyAll(plan, "un-hidden edges", hidden, (planned, notifications) -> {
+            Edge edge = planned.element;
+            LOGGER.debug("un-hiding edge: %s (workspaceId: %s)", edge.getId(), workspaceId);
+            // TODO see workspaceHelper.deleteEdge for all the other things we need to bring back
+            graph.markEdgeVisible(edge, new Visibility(workspaceId), authorizations);
+            notifications.afterFlush(() -> {
+                webQueueRepository.broadcastUndoEdgeDelete(edge);
+                webQueueRepository.broadcastPropertyChange(edge, null, null, null);
+                workQueueRepository.pushGraphPropertyQueue(edge, null, null, null, null, Priority.HIGH, ElementOrPropertyStatus.UNHIDDEN, null);
+            }, plan.failure(planned.undoItem));
+        });
+
+        List<Edge> edges = new ArrayList<>();
+        for (PlannedEdge planned : sandboxed) {
+            edges.add(planned.element);
+        }
+        try {
+            workspaceHelper.deleteEdges(edges, workspaceId, Priority.HIGH, authorizations, user);
+            for (PlannedEdge planned : sandboxed) {
+                plan.removedElementIds.add(planned.element.getId());
+                webQueueRepository.broadcastUndoEdge(planned.element);
+            }
+        } catch (Exception ex) {
+            sandboxed.forEach(planned -> plan.fail(planned.undoItem, ex));
+        }
+        LOGGER.debug("END undoEdges");
+    }
+
+    private void undoProperties(UndoPlan plan, String workspaceId, Authorizations authorizations) {
+        LOGGER.debug("BEGIN undoProperties");
+        List<Planned<Element>> properties = new ArrayList<>();
+        for (Planned<Element> planned : plan.properties) {
+            // removed, or already restored together with its vertex
+            if (!plan.removedElementIds.contains(planned.element.getId())
+                    && !plan.unhiddenVertexIds.contains(planned.element.getId())) {
+                properties.add(planned);
             }
+            plan.itemDone();
         }
-        LOGGER.debug("End undoProperties");
-        graph.flush();
+        applyAll(plan, "undone properties", properties, (planned, notifications) -> {
+            ClientApiPropertyUndoItem propertyUndoItem = (ClientApiPropertyUndoItem) planned.undoItem;
+            undoProperties(
+                    propertyUndoItem.getKey(), propertyUndoItem.getName(), propertyUndoItem.getVisibilityString(),
+                    planned.element, workspaceId, authorizations, notifications, plan.failure(propertyUndoItem));
+        });
+        LOGGER.debug("END undoProperties");
     }
 
     private void undoProperties(
             String propertyKey, String propertyName, String propertyVisibilityString, Element element,
-            String workspaceId, Authorizations authorizations) {
+            String workspaceId, Authorizations authorizations, DeferredNotifications notifications,
+            Consumer<Exception> onFailure) {
         List<Property> properties = IterableUtils.toList(element.getProperties(propertyKey, propertyName));
         SandboxStatus[] sandboxStatuses = SandboxStatusUtil.getPropertySandboxStatuses(properties, workspaceId);
         Property publicProperty = null;
@@ -243,22 +332,8 @@ public class WorkspaceUndoHelper {
                 if (publicProperty == null) {
                     LOGGER.debug("un-hiding property: %s (workspaceId: %s)", property, workspaceId);
                     element.markPropertyVisible(property, new Visibility(workspaceId), authorizations);
-                    graph.flush();
-
-                    webQueueRepository.broadcastUndoPropertyDelete(element, propertyKey, propertyName);
-                    if(webQueueRepository.shouldBroadcastGraphPropertyChange(propertyName, Priority.HIGH)) {
-                        webQueueRepository.broadcastPropertyChange(element, propertyKey, propertyName, null);
-                    }
-                    workQueueRepository.pushGraphPropertyQueue(
-                            element,
-                            propertyKey,
-                            propertyName,
-                            null,
-                            null,
-                            Priority.HIGH,
-                            ElementOrPropertyStatus.UNHIDDEN,
-                            null
-                    );
+                    notifications.afterFlush(() -> broadcastUndoPropertyDelete(
+                            element, propertyKey, propertyName, ElementOrPropertyStatus.UNHIDDEN, null), onFailure);
                 }
             } else if (propertySandboxStatus == SandboxStatus.PUBLIC) {
                 LOGGER.warn("Cannot undo a public property");
@@ -267,28 +342,154 @@ public class WorkspaceUndoHelper {
                 element.softDeleteProperty(propertyKey, propertyName, property.getVisibility(), authorizations);
                 if (publicProperty != null) {
                     element.markPropertyVisible(publicProperty, new Visibility(workspaceId), authorizations);
-                    graph.flush();
+                    notifications.afterFlush(() -> broadcastUndoPropertyDelete(
+                            element, propertyKey, propertyName, ElementOrPropertyStatus.UNHIDDEN, null), onFailure);
+                } else {
+                    notifications.afterFlush(() -> broadcastUndoPropertyDelete(
+                            element, propertyKey, propertyName, ElementOrPropertyStatus.DELETION, beforeActionTimestamp), onFailure);
+                }
+            } else {
+                workspaceHelper.deleteProperty(element, property, false, workspaceId, Priority.HIGH, authorizations, notifications);
+                notifications.afterFlush(() -> webQueueRepository.broadcastUndoProperty(element, propertyKey, propertyName), onFailure);
+            }
+        }
+    }
 
-                    webQueueRepository.broadcastUndoPropertyDelete(element, propertyKey, propertyName);
-                    if(webQueueRepository.shouldBroadcastGraphPropertyChange(propertyName, Priority.HIGH)) {
-                        webQueueRepository.broadcastPropertyChange(element, propertyKey, propertyName, null);
+    /**
+     * Applies the items of one phase with a single flush, see {@link DeferredNotifications#applyAll}. Undoing an item
+     * again finds the changes a failed flush already wrote un-hidden or removed and leaves them as they are.
+     */
+    private <T extends Planned<?>> void applyAll(
+            UndoPlan plan,
+            String description,
+            List<T> items,
+            BiConsumer<T, DeferredNotifications> undo
+    ) {
+        DeferredNotifications.applyAll(
+                graph,
+                description,
+                items,
+                planned -> plan.isFailed(planned.undoItem),
+                (batch, notifications) -> {
+                    for (T planned : batch) {
+                        try {
+                            undo.accept(planned, notifications);
+                        } catch (Exception ex) {
+                            plan.fail(planned.undoItem, ex);
+                        }
                     }
-                    workQueueRepository.pushGraphPropertyQueue(element, propertyKey, propertyName, null, null, Priority.HIGH, ElementOrPropertyStatus.UNHIDDEN, null);
+                },
+                (planned, ex) -> plan.fail(planned.undoItem, ex)
+        );
+    }
 
-                } else {
-                    graph.flush();
+    private void broadcastUndoPropertyDelete(
+            Element element, String propertyKey, String propertyName, ElementOrPropertyStatus status, Long beforeActionTimestamp) {
+        webQueueRepository.broadcastUndoPropertyDelete(element, propertyKey, propertyName);
+        if (webQueueRepository.shouldBroadcastGraphPropertyChange(propertyName, Priority.HIGH)) {
+            webQueueRepository.broadcastPropertyChange(element, propertyKey, propertyName, null);
+        }
+        workQueueRepository.pushGraphPropertyQueue(element, propertyKey, propertyName, null, null, Priority.HIGH, status, beforeActionTimestamp);
+    }
 
-                    webQueueRepository.broadcastUndoPropertyDelete(element, propertyKey, propertyName);
-                    if(webQueueRepository.shouldBroadcastGraphPropertyChange(propertyName, Priority.HIGH)) {
-                        webQueueRepository.broadcastPropertyChange(element, propertyKey, propertyName, null);
-                    }
-                    workQueueRepository.pushGraphPropertyQueue(element, propertyKey, propertyName, null, null, Priority.HIGH, ElementOrPropertyStatus.DELETION, beforeActionTimestamp);
-                }
-            } else {
-                workspaceHelper.deleteProperty(element, property, false, workspaceId, Priority.HIGH, authorizations);
-                graph.flush();
-                webQueueRepository.broadcastUndoProperty(element, propertyKey, propertyName);
+    private void recordUndoneItem(ClientApiUndoItem undoItem, String workspaceId) {
+        if (undoItem instanceof ClientApiVertexUndoItem) {
+            workspaceChangeJournal.recordVertex(workspaceId, ((ClientApiVertexUndoItem) undoItem).getVertexId());
+        } else if (undoItem instanceof ClientApiRelationshipUndoItem) {
+            workspaceChangeJournal.recordEdge(workspaceId, ((ClientApiRelationshipUndoItem) undoItem).getEdgeId());
+        } else if (undoItem instanceof ClientApiPropertyUndoItem) {
+            ClientApiPropertyUndoItem propertyUndoItem = (ClientApiPropertyUndoItem) undoItem;
+            workspaceChangeJournal.recordEdge(workspaceId, propertyUndoItem.getEdgeId());
+            workspaceChangeJournal.recordVertex(workspaceId, propertyUndoItem.getVertexId());
+            workspaceChangeJournal.recordVertex(workspaceId, propertyUndoItem.getElementId());
+            workspaceChangeJournal.recordEdge(workspaceId, propertyUndoItem.getElementId());
+        }
+    }
+
+    private static void addIfNotNull(Set<String> ids, String id) {
+        if (id != null) {
+            ids.add(id);
+        }
+    }
+
+    private static <T extends Element> Map<String, T> toMapById(Iterable<T> elements) {
+        Map<String, T> result = new HashMap<>();
+        for (T element : elements) {
+            result.put(element.getId(), element);
+        }
+        CloseableUtils.closeQuietly(elements);
+        return result;
+    }
+
+    private static class Planned<T extends Element> {
+        final ClientApiUndoItem undoItem;
+        final T element;
+
+        Planned(ClientApiUndoItem undoItem, T element) {
+            this.undoItem = undoItem;
+            this.element = element;
+        }
+    }
+
+    private static class PlannedEdge extends Planned<Edge> {
+        final Vertex outVertex;
+        final Vertex inVertex;
+
+        PlannedEdge(ClientApiUndoItem undoItem, Edge edge, Vertex outVertex, Vertex inVertex) {
+            super(undoItem, edge);
+            this.outVertex = outVertex;
+            this.inVertex = inVertex;
+        }
+    }
+
+    private static class UndoPlan {
+        private static final int PROGRESS_INTERVAL = 100;
+
+        final List<Planned<Vertex>> vertices = new ArrayList<>();
+        final List<PlannedEdge> edges = new ArrayList<>();
+        final List<Planned<Element>> properties = new ArrayList<>();
+        final Set<String> removedElementIds = new HashSet<>();
+        final Set<String> unhiddenVertexIds = new HashSet<>();
+        private final ClientApiWorkspaceUndoResponse workspaceUndoResponse;
+        private final ProgressListener progressListener;
+        private final Set<ClientApiUndoItem> failed = Collections.newSetFromMap(new IdentityHashMap<>());
+        int total;
+        private int undone;
+
+        UndoPlan(ClientApiWorkspaceUndoResponse workspaceUndoResponse, ProgressListener progressListener) {
+            this.workspaceUndoResponse = workspaceUndoResponse;
+            this.progressListener = progressListener;
+        }
+
+        void skip() {
+            itemDone();
+        }
+
+        void itemDone() {
+            undone++;
+            if (progressListener != null && (undone % PROGRESS_INTERVAL == 0 || undone == total)) {
+                progressListener.itemsUndone(undone, total);
             }
         }
+
+        void fail(ClientApiUndoItem undoItem, String message) {
+            fail(undoItem, new BcResourceNotFoundException(message));
+        }
+
+        void fail(ClientApiUndoItem undoItem, Exception ex) {
+            LOGGER.error("Error undoing %s", undoItem.toString(), ex);
+            undoItem.setErrorMessage(ex.getMessage());
+            if (failed.add(undoItem)) {
+                workspaceUndoResponse.addFailure(undoItem);
+            }
+        }
+
+        boolean isFailed(ClientApiUndoItem undoItem) {
+            return failed.contains(undoItem);
+        }
+
+        Consumer<Exception> failure(ClientApiUndoItem undoItem) {
+            return ex -> fail(undoItem, ex);
+        }
     }
 }
@@ -0,0 +1,121 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.workspace;
+
+import com.google.inject.Inject;
+import com.mware.core.model.Description;
+import com.mware.core.model.Name;
+import com.mware.core.model.longRunningProcess.LongRunningProcessRepository;
+import com.mware.core.model.longRunningProcess.LongRunningProcessWorker;
+import com.mware.core.model.user.UserRepository;
+import com.mware.core.user.User;
+import com.mware.core.util.BcLogger;
+import com.mware.core.util.BcLoggerFactory;
+import com.mware.core.util.ClientApiConverter;
+import com.mware.ge.Authorizations;
+import com.mware.ge.Graph;
+import com.mware.web.model.ClientApiUndoItem;
+import com.mware.web.model.ClientApiWorkspaceUndoResponse;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.Arrays;
+import java.util.List;
+
+@Name("Workspace Undo")
+@Description("Undoes large sets of workspace changes in the background")
+public class WorkspaceUndoLongRunningProcess extends LongRunningProcessWorker {
+    private static final BcLogger LOGGER = BcLoggerFactory.getLogger(WorkspaceUndoLongRunningProcess.class);
+    public static final String TYPE = "workspace-undo";
+    // failureCount still has the total, the activity panel only lists this many
+    private static final int MAX_STORED_FAILURES = 100;
+
+    private Graph graph;
+    private UserRepository userRepository;
+    private LongRunningProcessRepository longRunningProcessRepository;
+    private WorkspaceUndoHelper workspaceUndoHelper;
+
+    @Override
+    public boolean isHandled(JSONObject longRunningProcessQueueItem) {
+        return TYPE.equals(longRunningProcessQueueItem.getString("type"));
+    }
+
+    @Override
+    protected void processInternal(final JSONObject longRunningProcessQueueItem) {
+        WorkspaceUndoQueueItem queueItem =
+                ClientApiConverter.toClientApi(longRunningProcessQueueItem.toString(), WorkspaceUndoQueueItem.class);
+        User user = userRepository.findById(queueItem.getUserId());
+        Authorizations authorizations = graph.createAuthorizations(queueItem.getAuthorizations());
+
+        ClientApiWorkspaceUndoResponse workspaceUndoResponse = new ClientApiWorkspaceUndoResponse();
+        longRunningProcessRepository.reportProgress(longRunningProcessQueueItem, 0, "Undoing");
+        workspaceUndoHelper.undo(
+                Arrays.asList(queueItem.toUndoItems()), workspaceUndoResponse, queueItem.getWorkspaceId(), user, authorizations,
+                (undone, total) -> longRunningProcessRepository.reportProgress(
+                        longRunningProcessQueueItem, (float) undone / total, "Undone " + undone + " of " + total));
+        if (!workspaceUndoResponse.isSuccess()) {
+            List<ClientApiUndoItem> failures = workspaceUndoResponse.getFailures();
+            LOGGER.warn("Undo in workspace %s finished with %d failures", queueItem.getWorkspaceId(), failures.size());
+            longRunningProcessQueueItem.put("failureCount", failures.size());
+            JSONArray storedFailures = new JSONArray();
+            for (ClientApiUndoItem failure : failures.subList(0, Math.min(failures.size(), MAX_STORED_FAILURES))) {
+                storedFailures.put(new JSONObject(ClientApiConverter.clientApiToString(failure)));
+            }
+            longRunningProcessQueueItem.put("failures", storedFailures);
+        }
+    }
+
+    @Inject
+    public void setGraph(Graph graph) {
+        this.graph = graph;
+    }
+
+    @Inject
+    public void setUserRepository(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    @Inject
+    public void setLongRunningProcessRepository(LongRunningProcessRepository longRunningProcessRepository) {
+        this.longRunningProcessRepository = longRunningProcessRepository;
+    }
+
+    @Inject
+    public void setWorkspaceUndoHelper(WorkspaceUndoHelper workspaceUndoHelper) {
+        this.workspaceUndoHelper = workspaceUndoHelper;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.workspace;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.mware.core.exception.BcException;
+import com.mware.core.model.clientapi.util.ObjectMapperFactory;
+import com.mware.core.util.ClientApiConverter;
+import com.mware.ge.Authorizations;
+import com.mware.web.model.ClientApiUndoItem;
+import org.json.JSONObject;
+
+import java.io.IOException;
+
+public class WorkspaceUndoQueueItem {
+    private String userId;
+    private String[] authorizations;
+    private String workspaceId;
+    private String type;
+    private String undoData;
+
+    public WorkspaceUndoQueueItem() {
+
+    }
+
+    public WorkspaceUndoQueueItem(String userId, Authorizations authorizations, String workspaceId, ClientApiUndoItem[] undoData) {
+        this.userId = userId;
+        this.authorizations = authorizations.getAuthorizations();
+        this.workspaceId = workspaceId;
+        this.type = WorkspaceUndoLongRunningProcess.TYPE;
+        // kept as a string, the undo items carry a "type" of their own
+        try {
+            this.undoData = ObjectMapperFactory.getInstance().writeValueAsString(undoData);
+        } catch (JsonProcessingException ex) {
+            throw new BcException("Could not serialize undo data", ex);
+        }
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String[] getAuthorizations() {
+        return authorizations;
+    }
+
+    public String getWorkspaceId() {
+        return workspaceId;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getUndoData() {
+        return undoData;
+    }
+
+    public ClientApiUndoItem[] toUndoItems() {
+        try {
+            return ObjectMapperFactory.getInstance().readValue(undoData, ClientApiUndoItem[].class);
+        } catch (IOException ex) {
+            throw new BcException("Could not read undo data", ex);
+        }
+    }
+
+    public JSONObject toJson() {
+        return new JSONObject(ClientApiConverter.clientApiToString(this));
+    }
+}
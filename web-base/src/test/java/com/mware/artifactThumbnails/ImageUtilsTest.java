@@ -0,0 +1,97 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.artifactThumbnails;
+
+import org.junit.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ImageUtilsTest {
+    @Test
+    public void testSubsamplingKeepsTwiceTheTargetSize() {
+        assertEquals(1, ImageUtils.subsamplingFactor(300, 300, 200));
+        assertEquals(15, ImageUtils.subsamplingFactor(8000, 6000, 200));
+        assertEquals(1, ImageUtils.subsamplingFactor(8000, 100, 200));
+    }
+
+    @Test
+    public void testReadSubsampled() throws Exception {
+        BufferedImage original = new BufferedImage(2000, 1000, BufferedImage.TYPE_3BYTE_BGR);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(original, "png", out);
+
+        BufferedImage image = ImageUtils.readSubsampled(new ByteArrayInputStream(out.toByteArray()), 100);
+        assertEquals(400, image.getWidth());
+        assertEquals(200, image.getHeight());
+    }
+
+    @Test
+    public void testReadSubsampledReportsDecodedSizeFirst() throws Exception {
+        BufferedImage original = new BufferedImage(2001, 1001, BufferedImage.TYPE_3BYTE_BGR);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(original, "png", out);
+
+        int[] reported = new int[2];
+        BufferedImage image = ImageUtils.readSubsampled(new ByteArrayInputStream(out.toByteArray()), 100, (width, height) -> {
+            reported[0] = width;
+            reported[1] = height;
+        });
+        assertEquals(image.getWidth(), reported[0]);
+        assertEquals(image.getHeight(), reported[1]);
+    }
+
+    @Test
+    public void testScaleImage() {
+        BufferedImage original = new BufferedImage(1600, 1200, BufferedImage.TYPE_3BYTE_BGR);
+        Graphics2D g = original.createGraphics();
+        g.setColor(Color.RED);
+        g.fillRect(0, 0, 1600, 1200);
+        g.dispose();
+
+        BufferedImage scaled = ImageUtils.scaleImage(original, 200, 150, BufferedImage.TYPE_3BYTE_BGR, Color.BLACK);
+        assertEquals(200, scaled.getWidth());
+        assertEquals(150, scaled.getHeight());
+        assertTrue((scaled.getRGB(100, 75) & 0xff0000) >> 16 > 200);
+    }
+}
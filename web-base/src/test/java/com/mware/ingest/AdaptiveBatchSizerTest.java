@@ -0,0 +1,101 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.ingest;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveBatchSizerTest {
+    private static final long TARGET_FLUSH_MILLIS = 1000;
+
+    @Test
+    public void testGrowsWhenFlushesAreFast() {
+        AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(400, 50, 10000, TARGET_FLUSH_MILLIS, Long.MAX_VALUE);
+        sizer.flushed(400, TimeUnit.MILLISECONDS.toNanos(100));
+        assertEquals(800, sizer.getBatchSize());
+        sizer.flushed(800, TimeUnit.MILLISECONDS.toNanos(200));
+        assertEquals(1600, sizer.getBatchSize());
+    }
+
+    @Test
+    public void testShrinksWhenFlushesAreSlow() {
+        AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(400, 50, 10000, TARGET_FLUSH_MILLIS, Long.MAX_VALUE);
+        sizer.flushed(400, TimeUnit.MILLISECONDS.toNanos(8000));
+        assertEquals(200, sizer.getBatchSize());
+        assertEquals(8000, sizer.getLastFlushMillis());
+    }
+
+    @Test
+    public void testStaysWithinBounds() {
+        AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(100, 50, 150, TARGET_FLUSH_MILLIS, Long.MAX_VALUE);
+        sizer.flushed(100, TimeUnit.MILLISECONDS.toNanos(1));
+        assertEquals(150, sizer.getBatchSize());
+        for (int i = 0; i < 10; i++) {
+            sizer.flushed(sizer.getBatchSize(), TimeUnit.SECONDS.toNanos(60));
+        }
+        assertEquals(50, sizer.getBatchSize());
+    }
+
+    @Test
+    public void testMemoryBudget() {
+        AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(400, 1, 10000, TARGET_FLUSH_MILLIS, 10000);
+        sizer.rowAdded(6000);
+        assertFalse(sizer.shouldFlush(3));
+        sizer.rowAdded(6000);
+        assertTrue(sizer.shouldFlush(6));
+
+        // 2000 bytes per mutation against a 10000 byte budget caps the batch at 5 even though flushes are fast
+        sizer.flushed(6, TimeUnit.MILLISECONDS.toNanos(1));
+        assertEquals(200, sizer.getBatchSize());
+        sizer.rowAdded(10000);
+        sizer.flushed(5, TimeUnit.MILLISECONDS.toNanos(1));
+        assertEquals(100, sizer.getBatchSize());
+    }
+
+    @Test
+    public void testEstimateBytes() {
+        long empty = AdaptiveBatchSizer.estimateBytes(Arrays.asList("", null));
+        long filled = AdaptiveBatchSizer.estimateBytes(Arrays.asList("abcd", null));
+        assertEquals(8, filled - empty);
+    }
+}
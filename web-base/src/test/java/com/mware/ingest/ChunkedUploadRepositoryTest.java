@@ -0,0 +1,166 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.ingest;
+
+import com.mware.config.WebOptions;
+import com.mware.core.config.Configuration;
+import com.mware.core.exception.BcResourceNotFoundException;
+import com.mware.core.user.User;
+import com.mware.web.BadRequestException;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ChunkedUploadRepositoryTest {
+    private static final byte[] DATA = "0123456789abcdefghij".getBytes();
+    private File uploadDir;
+    private ChunkedUploadRepository repository;
+
+    @Mock
+    private Configuration configuration;
+
+    @Mock
+    private User user;
+
+    @Before
+    public void setUp() throws Exception {
+        uploadDir = Files.createTempDirectory("chunkedUpload").toFile();
+        when(configuration.get(WebOptions.CHUNKED_UPLOAD_DIR)).thenReturn(uploadDir.getAbsolutePath());
+        when(configuration.get(WebOptions.CHUNKED_UPLOAD_MAX_FILE_SIZE)).thenReturn(1024L);
+        when(configuration.get(WebOptions.CHUNKED_UPLOAD_EXPIRATION_HOURS)).thenReturn(24);
+        when(user.getUserId()).thenReturn("junit");
+        repository = new ChunkedUploadRepository(configuration);
+    }
+
+    @After
+    public void tearDown() {
+        FileUtils.deleteQuietly(uploadDir);
+    }
+
+    @Test
+    public void testOutOfOrderChunksMergeAndHash() throws Exception {
+        ChunkedUpload upload = repository.create("test.txt", DATA.length, null, null, null, user);
+        String uploadId = upload.getUploadId();
+
+        writeChunk(uploadId, 10, 15);
+        writeChunk(uploadId, 0, 5);
+        assertEquals(5, upload.getContiguousBytes());
+        assertEquals(10, upload.getReceivedBytes());
+        assertNull(upload.getSha256());
+
+        writeChunk(uploadId, 15, 20);
+        writeChunk(uploadId, 5, 10);
+        assertArrayEquals(new long[][]{{0, 20}}, upload.getReceivedRanges());
+        assertTrue(upload.isComplete());
+
+        String sha256 = DigestUtils.sha256Hex(DATA);
+        assertSame(upload, repository.complete(uploadId, sha256, user));
+        assertArrayEquals(DATA, FileUtils.readFileToByteArray(upload.getDataFile()));
+    }
+
+    @Test
+    public void testRewritingHashedBytesRecomputesHash() throws Exception {
+        ChunkedUpload upload = repository.create("test.txt", DATA.length, null, null, null, user);
+        String uploadId = upload.getUploadId();
+        repository.writeChunk(uploadId, 0, new ByteArrayInputStream("XXXXXXXXXXXXXXXXXXXX".getBytes()), user);
+
+        writeChunk(uploadId, 0, 10);
+        assertEquals(DigestUtils.sha256Hex("0123456789XXXXXXXXXX"), upload.getSha256());
+        try {
+            repository.complete(uploadId, DigestUtils.sha256Hex(DATA), user);
+            fail("hash of the rewritten file should not match");
+        } catch (BadRequestException ex) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testResumeAfterRestart() throws Exception {
+        ChunkedUpload upload = repository.create("test.txt", DATA.length, null, null, null, user);
+        String uploadId = upload.getUploadId();
+        writeChunk(uploadId, 0, 8);
+        writeChunk(uploadId, 12, 20);
+
+        ChunkedUploadRepository restarted = new ChunkedUploadRepository(configuration);
+        ChunkedUpload resumed = restarted.get(uploadId, user);
+        assertNotSame(upload, resumed);
+        assertEquals(8, resumed.getContiguousBytes());
+        assertArrayEquals(new long[][]{{0, 8}, {12, 20}}, resumed.getReceivedRanges());
+
+        restarted.writeChunk(uploadId, 8, new ByteArrayInputStream(Arrays.copyOfRange(DATA, 8, 12)), user);
+        assertEquals(DigestUtils.sha256Hex(DATA), resumed.getSha256());
+    }
+
+    @Test
+    public void testUploadIdMustBeUuid() throws Exception {
+        for (String uploadId : new String[]{"..", "..\\other", "../other", "not-a-uuid"}) {
+            try {
+                repository.get(uploadId, user);
+                fail("expected " + uploadId + " to be rejected");
+            } catch (BcResourceNotFoundException ex) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testDirectoryWithoutStateIsNotExpiredWhileNew() throws Exception {
+        File creating = new File(uploadDir, "00000000-0000-0000-0000-000000000001");
+        assertTrue(creating.mkdirs());
+
+        repository.create("test.txt", DATA.length, null, null, null, user);
+        assertTrue(creating.exists());
+    }
+
+    private void writeChunk(String uploadId, int start, int end) throws Exception {
+        repository.writeChunk(uploadId, start, new ByteArrayInputStream(Arrays.copyOfRange(DATA, start, end)), user);
+    }
+}
@@ -44,6 +44,8 @@ import com.mware.core.model.properties.RawObjectSchema;
 import com.mware.core.model.properties.types.IntegerBcProperty;
 import com.mware.core.model.schema.SchemaProperty;
 import com.mware.core.model.schema.SchemaRepository;
+import com.mware.core.model.user.GraphAuthorizationRepository;
+import com.mware.core.model.user.InMemoryGraphAuthorizationRepository;
 import com.mware.core.model.workQueue.Priority;
 import com.mware.core.model.workQueue.WebQueueRepository;
 import com.mware.core.model.workQueue.WorkQueueRepository;
@@ -52,9 +54,12 @@ import com.mware.core.model.workspace.WorkspaceRepository;
 import com.mware.core.security.AuditService;
 import com.mware.core.security.VisibilityTranslator;
 import com.mware.core.user.User;
+import com.mware.core.util.RowKeyHelper;
 import com.mware.ge.*;
 import com.mware.ge.inmemory.InMemoryGraph;
 import com.mware.ge.values.storable.StringValue;
+import com.mware.workspace.WorkspaceChangeJournal;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.FileUtils;
 import org.junit.Before;
 import org.junit.Test;
@@ -68,6 +73,10 @@ import java.util.*;
 import static com.mware.ge.util.IterableUtils.toList;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -85,6 +94,9 @@ public class FileImportTest {
     @Mock
     private WebQueueRepository webQueueRepository;
 
+    @Mock
+    private WorkspaceChangeJournal workspaceChangeJournal;
+
     @Mock
     private WorkspaceRepository workspaceRepository;
 
@@ -97,6 +109,11 @@ public class FileImportTest {
     @Mock
     private AuditService auditService;
 
+    @Mock
+    private ContentHashIndex contentHashIndex;
+
+    private GraphAuthorizationRepository graphAuthorizationRepository;
+
     @Mock
     User user;
 
@@ -119,6 +136,8 @@ public class FileImportTest {
 
         String workspaceId = "junit-workspace";
         authorizations = graph.createAuthorizations(workspaceId);
+        graphAuthorizationRepository = new InMemoryGraphAuthorizationRepository();
+        graphAuthorizationRepository.addAuthorizationToGraph(workspaceId, "other-workspace");
 
         when(workspace.getWorkspaceId()).thenReturn(workspaceId);
 
@@ -130,10 +149,13 @@ public class FileImportTest {
                 graph,
                 workQueueRepository,
                 webQueueRepository,
+                workspaceChangeJournal,
                 workspaceRepository,
                 schemaRepository,
                 configuration,
-                auditService
+                auditService,
+                contentHashIndex,
+                graphAuthorizationRepository
         ) {
             @Override
             protected List<PostFileImportHandler> getPostFileImportHandlers() {
@@ -198,6 +220,12 @@ public class FileImportTest {
         }
     }
 
+    @Test
+    public void testKnownSha256MatchesCalculatedContentHash() {
+        byte[] content = "Hello Hash".getBytes();
+        assertEquals(RowKeyHelper.buildSHA256KeyString(content), FileImport.toContentHash(DigestUtils.sha256Hex(content)));
+    }
+
     @Test
     public void testImportDuplicateFiles() throws Exception {
         boolean findExistingByFileHash = true;
@@ -212,6 +240,59 @@ public class FileImportTest {
         assertNotEquals(results.firstVertexId, results.secondVertexId);
     }
 
+    @Test
+    public void testImportDuplicateFileFoundInContentHashIndex() throws Exception {
+        Vertex existing = graph.prepareVertex("existing", new Visibility(""), "testConcept").save(authorizations);
+        graph.flush();
+        when(contentHashIndex.findVertexId(anyString(), eq(user))).thenReturn(existing.getId());
+
+        File testFile = File.createTempFile("test", "test");
+        try {
+            FileUtils.writeStringToFile(testFile, "Hello Index");
+
+            Vertex vertex = fileImport.importFile(testFile, false, "", null, workspace, Priority.NORMAL, user, authorizations);
+            assertEquals(existing.getId(), vertex.getId());
+            verify(contentHashIndex, never()).put(anyString(), anyString(), eq(user));
+        } finally {
+            testFile.delete();
+        }
+    }
+
+    @Test
+    public void testStaleContentHashIndexEntryIsRemoved() throws Exception {
+        when(contentHashIndex.findVertexId(anyString(), eq(user))).thenReturn("deleted-vertex");
+
+        File testFile = File.createTempFile("test", "test");
+        try {
+            FileUtils.writeStringToFile(testFile, "Hello Stale Index");
+
+            Vertex vertex = fileImport.importFile(testFile, false, "", null, workspace, Priority.NORMAL, user, authorizations);
+            assertNotEquals("deleted-vertex", vertex.getId());
+            verify(contentHashIndex).remove(anyString(), eq(user));
+        } finally {
+            testFile.delete();
+        }
+    }
+
+    @Test
+    public void testContentHashIndexEntryHiddenFromUserIsKept() throws Exception {
+        Authorizations otherAuthorizations = graph.createAuthorizations("other-workspace");
+        Vertex hidden = graph.prepareVertex("hidden", new Visibility("other-workspace"), "testConcept").save(otherAuthorizations);
+        graph.flush();
+        when(contentHashIndex.findVertexId(anyString(), eq(user))).thenReturn(hidden.getId());
+
+        File testFile = File.createTempFile("test", "test");
+        try {
+            FileUtils.writeStringToFile(testFile, "Hello Hidden Index");
+
+            Vertex vertex = fileImport.importFile(testFile, false, "", null, workspace, Priority.NORMAL, user, authorizations);
+            assertNotEquals(hidden.getId(), vertex.getId());
+            verify(contentHashIndex, never()).remove(anyString(), eq(user));
+        } finally {
+            testFile.delete();
+        }
+    }
+
     private ImportTwiceResults importFileTwice(boolean findExistingByFileHash) throws Exception {
         File testFile = File.createTempFile("test", "test");
         try {
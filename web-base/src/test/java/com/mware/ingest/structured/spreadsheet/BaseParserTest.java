@@ -0,0 +1,130 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.ingest.structured.spreadsheet;
+
+import com.mware.ingest.structured.model.ParseOptions;
+import org.junit.Test;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BaseParserTest {
+    private final BaseParser parser = new BaseParser() {
+    };
+
+    @Test
+    public void testSmallFileIsCountedExactly() throws IOException {
+        InputStream in = new BufferedInputStream(new ByteArrayInputStream(csv(100)));
+
+        BaseParser.RowEstimate estimate = parser.estimateTotalRows(in, new ParseOptions());
+
+        assertEquals(100, estimate.rows);
+        assertFalse(estimate.estimated);
+        assertEquals('r', in.read());
+    }
+
+    @Test
+    public void testLargeFileIsEstimatedFromAvailableBytes() throws IOException {
+        InputStream in = new BufferedInputStream(new ByteArrayInputStream(csv(200000)));
+
+        BaseParser.RowEstimate estimate = parser.estimateTotalRows(in, new ParseOptions());
+
+        assertTrue(estimate.estimated);
+        assertTrue("rows: " + estimate.rows, Math.abs(estimate.rows - 200000) < 2000);
+        assertEquals('r', in.read());
+    }
+
+    @Test
+    public void testLargeFileOfUnknownSizeIsNotReadPastSample() throws IOException {
+        CountingInputStream counting = new CountingInputStream(new ByteArrayInputStream(csv(200000)));
+        InputStream in = new BufferedInputStream(counting);
+
+        BaseParser.RowEstimate estimate = parser.estimateTotalRows(in, new ParseOptions());
+
+        assertTrue(estimate.estimated);
+        assertEquals(BaseParser.UNKNOWN_TOTAL_ROWS, estimate.rows);
+        assertTrue(counting.bytesRead <= BaseParser.ANALYZE_SAMPLE_BYTES + 8192);
+        assertEquals('r', in.read());
+    }
+
+    private static byte[] csv(int rows) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < rows; i++) {
+            sb.append("row").append(i % 10).append(",value,").append(i % 7).append('\n');
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        private long bytesRead;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                bytesRead++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                bytesRead += read;
+            }
+            return read;
+        }
+
+        @Override
+        public int available() {
+            return 0;
+        }
+    }
+}
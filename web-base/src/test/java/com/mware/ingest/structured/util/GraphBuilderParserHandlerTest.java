@@ -0,0 +1,156 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.ingest.structured.util;
+
+import com.mware.core.model.schema.SchemaRepository;
+import com.mware.core.model.user.PrivilegeRepository;
+import com.mware.core.model.workspace.Workspace;
+import com.mware.core.model.workspace.WorkspaceRepository;
+import com.mware.core.security.VisibilityTranslator;
+import com.mware.core.user.User;
+import com.mware.ge.Graph;
+import com.mware.ge.inmemory.InMemoryGraph;
+import com.mware.ingest.structured.mapping.ParseMapping;
+import com.mware.workspace.WorkspaceHelper;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class GraphBuilderParserHandlerTest {
+    private static final String WORKSPACE_ID = "WORKSPACE_1";
+
+    private Graph graph;
+    private GraphBuilderParserHandler handler;
+
+    @Mock
+    private User user;
+
+    @Mock
+    private PrivilegeRepository privilegeRepository;
+
+    @Mock
+    private WorkspaceRepository workspaceRepository;
+
+    @Mock
+    private Workspace workspace;
+
+    @Mock
+    private WorkspaceHelper workspaceHelper;
+
+    @Mock
+    private SchemaRepository schemaRepository;
+
+    @Before
+    public void setUp() {
+        graph = InMemoryGraph.create();
+        when(workspaceRepository.findById(WORKSPACE_ID, user)).thenReturn(workspace);
+
+        handler = new GraphBuilderParserHandler(
+                graph,
+                user,
+                new VisibilityTranslator(),
+                privilegeRepository,
+                graph.createAuthorizations(WORKSPACE_ID),
+                workspaceRepository,
+                workspaceHelper,
+                WORKSPACE_ID,
+                false,
+                null,
+                new ParseMapping(new ArrayList<>(), new ArrayList<>()),
+                null,
+                schemaRepository
+        );
+        handler.dryRun = true;
+        handler.dryRunHeadRows = 10;
+        handler.dryRunSampleRows = 10;
+        handler.newSheet("");
+    }
+
+    @Test
+    public void testSampledDryRunStopsReadingAtRowCap() {
+        handler.setTotalRows(-1, true);
+
+        long rowNum = 0;
+        while (handler.addRow(row(rowNum), rowNum, new ArrayList<>())) {
+            rowNum++;
+        }
+
+        assertEquals(GraphBuilderParserHandler.MAX_DRY_RUN_ROWS.longValue(), rowNum);
+        assertEquals(GraphBuilderParserHandler.MAX_DRY_RUN_ROWS, handler.clientApiIngestPreview.processedRows);
+        assertTrue(handler.clientApiIngestPreview.didTruncate);
+        assertEquals(GraphBuilderParserHandler.MAX_DRY_RUN_ROWS - 10, handler.getRowsRepresentedBySample());
+    }
+
+    @Test
+    public void testSampleIsScaledToEstimatedTotal() {
+        handler.setTotalRows(1000, true);
+        addRows(100);
+
+        assertFalse(handler.clientApiIngestPreview.didTruncate);
+        assertEquals(990, handler.getRowsRepresentedBySample());
+    }
+
+    @Test
+    public void testSampleIsScaledToRowsReadWhenTotalIsExact() {
+        handler.setTotalRows(1000);
+        addRows(100);
+
+        assertEquals(90, handler.getRowsRepresentedBySample());
+    }
+
+    private void addRows(int count) {
+        for (long rowNum = 0; rowNum < count; rowNum++) {
+            assertTrue(handler.addRow(row(rowNum), rowNum, new ArrayList<>()));
+        }
+    }
+
+    private static Map<String, Object> row(long rowNum) {
+        return Collections.singletonMap("0", "value " + rowNum);
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.product;
+
+import com.google.common.collect.Sets;
+import com.mware.config.WebOptions;
+import com.mware.core.config.Configuration;
+import com.mware.ge.Authorizations;
+import com.mware.ge.Edge;
+import com.mware.workspace.WorkspaceChangeJournal;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ProductExtendedDataCacheTest {
+    private static final String PRODUCT_ID = "junit-product";
+    private final Authorizations authorizations = new Authorizations("a", "b");
+    private final List<Set<String>> loads = new ArrayList<>();
+    private WorkspaceChangeJournal workspaceChangeJournal;
+    private ProductExtendedDataCache cache;
+
+    @Mock
+    private Configuration configuration;
+
+    @Before
+    public void setUp() {
+        when(configuration.get(WebOptions.WORKSPACE_CHANGE_JOURNAL_MAX_SIZE)).thenReturn(100);
+        when(configuration.get(WebOptions.WORKSPACE_CHANGE_JOURNAL_MAX_AGE_SECONDS)).thenReturn(300);
+        when(configuration.get(WebOptions.PRODUCT_EXTENDED_DATA_CACHE_SIZE)).thenReturn(100);
+        when(configuration.get(WebOptions.PRODUCT_EXTENDED_DATA_CACHE_EXPIRATION_MINUTES)).thenReturn(10);
+        workspaceChangeJournal = new WorkspaceChangeJournal(configuration);
+        cache = new ProductExtendedDataCache(configuration, workspaceChangeJournal);
+    }
+
+    @Test
+    public void testOnlyUncheckedVerticesAreLoaded() {
+        Set<String> entityIds = Sets.newHashSet("v1", "v2", "v3");
+        assertEquals(Sets.newHashSet("v1", "v2"), getAuthorizedVertexIds(entityIds, Arrays.asList("v1", "v2")));
+        assertEquals(Sets.newHashSet("v1", "v2"), getAuthorizedVertexIds(entityIds, entityIds));
+        assertEquals(Arrays.asList(Sets.newHashSet("v1", "v2"), Sets.newHashSet("v3")), loads);
+
+        Set<String> otherAuthorizations = cache.getAuthorizedVertexIds(PRODUCT_ID, entityIds, entityIds, new Authorizations("a"), this::load);
+        assertEquals(Sets.newHashSet("v1", "v2"), otherAuthorizations);
+        assertEquals(3, loads.size());
+    }
+
+    @Test
+    public void testElementChangesInvalidate() {
+        Set<String> entityIds = Sets.newHashSet("v1", "v2");
+        getAuthorizedVertexIds(entityIds, entityIds);
+        workspaceChangeJournal.recordVertex(null, "unrelated");
+        getAuthorizedVertexIds(entityIds, entityIds);
+        assertEquals(1, loads.size());
+
+        workspaceChangeJournal.recordVertex("junit-workspace", "v2");
+        getAuthorizedVertexIds(entityIds, entityIds);
+        assertEquals(2, loads.size());
+
+        cache.invalidateProduct(PRODUCT_ID);
+        getAuthorizedVertexIds(entityIds, entityIds);
+        assertEquals(3, loads.size());
+    }
+
+    @Test
+    public void testChangesDuringLoadOnlyDropRelatedEntries() {
+        Set<String> entityIds = Sets.newHashSet("v1", "v2");
+        cache.getAuthorizedVertexIds(PRODUCT_ID, entityIds, entityIds, authorizations, ids -> {
+            workspaceChangeJournal.recordVertex(null, "unrelated");
+            return load(ids);
+        });
+        getAuthorizedVertexIds(entityIds, entityIds);
+        assertEquals(1, loads.size());
+
+        cache.invalidateProduct(PRODUCT_ID);
+        cache.getAuthorizedVertexIds(PRODUCT_ID, entityIds, entityIds, authorizations, ids -> {
+            workspaceChangeJournal.recordVertex(null, "v1");
+            return load(ids);
+        });
+        getAuthorizedVertexIds(entityIds, entityIds);
+        assertEquals(3, loads.size());
+    }
+
+    @Test
+    public void testLaterPagesReuseEntityOrder() {
+        List<Edge> edges = Arrays.asList(createEdge("e2", "v2"), createEdge("e1", "v1"));
+        int[] entityLoads = new int[1];
+        Supplier<ProductExtendedDataCache.ProductEntities> loader = () -> {
+            entityLoads[0]++;
+            return new ProductExtendedDataCache.ProductEntities(PRODUCT_ID, edges);
+        };
+
+        ProductExtendedDataCache.ProductEntities firstPage = cache.getProductEntities(PRODUCT_ID, authorizations, true, loader);
+        assertEquals(Arrays.asList("v1", "v2"), firstPage.getSortedEntityIds());
+        assertEquals(Collections.singletonList("e2"), firstPage.getEdgeIds(Collections.singletonList("v2")));
+        cache.getProductEntities(PRODUCT_ID, authorizations, false, loader);
+        assertEquals(1, entityLoads[0]);
+
+        workspaceChangeJournal.recordEdge(null, "e1");
+        cache.getProductEntities(PRODUCT_ID, authorizations, false, loader);
+        assertEquals(2, entityLoads[0]);
+
+        cache.getProductEntities(PRODUCT_ID, authorizations, true, loader);
+        assertEquals(3, entityLoads[0]);
+    }
+
+    private Edge createEdge(String edgeId, String entityId) {
+        Edge edge = mock(Edge.class);
+        when(edge.getId()).thenReturn(edgeId);
+        when(edge.getOtherVertexId(PRODUCT_ID)).thenReturn(entityId);
+        return edge;
+    }
+
+    private Set<String> getAuthorizedVertexIds(Set<String> entityIds, Collection<String> vertexIds) {
+        return cache.getAuthorizedVertexIds(PRODUCT_ID, entityIds, vertexIds, authorizations, this::load);
+    }
+
+    private Set<String> load(Set<String> vertexIds) {
+        loads.add(vertexIds);
+        Set<String> authorized = new HashSet<>(vertexIds);
+        authorized.remove("v3");
+        return authorized;
+    }
+}
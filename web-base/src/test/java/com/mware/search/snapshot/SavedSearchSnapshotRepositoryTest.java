@@ -0,0 +1,195 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.search.snapshot;
+
+import com.mware.config.WebOptions;
+import com.mware.core.config.Configuration;
+import com.mware.core.model.longRunningProcess.LongRunningProcessRepository;
+import com.mware.core.model.user.UserRepository;
+import com.mware.core.orm.SimpleOrmContext;
+import com.mware.core.orm.SimpleOrmSession;
+import com.mware.core.user.User;
+import com.mware.web.routes.dataset.ReadDataset.ClientApiReadDatasetResponse;
+import com.mware.web.routes.dataset.ReadDataset.ClientApiReadDatasetResponse.DatasetRow;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SavedSearchSnapshotRepositoryTest {
+    private final Map<String, Object> store = new HashMap<>();
+    private SavedSearchSnapshotRepository repository;
+
+    @Mock
+    private SimpleOrmSession simpleOrmSession;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private LongRunningProcessRepository longRunningProcessRepository;
+
+    @Mock
+    private Configuration configuration;
+
+    @Mock
+    private User user;
+
+    @Before
+    public void setUp() {
+        when(user.getUserId()).thenReturn("junit");
+        when(configuration.get(WebOptions.SAVED_SEARCH_SNAPSHOT_MAX_AGE_MINUTES)).thenReturn(60);
+        when(configuration.get(WebOptions.SAVED_SEARCH_SNAPSHOT_MIN_REFRESH_SECONDS)).thenReturn(0);
+        doAnswer(invocation -> {
+            Object entity = invocation.getArguments()[0];
+            String id = entity instanceof SavedSearchSnapshot
+                    ? ((SavedSearchSnapshot) entity).getId()
+                    : ((SavedSearchSnapshotPage) entity).getId();
+            store.put(id, entity);
+            return null;
+        }).when(simpleOrmSession).save(any(), anyString(), any(SimpleOrmContext.class));
+        doAnswer(invocation -> store.get((String) invocation.getArguments()[1]))
+                .when(simpleOrmSession).findById(any(Class.class), anyString(), any(SimpleOrmContext.class));
+        doAnswer(invocation -> store.remove((String) invocation.getArguments()[1]))
+                .when(simpleOrmSession).delete(any(Class.class), anyString(), any(SimpleOrmContext.class));
+        repository = new SavedSearchSnapshotRepository(simpleOrmSession, userRepository, longRunningProcessRepository, configuration);
+    }
+
+    @Test
+    public void testReadsOnlyThePagesOfTheRequestedRange() {
+        repository.save("search1", "ws1", createDataset(2500), false, user);
+        SavedSearchSnapshot snapshot = repository.find("search1", "ws1", user);
+        assertEquals(3, snapshot.getPageCount());
+
+        ClientApiReadDatasetResponse dataset = repository.getDataset(snapshot, 900, 300, user);
+        assertEquals(300, dataset.rows.size());
+        assertEquals("row900", dataset.rows.get(0).get(0));
+        assertEquals("row1199", dataset.rows.get(299).get(0));
+        verify(simpleOrmSession, never()).findById(
+                eq(SavedSearchSnapshotPage.class),
+                eq(SavedSearchSnapshotPage.createId(snapshot.getId(), snapshot.getGeneration(), 2)),
+                any(SimpleOrmContext.class)
+        );
+
+        assertEquals(2500, repository.getDataset(snapshot, null, null, user).rows.size());
+        assertEquals(0, repository.getDataset(snapshot, 3000, 10, user).rows.size());
+    }
+
+    @Test
+    public void testSnapshotsAreKeptPerWorkspace() {
+        repository.save("search1", "ws1", createDataset(10), false, user);
+        assertNotNull(repository.find("search1", "ws1", user));
+        assertNull(repository.find("search1", "ws2", user));
+    }
+
+    @Test
+    public void testTruncatedSnapshotDoesNotAnswerPastItsRows() {
+        repository.save("search1", "ws1", createDataset(100), true, user);
+        SavedSearchSnapshot snapshot = repository.find("search1", "ws1", user);
+        assertTrue(snapshot.isTruncated());
+
+        assertEquals(50, repository.getDataset(snapshot, 50, 50, user).rows.size());
+        assertNull(repository.getDataset(snapshot, 50, 51, user));
+        assertNull(repository.getDataset(snapshot, 0, null, user));
+    }
+
+    @Test
+    public void testRefreshReplacesThePages() {
+        repository.save("search1", "ws1", createDataset(1500), false, user);
+        SavedSearchSnapshot previous = repository.find("search1", "ws1", user);
+
+        repository.save("search1", "ws1", createDataset(10), false, user);
+        SavedSearchSnapshot snapshot = repository.find("search1", "ws1", user);
+        assertEquals(10, repository.getDataset(snapshot, 0, null, user).rows.size());
+        assertNull(repository.getDataset(previous, 0, 10, user));
+        assertEquals(2, store.size());
+
+        repository.delete("search1", "ws1", user);
+        assertTrue(store.isEmpty());
+    }
+
+    @Test
+    public void testChangesOnlyMakeSnapshotsOfTheirWorkspaceStale() throws InterruptedException {
+        repository.save("search1", "ws1", createDataset(10), false, user);
+        SavedSearchSnapshot snapshot = repository.find("search1", "ws1", user);
+        Thread.sleep(5);
+
+        repository.markChanged("ws2");
+        assertFalse(repository.isStale(snapshot));
+
+        repository.markChanged("ws1");
+        assertTrue(repository.isStale(snapshot));
+
+        repository.save("search1", "ws1", createDataset(10), false, user);
+        snapshot = repository.find("search1", "ws1", user);
+        Thread.sleep(5);
+        assertFalse(repository.isStale(snapshot));
+
+        repository.markChanged(null);
+        assertTrue(repository.isStale(snapshot));
+    }
+
+    private static ClientApiReadDatasetResponse createDataset(int rowCount) {
+        ClientApiReadDatasetResponse dataset = new ClientApiReadDatasetResponse("search", "search1");
+        dataset.columns.add("_id_");
+        dataset.columnTypes.add(String.class.getName());
+        for (int i = 0; i < rowCount; i++) {
+            DatasetRow row = new DatasetRow();
+            row.set(0, "row" + i);
+            dataset.rows.add(row);
+        }
+        return dataset;
+    }
+}
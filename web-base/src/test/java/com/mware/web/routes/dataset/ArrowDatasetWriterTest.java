@@ -0,0 +1,178 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.web.routes.dataset;
+
+import com.mware.core.model.clientapi.dto.PropertyType;
+import com.mware.ge.type.GeoPoint;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.TimeStampMilliTZVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ArrowDatasetWriterTest {
+    @Test
+    public void testSchemaFollowsPropertyTypes() throws IOException {
+        List<ArrowDatasetWriter.Column> columns = new ArrayList<>();
+        columns.addAll(ArrowDatasetWriter.Column.forProperty("name", PropertyType.STRING));
+        columns.addAll(ArrowDatasetWriter.Column.forProperty("age", PropertyType.INTEGER));
+        columns.addAll(ArrowDatasetWriter.Column.forProperty("score", PropertyType.DOUBLE));
+        columns.addAll(ArrowDatasetWriter.Column.forProperty("active", PropertyType.BOOLEAN));
+        columns.addAll(ArrowDatasetWriter.Column.forProperty("born", PropertyType.DATETIME));
+        columns.addAll(ArrowDatasetWriter.Column.forProperty("location", PropertyType.GEO_LOCATION));
+
+        Map<String, List<?>> row = new HashMap<>();
+        row.put("name", Arrays.asList("Tom", "Thomas"));
+        row.put("age", Collections.singletonList(42));
+        row.put("score", Collections.singletonList("1.5"));
+        row.put("active", Collections.singletonList(true));
+        row.put("born", Collections.singletonList(new Date(1000L)));
+        row.put("location", Collections.singletonList(new GeoPoint(45.0, 25.0)));
+        byte[] data = write(columns, Collections.singletonList(row));
+
+        try (BufferAllocator allocator = new RootAllocator();
+             ArrowStreamReader reader = new ArrowStreamReader(new ByteArrayInputStream(data), allocator)) {
+            VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            Schema schema = root.getSchema();
+            assertEquals(ArrowType.Utf8.INSTANCE, schema.findField("name").getType());
+            assertEquals(new ArrowType.Int(64, true), schema.findField("age").getType());
+            assertEquals(new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE), schema.findField("score").getType());
+            assertEquals(ArrowType.Bool.INSTANCE, schema.findField("active").getType());
+            assertTrue(schema.findField("born").getType() instanceof ArrowType.Timestamp);
+            assertEquals(new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE), schema.findField("location_lon").getType());
+            assertEquals(new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE), schema.findField("location_lat").getType());
+
+            assertTrue(reader.loadNextBatch());
+            assertEquals(1, root.getRowCount());
+            assertEquals("Tom;Thomas", ((VarCharVector) root.getVector("name")).getObject(0).toString());
+            assertEquals(42L, ((BigIntVector) root.getVector("age")).get(0));
+            assertEquals(1.5, ((Float8Vector) root.getVector("score")).get(0), 0.0);
+            assertEquals(1, ((BitVector) root.getVector("active")).get(0));
+            assertEquals(1000L, ((TimeStampMilliTZVector) root.getVector("born")).get(0));
+            assertEquals(25.0, ((Float8Vector) root.getVector("location_lon")).get(0), 0.0);
+            assertEquals(45.0, ((Float8Vector) root.getVector("location_lat")).get(0), 0.0);
+            assertFalse(reader.loadNextBatch());
+        }
+    }
+
+    @Test
+    public void testMissingAndUnparsableValuesAreNull() throws IOException {
+        List<ArrowDatasetWriter.Column> columns = Arrays.asList(
+                ArrowDatasetWriter.Column.forJavaType("name", String.class.getName()),
+                ArrowDatasetWriter.Column.forJavaType("count", Long.class.getName())
+        );
+        Map<String, List<?>> row = new HashMap<>();
+        row.put("name", Collections.emptyList());
+        row.put("count", Collections.singletonList("not a number"));
+        byte[] data = write(columns, Collections.singletonList(row));
+
+        try (BufferAllocator allocator = new RootAllocator();
+             ArrowStreamReader reader = new ArrowStreamReader(new ByteArrayInputStream(data), allocator)) {
+            VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            assertTrue(reader.loadNextBatch());
+            assertEquals(1, root.getRowCount());
+            assertTrue(root.getVector("name").isNull(0));
+            assertTrue(root.getVector("count").isNull(0));
+        }
+    }
+
+    @Test
+    public void testRowsAreSplitIntoBatches() throws IOException {
+        List<ArrowDatasetWriter.Column> columns = Collections.singletonList(
+                ArrowDatasetWriter.Column.forJavaType("n", Long.class.getName())
+        );
+        int rowCount = ArrowDatasetWriter.BATCH_SIZE + 10;
+        List<Map<String, List<?>>> rows = new ArrayList<>();
+        for (int i = 0; i < rowCount; i++) {
+            rows.add(Collections.singletonMap("n", Collections.singletonList(i)));
+        }
+        byte[] data = write(columns, rows);
+
+        try (BufferAllocator allocator = new RootAllocator();
+             ArrowStreamReader reader = new ArrowStreamReader(new ByteArrayInputStream(data), allocator)) {
+            VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            assertTrue(reader.loadNextBatch());
+            assertEquals(ArrowDatasetWriter.BATCH_SIZE, root.getRowCount());
+            assertEquals(0L, ((BigIntVector) root.getVector("n")).get(0));
+
+            assertTrue(reader.loadNextBatch());
+            assertEquals(10, root.getRowCount());
+            assertEquals((long) ArrowDatasetWriter.BATCH_SIZE, ((BigIntVector) root.getVector("n")).get(0));
+            assertFalse(root.getVector("n").isNull(9));
+
+            assertFalse(reader.loadNextBatch());
+        }
+    }
+
+    @Test
+    public void testAttachmentFileNameCannotBreakTheHeader() {
+        assertEquals("a'b'_c__d", ReadDataset.toAttachmentFileName("a\"b\"\\c\r\nd"));
+    }
+
+    private byte[] write(List<ArrowDatasetWriter.Column> columns, List<Map<String, List<?>>> rows) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ArrowDatasetWriter writer = new ArrowDatasetWriter(columns, out)) {
+            for (Map<String, List<?>> row : rows) {
+                writer.writeRow(row::get);
+            }
+        }
+        return out.toByteArray();
+    }
+}
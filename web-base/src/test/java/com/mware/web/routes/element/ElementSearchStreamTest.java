@@ -0,0 +1,180 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.web.routes.element;
+
+import com.google.common.collect.Sets;
+import com.mware.core.model.clientapi.util.ObjectMapperFactory;
+import com.mware.core.model.schema.SchemaConstants;
+import com.mware.ge.Authorizations;
+import com.mware.ge.Element;
+import com.mware.ge.GeObject;
+import com.mware.ge.Graph;
+import com.mware.ge.Visibility;
+import com.mware.ge.inmemory.InMemoryGraph;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static com.mware.ge.values.storable.Values.stringValue;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ElementSearchStreamTest {
+    private static final String[] COLUMNS = {ElementSearchStream.COLUMN_ID, "name"};
+
+    private Graph graph;
+    private Authorizations authorizations;
+    private List<Element> elements;
+
+    @Before
+    public void before() {
+        graph = InMemoryGraph.create();
+        authorizations = graph.createAuthorizations();
+        Visibility visibility = new Visibility("");
+        elements = new ArrayList<>();
+        elements.add(graph.prepareVertex("v1", visibility, SchemaConstants.CONCEPT_TYPE_THING)
+                .addPropertyValue("k1", "name", stringValue("Tom"), visibility)
+                .save(authorizations));
+        elements.add(graph.prepareVertex("v2", visibility, SchemaConstants.CONCEPT_TYPE_THING)
+                .addPropertyValue("k1", "name", stringValue("Jack"), visibility)
+                .addPropertyValue("k2", "name", stringValue("Jacky"), visibility)
+                .save(authorizations));
+        elements.add(graph.prepareVertex("v3", visibility, SchemaConstants.CONCEPT_TYPE_THING)
+                .save(authorizations));
+        graph.flush();
+    }
+
+    @Test
+    public void testNdjsonRows() throws IOException {
+        StringWriter out = new StringWriter();
+
+        long rows = ElementSearchStream.writeRows(elements, 10, 2, ndjson(out), out);
+
+        assertEquals(3, rows);
+        List<String> lines = lines(out);
+        assertEquals(3, lines.size());
+
+        Map<String, Object> v1 = parse(lines.get(0));
+        assertEquals("v1", v1.get(ElementSearchStream.COLUMN_ID));
+        assertEquals(stringValue("Tom").prettyPrint(), v1.get("name"));
+
+        Map<String, Object> v2 = parse(lines.get(1));
+        assertEquals("v2", v2.get(ElementSearchStream.COLUMN_ID));
+        assertEquals(
+                Sets.newHashSet(stringValue("Jack").prettyPrint(), stringValue("Jacky").prettyPrint()),
+                Sets.newHashSet((List<?>) v2.get("name"))
+        );
+
+        Map<String, Object> v3 = parse(lines.get(2));
+        assertTrue(v3.containsKey("name"));
+        assertNull(v3.get("name"));
+    }
+
+    @Test
+    public void testTruncatedResultsEndWithErrorRow() throws IOException {
+        StringWriter out = new StringWriter();
+
+        long rows = ElementSearchStream.writeRows(elements, 2, 500, ndjson(out), out);
+
+        assertEquals(2, rows);
+        List<String> lines = lines(out);
+        assertEquals(3, lines.size());
+        assertEquals("Results truncated after 2 rows", parse(lines.get(2)).get(ElementSearchStream.COLUMN_ERROR));
+    }
+
+    @Test
+    public void testResultsOfExactlyMaxRowsAreNotTruncated() throws IOException {
+        StringWriter out = new StringWriter();
+
+        long rows = ElementSearchStream.writeRows(elements, 3, 500, ndjson(out), out);
+
+        assertEquals(3, rows);
+        assertEquals(3, lines(out).size());
+    }
+
+    @Test
+    public void testFailingSearchEndsWithErrorRow() throws IOException {
+        Iterable<GeObject> failing = () -> new Iterator<GeObject>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public GeObject next() {
+                if (next > 0) {
+                    throw new IllegalStateException("search context expired");
+                }
+                return elements.get(next++);
+            }
+        };
+        StringWriter out = new StringWriter();
+
+        String[] columns = {ElementSearchStream.COLUMN_ID, ElementSearchStream.COLUMN_TYPE};
+        long rows = ElementSearchStream.writeRows(failing, 10, 500, new ElementSearchStream.CsvRowWriter(out, columns), out);
+
+        assertEquals(1, rows);
+        assertEquals(Arrays.asList(
+                "_id_,_type_",
+                "v1,vertex",
+                "_error_,Search failed after 1 rows: search context expired"
+        ), lines(out));
+    }
+
+    private static ElementSearchStream.RowWriter ndjson(StringWriter out) {
+        return new ElementSearchStream.NdjsonRowWriter(out, COLUMNS, ObjectMapperFactory.getInstance());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> parse(String line) throws IOException {
+        return ObjectMapperFactory.getInstance().readValue(line, Map.class);
+    }
+
+    private static List<String> lines(StringWriter out) {
+        return Arrays.asList(out.toString().split("\r?\n"));
+    }
+}
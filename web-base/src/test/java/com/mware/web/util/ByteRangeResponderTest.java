@@ -0,0 +1,86 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.web.util;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ByteRangeResponderTest {
+    @Test
+    public void testParseSingleRange() {
+        List<ByteRangeResponder.ByteRange> ranges = ByteRangeResponder.parseRanges("bytes=100-199", 1000);
+        assertEquals(1, ranges.size());
+        assertEquals(100, ranges.get(0).start);
+        assertEquals(199, ranges.get(0).end);
+        assertEquals(100, ranges.get(0).getLength());
+    }
+
+    @Test
+    public void testParseOpenAndSuffixRanges() {
+        List<ByteRangeResponder.ByteRange> ranges = ByteRangeResponder.parseRanges("bytes=900-, -50, 990-5000", 1000);
+        assertEquals(3, ranges.size());
+        assertEquals("900-999", ranges.get(0).toString());
+        assertEquals("950-999", ranges.get(1).toString());
+        assertEquals("990-999", ranges.get(2).toString());
+    }
+
+    @Test
+    public void testUnsatisfiableRangesAreDropped() {
+        assertTrue(ByteRangeResponder.parseRanges("bytes=1000-1100", 1000).isEmpty());
+        assertEquals(1, ByteRangeResponder.parseRanges("bytes=1000-1100,0-0", 1000).size());
+    }
+
+    @Test
+    public void testInvalidHeadersServeWholeValue() {
+        assertNull(ByteRangeResponder.parseRanges(null, 1000));
+        assertNull(ByteRangeResponder.parseRanges("items=0-10", 1000));
+        assertNull(ByteRangeResponder.parseRanges("bytes=20-10", 1000));
+        assertNull(ByteRangeResponder.parseRanges("bytes=a-b", 1000));
+        assertNull(ByteRangeResponder.parseRanges("bytes=-", 1000));
+
+        StringBuilder tooMany = new StringBuilder("bytes=0-0");
+        for (int i = 1; i <= ByteRangeResponder.MAX_RANGES; i++) {
+            tooMany.append(",").append(i).append("-").append(i);
+        }
+        assertNull(ByteRangeResponder.parseRanges(tooMany.toString(), 1000));
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.workspace;
+
+import com.mware.ge.Graph;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DeferredNotificationsTest {
+    @Mock
+    private Graph graph;
+
+    @Test
+    public void testFailedFlushRetriesEachItem() {
+        doThrow(new RuntimeException("batch failed"))
+                .doNothing()
+                .doThrow(new RuntimeException("item failed"))
+                .when(graph).flush();
+        List<String> applied = new ArrayList<>();
+        List<String> notified = new ArrayList<>();
+        Map<String, String> failures = new HashMap<>();
+
+        DeferredNotifications.applyAll(
+                graph,
+                "junit items",
+                Arrays.asList("a", "b", "c"),
+                "c"::equals,
+                (items, notifications) -> {
+                    for (String item : items) {
+                        applied.add(item + (notifications.isRetry() ? ":retry" : ""));
+                        notifications.afterFlush(() -> notified.add(item));
+                    }
+                },
+                (item, ex) -> failures.put(item, ex.getMessage())
+        );
+
+        assertEquals(Arrays.asList("a", "b", "c", "a:retry", "b:retry"), applied);
+        assertEquals(Collections.singletonList("a"), notified);
+        assertEquals(Collections.singletonMap("b", "item failed"), failures);
+    }
+
+    @Test
+    public void testSuccessfulFlushSendsNotifications() {
+        doNothing().when(graph).flush();
+        List<String> notified = new ArrayList<>();
+
+        DeferredNotifications.applyAll(
+                graph,
+                "junit items",
+                Arrays.asList("a", "b"),
+                item -> false,
+                (items, notifications) -> items.forEach(item -> notifications.afterFlush(() -> notified.add(item))),
+                (item, ex) -> notified.add("failed " + item)
+        );
+
+        assertEquals(Arrays.asList("a", "b"), notified);
+    }
+}
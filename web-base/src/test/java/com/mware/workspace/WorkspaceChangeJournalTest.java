@@ -0,0 +1,180 @@
+/*
+ * This file is part of the BigConnect project.
+ *
+ * Copyright (c) 2013-2020 MWARE SOLUTIONS SRL
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License version 3
+ * as published by the Free Software Foundation with the addition of the
+ * following permission added to Section 15 as permitted in Section 7(a):
+ * FOR ANY PART OF THE COVERED WORK IN WHICH THE COPYRIGHT IS OWNED BY
+ * MWARE SOLUTIONS SRL, MWARE SOLUTIONS SRL DISCLAIMS THE WARRANTY OF
+ * NON INFRINGEMENT OF THIRD PARTY RIGHTS
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses or write to
+ * the Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor,
+ * Boston, MA, 02110-1301 USA, or download the license from the following URL:
+ * https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * The interactive user interfaces in modified source and object code versions
+ * of this program must display Appropriate Legal Notices, as required under
+ * Section 5 of the GNU Affero General Public License.
+ *
+ * You can be released from the requirements of the license by purchasing
+ * a commercial license. Buying such a license is mandatory as soon as you
+ * develop commercial activities involving the BigConnect software without
+ * disclosing the source code of your own applications.
+ *
+ * These activities include: offering paid services to customers as an ASP,
+ * embedding the product in a web application, shipping BigConnect with a
+ * closed source product.
+ */
+package com.mware.workspace;
+
+import com.mware.config.WebOptions;
+import com.mware.core.config.Configuration;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class WorkspaceChangeJournalTest {
+    private static final String WORKSPACE_ID = "junit-workspace";
+    private WorkspaceChangeJournal journal;
+
+    @Mock
+    private Configuration configuration;
+
+    @Before
+    public void setUp() {
+        when(configuration.get(WebOptions.WORKSPACE_CHANGE_JOURNAL_MAX_SIZE)).thenReturn(3);
+        when(configuration.get(WebOptions.WORKSPACE_CHANGE_JOURNAL_MAX_AGE_SECONDS)).thenReturn(300);
+        journal = new WorkspaceChangeJournal(configuration);
+    }
+
+    @Test
+    public void testChangesSinceCursor() {
+        assertNull(journal.getChangesSince(WORKSPACE_ID, null));
+
+        String cursor = journal.getCursor(WORKSPACE_ID);
+        journal.recordVertex(WORKSPACE_ID, "v1");
+        journal.recordEdge(WORKSPACE_ID, "e1");
+        journal.recordVertex("other-workspace", "v2");
+
+        WorkspaceChangeJournal.Changes changes = journal.getChangesSince(WORKSPACE_ID, cursor);
+        assertNotNull(changes);
+        assertEquals(1, changes.getVertexIds().size());
+        assertEquals("v1", changes.getVertexIds().get(0));
+        assertEquals("e1", changes.getEdgeIds().get(0));
+
+        WorkspaceChangeJournal.Changes noChanges = journal.getChangesSince(WORKSPACE_ID, changes.getCursor());
+        assertNotNull(noChanges);
+        assertTrue(noChanges.isEmpty());
+    }
+
+    @Test
+    public void testEvictedOrForeignCursorNeedsFullDiff() {
+        String cursor = journal.getCursor(WORKSPACE_ID);
+        journal.recordVertex(WORKSPACE_ID, "v1");
+        String afterFirst = journal.getChangesSince(WORKSPACE_ID, cursor).getCursor();
+        journal.recordVertex(WORKSPACE_ID, "v2");
+        journal.recordVertex(WORKSPACE_ID, "v3");
+        journal.recordVertex(WORKSPACE_ID, "v4");
+
+        assertNull(journal.getChangesSince(WORKSPACE_ID, cursor));
+        assertEquals(3, journal.getChangesSince(WORKSPACE_ID, afterFirst).getVertexIds().size());
+
+        String otherCursor = journal.getCursor("other-workspace");
+        assertNull(journal.getChangesSince(WORKSPACE_ID, otherCursor));
+        assertNull(journal.getChangesSince(WORKSPACE_ID, "garbage"));
+    }
+
+    @Test
+    public void testFullDiffKeepsOtherCursors() {
+        String cursor = journal.getCursor(WORKSPACE_ID);
+        journal.recordVertex(WORKSPACE_ID, "v1");
+        String otherClientCursor = journal.getCursor(WORKSPACE_ID);
+        journal.recordVertex(WORKSPACE_ID, "v2");
+
+        assertEquals(2, journal.getChangesSince(WORKSPACE_ID, cursor).getVertexIds().size());
+        assertEquals(1, journal.getChangesSince(WORKSPACE_ID, otherClientCursor).getVertexIds().size());
+    }
+
+    @Test
+    public void testBroadcastChangesAreRecorded() {
+        String cursor = journal.getCursor(WORKSPACE_ID);
+        journal.recordBroadcast(message("propertyChange", new JSONObject()
+                .put("graphVertexId", "v1")
+                .put("workspaceId", WORKSPACE_ID)));
+        journal.recordBroadcast(message("propertyChange", new JSONObject()
+                .put("graphVertexId", "v2")
+                .put("workspaceId", "other-workspace")));
+        journal.recordBroadcast(new JSONObject()
+                .put("type", "batch")
+                .put("data", new JSONArray().put(message("edgeDeletion", new JSONObject().put("edgeId", "e1")))));
+
+        WorkspaceChangeJournal.Changes changes = journal.getChangesSince(WORKSPACE_ID, cursor);
+        assertNotNull(changes);
+        assertEquals(1, changes.getVertexIds().size());
+        assertEquals("v1", changes.getVertexIds().get(0));
+        assertEquals(1, changes.getEdgeIds().size());
+        assertEquals("e1", changes.getEdgeIds().get(0));
+
+        journal.recordBroadcast(message("userStatusChange", new JSONObject()));
+        assertNotNull(journal.getChangesSince(WORKSPACE_ID, changes.getCursor()));
+    }
+
+    @Test
+    public void testWorkspaceChangeListenersHearWhichWorkspaceChanged() {
+        List<String> changedWorkspaceIds = new ArrayList<>();
+        journal.addWorkspaceChangeListener(changedWorkspaceIds::add);
+
+        journal.recordVertex(WORKSPACE_ID, "v1");
+        journal.recordVertex(null, "v2");
+        journal.recordBroadcast(message("propertyChange", new JSONObject()
+                .put("graphVertexId", "v3")
+                .put("workspaceId", "other-workspace")));
+        journal.recordBroadcast(message("publish", new JSONObject()
+                .put("graphVertexId", "v4")
+                .put("workspaceId", WORKSPACE_ID)));
+        journal.recordBroadcast(message("propertyChange", new JSONObject()));
+        journal.recordBroadcast(message("userStatusChange", new JSONObject()));
+
+        assertEquals(Arrays.asList(WORKSPACE_ID, null, "other-workspace", null, null), changedWorkspaceIds);
+    }
+
+    @Test
+    public void testUnattributableBroadcastNeedsFullDiff() {
+        String cursor = journal.getCursor(WORKSPACE_ID);
+        journal.recordBroadcast(message("propertyChange", new JSONObject().put("workspaceId", WORKSPACE_ID)));
+        assertNull(journal.getChangesSince(WORKSPACE_ID, cursor));
+    }
+
+    @Test
+    public void testOldJournalNeedsFullDiff() {
+        when(configuration.get(WebOptions.WORKSPACE_CHANGE_JOURNAL_MAX_AGE_SECONDS)).thenReturn(0);
+        WorkspaceChangeJournal expiringJournal = new WorkspaceChangeJournal(configuration);
+        String cursor = expiringJournal.getCursor(WORKSPACE_ID);
+        assertNull(expiringJournal.getChangesSince(WORKSPACE_ID, cursor));
+    }
+
+    private static JSONObject message(String type, JSONObject data) {
+        return new JSONObject().put("type", type).put("data", data);
+    }
+}
@@ -57,15 +57,20 @@ import com.mware.ge.Edge;
 import com.mware.ge.Vertex;
 import com.mware.ge.Visibility;
 import com.mware.ge.inmemory.InMemoryGraph;
+import org.json.JSONObject;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import java.util.Arrays;
+
 import static com.mware.core.model.schema.SchemaConstants.CONCEPT_TYPE_THING;
 import static com.mware.core.model.schema.SchemaRepository.PUBLIC;
 import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -89,6 +94,9 @@ public class WorkspaceHelperTest {
     @Mock
     private WebQueueRepository webQueueRepository;
 
+    @Mock
+    private WorkspaceChangeJournal workspaceChangeJournal;
+
     @Mock
     private SchemaRepository schemaRepository;
 
@@ -127,6 +135,7 @@ public class WorkspaceHelperTest {
                 termMentionRepository,
                 workQueueRepository,
                 webQueueRepository,
+                workspaceChangeJournal,
                 graph,
                 schemaRepository,
                 workspaceRepository,
@@ -194,4 +203,33 @@ public class WorkspaceHelperTest {
         assertNull(v1);
         assertNull(tm);
     }
+
+    @Test
+    public void testDeleteVertices() throws Exception {
+        Vertex doc = graph.addVertex("doc", visibility, authorizations, CONCEPT_TYPE_THING);
+        Vertex v1 = graph.addVertex("v1", visibility, authorizations, CONCEPT_TYPE_THING);
+        Vertex v2 = graph.addVertex("v2", visibility, authorizations, CONCEPT_TYPE_THING);
+        Vertex tm1 = graph.addVertex("tm1", termMentionVisibility, authorizations, CONCEPT_TYPE_THING);
+        Vertex tm2 = graph.addVertex("tm2", termMentionVisibility, authorizations, CONCEPT_TYPE_THING);
+
+        BcSchema.TERM_MENTION_RESOLVED_EDGE_ID.setProperty(tm1, "doc_to_v1", termMentionVisibility, authorizations);
+        BcSchema.TERM_MENTION_RESOLVED_EDGE_ID.setProperty(tm2, "doc_to_v2", termMentionVisibility, authorizations);
+        graph.addEdge("doc_to_tm1", doc, tm1, BcSchema.TERM_MENTION_LABEL_HAS_TERM_MENTION, termMentionVisibility, authorizations);
+        graph.addEdge("doc_to_tm2", doc, tm2, BcSchema.TERM_MENTION_LABEL_HAS_TERM_MENTION, termMentionVisibility, authorizations);
+        graph.addEdge("tm1_to_v1", tm1, v1, BcSchema.TERM_MENTION_LABEL_RESOLVED_TO, termMentionVisibility, authorizations);
+        graph.addEdge("tm2_to_v2", tm2, v2, BcSchema.TERM_MENTION_LABEL_RESOLVED_TO, termMentionVisibility, authorizations);
+        graph.addEdge("doc_to_v1", doc, v1, "link", visibility, authorizations);
+        graph.addEdge("doc_to_v2", doc, v2, "link", visibility, authorizations);
+        graph.flush();
+
+        workspaceHelper.deleteVertices(Arrays.asList(v1, v2), WORKSPACE_ID, Priority.HIGH, authorizations, user);
+
+        assertNull(graph.getVertex("v1", authorizations));
+        assertNull(graph.getVertex("v2", authorizations));
+        assertNull(graph.getVertex("tm1", authorizations));
+        assertNull(graph.getVertex("tm2", authorizations));
+        assertNull(graph.getEdge("doc_to_v1", authorizations));
+        assertNull(graph.getEdge("doc_to_v2", authorizations));
+        verify(webQueueRepository).broadcastJson(any(JSONObject.class));
+    }
 }
@@ -40,9 +40,12 @@ import com.mware.core.model.clientapi.dto.GraphPosition;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
 public class WorkspaceLayoutHelperTest {
     @Test
@@ -231,4 +234,49 @@ public class WorkspaceLayoutHelperTest {
                 WorkspaceLayoutHelper.findTopLeftOpening(graphPositions)
         );
     }
+
+    @Test
+    public void testLayoutGridIndexMatchesIsOccupied() {
+        Random random = new Random(42);
+        LayoutHints layoutHints = new LayoutHints().setXSpacing(150).setYSpacing(90);
+        List<GraphPosition> existingPositions = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            existingPositions.add(new GraphPosition(random.nextInt(6000) - 3000, random.nextInt(6000) - 3000));
+        }
+        LayoutGridIndex index = new LayoutGridIndex(existingPositions, layoutHints);
+
+        for (int i = 0; i < 2000; i++) {
+            GraphPosition graphPosition = new GraphPosition(random.nextInt(6400) - 3200, random.nextInt(6400) - 3200);
+            assertEquals(
+                    graphPosition.toString(),
+                    WorkspaceLayoutHelper.isOccupied(existingPositions, graphPosition, layoutHints),
+                    index.isOccupied(graphPosition)
+            );
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testFindOpeningsLargeGraph() {
+        int columns = 100;
+        LayoutHints layoutHints = new LayoutHints()
+                .setMaxX(LayoutHints.DEFAULT_SPACING * columns);
+        List<GraphPosition> existingPositions = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            existingPositions.add(new GraphPosition(
+                    (i % columns) * LayoutHints.DEFAULT_SPACING,
+                    (i / columns) * LayoutHints.DEFAULT_SPACING
+            ));
+        }
+
+        List<GraphPosition> openings = WorkspaceLayoutHelper.findOpenings(
+                existingPositions, new GraphPosition(0, 0), 500, layoutHints);
+
+        assertEquals(500, openings.size());
+        assertEquals("first free row", new GraphPosition(0, 50 * LayoutHints.DEFAULT_SPACING), openings.get(0));
+        assertEquals(new GraphPosition(99 * LayoutHints.DEFAULT_SPACING, 54 * LayoutHints.DEFAULT_SPACING), openings.get(499));
+        for (GraphPosition opening : openings) {
+            assertFalse(WorkspaceLayoutHelper.isOccupied(existingPositions, opening, layoutHints));
+        }
+        assertEquals(500, new HashSet<>(openings).size());
+    }
 }